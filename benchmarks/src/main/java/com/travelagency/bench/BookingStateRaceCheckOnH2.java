@@ -0,0 +1,18 @@
+package com.travelagency.bench;
+
+import com.travelagency.tools.BookingStateRaceCheck;
+
+/**
+ * Runs {@link BookingStateRaceCheck} against the in-memory {@link H2Database}, so the
+ * concurrency check needs no MySQL server: {@code gradle :benchmarks:raceCheck} (part of
+ * {@code gradle check}). Arguments are passed on; the exit status is the check's.
+ */
+public final class BookingStateRaceCheckOnH2 {
+
+    private BookingStateRaceCheckOnH2() {}
+
+    public static void main(String[] args) throws Exception {
+        H2Database.start();
+        BookingStateRaceCheck.main(args);
+    }
+}
@@ -0,0 +1,228 @@
+package com.travelagency.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory H2 database (MySQL mode) built from the application's {@code db schema}
+ * script, plus generated data at a scale the benchmarks can measure.
+ * <p>
+ * The triggers and the stored procedure are MySQL-only and are skipped. Seat counts stay
+ * right without them in the default seat mode, where the DAOs move {@code seats_booked}
+ * themselves, so the checks can book through the DAOs; the booking-detail mapping is
+ * measured on a SELECT with the procedure's column list ({@link #BOOKING_DETAIL_SQL}).
+ * {@link #start} also points {@code DatabaseConnection} at the database, so it must run
+ * before any DAO class is used.
+ */
+public final class H2Database {
+
+    public static final String URL = "jdbc:h2:mem:travelagency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    // Column list of SP_GetBookingDetails, for BookingDAO.mapBookingDetail
+    public static final String BOOKING_DETAIL_SQL =
+            "SELECT b.BookingNumber, b.state AS BookingState, b.BookingDate, cu.CustomerID, " +
+            "cu.fname AS CustomerFirstName, cu.lname AS CustomerLastName, cu.email AS CustomerEmail, " +
+            "cu.address AS CustomerAddress, cu.phoneNumber AS CustomerPhone, fl.FlightID, " +
+            "fl.TakeOffDate AS FlightTakeOffDate, fl.ArrivalDate AS FlightArrivalDate, fl.State AS FlightState, " +
+            "gf.GeneralFlightID, CONCAT(fl.TakeOffDate, ' ', gf.TakeoffTime) AS GeneralFlightScheduledDeparture, " +
+            "CONCAT(fl.ArrivalDate, ' ', gf.ArrivalTime) AS GeneralFlightScheduledArrival, gf.NumberSeats, gf.seats_booked, " +
+            "dep_ap.AirportName AS DepartureAirport, dep_city.CityName AS DepartureCity, " +
+            "arr_ap.AirportName AS ArrivalAirport, arr_city.CityName AS ArrivalCity, al.AirlineName, ac.AircraftName " +
+            "FROM Booking b " +
+            "JOIN Customer cu ON b.CustomerID = cu.CustomerID " +
+            "JOIN Flight fl ON b.FlightID = fl.FlightID " +
+            "JOIN GeneralFlight gf ON fl.GeneralFlightID = gf.GeneralFlightID " +
+            "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
+            "JOIN City dep_city ON dep_ap.CityID = dep_city.CityID " +
+            "JOIN Airport arr_ap ON gf.ArrAirport = arr_ap.AirportID " +
+            "JOIN City arr_city ON arr_ap.CityID = arr_city.CityID " +
+            "JOIN Airline al ON gf.AirlineID = al.AirlineID " +
+            "LEFT JOIN Aircraft ac ON fl.AircraftID = ac.AircraftID";
+
+    // Generated rows on top of the script's sample data
+    public static final int CITIES = 40;
+    public static final int SCHEDULES = 1_000;
+    public static final int FLIGHTS_PER_SCHEDULE = 10;
+    public static final int CUSTOMERS = 2_000;
+    public static final int BOOKINGS = 5_000;
+
+    private static boolean started;
+
+    private H2Database() {}
+
+    public static synchronized void start() throws SQLException, IOException {
+        if (started) {
+            return;
+        }
+        System.setProperty("travelagency.db.url", URL);
+        System.setProperty("travelagency.db.user", "sa");
+        System.setProperty("travelagency.db.password", "");
+        try (Connection conn = open()) {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : schemaStatements()) {
+                    stmt.execute(sql);
+                }
+            }
+            populate(conn);
+        }
+        started = true;
+    }
+
+    /** A plain (unpooled) connection, for benchmarks that work on a ResultSet directly. */
+    public static Connection open() throws SQLException {
+        return DriverManager.getConnection(URL, "sa", "");
+    }
+
+    // Statements of "db schema", without the DELIMITER blocks (triggers, procedure)
+    static List<String> schemaStatements() throws IOException {
+        String script;
+        try (InputStream in = H2Database.class.getClassLoader().getResourceAsStream("com/travelagency/db/db schema")) {
+            if (in == null) {
+                throw new IOException("'db schema' not found on the classpath");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inDelimiterBlock = false;
+        for (String line : script.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("DELIMITER")) {
+                inDelimiterBlock = !trimmed.equals("DELIMITER ;");
+                continue;
+            }
+            if (inDelimiterBlock || trimmed.startsWith("--") || trimmed.isEmpty()) {
+                continue;
+            }
+            int comment = line.indexOf(" -- ");
+            current.append(comment >= 0 ? line.substring(0, comment) : line).append('\n');
+            if (trimmed.endsWith(";") || (comment >= 0 && line.substring(0, comment).trim().endsWith(";"))) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        return statements;
+    }
+
+    private static void populate(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        int baseCities = count(conn, "City");
+        int baseAirports = count(conn, "Airport");
+        int airlines = count(conn, "Airline");
+        int aircraft = count(conn, "Aircraft");
+
+        try (PreparedStatement city = conn.prepareStatement("INSERT INTO City (CityName) VALUES (?)");
+             PreparedStatement airport = conn.prepareStatement("INSERT INTO Airport (AirportName, CityID) VALUES (?, ?)")) {
+            for (int i = 1; i <= CITIES; i++) {
+                city.setString(1, "Bench City " + i);
+                city.addBatch();
+            }
+            city.executeBatch();
+            for (int i = 1; i <= CITIES; i++) {
+                for (int a = 1; a <= 2; a++) {
+                    airport.setString(1, "Bench City " + i + " Airport " + a);
+                    airport.setInt(2, baseCities + i);
+                    airport.addBatch();
+                }
+            }
+            airport.executeBatch();
+        }
+        int airports = baseAirports + 2 * CITIES;
+
+        LocalDate firstDay = LocalDate.of(2024, 6, 1);
+        try (PreparedStatement schedule = conn.prepareStatement(
+                "INSERT INTO GeneralFlight (TakeoffTime, ArrivalTime, FDay, DepAirport, ArrAirport, AirlineID, NumberSeats, seats_booked) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, 0)")) {
+            for (int i = 0; i < SCHEDULES; i++) {
+                int dep = 1 + i % airports;
+                int arr = 1 + (i * 7 + 3) % airports;
+                if (arr == dep) {
+                    arr = 1 + dep % airports;
+                }
+                int takeoff = (i * 37) % (24 * 60);
+                schedule.setTime(1, Time.valueOf(String.format("%02d:%02d:00", takeoff / 60, takeoff % 60)));
+                int landing = (takeoff + 60 + i % 240) % (24 * 60);
+                schedule.setTime(2, Time.valueOf(String.format("%02d:%02d:00", landing / 60, landing % 60)));
+                schedule.setDate(3, Date.valueOf(firstDay));
+                schedule.setInt(4, dep);
+                schedule.setInt(5, arr);
+                schedule.setInt(6, 1 + i % airlines);
+                schedule.setInt(7, 150 + i % 100);
+                schedule.addBatch();
+            }
+            schedule.executeBatch();
+        }
+        int schedules = count(conn, "GeneralFlight");
+
+        try (PreparedStatement flight = conn.prepareStatement(
+                "INSERT INTO Flight (TakeOffDate, ArrivalDate, State, GeneralFlightID, AircraftID) VALUES (?, ?, ?, ?, ?)")) {
+            for (int gf = 1; gf <= schedules; gf++) {
+                for (int d = 0; d < FLIGHTS_PER_SCHEDULE; d++) {
+                    LocalDate day = firstDay.plusDays((gf + d * 3L) % 90);
+                    flight.setDate(1, Date.valueOf(day));
+                    flight.setDate(2, Date.valueOf(day));
+                    flight.setInt(3, d % 4 == 3 ? 2 : 0);
+                    flight.setInt(4, gf);
+                    if (d % 5 == 0) {
+                        flight.setNull(5, java.sql.Types.INTEGER);
+                    } else {
+                        flight.setInt(5, 1 + (gf + d) % aircraft);
+                    }
+                    flight.addBatch();
+                }
+            }
+            flight.executeBatch();
+        }
+
+        try (PreparedStatement customer = conn.prepareStatement(
+                "INSERT INTO Customer (CustomerID, fname, lname, address, email, phoneNumber) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= CUSTOMERS; i++) {
+                customer.setString(1, String.format("BENCH%06d", i));
+                customer.setString(2, "First" + (i % 97));
+                customer.setString(3, "Last" + (i % 211));
+                customer.setString(4, i + " Benchmark Street");
+                customer.setString(5, "bench" + i + "@example.com");
+                customer.setString(6, String.format("0555%06d", i));
+                customer.addBatch();
+            }
+            customer.executeBatch();
+        }
+
+        int flights = count(conn, "Flight");
+        try (PreparedStatement booking = conn.prepareStatement(
+                "INSERT INTO Booking (state, CustomerID, FlightID, GeneralFlightID) " +
+                "SELECT ?, ?, FlightID, GeneralFlightID FROM Flight WHERE FlightID = ?")) {
+            for (int i = 1; i <= BOOKINGS; i++) {
+                booking.setInt(1, i % 3);
+                booking.setString(2, String.format("BENCH%06d", 1 + i % CUSTOMERS));
+                booking.setInt(3, 1 + (i * 13) % flights);
+                booking.addBatch();
+            }
+            booking.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static int count(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
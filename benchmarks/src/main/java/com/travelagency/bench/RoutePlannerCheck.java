@@ -0,0 +1,181 @@
+package com.travelagency.bench;
+
+import com.travelagency.model.dto.Itinerary;
+import com.travelagency.service.RoutePlanner;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Behaviour check for {@link RoutePlanner} on a small network of its own, added to the
+ * {@link H2Database} data before the schedules are loaded: the minimum connection time
+ * (met exactly, missed by a minute), the next-day departure when the day's one has left,
+ * legs that land after midnight and connections made after one, and the k limit on
+ * alternatives together with the earliest-arrival order and the connection limit.
+ * <p>
+ * Run with {@code gradle :benchmarks:routeCheck} (part of {@code gradle check}). Exits
+ * with status 1 if any check fails.
+ */
+public final class RoutePlannerCheck {
+
+    private final RoutePlanner planner = RoutePlanner.getInstance();
+    private final Map<Integer, Integer> airportOf = new HashMap<>(); // City id -> its one airport
+    private final Map<Integer, String> names = new HashMap<>();      // GeneralFlightID -> schedule name
+    private int a, b, c, d;                                           // City ids
+    private int failures;
+
+    private RoutePlannerCheck() {}
+
+    public static void main(String[] args) throws Exception {
+        H2Database.start();
+        RoutePlannerCheck check = new RoutePlannerCheck();
+        check.network();
+        check.minimumConnection();
+        check.nextDay();
+        check.overnight();
+        check.alternatives();
+        System.out.println(check.failures == 0 ? "PASS: route planner" : "Check failed: " + check.failures + " failure(s)");
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    // A -> B -> C with two onward flights from B, a later direct A -> C, and C -> D -> A across midnight
+    private void network() throws SQLException {
+        try (Connection conn = H2Database.open()) {
+            a = city(conn, "Route Check A");
+            b = city(conn, "Route Check B");
+            c = city(conn, "Route Check C");
+            d = city(conn, "Route Check D");
+            int airline;
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT MIN(AirlineID) FROM Airline")) {
+                rs.next();
+                airline = rs.getInt(1);
+            }
+            schedule(conn, "ab", a, b, "08:00", "09:00", airline);
+            schedule(conn, "bc1", b, c, "09:30", "10:30", airline);
+            schedule(conn, "bc2", b, c, "10:30", "11:30", airline);
+            schedule(conn, "ac", a, c, "13:00", "14:00", airline);
+            schedule(conn, "cd", c, d, "23:00", "01:00", airline);
+            schedule(conn, "da", d, a, "02:00", "03:00", airline);
+        }
+    }
+
+    // Landing at 09:00 and leaving at 09:30 is a 30 minute connection
+    private void minimumConnection() throws SQLException {
+        expect("connection: 30 min allowed, 30 min available", plan(a, c, "07:00", 1, 30, 1),
+                "ab+bc1 08:00 -> 10:30");
+        expect("connection: 31 min needed, the 09:30 is missed", plan(a, c, "07:00", 1, 31, 1),
+                "ab+bc2 08:00 -> 11:30");
+        expect("connection: 91 min needed, both onward flights missed, the direct one wins", plan(a, c, "07:00", 1, 91, 1),
+                "ac 13:00 -> 14:00");
+        expect("connection: the minimum does not apply to the first leg", plan(a, b, "08:00", 0, 120, 1),
+                "ab 08:00 -> 09:00");
+    }
+
+    private void nextDay() throws SQLException {
+        expect("next day: the 08:00 has left at 08:01, tomorrow's is taken", plan(a, b, "08:01", 0, 0, 1),
+                "ab 08:00 (+1) -> 09:00 (+1)");
+        expect("next day: each missed departure waits another day", plan(b, a, "12:00", 2, 0, 1),
+                "bc1+cd+da 09:30 (+1) -> 03:00 (+2)");
+    }
+
+    private void overnight() throws SQLException {
+        List<Itinerary> night = plan(c, d, "22:00", 0, 0, 1);
+        expect("overnight: a leg landing at 01:00 lands the next day", night, "cd 23:00 -> 01:00 (+1)");
+        check("overnight: duration is 120 min", night.size() == 1 && night.get(0).getDurationMinutes() == 120, night);
+        expect("overnight: a connection after midnight the same night", plan(c, a, "22:00", 1, 45, 1),
+                "cd+da 23:00 -> 03:00 (+1)");
+        expect("overnight: a missed connection after midnight waits a day", plan(c, a, "22:00", 1, 90, 1),
+                "cd+da 23:00 -> 03:00 (+2)");
+        expect("overnight: on equal arrivals the fewer connections win", plan(a, d, "07:00", 2, 30, 1),
+                "ac+cd 13:00 -> 01:00 (+1)");
+    }
+
+    // Three ways from A to C: two through B and the direct flight
+    private void alternatives() throws SQLException {
+        expect("k = 1: the earliest arrival", plan(a, c, "07:00", 1, 30, 1),
+                "ab+bc1 08:00 -> 10:30");
+        expect("k = 2: the two earliest arrivals", plan(a, c, "07:00", 1, 30, 2),
+                "ab+bc1 08:00 -> 10:30", "ab+bc2 08:00 -> 11:30");
+        expect("k = 3: every itinerary, earliest arrival first", plan(a, c, "07:00", 1, 30, 3),
+                "ab+bc1 08:00 -> 10:30", "ab+bc2 08:00 -> 11:30", "ac 13:00 -> 14:00");
+        expect("k = 5: no more than there are", plan(a, c, "07:00", 1, 30, 5),
+                "ab+bc1 08:00 -> 10:30", "ab+bc2 08:00 -> 11:30", "ac 13:00 -> 14:00");
+        expect("no connections allowed: the direct flight only", plan(a, c, "07:00", 0, 30, 3),
+                "ac 13:00 -> 14:00");
+        expect("connection limit: B -> A takes three legs, two are not enough", plan(b, a, "12:00", 1, 0, 3));
+        expect("connection limit: three legs when two connections are allowed", plan(c, b, "22:00", 2, 0, 3),
+                "cd+da+ab 23:00 -> 09:00 (+1)");
+        boolean refused = false;
+        try {
+            plan(a, c, "07:00", 1, 30, 0);
+        } catch (IllegalArgumentException e) {
+            refused = true;
+        }
+        check("k = 0 is refused", refused, "");
+    }
+
+    private List<Itinerary> plan(int from, int to, String earliest, int maxConnections, int minConnection, int k)
+            throws SQLException {
+        int minute = Time.valueOf(earliest + ":00").toLocalTime().toSecondOfDay() / 60;
+        return planner.plan(from, to, minute, maxConnections, minConnection, k);
+    }
+
+    // Itineraries as "ab+bc1 08:00 -> 10:30", in the order returned
+    private void expect(String what, List<Itinerary> found, String... expected) {
+        List<String> trips = new ArrayList<>();
+        for (Itinerary it : found) {
+            StringJoiner legs = new StringJoiner("+");
+            for (Itinerary.Leg leg : it.getLegs()) {
+                legs.add(names.getOrDefault(leg.getGeneralFlightId(), "#" + leg.getGeneralFlightId()));
+            }
+            trips.add(legs + " " + Itinerary.clock(it.getDepartureMinute()) + " -> " + Itinerary.clock(it.getArrivalMinute()));
+        }
+        check(what, trips.equals(List.of(expected)), trips);
+    }
+
+    private void check(String what, boolean ok, Object detail) {
+        System.out.println((ok ? "ok    " : "FAIL  ") + what + (ok ? "" : ": " + detail));
+        if (!ok) {
+            failures++;
+        }
+    }
+
+    // One city with one airport
+    private int city(Connection conn, String name) throws SQLException {
+        int cityId = insert(conn, "INSERT INTO City (CityName) VALUES (?)", name);
+        airportOf.put(cityId, insert(conn, "INSERT INTO Airport (AirportName, CityID) VALUES (?, ?)", name + " Airport", cityId));
+        return cityId;
+    }
+
+    private void schedule(Connection conn, String name, int from, int to, String takeoff, String arrival, int airline)
+            throws SQLException {
+        int id = insert(conn, "INSERT INTO GeneralFlight (TakeoffTime, ArrivalTime, FDay, DepAirport, ArrAirport, AirlineID, NumberSeats) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, 100)",
+                Time.valueOf(takeoff + ":00"), Time.valueOf(arrival + ":00"), Date.valueOf("2025-01-01"),
+                airportOf.get(from), airportOf.get(to), airline);
+        names.put(id, name);
+    }
+
+    private static int insert(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+}
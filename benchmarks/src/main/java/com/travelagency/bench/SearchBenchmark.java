@@ -0,0 +1,98 @@
+package com.travelagency.bench;
+
+import com.travelagency.dao.AirlineDAO;
+import com.travelagency.dao.BookingDAO;
+import com.travelagency.dao.CustomerDAO;
+import com.travelagency.dao.FlightDAO;
+import com.travelagency.dao.ReferenceDataCache;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.Customer;
+import com.travelagency.model.dto.Page;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end searches through the DAOs, the connection pool and the statement cache,
+ * against the in-memory H2 database of {@link H2Database}. H2 is not MySQL, so compare
+ * these numbers with each other across commits, not with production latencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private final FlightDAO flightDAO = new FlightDAO();
+    private final AirlineDAO airlineDAO = new AirlineDAO();
+    private final CustomerDAO customerDAO = new CustomerDAO();
+    private final BookingDAO bookingDAO = new BookingDAO();
+
+    private final Date start = Date.valueOf("2024-06-01");
+    private final Date end = Date.valueOf("2024-08-31");
+    private String deepCustomerCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        H2Database.start();
+        ReferenceDataCache.getInstance().preload();
+        // Cursor roughly in the middle of the customer list, for the deep-page benchmark
+        String cursor = null;
+        for (int skipped = 0; skipped < H2Database.CUSTOMERS / 2; skipped += 500) {
+            Page<Customer> page = customerDAO.listCustomers(500, cursor);
+            cursor = page.getNextCursor();
+        }
+        deepCustomerCursor = cursor;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.closeConnection();
+    }
+
+    @Benchmark
+    public List<?> schedulesBetweenCities() throws SQLException {
+        return flightDAO.searchFlightSchedulesByCities("Bench City 1", "Bench City 2");
+    }
+
+    @Benchmark
+    public List<?> flightsFromCityInPeriod() throws SQLException {
+        return flightDAO.searchFlightsFromCityInPeriod("Bench City 3", start, end);
+    }
+
+    @Benchmark
+    public List<?> airlinesInCity() throws SQLException {
+        return airlineDAO.getAirlinesInCity("Bench City 4");
+    }
+
+    @Benchmark
+    public Page<?> customersFirstPage() throws SQLException {
+        return customerDAO.listCustomers(50, null);
+    }
+
+    @Benchmark
+    public Page<?> customersDeepPage() throws SQLException {
+        return customerDAO.listCustomers(50, deepCustomerCursor);
+    }
+
+    @Benchmark
+    public Page<?> bookingsFirstPage() throws SQLException {
+        return bookingDAO.listBookings(50, null);
+    }
+}
@@ -0,0 +1,156 @@
+package com.travelagency.dao;
+
+import com.travelagency.bench.H2Database;
+import com.travelagency.model.Airport;
+import com.travelagency.model.City;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Behaviour check for {@link CityNameIndex} on the {@link H2Database} places: every query
+ * (blank, one and two characters, accented, punctuated, longer) must give exactly the
+ * cities a plain substring scan of the folded city and airport names gives, and the
+ * index must follow the places version as cities are added, renamed and deleted,
+ * airports are added and the cache is reloaded after an edit made outside the DAOs.
+ * <p>
+ * Run with {@code gradle :benchmarks:cityIndexCheck} (part of {@code gradle check}).
+ * Exits with status 1 if any check fails.
+ */
+public final class CityNameIndexCheck {
+
+    private final CityNameIndex index = CityNameIndex.getInstance();
+    private final ReferenceDataCache cache = ReferenceDataCache.getInstance();
+    private final CityDAO cities = new CityDAO();
+    private int failures;
+
+    private CityNameIndexCheck() {}
+
+    public static void main(String[] args) throws Exception {
+        H2Database.start();
+        CityNameIndexCheck check = new CityNameIndexCheck();
+        check.shortQueries();
+        check.longQueries();
+        check.rebuildOnVersionChange();
+        check.rebuildOnReload();
+        System.out.println(check.failures == 0 ? "PASS: city name index" : "Check failed: " + check.failures + " failure(s)");
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    // Under three folded characters there is no trigram; the names are scanned instead
+    private void shortQueries() throws SQLException {
+        check("blank: null matches every city", index.resolveCityIds(null).length == cache.getAllCities().size(),
+                index.resolveCityIds(null).length);
+        for (String query : new String[] { "", "   ", "-", "o", "O", "é", "9", "es", "ES", "Sé", "É.", " a ", "zz" }) {
+            matchesScan("short: \"" + printable(query) + "\"", query);
+        }
+        int oran = cityId("Oran");
+        check("short: \"S\\u00e9\" finds Oran through its airport", contains(index.resolveCityIds("Sé"), oran),
+                Arrays.toString(index.resolveCityIds("Sé")));
+        check("short: \"\\u00c9.\" folds to \"e\"", Arrays.equals(index.resolveCityIds("É."), index.resolveCityIds("e")),
+                Arrays.toString(index.resolveCityIds("É.")));
+        check("short: \"zz\" matches nothing", index.resolveCityIds("zz").length == 0, Arrays.toString(index.resolveCityIds("zz")));
+    }
+
+    private void longQueries() throws SQLException {
+        for (String query : new String[] { "alg", "ORAN", "sénia", "SENIA", "es senia", "Es-Sénia", "city 1", "bench city 12",
+                "airport 1", "houari boumediene", "lgier", "qqq", "bench cityx" }) {
+            matchesScan("long: \"" + printable(query) + "\"", query);
+        }
+        check("long: \"SENIA\" finds Oran without the accent", Arrays.equals(index.resolveCityIds("SENIA"), new int[] { cityId("Oran") }),
+                Arrays.toString(index.resolveCityIds("SENIA")));
+    }
+
+    // The DAO write-through bumps the places version; the next query sees the change
+    private void rebuildOnVersionChange() throws SQLException {
+        index.warm();
+        long before = cache.getPlacesVersion();
+        City city = new City("Qwertzbourg");
+        cities.addCity(city);
+        check("add city: the places version moves", cache.getPlacesVersion() != before, cache.getPlacesVersion());
+        expect("add city: found by a long query", "qwertz", city.getCityId());
+        expect("add city: found by a short query", "qw", city.getCityId());
+
+        city.setCityName("Yxcvbourg");
+        cities.updateCity(city);
+        expect("rename: the old name is gone", "qwertz");
+        expect("rename: the new name is found", "yxcvb", city.getCityId());
+
+        new AirportDAO().addAirport(new Airport("Plöppfeld Airfield", city.getCityId()));
+        expect("add airport: its name finds its city", "ploppfeld", city.getCityId());
+
+        cities.deleteCity(city.getCityId());
+        expect("delete city: the name is gone", "yxcvb");
+        expect("delete city: the airport name is gone too", "ploppfeld");
+        matchesScan("delete city: \"yx\"", "yx");
+    }
+
+    // An edit behind the DAOs' back shows once the cache is reloaded
+    private void rebuildOnReload() throws SQLException {
+        try (Connection conn = H2Database.open();
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO City (CityName) VALUES ('Hjklstadt')")) {
+            ps.executeUpdate();
+        }
+        expect("outside edit: not seen before a reload", "hjkl");
+        cache.invalidateAll();
+        int[] found = index.resolveCityIds("hjkl");
+        check("outside edit: found after a reload", found.length == 1 && found[0] == cityId("Hjklstadt"), Arrays.toString(found));
+    }
+
+    // The index must agree with a substring scan of every folded city and airport name
+    private void matchesScan(String what, String query) throws SQLException {
+        String folded = CityNameIndex.fold(query);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (City city : cache.getAllCities()) {
+            if (CityNameIndex.fold(city.getCityName()).contains(folded)) {
+                expected.add(city.getCityId());
+            }
+        }
+        for (Airport airport : cache.getAllAirports()) {
+            if (cache.getCity(airport.getCityId()) != null && CityNameIndex.fold(airport.getAirportName()).contains(folded)) {
+                expected.add(airport.getCityId());
+            }
+        }
+        int[] scan = expected.stream().mapToInt(Integer::intValue).toArray();
+        int[] found = index.resolveCityIds(query);
+        check(what + " agrees with a scan (" + scan.length + " match(es))", Arrays.equals(found, scan),
+                "index " + Arrays.toString(found) + ", scan " + Arrays.toString(scan));
+    }
+
+    private void expect(String what, String query, int... cityIds) throws SQLException {
+        int[] found = index.resolveCityIds(query);
+        check(what, Arrays.equals(found, cityIds), Arrays.toString(found));
+    }
+
+    private int cityId(String name) throws SQLException {
+        for (City city : cache.getAllCities()) {
+            if (city.getCityName().equals(name)) {
+                return city.getCityId();
+            }
+        }
+        throw new IllegalStateException("No city " + name);
+    }
+
+    // Query text with non-ASCII characters escaped, for consoles that cannot show them
+    private static String printable(String text) {
+        StringBuilder sb = new StringBuilder();
+        for (char ch : text.toCharArray()) {
+            sb.append(ch < 128 ? String.valueOf(ch) : String.format("\\u%04x", (int) ch));
+        }
+        return sb.toString();
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    private void check(String what, boolean ok, Object detail) {
+        System.out.println((ok ? "ok    " : "FAIL  ") + what + (ok ? "" : ": " + detail));
+        if (!ok) {
+            failures++;
+        }
+    }
+}
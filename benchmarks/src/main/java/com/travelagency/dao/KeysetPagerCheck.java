@@ -0,0 +1,182 @@
+package com.travelagency.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Behaviour check for the {@link KeysetPager} cursors, no database needed: keys come back
+ * unchanged from {@code encode} to {@code decode}, and a cursor of another listing, with
+ * another key length, that is not Base64, is cut short, has bytes appended or has any
+ * one of its header or length bytes flipped is refused with an IllegalArgumentException
+ * instead of reaching the SQL.
+ * <p>
+ * Run with {@code gradle :benchmarks:pagerCheck} (part of {@code gradle check}). Exits
+ * with status 1 if any check fails.
+ */
+public final class KeysetPagerCheck {
+
+    private int failures;
+
+    private KeysetPagerCheck() {}
+
+    public static void main(String[] args) {
+        KeysetPagerCheck check = new KeysetPagerCheck();
+        check.roundTrip();
+        check.otherListing();
+        check.notACursor();
+        check.flippedBytes();
+        check.pageSize();
+        System.out.println(check.failures == 0 ? "PASS: keyset pager" : "Check failed: " + check.failures + " failure(s)");
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    private void roundTrip() {
+        String[][] keys = {
+                { "2025-03-01", "42" },
+                { "2025-03-01", "23:59:00", "2147483647" },
+                { "Benali", "Ahmed", "7" },
+                { "", "", "0" },
+                { "Sénia", "日本", "🚀" },   // Accent, CJK, a surrogate pair
+                { "a,b;c", "x'y\"z", "/+=?&" },
+                { "x".repeat(10_000) },
+        };
+        for (String[] key : keys) {
+            String cursor = KeysetPager.encode("flights", key);
+            String[] back = KeysetPager.decode(cursor, "flights", key.length);
+            check("round trip: " + key.length + " part(s) " + printable(Arrays.toString(key), 60), Arrays.equals(back, key),
+                    printable(Arrays.toString(back), 60));
+            check("round trip: the cursor is URL-safe", cursor.matches("[A-Za-z0-9_-]+"), cursor);
+        }
+        check("null cursor: first page", KeysetPager.decode(null, "flights", 2) == null, "");
+        check("empty cursor: first page", KeysetPager.decode("", "flights", 2) == null, "");
+        String cursor = KeysetPager.encode("schedule-search", "2025-03-01", "08:00:00", "1");
+        check("belongsTo: own listing", KeysetPager.belongsTo(cursor, "schedule-search"), "");
+        check("belongsTo: other listing", !KeysetPager.belongsTo(cursor, "flights"), "");
+        check("belongsTo: garbage", !KeysetPager.belongsTo("%%%", "flights"), "");
+    }
+
+    private void otherListing() {
+        String flights = KeysetPager.encode("flights", "2025-03-01", "42");
+        refused("wrong listing: a flight cursor on bookings", flights, "bookings", 2);
+        refused("wrong listing: differs only in case", flights, "Flights", 2);
+        refused("wrong listing: a prefix of the listing", KeysetPager.encode("flight", "2025-03-01", "42"), "flights", 2);
+        refused("wrong key length: 2 parts read as 3", flights, "flights", 3);
+        refused("wrong key length: 2 parts read as 1", flights, "flights", 1);
+    }
+
+    private void notACursor() {
+        String cursor = KeysetPager.encode("customers", "Benali", "Ahmed", "7");
+        refused("garbage: not Base64", "not a cursor!", "customers", 3);
+        refused("garbage: standard Base64 alphabet", cursor.replace('-', '+').replace('_', '/') + "+/", "customers", 3);
+        refused("garbage: Base64 of plain text",
+                Base64.getUrlEncoder().encodeToString("customers Benali Ahmed 7".getBytes(StandardCharsets.UTF_8)), "customers", 3);
+        refused("garbage: a single character", "A", "customers", 3);
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        List<Integer> accepted = new ArrayList<>();
+        for (int n = 1; n < bytes.length; n++) { // Zero bytes is the empty cursor: first page
+            if (!isRefused(encode(Arrays.copyOf(bytes, n)), "customers", 3)) {
+                accepted.add(n);
+            }
+        }
+        check("truncated: every shorter cursor is refused", accepted.isEmpty(), "accepted at lengths " + accepted);
+        byte[] longer = Arrays.copyOf(bytes, bytes.length + 1);
+        refused("appended: one byte after the key", encode(longer), "customers", 3);
+        refused("appended: a second cursor after the key", cursor + KeysetPager.encode("customers", "x", "y", "1"), "customers", 3);
+    }
+
+    // Flipping a byte of the header (listing, key count) or of a part's length must not go unnoticed;
+    // a flip inside a part's text gives another key, which the DAOs parse and bind as a parameter
+    private void flippedBytes() {
+        String[] key = { "2025-03-01", "08:00:00", "1234" };
+        byte[] bytes = Base64.getUrlDecoder().decode(KeysetPager.encode("schedule-search", key));
+        boolean[] structural = new boolean[bytes.length];
+        int pos = 0;
+        for (int i = 0; i < 2 + "schedule-search".length() + 1; i++) {
+            structural[pos++] = true;           // Listing length, listing, key count
+        }
+        for (String part : key) {
+            structural[pos] = structural[pos + 1] = true;   // Part length
+            pos += 2 + part.length();
+        }
+        List<Integer> accepted = new ArrayList<>();
+        List<Integer> wrongLength = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i++) {
+            for (int mask : new int[] { 0x01, 0x80, 0xFF }) {
+                byte[] flipped = bytes.clone();
+                flipped[i] ^= mask;
+                String cursor = encode(flipped);
+                if (isRefused(cursor, "schedule-search", 3)) {
+                    continue;
+                }
+                if (structural[i]) {
+                    accepted.add(i);
+                } else if (KeysetPager.decode(cursor, "schedule-search", 3).length != 3) {
+                    wrongLength.add(i);
+                }
+            }
+        }
+        check("flipped byte: every header and length byte is refused (" + bytes.length + " bytes, 3 masks)",
+                accepted.isEmpty(), "accepted at offsets " + accepted);
+        check("flipped byte: text flips still give a 3-part key", wrongLength.isEmpty(), "offsets " + wrongLength);
+    }
+
+    // Checked before any connection is taken
+    private void pageSize() {
+        for (int size : new int[] { 0, -1, KeysetPager.MAX_PAGE_SIZE + 1 }) {
+            boolean refused = false;
+            try {
+                KeysetPager.fetch("SELECT 1 LIMIT ?", "SELECT 1 LIMIT ?", null, size, rs -> 1, "flights", row -> new String[0]);
+            } catch (IllegalArgumentException e) {
+                refused = true;
+            } catch (SQLException e) {
+                // Got as far as the database
+            }
+            check("page size " + size + " is refused", refused, "");
+        }
+    }
+
+    private void refused(String what, String cursor, String listing, int keyLength) {
+        check(what, isRefused(cursor, listing, keyLength), "decoded as " + describe(cursor, listing, keyLength));
+    }
+
+    private static boolean isRefused(String cursor, String listing, int keyLength) {
+        try {
+            KeysetPager.decode(cursor, listing, keyLength);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage().startsWith("Invalid page cursor");
+        }
+    }
+
+    private static String describe(String cursor, String listing, int keyLength) {
+        try {
+            return printable(Arrays.toString(KeysetPager.decode(cursor, listing, keyLength)), 60);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Non-ASCII characters escaped and long text cut, for the console
+    private static String printable(String text, int max) {
+        StringBuilder sb = new StringBuilder();
+        for (char ch : text.toCharArray()) {
+            sb.append(ch < 128 ? String.valueOf(ch) : String.format("\\u%04x", (int) ch));
+        }
+        return sb.length() <= max ? sb.toString() : sb.substring(0, max) + "...";
+    }
+
+    private void check(String what, boolean ok, Object detail) {
+        System.out.println((ok ? "ok    " : "FAIL  ") + what + (ok ? "" : ": " + detail));
+        if (!ok) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.travelagency.dao;
+
+import com.travelagency.bench.H2Database;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResultSet-to-model mapping of each DAO, without the query: every table is read once
+ * into a scrollable result set and each invocation maps all of its rows again. Scores are
+ * per result set; divide by the row counts in {@link H2Database} for a per-row cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private Connection conn;
+    private ResultSet customers, flights, generalFlights, bookings, bookingDetails;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        H2Database.start();
+        conn = H2Database.open();
+        customers = query("SELECT * FROM Customer");
+        flights = query("SELECT * FROM Flight");
+        generalFlights = query("SELECT * FROM GeneralFlight");
+        bookings = query("SELECT * FROM Booking");
+        bookingDetails = query(H2Database.BOOKING_DETAIL_SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    private ResultSet query(String sql) throws SQLException {
+        Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        return stmt.executeQuery(sql);
+    }
+
+    @Benchmark
+    public void mapCustomers(Blackhole bh) throws SQLException {
+        customers.beforeFirst();
+        while (customers.next()) {
+            bh.consume(CustomerDAO.mapCustomer(customers));
+        }
+    }
+
+    @Benchmark
+    public void mapFlights(Blackhole bh) throws SQLException {
+        flights.beforeFirst();
+        while (flights.next()) {
+            bh.consume(FlightDAO.mapFlight(flights));
+        }
+    }
+
+    @Benchmark
+    public void mapGeneralFlights(Blackhole bh) throws SQLException {
+        generalFlights.beforeFirst();
+        while (generalFlights.next()) {
+            bh.consume(GeneralFlightDAO.mapGeneralFlight(generalFlights));
+        }
+    }
+
+    @Benchmark
+    public void mapBookings(Blackhole bh) throws SQLException {
+        bookings.beforeFirst();
+        while (bookings.next()) {
+            bh.consume(BookingDAO.mapBooking(bookings));
+        }
+    }
+
+    // Same column list as SP_GetBookingDetails, mapped by retrieveBookingDetailsSP
+    @Benchmark
+    public void mapBookingDetails(Blackhole bh) throws SQLException {
+        bookingDetails.beforeFirst();
+        while (bookingDetails.next()) {
+            bh.consume(BookingDAO.mapBookingDetail(bookingDetails));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.travelagency.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Behaviour check for {@link ConnectionPool} against an in-memory H2 database: borrow and
+ * return, validation on borrow, idle eviction, maximum lifetime and leak detection. Each
+ * part builds its own small pool with short timeouts.
+ * <p>
+ * Run with {@code gradle :benchmarks:poolCheck} (part of {@code gradle check}). Exits with
+ * status 1 if any check fails.
+ */
+public final class ConnectionPoolCheck {
+
+    private static final String URL = "jdbc:h2:mem:poolcheck;DB_CLOSE_DELAY=-1";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private int failures;
+
+    private ConnectionPoolCheck() {}
+
+    public static void main(String[] args) throws Exception {
+        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS pool_check (id INT PRIMARY KEY)");
+        }
+        ConnectionPoolCheck check = new ConnectionPoolCheck();
+        check.borrowAndReturn();
+        check.validationOnBorrow();
+        check.idleEviction();
+        check.maxLifetime();
+        check.leakDetection();
+        System.out.println(check.failures == 0 ? "PASS: connection pool" : "Check failed: " + check.failures + " failure(s)");
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    // Two connections at most: a third borrower times out (tryBorrow gives up quietly), a returned connection is reused
+    // (with its open transaction rolled back) and its old handle stops working
+    private void borrowAndReturn() throws Exception {
+        ConnectionPool pool = newPool(2, 0, 200L, 60_000L, 60_000L, 0L, 0L);
+        try {
+            Connection first = pool.borrow();
+            Connection second = pool.borrow();
+            check("borrow: two connections open", pool.getOpenCount() == 2 && pool.getActiveCount() == 2, pool);
+            long start = System.nanoTime();
+            boolean timedOut = false;
+            try {
+                pool.borrow().close();
+            } catch (SQLTransientConnectionException e) {
+                timedOut = true;
+            }
+            long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+            check("borrow: a third borrower times out after about 200 ms",
+                    timedOut && waitedMillis >= 150 && pool.getBorrowTimeouts() == 1, "waited " + waitedMillis + " ms");
+            check("tryBorrow: null instead of a timeout while all are in use",
+                    pool.tryBorrow(50L) == null && pool.getBorrowTimeouts() == 1, pool);
+
+            first.setAutoCommit(false);
+            try (Statement stmt = first.createStatement()) {
+                stmt.executeUpdate("INSERT INTO pool_check (id) VALUES (1)");
+            }
+            first.close();
+            first.close(); // Closing twice returns it once
+            check("return: the connection goes back idle", pool.getIdleCount() == 1 && pool.getActiveCount() == 1, pool);
+            boolean handleDead = false;
+            try {
+                first.createStatement();
+            } catch (SQLException e) {
+                handleDead = true;
+            }
+            check("return: the old handle refuses further calls", handleDead && first.isClosed(), "");
+
+            Connection again = pool.borrow();
+            int rows;
+            try (Statement stmt = again.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pool_check")) {
+                rs.next();
+                rows = rs.getInt(1);
+            }
+            check("reuse: no new connection opened", pool.getConnectionsOpened() == 2, pool);
+            check("reuse: the unfinished transaction was rolled back", again.getAutoCommit() && rows == 0, rows + " row(s)");
+            again.close();
+            second.close();
+            check("return: all connections idle", pool.getIdleCount() == 2 && pool.getActiveCount() == 0, pool);
+        } finally {
+            pool.shutdown();
+        }
+        check("shutdown: idle connections closed", pool.getOpenCount() == 0, pool);
+    }
+
+    // A connection whose session died while idle is dropped on borrow and replaced
+    private void validationOnBorrow() throws Exception {
+        ConnectionPool pool = newPool(2, 0, 1_000L, 60_000L, 60_000L, 0L, 0L);
+        try {
+            Connection conn = pool.borrow();
+            int sessionId;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT SESSION_ID()")) {
+                rs.next();
+                sessionId = rs.getInt(1);
+            }
+            conn.close();
+            try (Connection admin = DriverManager.getConnection(URL, USER, PASSWORD);
+                 PreparedStatement abort = admin.prepareStatement("SELECT ABORT_SESSION(?)")) {
+                abort.setInt(1, sessionId);
+                abort.executeQuery().close();
+            }
+            Thread.sleep(5); // Idle for longer than validationIdleMillis (0)
+            conn = pool.borrow();
+            boolean works;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT 1")) {
+                works = rs.next();
+            }
+            conn.close();
+            check("validation: the dead connection was replaced on borrow",
+                    works && pool.getConnectionsClosed() == 1 && pool.getConnectionsOpened() == 2, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Idle connections above minIdle are closed by the housekeeper (it runs every second here)
+    private void idleEviction() throws Exception {
+        ConnectionPool pool = newPool(3, 1, 1_000L, 300L, 60_000L, 0L, 60_000L);
+        try {
+            Connection a = pool.borrow(), b = pool.borrow(), c = pool.borrow();
+            a.close();
+            b.close();
+            c.close();
+            boolean evicted = waitFor(() -> pool.getIdleCount() == 1, 5_000L);
+            check("idle eviction: down to minIdle", evicted && pool.getOpenCount() == 1 && pool.getConnectionsClosed() == 2, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // A connection older than maxLifetime is closed when returned, and never handed out again
+    private void maxLifetime() throws Exception {
+        ConnectionPool pool = newPool(2, 0, 1_000L, 60_000L, 300L, 0L, 60_000L);
+        try {
+            Connection old = pool.borrow();
+            Connection young = pool.borrow();
+            young.close();
+            Thread.sleep(400);
+            old.close();
+            check("max lifetime: closed on return", pool.getConnectionsClosed() >= 1, pool);
+            Connection fresh = pool.borrow();
+            fresh.close();
+            check("max lifetime: an expired idle connection is not handed out",
+                    pool.getConnectionsClosed() == 2 && pool.getConnectionsOpened() == 3 && pool.getOpenCount() == 1, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // A connection held past the threshold is reported once (a short idle timeout makes the housekeeper run every second)
+    private void leakDetection() throws Exception {
+        ConnectionPool pool = newPool(2, 0, 1_000L, 300L, 60_000L, 300L, 60_000L);
+        try {
+            Connection held = pool.borrow();
+            pool.borrow().close(); // Returned at once: not a leak
+            boolean reported = waitFor(() -> pool.getLeaksDetected() > 0, 5_000L);
+            Thread.sleep(1_200); // Another housekeeping pass must not report it again
+            check("leak detection: the held connection is reported once", reported && pool.getLeaksDetected() == 1, pool);
+            held.close();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ConnectionPool newPool(int maxSize, int minIdle, long borrowTimeoutMillis, long idleTimeoutMillis,
+                                          long maxLifetimeMillis, long leakDetectionMillis, long validationIdleMillis) {
+        return new ConnectionPool(URL, USER, PASSWORD, maxSize, minIdle, borrowTimeoutMillis, validationIdleMillis,
+                idleTimeoutMillis, maxLifetimeMillis, leakDetectionMillis, 0, null);
+    }
+
+    private static boolean waitFor(BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    private void check(String what, boolean ok, Object detail) {
+        System.out.println((ok ? "ok    " : "FAIL  ") + what + (ok ? "" : ": " + detail));
+        if (!ok) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.travelagency.ui;
+
+import com.travelagency.bench.H2Database;
+import com.travelagency.dao.AirlineDAO;
+import com.travelagency.dao.AirportDAO;
+import com.travelagency.dao.GeneralFlightDAO;
+import com.travelagency.dao.ReferenceDataCache;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.GeneralFlight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text building of populateGeneralFlightComboBox: names from the reference cache plus
+ * String.format, for every schedule. The schedules are loaded once, so only the UI-side
+ * work is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScheduleDisplayBenchmark {
+
+    private final AirportDAO airportDAO = new AirportDAO();
+    private final AirlineDAO airlineDAO = new AirlineDAO();
+    private List<GeneralFlight> schedules;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        H2Database.start();
+        schedules = new GeneralFlightDAO().getAllGeneralFlights();
+        ReferenceDataCache.getInstance().preload();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.closeConnection();
+    }
+
+    @Benchmark
+    public void generalFlightComboText(Blackhole bh) {
+        for (GeneralFlight gf : schedules) {
+            bh.consume(MainAppFrame.generalFlightDisplay(gf, airportDAO, airlineDAO));
+        }
+    }
+}
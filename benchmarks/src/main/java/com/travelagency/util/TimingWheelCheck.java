@@ -0,0 +1,147 @@
+package com.travelagency.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Behaviour check for {@link TimingWheel} with the shape {@code SeatHoldService} uses
+ * (8 bits a level) and a 1 ms tick, so deadlines are tick numbers: expiry on both sides
+ * of the level boundaries (255/256, 65535/65536), cancelling before and after an entry
+ * cascades, moving a deadline to another level (how a hold is extended), past deadlines
+ * and deadlines beyond the top level.
+ * <p>
+ * Run with {@code gradle :benchmarks:wheelCheck} (part of {@code gradle check}). Exits
+ * with status 1 if any check fails.
+ */
+public final class TimingWheelCheck {
+
+    private static final int BITS = 8;
+
+    private int failures;
+
+    private TimingWheelCheck() {}
+
+    public static void main(String[] args) {
+        TimingWheelCheck check = new TimingWheelCheck();
+        check.levelBoundaries();
+        check.cancelBeforeCascade();
+        check.cancelAfterCascade();
+        check.extendAcrossLevels();
+        check.pastDeadline();
+        check.beyondTopLevel();
+        System.out.println(check.failures == 0 ? "PASS: timing wheel" : "Check failed: " + check.failures + " failure(s)");
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    // Each entry fires on its own tick, not one early or late, whatever tick the wheel started on
+    private void levelBoundaries() {
+        long[] starts = { 0, 1, 200, 255, 65500 };
+        for (long offset : new long[] { 1, 255, 256, 257, 511, 512, 65535, 65536, 65537, 65791, 65792 }) {
+            List<String> wrong = new ArrayList<>();
+            for (long start : starts) {
+                Driven w = new Driven(4, start);
+                w.wheel.schedule("hold", start + offset);
+                w.advanceTo(start + offset + 300);
+                if (!w.firedAt.equals(List.of(start + offset)) || w.wheel.size() != 0) {
+                    wrong.add("start " + start + ": fired at " + w.firedAt);
+                }
+            }
+            check("expiry: a deadline " + offset + " tick(s) ahead fires on its tick", wrong.isEmpty(), wrong);
+        }
+    }
+
+    // Entries still on a higher level are removed before they ever move down
+    private void cancelBeforeCascade() {
+        Driven w = new Driven(4, 0);
+        TimingWheel.Timeout<String> far = w.wheel.schedule("far", 70_000);  // Level 2
+        TimingWheel.Timeout<String> near = w.wheel.schedule("near", 300);   // Level 1
+        w.advanceTo(10);
+        boolean cancelled = w.wheel.cancel(far) && w.wheel.cancel(near);
+        w.advanceTo(80_000);
+        check("cancel before cascade: nothing fires", cancelled && w.firedAt.isEmpty() && w.wheel.size() == 0, w.firedAt);
+        check("cancel before cascade: a second cancel is refused", !w.wheel.cancel(far), "");
+    }
+
+    // Entries that have already moved down a level (or two) are still found and removed
+    private void cancelAfterCascade() {
+        Driven w = new Driven(4, 0);
+        TimingWheel.Timeout<String> one = w.wheel.schedule("level 1", 300);
+        TimingWheel.Timeout<String> two = w.wheel.schedule("level 2", 65_536 + 300);
+        TimingWheel.Timeout<String> kept = w.wheel.schedule("kept", 65_536 + 301);
+        w.advanceTo(256);            // "level 1" cascades into level 0
+        boolean first = w.wheel.cancel(one);
+        w.advanceTo(65_536 + 256);   // "level 2" has cascaded twice, down to level 0
+        boolean second = w.wheel.cancel(two);
+        w.advanceTo(70_000);
+        check("cancel after cascade: cancelled entries do not fire, their neighbour does",
+                first && second && w.fired.equals(List.of("kept")) && w.firedAt.equals(List.of(65_837L)) && w.wheel.size() == 0,
+                w.fired + " at " + w.firedAt);
+        check("cancel after firing is refused", !w.wheel.cancel(kept), "");
+    }
+
+    // Extending a hold cancels it and schedules it again, usually on another level
+    private void extendAcrossLevels() {
+        Driven w = new Driven(4, 0);
+        TimingWheel.Timeout<String> hold = w.wheel.schedule("hold", 100);   // Level 0
+        w.advanceTo(50);
+        w.wheel.cancel(hold);
+        w.wheel.schedule("hold", 70_000);                                    // Level 2
+        w.advanceTo(70_100);
+        check("extend: level 0 to level 2 fires at the new deadline only", w.firedAt.equals(List.of(70_000L)), w.firedAt);
+
+        hold = w.wheel.schedule("hold", 140_000);                            // Level 2 again
+        w.advanceTo(70_200);
+        w.wheel.cancel(hold);
+        w.wheel.schedule("hold", 70_500);                                    // Shortened: level 1
+        w.advanceTo(200_000);
+        check("extend: shortening from level 2 to level 1 fires at the new deadline",
+                w.firedAt.equals(List.of(70_000L, 70_500L)) && w.wheel.size() == 0, w.firedAt);
+    }
+
+    // A deadline already past fires on the next tick
+    private void pastDeadline() {
+        Driven w = new Driven(4, 1_000);
+        w.wheel.schedule("late", 10);
+        w.advanceTo(1_005);
+        check("past deadline: fires on the next tick", w.firedAt.equals(List.of(1_001L)), w.firedAt);
+    }
+
+    // With two levels the wheel spans 65536 ticks; a later deadline waits and is placed again
+    private void beyondTopLevel() {
+        Driven w = new Driven(2, 0);
+        w.wheel.schedule("far", 200_000);
+        w.wheel.schedule("near", 65_535);
+        w.advanceTo(250_000);
+        check("beyond the top level: fires at its deadline", w.firedAt.equals(List.of(65_535L, 200_000L)), w.firedAt);
+    }
+
+    private void check(String what, boolean ok, Object detail) {
+        System.out.println((ok ? "ok    " : "FAIL  ") + what + (ok ? "" : ": " + detail));
+        if (!ok) {
+            failures++;
+        }
+    }
+
+    // A wheel with a 1 ms tick advanced one tick at a time, noting what fired on which tick
+    private static final class Driven {
+        final TimingWheel<String> wheel;
+        final List<String> fired = new ArrayList<>();
+        final List<Long> firedAt = new ArrayList<>();
+        long now;
+
+        Driven(int levels, long start) {
+            wheel = new TimingWheel<>(1, BITS, levels, start);
+            now = start;
+        }
+
+        void advanceTo(long to) {
+            while (now < to) {
+                long tick = ++now;
+                wheel.advance(tick, value -> {
+                    fired.add(value);
+                    firedAt.add(tick);
+                });
+            }
+        }
+    }
+}
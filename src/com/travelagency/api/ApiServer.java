@@ -0,0 +1,435 @@
+package com.travelagency.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.travelagency.dao.BookingDAO;
+import com.travelagency.dao.CustomerDAO;
+import com.travelagency.dao.DaoMetrics;
+import com.travelagency.dao.FlightDAO;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.Booking;
+import com.travelagency.model.BookingDetail;
+import com.travelagency.model.Customer;
+import com.travelagency.model.Flight;
+import com.travelagency.service.SeatHoldService;
+import com.travelagency.util.Threads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless JSON API over the DAO layer, for the web front-end and kiosks.
+ * <p>
+ * Built on the JDK's {@code com.sun.net.httpserver}; each request runs on its own
+ * virtual thread (see {@link Threads#newPerTaskExecutor}). At most
+ * {@code travelagency.api.maxInFlight} requests (default: the connection pool's maximum
+ * size) do database work at once. Beyond that the server answers 503 with
+ * {@code Retry-After} at once instead of queueing, so requests do not wait in the pool's
+ * borrow for a connection that is not coming. A request that takes longer than
+ * {@code travelagency.api.timeoutMs} (default 5000) gets 504. Its work is interrupted
+ * and keeps its in-flight slot until it has really finished.
+ * <p>
+ * Searches answer one page, {@code {"items": [...], "nextCursor": ...}}: {@code limit}
+ * rows (default 50, at most {@code travelagency.api.maxPageSize}, default 100), and
+ * {@code cursor=<nextCursor>} asks for the next page.
+ * <pre>
+ * GET  /api/flights/schedules?from=Oran&amp;to=Paris        schedules between two cities (paged)
+ * GET  /api/flights?from=Oran&amp;start=2024-08-01&amp;end=2024-08-31  operational flights from a city (paged)
+ * POST /api/bookings  {"customerId":"NATID12345","flightId":1}   create a booking (201); a pending one
+ *                     holds its seat for "holdMinutes" (default travelagency.holds.ttlMinutes)
+ * POST /api/bookings/{bookingNumber}/confirm             confirm a held booking (409 once the hold is gone)
+ * GET  /api/bookings/{bookingNumber}                      booking details (SP_GetBookingDetails)
+ * GET  /api/customers/{customerId}                        one customer
+ * GET  /api/health                                        counters
+ * GET  /metrics                                           DAO metrics, Prometheus text format
+ * </pre>
+ */
+public class ApiServer {
+
+    private static final long TIMEOUT_MS = Long.getLong("travelagency.api.timeoutMs", 5000L);
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = Integer.getInteger("travelagency.api.maxPageSize", 100);
+
+    private final HttpServer server;
+    private final ExecutorService requestThreads = Threads.newPerTaskExecutor("api-request");
+    private final ExecutorService workThreads = Threads.newPerTaskExecutor("api-work");
+    // One request per pooled connection: more would only wait in borrow() until they time out
+    private final int maxInFlight = Integer.getInteger("travelagency.api.maxInFlight", DatabaseConnection.getPool().getMaxSize());
+    private final Semaphore inFlight = new Semaphore(maxInFlight);
+
+    private final FlightDAO flightDAO = new FlightDAO();
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private final CustomerDAO customerDAO = new CustomerDAO();
+
+    // Stats
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ApiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(requestThreads);
+        server.createContext("/api/flights/schedules", route("GET", this::searchSchedules));
+        server.createContext("/api/flights", route("GET", this::searchFlights));
+        server.createContext("/api/bookings", exchange -> {
+            // POST /api/bookings creates, POST /api/bookings/{n}/confirm confirms a hold; GET /api/bookings/{n} reads
+            boolean post = "POST".equals(exchange.getRequestMethod());
+            boolean confirm = post && exchange.getRequestURI().getPath().endsWith("/confirm");
+            route(post ? "POST" : "GET", confirm ? this::confirmHold : post ? this::createBooking : this::getBooking).handle(exchange);
+        });
+        server.createContext("/api/customers", route("GET", this::getCustomer));
+        server.createContext("/api/health", exchange -> {
+            try {
+                send(exchange, 200, health());
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/metrics", exchange -> {
+            try {
+                byte[] bytes = DaoMetrics.prometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("API listening on port " + server.getAddress().getPort()
+                + " (max in flight " + maxInFlight + ", timeout " + TIMEOUT_MS + " ms)");
+    }
+
+    /** Stops accepting requests, gives open ones up to {@code delaySeconds} to finish, then stops the workers. */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        requestThreads.shutdownNow();
+        workThreads.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public Map<String, Object> health() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("status", "up");
+        stats.put("inFlight", maxInFlight - inFlight.availablePermits());
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("requests", requests.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    // --- Endpoints ---
+
+    private Response searchSchedules(Request request) throws SQLException {
+        return Response.ok(flightDAO.searchFlightSchedulesByCities(request.required("from"), request.required("to"),
+                request.pageSize(), request.query.get("cursor")));
+    }
+
+    private Response searchFlights(Request request) throws SQLException {
+        Date start = request.date("start");
+        Date end = request.date("end");
+        if (end.before(start)) {
+            throw new IllegalArgumentException("'end' is before 'start'");
+        }
+        return Response.ok(flightDAO.searchFlightsFromCityInPeriod(request.required("from"), start, end,
+                request.pageSize(), request.query.get("cursor")));
+    }
+
+    private Response createBooking(Request request) throws SQLException {
+        if (!request.path.equals("/api/bookings")) {
+            return Response.error(404, "Not found");
+        }
+        Object parsed = Json.parse(request.body);
+        if (!(parsed instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        Map<?, ?> body = (Map<?, ?>) parsed;
+        Object customerId = body.get("customerId");
+        Object flightId = body.get("flightId");
+        Object state = body.containsKey("state") ? body.get("state") : 0L; // 0 = Pending, as in the booking form
+        Object holdMinutes = body.containsKey("holdMinutes")
+                ? body.get("holdMinutes") : TimeUnit.MILLISECONDS.toMinutes(SeatHoldService.getDefaultTtlMillis());
+        if (!(customerId instanceof String) || !(flightId instanceof Long) || !(state instanceof Long)
+                || ((Long) state != 0 && (Long) state != 1) || !(holdMinutes instanceof Long) || (Long) holdMinutes < 0) {
+            throw new IllegalArgumentException("Expected {\"customerId\": string, \"flightId\": integer, \"state\": 0|1 (optional), "
+                    + "\"holdMinutes\": integer >= 0 (optional, 0 = no expiry)}");
+        }
+        Flight flight = flightDAO.getFlightById(((Long) flightId).intValue());
+        if (flight == null) {
+            return Response.error(404, "No flight with FlightID " + flightId);
+        }
+        if (flight.getState() != 0 && flight.getState() != 1) {
+            return Response.error(409, "Flight " + flightId + " is " + flight.getStateString() + " and cannot be booked");
+        }
+        Booking booking = new Booking(((Long) state).intValue(), (String) customerId, flight.getFlightId(), flight.getGeneralFlightId());
+        booking.setBookingDate(new Timestamp(System.currentTimeMillis()));
+        boolean added = booking.getState() == 0
+                ? SeatHoldService.getInstance().hold(booking, TimeUnit.MINUTES.toMillis((Long) holdMinutes))
+                : bookingDAO.addBooking(booking);
+        if (!added) {
+            return Response.error(500, "Booking was not created");
+        }
+        return new Response(201, booking);
+    }
+
+    private Response confirmHold(Request request) throws SQLException {
+        String tail = request.pathTail("/api/bookings/");
+        int bookingNumber;
+        try {
+            bookingNumber = Integer.parseInt(tail.substring(0, tail.length() - "/confirm".length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Booking number must be an integer");
+        }
+        if (!SeatHoldService.getInstance().confirm(bookingNumber)) {
+            return Response.error(409, "Booking " + bookingNumber + " is not held (expired, cancelled or already confirmed)");
+        }
+        return Response.ok(bookingDAO.getBookingByNumber(bookingNumber));
+    }
+
+    private Response getBooking(Request request) throws SQLException {
+        int bookingNumber;
+        try {
+            bookingNumber = Integer.parseInt(request.pathTail("/api/bookings/"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Booking number must be an integer");
+        }
+        BookingDetail detail = bookingDAO.retrieveBookingDetailsSP(bookingNumber);
+        return detail == null ? Response.error(404, "No booking " + bookingNumber) : Response.ok(detail);
+    }
+
+    private Response getCustomer(Request request) throws SQLException {
+        String customerId = request.pathTail("/api/customers/");
+        Customer customer = customerDAO.getCustomerById(customerId);
+        return customer == null ? Response.error(404, "No customer " + customerId) : Response.ok(customer);
+    }
+
+    // --- Plumbing ---
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Response handle(Request request) throws SQLException;
+    }
+
+    private HttpHandler route(String method, Endpoint endpoint) {
+        return exchange -> {
+            requests.increment();
+            try {
+                if (!method.equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    send(exchange, 405, error("Method not allowed"));
+                    return;
+                }
+                Request request;
+                try {
+                    request = Request.of(exchange);
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, error(e.getMessage()));
+                    return;
+                }
+                if (!inFlight.tryAcquire()) {
+                    rejected.increment();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, error("Server busy, retry shortly"));
+                    return;
+                }
+                Future<Response> work;
+                try {
+                    work = workThreads.submit(() -> {
+                        try {
+                            return endpoint.handle(request);
+                        } finally {
+                            inFlight.release(); // Only once the database work is really over
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    send(exchange, 503, error("Server is shutting down"));
+                    return;
+                }
+                Response response;
+                try {
+                    response = work.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    work.cancel(true);
+                    timedOut.increment();
+                    response = Response.error(504, "Request timed out after " + TIMEOUT_MS + " ms");
+                } catch (InterruptedException e) {
+                    work.cancel(true);
+                    Thread.currentThread().interrupt();
+                    response = Response.error(503, "Server is shutting down");
+                } catch (ExecutionException e) {
+                    response = failure(e.getCause());
+                }
+                send(exchange, response.status, response.body);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private Response failure(Throwable cause) {
+        if (cause instanceof IllegalArgumentException) {
+            return Response.error(400, cause.getMessage());
+        }
+        if (cause instanceof SQLException) {
+            SQLException e = (SQLException) cause;
+            if ("45000".equals(e.getSQLState())) {
+                return Response.error(409, e.getMessage()); // Raised by the booking rules, e.g. no seats left
+            }
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                return Response.error(422, e.getMessage()); // Constraint violation, e.g. unknown customer
+            }
+        }
+        failed.increment();
+        System.err.println("API request failed: " + cause);
+        return Response.error(500, "Internal error");
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return body;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class Response {
+        final int status;
+        final Object body;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response ok(Object body) {
+            return new Response(200, body);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, ApiServer.error(message));
+        }
+    }
+
+    // Everything an endpoint needs, read on the request thread so the exchange is never touched after a timeout
+    private static final class Request {
+        final String path;
+        final Map<String, String> query;
+        final String body;
+
+        private Request(String path, Map<String, String> query, String body) {
+            this.path = path;
+            this.query = query;
+            this.body = body;
+        }
+
+        static Request of(HttpExchange exchange) throws IOException {
+            Map<String, String> query = new LinkedHashMap<>();
+            String raw = exchange.getRequestURI().getRawQuery();
+            if (raw != null) {
+                for (String pair : raw.split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        query.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+                    }
+                }
+            }
+            return new Request(exchange.getRequestURI().getPath(), query, readBody(exchange.getRequestBody()));
+        }
+
+        String required(String name) {
+            String value = query.get(name);
+            if (value == null || value.trim().isEmpty()) {
+                throw new IllegalArgumentException("Query parameter '" + name + "' is required");
+            }
+            return value.trim();
+        }
+
+        Date date(String name) {
+            try {
+                return Date.valueOf(required(name));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Query parameter '" + name + "' must be a date (yyyy-MM-dd)");
+            }
+        }
+
+        // Requested page size, capped at MAX_PAGE_SIZE
+        int pageSize() {
+            String value = query.get("limit");
+            if (value == null) {
+                return DEFAULT_PAGE_SIZE;
+            }
+            try {
+                int limit = Integer.parseInt(value.trim());
+                if (limit < 1) {
+                    throw new IllegalArgumentException();
+                }
+                return Math.min(limit, MAX_PAGE_SIZE);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Query parameter 'limit' must be a positive integer");
+            }
+        }
+
+        String pathTail(String prefix) {
+            if (!path.startsWith(prefix) || path.length() == prefix.length()) {
+                throw new IllegalArgumentException("Expected " + prefix + "{id}");
+            }
+            return decode(path.substring(prefix.length()));
+        }
+
+        private static String decode(String s) {
+            return URLDecoder.decode(s, StandardCharsets.UTF_8);
+        }
+
+        private static String readBody(InputStream in) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                if (bytes.size() + n > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("Request body larger than " + MAX_BODY_BYTES + " bytes");
+                }
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+}
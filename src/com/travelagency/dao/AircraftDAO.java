@@ -8,12 +8,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
 
 public class AircraftDAO {
 
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_AIRCRAFT = DaoMetrics.metric("AircraftDAO", "addAircraft");
+
     public boolean addAircraft(Aircraft aircraft) throws SQLException {
+        long started = System.nanoTime();
         String sql = "INSERT INTO Aircraft (AircraftName) VALUES (?)";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -25,65 +28,31 @@ public class AircraftDAO {
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
-                return false;
+                return ADD_AIRCRAFT.success(started, false);
             }
             generatedKeys = pstmt.getGeneratedKeys();
             if (generatedKeys.next()) {
                 aircraft.setAircraftId(generatedKeys.getInt(1));
+                ReferenceDataCache.getInstance().aircraftChanged(aircraft);
             }
-            return true;
+            return ADD_AIRCRAFT.success(started, true);
+        } catch (SQLException | RuntimeException e) {
+            ADD_AIRCRAFT.failure(started);
+            throw e;
         } finally {
             if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
 
     public List<Aircraft> getAllAircraft() throws SQLException {
-        List<Aircraft> aircraftList = new ArrayList<>();
-        String sql = "SELECT * FROM Aircraft ORDER BY AircraftName";
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                Aircraft aircraft = new Aircraft(
-                    rs.getInt("AircraftID"),
-                    rs.getString("AircraftName")
-                );
-                aircraftList.add(aircraft);
-            }
-        } finally {
-            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
-            if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
-        }
-        return aircraftList;
+        return ReferenceDataCache.getInstance().getAllAircraft(); // Ordered by AircraftName
     }
-// In src/com/travelagency/dao/AircraftDAO.java
-public Aircraft getAircraftById(int aircraftId) throws SQLException {
-    String sql = "SELECT * FROM Aircraft WHERE AircraftID = ?";
-    Aircraft aircraft = null;
-    Connection conn = null;
-    PreparedStatement pstmt = null;
-    ResultSet rs = null;
-    try {
-        conn = DatabaseConnection.getConnection();
-        pstmt = conn.prepareStatement(sql);
-        pstmt.setInt(1, aircraftId);
-        rs = pstmt.executeQuery();
-        if (rs.next()) {
-            aircraft = new Aircraft(
-                rs.getInt("AircraftID"),
-                rs.getString("AircraftName")
-            );
-        }
-    } finally {
-        // Close resources
-        if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
-        if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+
+    // Served from ReferenceDataCache; the Aircraft table is loaded once
+    public Aircraft getAircraftById(int aircraftId) throws SQLException {
+        return ReferenceDataCache.getInstance().getAircraft(aircraftId);
     }
-    return aircraft;
-} // Add getAircraftById, updateAircraft, deleteAircraft as needed
+    // Add updateAircraft, deleteAircraft as needed
 }
\ No newline at end of file
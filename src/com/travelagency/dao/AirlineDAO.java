@@ -13,7 +13,12 @@ import java.util.List;
 
 public class AirlineDAO {
 
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_AIRLINE = DaoMetrics.metric("AirlineDAO", "addAirline");
+    private static final DaoMetrics.Metric GET_AIRLINES_IN_CITY = DaoMetrics.metric("AirlineDAO", "getAirlinesInCity");
+
     public boolean addAirline(Airline airline) throws SQLException {
+        long started = System.nanoTime();
         String sql = "INSERT INTO Airline (AirlineName) VALUES (?)";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -25,65 +30,44 @@ public class AirlineDAO {
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
-                return false;
+                return ADD_AIRLINE.success(started, false);
             }
             generatedKeys = pstmt.getGeneratedKeys();
             if (generatedKeys.next()) {
                 airline.setAirlineId(generatedKeys.getInt(1));
+                ReferenceDataCache.getInstance().airlineChanged(airline);
             }
-            return true;
+            return ADD_AIRLINE.success(started, true);
+        } catch (SQLException | RuntimeException e) {
+            ADD_AIRLINE.failure(started);
+            throw e;
         } finally {
             if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
 
     public List<Airline> getAllAirlines() throws SQLException {
-        List<Airline> airlines = new ArrayList<>();
-        String sql = "SELECT * FROM Airline ORDER BY AirlineName";
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                Airline airline = new Airline(
-                    rs.getInt("AirlineID"),
-                    rs.getString("AirlineName")
-                );
-                airlines.add(airline);
-            }
-        } finally {
-            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
-            if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
-        }
-        return airlines;
+        return ReferenceDataCache.getInstance().getAllAirlines(); // Ordered by AirlineName
     }
+    // Served from ReferenceDataCache; the Airline table is loaded once
     public Airline getAirlineById(int airlineId) throws SQLException {
-        String sql = "SELECT * FROM Airline WHERE AirlineID = ?";
-        Airline airline = null;
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, airlineId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    airline = new Airline(rs.getInt("AirlineID"), rs.getString("AirlineName"));
-                }
-            }
-        }
-        return airline;
+        return ReferenceDataCache.getInstance().getAirline(airlineId);
     }
     // Functionality 6: Retrieve the list of companies that have a flight working in a specific city.
     public List<Airline> getAirlinesInCity(String cityName) throws SQLException {
+        long started = System.nanoTime();
         List<Airline> airlines = new ArrayList<>();
+        int[] cityIds = CityNameIndex.getInstance().resolveCityIds(cityName); // Partial, case- and accent-insensitive, as LIKE was
+        if (cityIds.length == 0) {
+            return GET_AIRLINES_IN_CITY.success(started, airlines);
+        }
         String sql = "SELECT DISTINCT a.AirlineID, a.AirlineName " +
                      "FROM GeneralFlight gf " +
                      "JOIN Airline a ON gf.AirlineID = a.AirlineID " +
                      "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
-                     "JOIN City c ON dep_ap.CityID = c.CityID " +
-                     "WHERE c.CityName LIKE ? " + // Using LIKE for flexibility
+                     "WHERE dep_ap.CityID IN (" + CityNameIndex.placeholders(cityIds.length) + ") " +
                      "ORDER BY a.AirlineName DESC"; // As per requirement
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -91,7 +75,7 @@ public class AirlineDAO {
         try {
             conn = DatabaseConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, "%" + cityName + "%");
+            CityNameIndex.bindIds(pstmt, 1, cityIds);
             rs = pstmt.executeQuery();
             while (rs.next()) {
                 Airline airline = new Airline(
@@ -100,11 +84,15 @@ public class AirlineDAO {
                 );
                 airlines.add(airline);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_AIRLINES_IN_CITY.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return airlines;
+        return GET_AIRLINES_IN_CITY.success(started, airlines);
     }
-    // Add getAirlineById, updateAirline, deleteAirline as needed
+    // Add updateAirline, deleteAirline as needed
 }
\ No newline at end of file
@@ -8,12 +8,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
 
 public class AirportDAO {
 
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_AIRPORT = DaoMetrics.metric("AirportDAO", "addAirport");
+
     public boolean addAirport(Airport airport) throws SQLException {
+        long started = System.nanoTime();
         String sql = "INSERT INTO Airport (AirportName, CityID) VALUES (?, ?)";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -26,70 +29,31 @@ public class AirportDAO {
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
-                return false;
+                return ADD_AIRPORT.success(started, false);
             }
             generatedKeys = pstmt.getGeneratedKeys();
             if (generatedKeys.next()) {
                 airport.setAirportId(generatedKeys.getInt(1));
+                ReferenceDataCache.getInstance().airportChanged(airport);
             }
-            return true;
+            return ADD_AIRPORT.success(started, true);
+        } catch (SQLException | RuntimeException e) {
+            ADD_AIRPORT.failure(started);
+            throw e;
         } finally {
             if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
 
     public List<Airport> getAllAirports() throws SQLException {
-        List<Airport> airports = new ArrayList<>();
-        // Join with City to get CityName for better display if needed later,
-        // but for pure Airport objects, this is enough.
-        String sql = "SELECT * FROM Airport ORDER BY AirportName";
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                Airport airport = new Airport(
-                    rs.getInt("AirportID"),
-                    rs.getString("AirportName"),
-                    rs.getInt("CityID")
-                );
-                airports.add(airport);
-            }
-        } finally {
-            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
-            if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
-        }
-        return airports;
+        return ReferenceDataCache.getInstance().getAllAirports(); // Ordered by AirportName
     }
 
-    // You can add getAirportById, updateAirport, deleteAirport similar to CityDAO
-    // Example: getAirportById
+    // You can add updateAirport, deleteAirport similar to CityDAO
+    // Served from ReferenceDataCache; the Airport table is loaded once
     public Airport getAirportById(int airportId) throws SQLException {
-        String sql = "SELECT * FROM Airport WHERE AirportID = ?";
-        Airport airport = null;
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, airportId);
-            rs = pstmt.executeQuery();
-            if (rs.next()) {
-                airport = new Airport(
-                    rs.getInt("AirportID"),
-                    rs.getString("AirportName"),
-                    rs.getInt("CityID")
-                );
-            }
-        } finally {
-            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
-            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
-        }
-        return airport;
+        return ReferenceDataCache.getInstance().getAirport(airportId);
     }
 }
\ No newline at end of file
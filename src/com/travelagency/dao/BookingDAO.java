@@ -3,56 +3,272 @@ package com.travelagency.dao;
 import com.travelagency.db.DatabaseConnection;
 import com.travelagency.model.Booking;
 import com.travelagency.model.BookingDetail; // For the SP
+import com.travelagency.model.BookingState;
+import com.travelagency.model.dto.BookingOutcome;
+import com.travelagency.model.dto.Page;
+import com.travelagency.service.SeatInventory;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.BatchUpdateException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.CallableStatement; // For Stored Procedures
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 public class BookingDAO {
 
-    // Add new booking. Database triggers handle seat counts.
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_BOOKING = DaoMetrics.metric("BookingDAO", "addBooking");
+    private static final DaoMetrics.Metric ADD_BOOKINGS = DaoMetrics.metric("BookingDAO", "addBookings");
+    private static final DaoMetrics.Metric GET_BOOKING_BY_NUMBER = DaoMetrics.metric("BookingDAO", "getBookingByNumber");
+    private static final DaoMetrics.Metric LIST_BOOKINGS = DaoMetrics.metric("BookingDAO", "listBookings");
+    private static final DaoMetrics.Metric RETRIEVE_BOOKING_DETAILS_SP = DaoMetrics.metric("BookingDAO", "retrieveBookingDetailsSP");
+    private static final DaoMetrics.Metric UPDATE_BOOKING_STATE = DaoMetrics.metric("BookingDAO", "updateBookingState");
+    private static final DaoMetrics.Metric FOR_EACH_HOLD = DaoMetrics.metric("BookingDAO", "forEachHold");
+    private static final DaoMetrics.Metric EXTEND_HOLD = DaoMetrics.metric("BookingDAO", "extendHold");
+    private static final DaoMetrics.Metric EXPIRE_HOLDS = DaoMetrics.metric("BookingDAO", "expireHolds");
+
+    /** Expected version for {@link #updateBookingState(int, int, int)} that applies the change to the current row. */
+    public static final int ANY_VERSION = -1;
+
+    // Optimistic locking in updateBookingState
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BACKOFF_BASE_MICROS = 500;
+    private static final long BACKOFF_MAX_MICROS = 20_000;
+    private static final String DEADLOCK_STATE = "40001";
+
+    // Seat holds expired per statement in expireHolds; shorter chunks are padded to keep one statement shape
+    public static final int EXPIRE_CHUNK = 256;
+
+    private static final String INSERT_SQL = "INSERT INTO Booking (state, CustomerID, FlightID, GeneralFlightID, BookingDate, hold_expires_at) " +
+                                             "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Add new booking. With app-managed seats the seat is taken in the same transaction as
+    // the INSERT (see SeatInventory); otherwise the insert trigger counts it.
     public boolean addBooking(Booking booking) throws SQLException {
-        String sql = "INSERT INTO Booking (state, CustomerID, FlightID, GeneralFlightID, BookingDate) " +
-                     "VALUES (?, ?, ?, ?, ?)";
+        long started = System.nanoTime();
+        boolean takesSeat = DatabaseConnection.isAppManagedSeats() && booking.getState() != 2;
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet generatedKeys = null;
         try {
             conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            pstmt.setInt(1, booking.getState());
-            pstmt.setString(2, booking.getCustomerId());
-            pstmt.setInt(3, booking.getFlightId());
-            pstmt.setInt(4, booking.getGeneralFlightId()); // Crucial for the insert trigger
-            if (booking.getBookingDate() != null) {
-                pstmt.setTimestamp(5, booking.getBookingDate());
-            } else {
-                pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis())); // Default to now
+            if (takesSeat) {
+                conn.setAutoCommit(false);
+                if (!SeatInventory.getInstance().reserve(conn, booking.getGeneralFlightId(), 1)) {
+                    throw noSeats("No available seats for this flight schedule.");
+                }
             }
-
+            pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            bindInsert(pstmt, booking);
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
-                return false;
+                if (takesSeat) conn.rollback();
+                return ADD_BOOKING.success(started, false);
             }
             generatedKeys = pstmt.getGeneratedKeys();
             if (generatedKeys.next()) {
                 booking.setBookingNumber(generatedKeys.getInt(1));
             }
-            return true;
+            if (takesSeat) conn.commit();
+            return ADD_BOOKING.success(started, true);
+        } catch (SQLException | RuntimeException e) {
+            ADD_BOOKING.failure(started);
+            if (takesSeat && conn != null) try { conn.rollback(); } catch (SQLException logOrIgnore) {}
+            throw e;
         } finally {
             if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            if (takesSeat && conn != null) try { conn.setAutoCommit(true); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
 
+    /**
+     * Inserts a group of bookings (e.g. a school trip) in one transaction and returns one
+     * outcome per booking, in the same order: its generated BookingNumber or its error.
+     * <p>
+     * With app-managed seats, the seats are taken first in the same transaction, one
+     * conditional UPDATE per schedule. If a schedule has fewer seats left than rows, the
+     * first rows get them and the others fail without reaching the INSERT. The rows go in
+     * one JDBC batch, which the driver rewrites into a multi-row INSERT
+     * ({@code rewriteBatchedStatements=true}). If the batch fails (a bad customer, or a
+     * trigger rejecting a row), it is rolled back with its seats. The rows are then
+     * inserted one by one under savepoints, each taking its own seat, so each failing row
+     * is reported and the others are kept.
+     */
+    public List<BookingOutcome> addBookings(List<Booking> bookings) throws SQLException {
+        long started = System.nanoTime();
+        BookingOutcome[] outcomes = new BookingOutcome[bookings.size()];
+        try {
+            if (!bookings.isEmpty()) {
+                insertBatch(bookings, outcomes);
+            }
+        } catch (SQLException | RuntimeException e) {
+            ADD_BOOKINGS.failure(started);
+            throw e;
+        }
+        return ADD_BOOKINGS.success(started, new ArrayList<>(Arrays.asList(outcomes)));
+    }
+
+    private void insertBatch(List<Booking> bookings, BookingOutcome[] outcomes) throws SQLException {
+        boolean appSeats = DatabaseConnection.isAppManagedSeats();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet generatedKeys = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            List<Integer> toInsert = appSeats ? takeSeats(conn, bookings, outcomes) : allRows(bookings.size());
+            pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            for (int i : toInsert) {
+                bindInsert(pstmt, bookings.get(i));
+                pstmt.addBatch();
+            }
+            boolean batched;
+            try {
+                if (!toInsert.isEmpty()) {
+                    pstmt.executeBatch();
+                }
+                batched = true;
+            } catch (BatchUpdateException e) {
+                conn.rollback(); // The seats taken above too
+                pstmt.clearBatch();
+                batched = false;
+            }
+
+            if (batched) {
+                if (!toInsert.isEmpty()) {
+                    generatedKeys = pstmt.getGeneratedKeys();
+                }
+                for (int i : toInsert) {
+                    Booking booking = bookings.get(i);
+                    if (generatedKeys.next()) {
+                        booking.setBookingNumber(generatedKeys.getInt(1));
+                    }
+                    outcomes[i] = BookingOutcome.success(booking);
+                }
+            } else {
+                for (int i = 0; i < bookings.size(); i++) {
+                    Booking booking = bookings.get(i);
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        if (appSeats && booking.getState() != 2
+                                && !SeatInventory.getInstance().reserve(conn, booking.getGeneralFlightId(), 1)) {
+                            throw noSeats("No available seats for this flight schedule.");
+                        }
+                        bindInsert(pstmt, booking);
+                        pstmt.executeUpdate();
+                        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                            if (keys.next()) {
+                                booking.setBookingNumber(keys.getInt(1));
+                            }
+                        }
+                        conn.releaseSavepoint(savepoint);
+                        outcomes[i] = BookingOutcome.success(booking);
+                    } catch (SQLException e) {
+                        conn.rollback(savepoint);
+                        outcomes[i] = BookingOutcome.failure(booking, e);
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) try { conn.rollback(); } catch (SQLException logOrIgnore) {}
+            throw e;
+        } finally {
+            if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            if (conn != null) try { conn.setAutoCommit(true); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    // Takes the group's seats per schedule, first rows first; returns the rows that got one
+    // (or need none) and fails the others
+    private static List<Integer> takeSeats(Connection conn, List<Booking> bookings, BookingOutcome[] outcomes) throws SQLException {
+        Map<Integer, List<Integer>> bySchedule = new LinkedHashMap<>();
+        boolean[] insert = new boolean[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            if (booking.getState() == 2) {
+                insert[i] = true; // Cancelled: no seat
+            } else {
+                bySchedule.computeIfAbsent(booking.getGeneralFlightId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        SeatInventory seats = SeatInventory.getInstance();
+        for (Map.Entry<Integer, List<Integer>> e : bySchedule.entrySet()) {
+            List<Integer> rows = e.getValue();
+            int granted = 0;
+            if (seats.reserve(conn, e.getKey(), rows.size())) {
+                granted = rows.size();
+            } else {
+                while (granted < rows.size() && seats.reserve(conn, e.getKey(), 1)) { // Fewer left: one by one
+                    granted++;
+                }
+            }
+            for (int r = 0; r < rows.size(); r++) {
+                int i = rows.get(r);
+                if (r < granted) {
+                    insert[i] = true;
+                } else {
+                    outcomes[i] = BookingOutcome.failure(bookings.get(i), noSeats("No available seats for this flight schedule."));
+                }
+            }
+        }
+        List<Integer> toInsert = new ArrayList<>(bookings.size());
+        for (int i = 0; i < insert.length; i++) {
+            if (insert[i]) toInsert.add(i);
+        }
+        return toInsert;
+    }
+
+    private static List<Integer> allRows(int n) {
+        List<Integer> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) rows.add(i);
+        return rows;
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Booking booking) throws SQLException {
+        pstmt.setInt(1, booking.getState());
+        pstmt.setString(2, booking.getCustomerId());
+        pstmt.setInt(3, booking.getFlightId());
+        pstmt.setInt(4, booking.getGeneralFlightId()); // Crucial for the insert trigger
+        if (booking.getBookingDate() != null) {
+            pstmt.setTimestamp(5, booking.getBookingDate());
+        } else {
+            pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis())); // Default to now
+        }
+        if (booking.getHoldExpiresAt() != null) {
+            pstmt.setTimestamp(6, booking.getHoldExpiresAt());
+        } else {
+            pstmt.setNull(6, Types.TIMESTAMP);
+        }
+    }
+
+    // Same SQLState/error code as the triggers' SIGNAL, so callers can treat both alike
+    private static SQLException noSeats(String message) {
+        return new SQLException(message, "45000", 1644);
+    }
+
     public Booking getBookingByNumber(int bookingNumber) throws SQLException {
+        long started = System.nanoTime();
         String sql = "SELECT * FROM Booking WHERE BookingNumber = ?";
         Booking booking = null;
         Connection conn = null;
@@ -64,24 +280,69 @@ public class BookingDAO {
             pstmt.setInt(1, bookingNumber);
             rs = pstmt.executeQuery();
             if (rs.next()) {
-                booking = new Booking(
-                    rs.getInt("BookingNumber"),
-                    rs.getInt("state"),
-                    rs.getString("CustomerID"),
-                    rs.getInt("FlightID"),
-                    rs.getInt("GeneralFlightID"),
-                    rs.getTimestamp("BookingDate")
-                );
+                booking = mapBooking(rs);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_BOOKING_BY_NUMBER.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+        return GET_BOOKING_BY_NUMBER.success(started, booking);
+    }
+
+    /**
+     * Returns one page of bookings, newest first (BookingDate, then BookingNumber, both
+     * descending), starting after {@code cursor}; pass null for the first page and
+     * {@link Page#getNextCursor()} for the next ones. Seeks backwards on IDX_Booking_Date,
+     * so deep pages cost the same as the first.
+     *
+     * @throws IllegalArgumentException if the page size is out of range or the cursor is not a booking cursor
+     */
+    public Page<Booking> listBookings(int pageSize, String cursor) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            String[] key = KeysetPager.decode(cursor, "bookings", 2);
+            Object[] seek = null;
+            if (key != null) {
+                try {
+                    seek = new Object[] { Timestamp.valueOf(key[0]), Integer.valueOf(key[1]) };
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+                }
+            }
+            return LIST_BOOKINGS.success(started, KeysetPager.fetch(
+                    "SELECT * FROM Booking ORDER BY BookingDate DESC, BookingNumber DESC LIMIT ?",
+                    "SELECT * FROM Booking WHERE (BookingDate, BookingNumber) < (?, ?) " +
+                    "ORDER BY BookingDate DESC, BookingNumber DESC LIMIT ?",
+                    seek, pageSize, BookingDAO::mapBooking, "bookings",
+                    b -> new String[] { b.getBookingDate().toString(), String.valueOf(b.getBookingNumber()) }));
+        } catch (SQLException | RuntimeException e) {
+            LIST_BOOKINGS.failure(started);
+            throw e;
         }
+    }
+
+    // Package-private so the JMH benchmarks can time the mapping on its own
+    static Booking mapBooking(ResultSet rs) throws SQLException {
+        Booking booking = new Booking(
+            rs.getInt("BookingNumber"),
+            rs.getInt("state"),
+            rs.getString("CustomerID"),
+            rs.getInt("FlightID"),
+            rs.getInt("GeneralFlightID"),
+            rs.getTimestamp("BookingDate")
+        );
+        booking.setVersion(rs.getInt("version"));
+        booking.setHoldExpiresAt(rs.getTimestamp("hold_expires_at"));
         return booking;
     }
 
     // Functionality 4: Retrieve booking detail based on booking number by using a stored procedure
     public BookingDetail retrieveBookingDetailsSP(int bookingNumber) throws SQLException {
+        long started = System.nanoTime();
         String sql = "{CALL SP_GetBookingDetails(?)}";
         BookingDetail detail = null;
         Connection conn = null;
@@ -93,54 +354,305 @@ public class BookingDAO {
             cstmt.setInt(1, bookingNumber);
             rs = cstmt.executeQuery();
             if (rs.next()) {
-                detail = new BookingDetail();
-                detail.setBookingNumber(rs.getInt("BookingNumber"));
-                detail.setBookingState(rs.getInt("BookingState"));
-                detail.setBookingDate(rs.getTimestamp("BookingDate"));
-                detail.setCustomerId(rs.getString("CustomerID"));
-                detail.setCustomerFirstName(rs.getString("CustomerFirstName"));
-                detail.setCustomerLastName(rs.getString("CustomerLastName"));
-                detail.setCustomerEmail(rs.getString("CustomerEmail"));
-                detail.setCustomerAddress(rs.getString("CustomerAddress"));
-                detail.setCustomerPhone(rs.getString("CustomerPhone"));
-                detail.setFlightId(rs.getInt("FlightID"));
-                detail.setFlightTakeOffDate(rs.getDate("FlightTakeOffDate"));
-                detail.setFlightArrivalDate(rs.getDate("FlightArrivalDate"));
-                detail.setFlightState(rs.getInt("FlightState"));
-                detail.setGeneralFlightId(rs.getInt("GeneralFlightID"));
-                detail.setGeneralFlightScheduledDeparture(rs.getString("GeneralFlightScheduledDeparture"));
-                detail.setGeneralFlightScheduledArrival(rs.getString("GeneralFlightScheduledArrival"));
-                detail.setNumberSeats(rs.getInt("NumberSeats"));
-                detail.setSeatsBooked(rs.getInt("seats_booked"));
-                detail.setDepartureAirport(rs.getString("DepartureAirport"));
-                detail.setDepartureCity(rs.getString("DepartureCity"));
-                detail.setArrivalAirport(rs.getString("ArrivalAirport"));
-                detail.setArrivalCity(rs.getString("ArrivalCity"));
-                detail.setAirlineName(rs.getString("AirlineName"));
-                detail.setAircraftName(rs.getString("AircraftName")); // This can be null
+                detail = mapBookingDetail(rs);
             }
+        } catch (SQLException | RuntimeException e) {
+            RETRIEVE_BOOKING_DETAILS_SP.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException e) { /* log */ }
             if (cstmt != null) try { cstmt.close(); } catch (SQLException e) { /* log */ }
+            DatabaseConnection.releaseConnection(conn);
         }
+        return RETRIEVE_BOOKING_DETAILS_SP.success(started, detail);
+    }
+
+    // Maps one row of SP_GetBookingDetails; package-private for the JMH benchmarks
+    static BookingDetail mapBookingDetail(ResultSet rs) throws SQLException {
+        BookingDetail detail = new BookingDetail();
+        detail.setBookingNumber(rs.getInt("BookingNumber"));
+        detail.setBookingState(rs.getInt("BookingState"));
+        detail.setBookingDate(rs.getTimestamp("BookingDate"));
+        detail.setCustomerId(rs.getString("CustomerID"));
+        detail.setCustomerFirstName(rs.getString("CustomerFirstName"));
+        detail.setCustomerLastName(rs.getString("CustomerLastName"));
+        detail.setCustomerEmail(rs.getString("CustomerEmail"));
+        detail.setCustomerAddress(rs.getString("CustomerAddress"));
+        detail.setCustomerPhone(rs.getString("CustomerPhone"));
+        detail.setFlightId(rs.getInt("FlightID"));
+        detail.setFlightTakeOffDate(rs.getDate("FlightTakeOffDate"));
+        detail.setFlightArrivalDate(rs.getDate("FlightArrivalDate"));
+        detail.setFlightState(rs.getInt("FlightState"));
+        detail.setGeneralFlightId(rs.getInt("GeneralFlightID"));
+        detail.setGeneralFlightScheduledDeparture(rs.getString("GeneralFlightScheduledDeparture"));
+        detail.setGeneralFlightScheduledArrival(rs.getString("GeneralFlightScheduledArrival"));
+        detail.setNumberSeats(rs.getInt("NumberSeats"));
+        detail.setSeatsBooked(rs.getInt("seats_booked"));
+        detail.setDepartureAirport(rs.getString("DepartureAirport"));
+        detail.setDepartureCity(rs.getString("DepartureCity"));
+        detail.setArrivalAirport(rs.getString("ArrivalAirport"));
+        detail.setArrivalCity(rs.getString("ArrivalCity"));
+        detail.setAirlineName(rs.getString("AirlineName"));
+        detail.setAircraftName(rs.getString("AircraftName")); // This can be null
         return detail;
     }
 
     // Functionality 7: Update the booking information (state) based on the booking number.
-    // Seat adjustments are handled by the database trigger 'trg_booking_update_seats'.
+    // Goes through BookingState: a seat is taken on re-activation and given back on cancellation.
+    // True if the booking exists, also when it already was in newState (as with the plain UPDATE
+    // this replaced); use updateBookingState(n, ANY_VERSION, newState) to tell the two apart.
     public boolean updateBookingState(int bookingNumber, int newState) throws SQLException {
-        String sql = "UPDATE Booking SET state = ? WHERE BookingNumber = ?";
+        return changeState(bookingNumber, ANY_VERSION, newState) != Transition.MISSING;
+    }
+
+    /**
+     * Moves a booking to {@code newState} if {@link BookingState} allows it, with optimistic
+     * locking on {@code Booking.version}: the row is read without a lock, then updated with
+     * {@code WHERE version = <read version>}. A booking changed in between is read again and
+     * retried, up to {@value #MAX_ATTEMPTS} times with jittered exponential backoff.
+     * <p>
+     * Seats move in the same transaction, in either seat mode, by one conditional UPDATE of
+     * {@code GeneralFlight} ({@link SeatInventory}) that fails when the schedule is full.
+     * The schedule row is updated last, so its lock is held only until the commit. The
+     * trigger leaves rows whose version changes alone, so seats are never counted twice.
+     *
+     * @param expectedVersion the {@link Booking#getVersion()} the caller showed the agent; the change is
+     *                        refused if the booking changed since. {@link #ANY_VERSION} applies it to the current row.
+     * @return true if the state was changed; false if there is no such booking or it already is in {@code newState}
+     * @throws SQLException SQLState 45000 if the transition is not allowed or no seat is free,
+     *                      40001 if the booking kept changing or is not at {@code expectedVersion}
+     */
+    public boolean updateBookingState(int bookingNumber, int expectedVersion, int newState) throws SQLException {
+        return changeState(bookingNumber, expectedVersion, newState) == Transition.DONE;
+    }
+
+    private Transition changeState(int bookingNumber, int expectedVersion, int newState) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            BookingState next = BookingState.of(newState);
+            for (int attempt = 1; ; attempt++) {
+                Transition outcome;
+                try {
+                    outcome = transition(bookingNumber, expectedVersion, next);
+                } catch (SQLException e) {
+                    if (!DEADLOCK_STATE.equals(e.getSQLState()) || attempt == MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                    outcome = Transition.CONFLICT; // Deadlock victim (MySQL 1213): rolled back, try again
+                }
+                if (outcome != Transition.CONFLICT) {
+                    UPDATE_BOOKING_STATE.success(started, outcome == Transition.DONE ? 1 : 0); // Rows changed
+                    return outcome;
+                }
+                if (expectedVersion != ANY_VERSION) {
+                    throw conflict("Booking #" + bookingNumber + " was changed by someone else; reload it and try again.");
+                }
+                if (attempt == MAX_ATTEMPTS) {
+                    throw conflict("Booking #" + bookingNumber + " kept changing; state not updated after " + attempt + " attempts.");
+                }
+                long capMicros = Math.min(BACKOFF_MAX_MICROS, BACKOFF_BASE_MICROS << (attempt - 1));
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ThreadLocalRandom.current().nextLong(capMicros / 2, capMicros + 1)));
+            }
+        } catch (SQLException | RuntimeException e) {
+            UPDATE_BOOKING_STATE.failure(started);
+            throw e;
+        }
+    }
+
+    private enum Transition { DONE, UNCHANGED, MISSING, CONFLICT }
+
+    // One attempt: read, check the transition, then compare-and-set the booking and move the seat
+    private Transition transition(int bookingNumber, int expectedVersion, BookingState next) throws SQLException {
+        String selectSql = "SELECT state, GeneralFlightID, version FROM Booking WHERE BookingNumber = ?";
+        String updateSql = "UPDATE Booking SET state = ?, version = version + 1, hold_expires_at = NULL " +
+                           "WHERE BookingNumber = ? AND version = ?"; // Any state change ends a seat hold
+        Connection conn = null;
+        PreparedStatement select = null;
+        PreparedStatement update = null;
+        ResultSet rs = null;
+        boolean inTransaction = false;
+        try {
+            conn = DatabaseConnection.getConnection();
+            select = conn.prepareStatement(selectSql);
+            select.setInt(1, bookingNumber);
+            rs = select.executeQuery();
+            if (!rs.next()) {
+                return Transition.MISSING;
+            }
+            BookingState current = BookingState.of(rs.getInt("state"));
+            int generalFlightId = rs.getInt("GeneralFlightID");
+            int version = rs.getInt("version");
+            if (expectedVersion != ANY_VERSION && version != expectedVersion) {
+                return Transition.CONFLICT;
+            }
+            if (current == next) {
+                return Transition.UNCHANGED;
+            }
+            if (!current.canMoveTo(next)) {
+                throw new SQLException("A " + current.getLabel().toLowerCase() + " booking cannot be made "
+                        + next.getLabel().toLowerCase() + ".", "45000", 1644);
+            }
+            int seatChange = current.seatChange(next);
+
+            conn.setAutoCommit(false);
+            inTransaction = true;
+            update = conn.prepareStatement(updateSql);
+            update.setInt(1, next.getCode());
+            update.setInt(2, bookingNumber);
+            update.setInt(3, version);
+            if (update.executeUpdate() == 0) {
+                conn.rollback();
+                return Transition.CONFLICT; // Changed (or deleted) since the read
+            }
+            if (seatChange > 0 && !SeatInventory.getInstance().reserve(conn, generalFlightId, 1)) {
+                throw noSeats("Cannot re-activate booking: No available seats on this flight schedule.");
+            } else if (seatChange < 0) {
+                SeatInventory.getInstance().release(conn, generalFlightId, 1);
+            }
+            conn.commit();
+            inTransaction = false;
+            return Transition.DONE;
+        } catch (SQLException | RuntimeException e) {
+            if (inTransaction) try { conn.rollback(); } catch (SQLException logOrIgnore) {}
+            throw e;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (select != null) try { select.close(); } catch (SQLException logOrIgnore) {}
+            if (update != null) try { update.close(); } catch (SQLException logOrIgnore) {}
+            if (conn != null) try { conn.setAutoCommit(true); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Calls {@code action} for every seat hold still in place (pending bookings with an
+     * expiry), streamed (see {@link ResultStreams}); returns the number of rows.
+     */
+    public int forEachHold(Consumer<? super Booking> action) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return FOR_EACH_HOLD.success(started, ResultStreams.forEach(ResultStreams.stream(
+                    "SELECT * FROM Booking WHERE state = 0 AND hold_expires_at IS NOT NULL", BookingDAO::mapBooking), action));
+        } catch (SQLException | RuntimeException e) {
+            FOR_EACH_HOLD.failure(started);
+            throw e;
+        }
+    }
+
+    /** Moves a seat hold's expiry; false if the booking is no longer held (confirmed, cancelled or expired). */
+    public boolean extendHold(int bookingNumber, Timestamp expiresAt) throws SQLException {
+        long started = System.nanoTime();
+        String sql = "UPDATE Booking SET hold_expires_at = ? " +
+                     "WHERE BookingNumber = ? AND state = 0 AND hold_expires_at > ?";
         Connection conn = null;
         PreparedStatement pstmt = null;
         try {
             conn = DatabaseConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, newState);
+            pstmt.setTimestamp(1, expiresAt);
             pstmt.setInt(2, bookingNumber);
-            return pstmt.executeUpdate() > 0;
+            pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            return EXTEND_HOLD.success(started, pstmt.executeUpdate() > 0);
+        } catch (SQLException | RuntimeException e) {
+            EXTEND_HOLD.failure(started);
+            throw e;
         } finally {
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
+
+    /**
+     * Cancels the seat holds among {@code due} that are still pending and expired at
+     * {@code now}, and gives their seats back; returns those bookings. Holds confirmed,
+     * cancelled or extended meanwhile are left alone.
+     * <p>
+     * Works {@link #EXPIRE_CHUNK} bookings per transaction: one locking read picks the
+     * rows still to expire, one UPDATE cancels them (bumping {@code version}, so the
+     * update trigger leaves the seats alone) and one batch takes the seats off each
+     * schedule ({@link SeatInventory}).
+     *
+     * @throws HoldExpiryException if a chunk fails after earlier ones committed; it tells
+     *         which holds were cancelled and which are left
+     */
+    public List<Booking> expireHolds(List<Booking> due, Timestamp now) throws SQLException {
+        long started = System.nanoTime();
+        StringBuilder in = new StringBuilder();
+        for (int i = 0; i < EXPIRE_CHUNK; i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+        String where = "WHERE BookingNumber IN (" + in + ") AND state = 0 AND hold_expires_at <= ?";
+        String selectSql = "SELECT BookingNumber, GeneralFlightID FROM Booking " + where + " FOR UPDATE";
+        String updateSql = "UPDATE Booking SET state = 2, version = version + 1, hold_expires_at = NULL " + where;
+        List<Booking> expired = new ArrayList<>();
+        int committed = 0; // Bookings of due in the chunks committed so far
+        Connection conn = null;
+        PreparedStatement select = null;
+        PreparedStatement update = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            select = conn.prepareStatement(selectSql);
+            update = conn.prepareStatement(updateSql);
+            for (int from = 0; from < due.size(); from += EXPIRE_CHUNK) {
+                List<Booking> chunk = due.subList(from, Math.min(due.size(), from + EXPIRE_CHUNK));
+                for (int i = 0; i < EXPIRE_CHUNK; i++) {
+                    int n = chunk.get(Math.min(i, chunk.size() - 1)).getBookingNumber(); // Padding repeats the last one
+                    select.setInt(i + 1, n);
+                    update.setInt(i + 1, n);
+                }
+                select.setTimestamp(EXPIRE_CHUNK + 1, now);
+                update.setTimestamp(EXPIRE_CHUNK + 1, now);
+
+                Map<Integer, Integer> released = new HashMap<>(); // GeneralFlightID -> seats freed
+                List<Booking> chunkExpired = new ArrayList<>();
+                rs = select.executeQuery();
+                while (rs.next()) {
+                    Booking booking = new Booking();
+                    booking.setBookingNumber(rs.getInt("BookingNumber"));
+                    booking.setGeneralFlightId(rs.getInt("GeneralFlightID"));
+                    booking.setState(BookingState.CANCELLED.getCode());
+                    chunkExpired.add(booking);
+                    released.merge(booking.getGeneralFlightId(), 1, Integer::sum);
+                }
+                rs.close();
+                rs = null;
+                if (chunkExpired.isEmpty()) {
+                    conn.rollback(); // Only the locking read to undo
+                } else {
+                    update.executeUpdate();
+                    SeatInventory.getInstance().release(conn, released);
+                    conn.commit();
+                    expired.addAll(chunkExpired);
+                }
+                committed += chunk.size();
+            }
+            return EXPIRE_HOLDS.success(started, expired);
+        } catch (SQLException e) {
+            EXPIRE_HOLDS.failure(started);
+            if (conn != null) try { conn.rollback(); } catch (SQLException logOrIgnore) {}
+            if (committed > 0) {
+                throw new HoldExpiryException(e, expired, new ArrayList<>(due.subList(committed, due.size())));
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            EXPIRE_HOLDS.failure(started);
+            if (conn != null) try { conn.rollback(); } catch (SQLException logOrIgnore) {}
+            throw e;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (select != null) try { select.close(); } catch (SQLException logOrIgnore) {}
+            if (update != null) try { update.close(); } catch (SQLException logOrIgnore) {}
+            if (conn != null) try { conn.setAutoCommit(true); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    // Optimistic-locking failure; same SQLState as a MySQL deadlock (serialization failure)
+    private static SQLException conflict(String message) {
+        return new SQLException(message, DEADLOCK_STATE);
+    }
+
     // Add getAllBookings, deleteBooking etc. as needed.
 }
\ No newline at end of file
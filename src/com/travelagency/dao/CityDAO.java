@@ -8,12 +8,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
 
 public class CityDAO {
 
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_CITY = DaoMetrics.metric("CityDAO", "addCity");
+    private static final DaoMetrics.Metric UPDATE_CITY = DaoMetrics.metric("CityDAO", "updateCity");
+    private static final DaoMetrics.Metric DELETE_CITY = DaoMetrics.metric("CityDAO", "deleteCity");
+
     public boolean addCity(City city) throws SQLException {
+        long started = System.nanoTime();
         String sql = "INSERT INTO City (CityName) VALUES (?)";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -28,70 +33,43 @@ public class CityDAO {
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
                 // conn.rollback(); // if using transactions
-                return false;
+                return ADD_CITY.success(started, false);
             }
 
             generatedKeys = pstmt.getGeneratedKeys();
             if (generatedKeys.next()) {
                 city.setCityId(generatedKeys.getInt(1));
+                ReferenceDataCache.getInstance().cityChanged(city);
             }
             // conn.commit(); // if using transactions
-            return true;
-        } catch (SQLException e) {
+            return ADD_CITY.success(started, true);
+        } catch (SQLException | RuntimeException e) {
+            ADD_CITY.failure(started);
             // if (conn != null) conn.rollback(); // if using transactions
             throw e; // Re-throw to be handled by caller
         } finally {
             if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
-            // Connection closing is handled by DatabaseConnection's closeConnection or by the calling service layer
+            DatabaseConnection.releaseConnection(conn); // Returns the connection to the pool
         }
     }
 
+    // Served from ReferenceDataCache; the City table is loaded once
     public City getCityById(int cityId) throws SQLException {
-        String sql = "SELECT * FROM City WHERE CityID = ?";
-        City city = null;
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, cityId);
-            rs = pstmt.executeQuery();
-            if (rs.next()) {
-                city = new City();
-                city.setCityId(rs.getInt("CityID"));
-                city.setCityName(rs.getString("CityName"));
-            }
-        } finally {
-             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
-             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
-        }
-        return city;
+        return ReferenceDataCache.getInstance().getCity(cityId);
     }
 
     public List<City> getAllCities() throws SQLException {
-        List<City> cities = new ArrayList<>();
-        String sql = "SELECT * FROM City ORDER BY CityName";
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                City city = new City(rs.getInt("CityID"), rs.getString("CityName"));
-                cities.add(city);
-            }
-        } finally {
-            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
-            if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
-        }
-        return cities;
+        return ReferenceDataCache.getInstance().getAllCities(); // Ordered by CityName
+    }
+
+    // CityIDs whose city or airport name contains the text, ignoring case and accents (see CityNameIndex)
+    public int[] findCityIds(String text) throws SQLException {
+        return CityNameIndex.getInstance().resolveCityIds(text);
     }
 
     public boolean updateCity(City city) throws SQLException {
+        long started = System.nanoTime();
         String sql = "UPDATE City SET CityName = ? WHERE CityID = ?";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -100,13 +78,22 @@ public class CityDAO {
             pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, city.getCityName());
             pstmt.setInt(2, city.getCityId());
-            return pstmt.executeUpdate() > 0;
+            boolean updated = pstmt.executeUpdate() > 0;
+            if (updated) {
+                ReferenceDataCache.getInstance().cityChanged(city);
+            }
+            return UPDATE_CITY.success(started, updated);
+        } catch (SQLException | RuntimeException e) {
+            UPDATE_CITY.failure(started);
+            throw e;
         } finally {
              if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+             DatabaseConnection.releaseConnection(conn);
         }
     }
 
     public boolean deleteCity(int cityId) throws SQLException {
+        long started = System.nanoTime();
         String sql = "DELETE FROM City WHERE CityID = ?";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -114,9 +101,17 @@ public class CityDAO {
             conn = DatabaseConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, cityId);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                ReferenceDataCache.getInstance().cityRemoved(cityId);
+            }
+            return DELETE_CITY.success(started, deleted);
+        } catch (SQLException | RuntimeException e) {
+            DELETE_CITY.failure(started);
+            throw e;
         } finally {
              if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+             DatabaseConnection.releaseConnection(conn);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.travelagency.dao;
+
+import com.travelagency.model.Airport;
+import com.travelagency.model.City;
+import com.travelagency.util.IntMap;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves free text typed by the user ("alg", "senia") to the CityIDs it refers to,
+ * so the flight and airline searches can filter on {@code CityID IN (...)} instead of
+ * {@code CityName LIKE '%text%'}, which cannot use an index.
+ * <p>
+ * Every city name and airport name is folded (lower case, accents stripped, punctuation
+ * turned into spaces) and split into trigrams. A query is folded the same way; the
+ * names holding all of its trigrams are the candidates, and a substring check on them
+ * gives exactly the old {@code LIKE} matches, now also accent- and case-insensitive.
+ * An airport name matches its city, so "Oran Es S&eacute;nia" finds Oran.
+ * <p>
+ * The index is built from {@link ReferenceDataCache} and rebuilt whenever
+ * {@link ReferenceDataCache#getPlacesVersion()} changes, which covers
+ * {@code CityDAO.addCity/updateCity/deleteCity}, airport edits and reloads.
+ */
+final class CityNameIndex {
+
+    private static final CityNameIndex INSTANCE = new CityNameIndex();
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int[] NO_IDS = new int[0];
+
+    private volatile Snapshot snapshot;
+
+    private CityNameIndex() {}
+
+    static CityNameIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /** Sorted, distinct CityIDs whose city or airport name contains {@code text}; blank text matches every city. */
+    int[] resolveCityIds(String text) throws SQLException {
+        Snapshot s = current();
+        String query = fold(text == null ? "" : text);
+        if (query.length() < 3) {
+            return s.scan(query); // Too short for a trigram; the name list is small
+        }
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            int[] postings = s.trigrams.get(query.substring(i, i + 3));
+            if (postings == null) {
+                return NO_IDS;
+            }
+            candidates = candidates == null ? postings : intersect(candidates, postings);
+            if (candidates.length == 0) {
+                return NO_IDS;
+            }
+        }
+        int[] cityIds = new int[candidates.length];
+        int count = 0;
+        for (int name : candidates) {
+            if (s.names[name].contains(query)) {
+                cityIds[count++] = s.cityOf[name];
+            }
+        }
+        return distinctSorted(cityIds, count);
+    }
+
+    /** Builds the index now rather than on the first search (startup preloading). */
+    void warm() throws SQLException {
+        current();
+    }
+
+    /**
+     * {@code "?, ?, ..."} for an IN list of {@code count} ids, rounded up to a power of two
+     * so a handful of statement shapes cover every search and stay in the statement cache.
+     */
+    static String placeholders(int count) {
+        int padded = paddedLength(count);
+        StringBuilder sb = new StringBuilder(padded * 3);
+        for (int i = 0; i < padded; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /** Binds {@code ids} from {@code index}, repeating the last id up to the padded length; returns the next index. */
+    static int bindIds(PreparedStatement pstmt, int index, int[] ids) throws SQLException {
+        int padded = paddedLength(ids.length);
+        for (int i = 0; i < padded; i++) {
+            pstmt.setInt(index++, ids[Math.min(i, ids.length - 1)]);
+        }
+        return index;
+    }
+
+    static int paddedLength(int count) {
+        return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    static String fold(String text) {
+        String s = Normalizer.normalize(text, Normalizer.Form.NFD);
+        s = MARKS.matcher(s).replaceAll("");
+        s = SEPARATORS.matcher(s.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return s.trim();
+    }
+
+    private Snapshot current() throws SQLException {
+        ReferenceDataCache cache = ReferenceDataCache.getInstance();
+        Snapshot s = snapshot;
+        if (s != null && s.version == cache.getPlacesVersion()) {
+            return s;
+        }
+        synchronized (this) {
+            s = snapshot;
+            while (s == null || s.version != cache.getPlacesVersion()) {
+                long version = cache.getPlacesVersion();
+                List<City> cities = cache.getAllCities();
+                List<Airport> airports = cache.getAllAirports();
+                // Loading (or a concurrent edit) moves the version; go round until it holds still
+                if (cache.getPlacesVersion() == version) {
+                    s = build(cities, airports, version);
+                }
+            }
+            snapshot = s;
+            return s;
+        }
+    }
+
+    private static Snapshot build(List<City> cities, List<Airport> airports, long version) {
+        IntMap<City> cityById = new IntMap<>(cities.size());
+        List<String> names = new ArrayList<>(cities.size() + airports.size());
+        List<Integer> cityOf = new ArrayList<>(cities.size() + airports.size());
+        for (City city : cities) {
+            cityById.put(city.getCityId(), city);
+            names.add(fold(city.getCityName()));
+            cityOf.add(city.getCityId());
+        }
+        for (Airport airport : airports) {
+            if (cityById.containsKey(airport.getCityId())) {
+                names.add(fold(airport.getAirportName()));
+                cityOf.add(airport.getCityId());
+            }
+        }
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int name = 0; name < names.size(); name++) {
+            String folded = names.get(name);
+            for (int i = 0; i + 3 <= folded.length(); i++) {
+                List<Integer> list = postings.computeIfAbsent(folded.substring(i, i + 3), k -> new ArrayList<>());
+                if (list.isEmpty() || list.get(list.size() - 1) != name) {
+                    list.add(name); // Names are visited in order, so each list stays sorted
+                }
+            }
+        }
+        Map<String, int[]> trigrams = new HashMap<>(postings.size() * 2);
+        for (Map.Entry<String, List<Integer>> e : postings.entrySet()) {
+            trigrams.put(e.getKey(), e.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return new Snapshot(version, names.toArray(new String[0]),
+                cityOf.stream().mapToInt(Integer::intValue).toArray(), trigrams);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] distinctSorted(int[] ids, int count) {
+        if (count == 0) {
+            return NO_IDS;
+        }
+        Arrays.sort(ids, 0, count);
+        int n = 1;
+        for (int i = 1; i < count; i++) {
+            if (ids[i] != ids[n - 1]) {
+                ids[n++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    // Immutable; replaced as a whole when the places version moves
+    private static final class Snapshot {
+        final long version;
+        final String[] names;          // Folded city and airport names
+        final int[] cityOf;            // CityID for each name
+        final Map<String, int[]> trigrams; // Trigram -> sorted name indexes
+
+        Snapshot(long version, String[] names, int[] cityOf, Map<String, int[]> trigrams) {
+            this.version = version;
+            this.names = names;
+            this.cityOf = cityOf;
+            this.trigrams = trigrams;
+        }
+
+        int[] scan(String query) {
+            int[] cityIds = new int[names.length];
+            int count = 0;
+            for (int name = 0; name < names.length; name++) {
+                if (names[name].contains(query)) {
+                    cityIds[count++] = cityOf[name];
+                }
+            }
+            return distinctSorted(cityIds, count);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.travelagency.dao;
 
 import com.travelagency.db.DatabaseConnection;
 import com.travelagency.model.Customer;
+import com.travelagency.model.dto.Page;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -10,11 +11,23 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class CustomerDAO {
 
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_CUSTOMER = DaoMetrics.metric("CustomerDAO", "addCustomer");
+    private static final DaoMetrics.Metric GET_CUSTOMER_BY_ID = DaoMetrics.metric("CustomerDAO", "getCustomerById");
+    private static final DaoMetrics.Metric GET_ALL_CUSTOMERS = DaoMetrics.metric("CustomerDAO", "getAllCustomers");
+    private static final DaoMetrics.Metric FOR_EACH_CUSTOMER = DaoMetrics.metric("CustomerDAO", "forEachCustomer");
+    private static final DaoMetrics.Metric LIST_CUSTOMERS = DaoMetrics.metric("CustomerDAO", "listCustomers");
+    private static final DaoMetrics.Metric SEARCH_CUSTOMERS = DaoMetrics.metric("CustomerDAO", "searchCustomers");
+    private static final DaoMetrics.Metric GET_CUSTOMERS_BY_FLIGHT = DaoMetrics.metric("CustomerDAO", "getCustomersByFlight");
+
     // CustomerID is provided by user, not auto-incremented
     public boolean addCustomer(Customer customer) throws SQLException {
+        long started = System.nanoTime();
         String sql = "INSERT INTO Customer (CustomerID, fname, lname, address, email, phoneNumber) VALUES (?, ?, ?, ?, ?, ?)";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -27,13 +40,18 @@ public class CustomerDAO {
             pstmt.setString(4, customer.getAddress());
             pstmt.setString(5, customer.getEmail());
             pstmt.setString(6, customer.getPhoneNumber());
-            return pstmt.executeUpdate() > 0;
+            return ADD_CUSTOMER.success(started, pstmt.executeUpdate() > 0);
+        } catch (SQLException | RuntimeException e) {
+            ADD_CUSTOMER.failure(started);
+            throw e;
         } finally {
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
 
     public Customer getCustomerById(String customerId) throws SQLException {
+        long started = System.nanoTime();
         String sql = "SELECT * FROM Customer WHERE CustomerID = ?";
         Customer customer = null;
         Connection conn = null;
@@ -45,23 +63,21 @@ public class CustomerDAO {
             pstmt.setString(1, customerId);
             rs = pstmt.executeQuery();
             if (rs.next()) {
-                customer = new Customer(
-                    rs.getString("CustomerID"),
-                    rs.getString("fname"),
-                    rs.getString("lname"),
-                    rs.getString("address"),
-                    rs.getString("email"),
-                    rs.getString("phoneNumber")
-                );
+                customer = mapCustomer(rs);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_CUSTOMER_BY_ID.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return customer;
+        return GET_CUSTOMER_BY_ID.success(started, customer);
     }
 
     public List<Customer> getAllCustomers() throws SQLException {
+        long started = System.nanoTime();
         List<Customer> customers = new ArrayList<>();
         String sql = "SELECT * FROM Customer ORDER BY lname, fname";
         Connection conn = null;
@@ -72,25 +88,126 @@ public class CustomerDAO {
             stmt = conn.createStatement();
             rs = stmt.executeQuery(sql);
             while (rs.next()) {
-                Customer customer = new Customer(
-                    rs.getString("CustomerID"),
-                    rs.getString("fname"),
-                    rs.getString("lname"),
-                    rs.getString("address"),
-                    rs.getString("email"),
-                    rs.getString("phoneNumber")
-                );
-                customers.add(customer);
+                customers.add(mapCustomer(rs));
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_ALL_CUSTOMERS.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return customers;
+        return GET_ALL_CUSTOMERS.success(started, customers);
     }
     
+    /**
+     * Streams every customer ordered by last and first name, keeping memory flat on
+     * large tables (see {@link ResultStreams}). Close the stream when done; SQL errors
+     * while reading surface as {@link UncheckedSQLException}.
+     */
+    public Stream<Customer> streamAllCustomers() throws SQLException {
+        return ResultStreams.stream("SELECT * FROM Customer ORDER BY lname, fname", CustomerDAO::mapCustomer);
+    }
+
+    /** Calls {@code action} for every customer, in name order; returns the number of rows. */
+    public int forEachCustomer(Consumer<? super Customer> action) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return FOR_EACH_CUSTOMER.success(started, ResultStreams.forEach(streamAllCustomers(), action));
+        } catch (SQLException | RuntimeException e) {
+            FOR_EACH_CUSTOMER.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns one page of customers in name order (lname, fname, CustomerID), starting
+     * after {@code cursor}; pass null for the first page and {@link Page#getNextCursor()}
+     * for the next ones. Uses keyset pagination on IDX_Customer_Name, so every page costs
+     * the same however deep it is.
+     *
+     * @throws IllegalArgumentException if the page size is out of range or the cursor is not a customer cursor
+     */
+    public Page<Customer> listCustomers(int pageSize, String cursor) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            String[] key = KeysetPager.decode(cursor, "customers", 3);
+            return LIST_CUSTOMERS.success(started, KeysetPager.fetch(
+                    "SELECT * FROM Customer ORDER BY lname, fname, CustomerID LIMIT ?",
+                    "SELECT * FROM Customer WHERE (lname, fname, CustomerID) > (?, ?, ?) " +
+                    "ORDER BY lname, fname, CustomerID LIMIT ?",
+                    key, pageSize, CustomerDAO::mapCustomer, "customers",
+                    c -> new String[] { c.getLastName(), c.getFirstName(), c.getCustomerId() }));
+        } catch (SQLException | RuntimeException e) {
+            LIST_CUSTOMERS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * Type-ahead search: one page of the customers matching what was typed so far. A term
+     * is taken as the start of a last name and pages in name order on IDX_Customer_Name;
+     * a term containing a digit, or one that matches no last name, is the start of a
+     * CustomerID (national IDs) and pages by ID on the primary key. Either way the query
+     * reads an index range, never the whole table. A blank term lists every customer, as
+     * {@link #listCustomers}.
+     *
+     * @throws IllegalArgumentException if the page size is out of range or the cursor is from another search
+     */
+    public Page<Customer> searchCustomers(String term, int pageSize, String cursor) throws SQLException {
+        String text = term == null ? "" : term.trim();
+        if (text.isEmpty()) {
+            return listCustomers(pageSize, cursor);
+        }
+        long started = System.nanoTime();
+        try {
+            Object[] filter = { KeysetPager.likePrefix(text) };
+            boolean byId = text.chars().anyMatch(Character::isDigit)
+                    || (cursor != null && KeysetPager.belongsTo(cursor, "customers-by-id"));
+            Page<Customer> page = byId ? customersById(filter, pageSize, cursor) : customersByName(filter, pageSize, cursor);
+            if (!byId && cursor == null && page.getItems().isEmpty()) {
+                page = customersById(filter, pageSize, null); // IDs may start with letters too
+            }
+            return SEARCH_CUSTOMERS.success(started, page);
+        } catch (SQLException | RuntimeException e) {
+            SEARCH_CUSTOMERS.failure(started);
+            throw e;
+        }
+    }
+
+    private static Page<Customer> customersByName(Object[] filter, int pageSize, String cursor) throws SQLException {
+        return KeysetPager.fetch(
+                "SELECT * FROM Customer WHERE lname LIKE ? ORDER BY lname, fname, CustomerID LIMIT ?",
+                "SELECT * FROM Customer WHERE lname LIKE ? AND (lname, fname, CustomerID) > (?, ?, ?) " +
+                "ORDER BY lname, fname, CustomerID LIMIT ?",
+                filter, KeysetPager.decode(cursor, "customers", 3), pageSize, CustomerDAO::mapCustomer,
+                "customers", c -> new String[] { c.getLastName(), c.getFirstName(), c.getCustomerId() });
+    }
+
+    private static Page<Customer> customersById(Object[] filter, int pageSize, String cursor) throws SQLException {
+        return KeysetPager.fetch(
+                "SELECT * FROM Customer WHERE CustomerID LIKE ? ORDER BY CustomerID LIMIT ?",
+                "SELECT * FROM Customer WHERE CustomerID LIKE ? AND CustomerID > ? ORDER BY CustomerID LIMIT ?",
+                filter, KeysetPager.decode(cursor, "customers-by-id", 1), pageSize,
+                CustomerDAO::mapCustomer, "customers-by-id", c -> new String[] { c.getCustomerId() });
+    }
+
+    // Package-private so the JMH benchmarks can time the mapping on its own
+    static Customer mapCustomer(ResultSet rs) throws SQLException {
+        return new Customer(
+            rs.getString("CustomerID"),
+            rs.getString("fname"),
+            rs.getString("lname"),
+            rs.getString("address"),
+            rs.getString("email"),
+            rs.getString("phoneNumber")
+        );
+    }
+
     // Functionality 5: Retrieve customers traveling on a specific flight.
     public List<Customer> getCustomersByFlight(int flightId) throws SQLException {
+        long started = System.nanoTime();
         List<Customer> customers = new ArrayList<>();
         String sql = "SELECT c.CustomerID, c.fname, c.lname, c.email, c.phoneNumber " +
                      "FROM Customer c " +
@@ -115,11 +232,15 @@ public class CustomerDAO {
                 // BookingNumber is not part of Customer object, but could be returned in a different DTO if needed
                 customers.add(customer);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_CUSTOMERS_BY_FLIGHT.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return customers;
+        return GET_CUSTOMERS_BY_FLIGHT.success(started, customers);
     }
     // Add updateCustomer, deleteCustomer as needed
 }
\ No newline at end of file
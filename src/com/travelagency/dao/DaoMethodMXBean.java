@@ -0,0 +1,13 @@
+package com.travelagency.dao;
+
+/** JMX view of one DAO method's {@link DaoMetrics.Metric}. */
+public interface DaoMethodMXBean {
+    long getCalls();
+    long getErrors();
+    long getRows();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getP999Millis();
+    double getMaxMillis();
+}
@@ -0,0 +1,174 @@
+package com.travelagency.dao;
+
+import com.travelagency.model.dto.Page;
+import com.travelagency.util.LatencyHistogram;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count, rows returned and latency for every DAO method.
+ * <p>
+ * Each DAO holds one {@link Metric} per method in a static field and brackets the method
+ * body with {@link System#nanoTime()} and {@link Metric#success}/{@link Metric#failure}.
+ * Recording is a few {@link LongAdder} and atomic increments into preallocated counters,
+ * so it does not allocate. Every metric is published as the MXBean
+ * {@code com.travelagency:type=DaoMetrics,dao=<DAO>,method=<method>} and in the Prometheus
+ * text format by {@link #prometheus()} (served on {@code /metrics} by the API server).
+ * Methods answered from {@link ReferenceDataCache} are not timed; the cache's own table
+ * loads are.
+ */
+public final class DaoMetrics {
+
+    private static final ConcurrentMap<String, Metric> METRICS = new ConcurrentHashMap<>();
+
+    private DaoMetrics() {}
+
+    /** Returns the metric for one DAO method, creating and registering it on first use. */
+    public static Metric metric(String dao, String method) {
+        return METRICS.computeIfAbsent(dao + "." + method, key -> {
+            Metric m = new Metric(dao, method);
+            register(m);
+            return m;
+        });
+    }
+
+    /** All metrics, ordered by DAO then method. */
+    public static List<Metric> all() {
+        List<Metric> list = new ArrayList<>(METRICS.values());
+        list.sort(Comparator.comparing(Metric::getDao).thenComparing(Metric::getMethod));
+        return list;
+    }
+
+    public static final class Metric implements DaoMethodMXBean {
+        private final String dao;
+        private final String method;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram(); // Nanoseconds
+
+        Metric(String dao, String method) {
+            this.dao = dao;
+            this.method = method;
+        }
+
+        /** Records a successful call that returned (or changed) {@code rowCount} rows; returns rowCount. */
+        public int success(long startNanos, int rowCount) {
+            record(startNanos, rowCount);
+            return rowCount;
+        }
+
+        /**
+         * Records a successful call and returns its result. Rows are the size of a list,
+         * page or array, 1 for any other non-null value (1 or 0 for a boolean).
+         */
+        public <T> T success(long startNanos, T result) {
+            record(startNanos, rowsOf(result));
+            return result;
+        }
+
+        private void record(long startNanos, long rowCount) {
+            latency.record(System.nanoTime() - startNanos);
+            calls.increment();
+            rows.add(rowCount);
+        }
+
+        public void failure(long startNanos) {
+            latency.record(System.nanoTime() - startNanos);
+            calls.increment();
+            errors.increment();
+        }
+
+        private static long rowsOf(Object result) {
+            if (result == null) return 0;
+            if (result instanceof Collection) return ((Collection<?>) result).size();
+            if (result instanceof Page) return ((Page<?>) result).getItems().size();
+            if (result instanceof int[]) return ((int[]) result).length;
+            if (result instanceof Boolean) return (Boolean) result ? 1 : 0;
+            if (result instanceof Number) return ((Number) result).longValue();
+            return 1;
+        }
+
+        public String getDao() { return dao; }
+        public String getMethod() { return method; }
+        public LatencyHistogram getLatency() { return latency; }
+
+        @Override public long getCalls() { return calls.sum(); }
+        @Override public long getErrors() { return errors.sum(); }
+        @Override public long getRows() { return rows.sum(); }
+        @Override public double getMeanMillis() { return latency.getMean() / 1e6; }
+        @Override public double getP50Millis() { return latency.getValueAtPercentile(50) / 1e6; }
+        @Override public double getP99Millis() { return latency.getValueAtPercentile(99) / 1e6; }
+        @Override public double getP999Millis() { return latency.getValueAtPercentile(99.9) / 1e6; }
+        @Override public double getMaxMillis() { return latency.getMax() / 1e6; }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s.%s: %d calls, %d errors, %d rows, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    dao, method, getCalls(), getErrors(), getRows(), getP50Millis(), getP99Millis(), getMaxMillis());
+        }
+    }
+
+    private static void register(Metric m) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(m, new ObjectName("com.travelagency:type=DaoMetrics,dao=" + m.dao + ",method=" + m.method));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by another class loader (e.g. a benchmark fork); keep counting locally
+        } catch (JMException | RuntimeException e) {
+            System.err.println("Could not register JMX bean for " + m.dao + "." + m.method + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Plaintext Prometheus exposition of every metric: call, error and row counters, and
+     * the latency as a summary (0.5, 0.99, 0.999 quantiles, sum and count) in seconds.
+     */
+    public static String prometheus() {
+        List<Metric> metrics = all();
+        StringBuilder sb = new StringBuilder(256 + metrics.size() * 600);
+        counter(sb, metrics, "travelagency_dao_calls_total", "DAO method calls", 0);
+        counter(sb, metrics, "travelagency_dao_errors_total", "DAO method calls that threw", 1);
+        counter(sb, metrics, "travelagency_dao_rows_total", "Rows returned or affected by DAO methods", 2);
+        sb.append("# HELP travelagency_dao_latency_seconds DAO method latency\n");
+        sb.append("# TYPE travelagency_dao_latency_seconds summary\n");
+        for (Metric m : metrics) {
+            LatencyHistogram h = m.latency.copy();
+            String labels = "dao=\"" + m.dao + "\",method=\"" + m.method + "\"";
+            for (String q : new String[] {"0.5", "0.99", "0.999"}) {
+                sb.append("travelagency_dao_latency_seconds{").append(labels).append(",quantile=\"").append(q).append("\"} ")
+                  .append(seconds(h.getValueAtPercentile(Double.parseDouble(q) * 100))).append('\n');
+            }
+            sb.append("travelagency_dao_latency_seconds_sum{").append(labels).append("} ")
+              .append(seconds((long) (h.getMean() * h.getCount()))).append('\n');
+            sb.append("travelagency_dao_latency_seconds_count{").append(labels).append("} ").append(h.getCount()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, List<Metric> metrics, String name, String help, int which) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        for (Metric m : metrics) {
+            long value = which == 0 ? m.getCalls() : which == 1 ? m.getErrors() : m.getRows();
+            sb.append(name).append("{dao=\"").append(m.dao).append("\",method=\"").append(m.method).append("\"} ")
+              .append(value).append('\n');
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -3,8 +3,9 @@ package com.travelagency.dao;
 import com.travelagency.db.DatabaseConnection;
 import com.travelagency.model.Flight;
 import com.travelagency.model.GeneralFlight;
-// If you create a DTO for search results that includes Airport/Airline names:
-// import com.travelagency.model.dto.FlightSearchResult;
+import com.travelagency.model.dto.FlightSearchResult;
+import com.travelagency.model.dto.OperationalFlightSearchResult;
+import com.travelagency.model.dto.Page;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -12,12 +13,72 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Date; // For takeOffDate, arrivalDate
+import java.sql.Time;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class FlightDAO {
 
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_FLIGHT = DaoMetrics.metric("FlightDAO", "addFlight");
+    private static final DaoMetrics.Metric ADD_MISSING_FLIGHTS = DaoMetrics.metric("FlightDAO", "addMissingFlights");
+    private static final DaoMetrics.Metric GET_FLIGHT_BY_ID = DaoMetrics.metric("FlightDAO", "getFlightById");
+    private static final DaoMetrics.Metric GET_ALL_FLIGHTS = DaoMetrics.metric("FlightDAO", "getAllFlights");
+    private static final DaoMetrics.Metric FOR_EACH_FLIGHT = DaoMetrics.metric("FlightDAO", "forEachFlight");
+    private static final DaoMetrics.Metric LIST_FLIGHTS = DaoMetrics.metric("FlightDAO", "listFlights");
+    private static final DaoMetrics.Metric GET_FLIGHT_SCHEDULES_BY_CITIES = DaoMetrics.metric("FlightDAO", "getFlightSchedulesByCities");
+    private static final DaoMetrics.Metric SEARCH_FLIGHT_SCHEDULES_BY_CITIES = DaoMetrics.metric("FlightDAO", "searchFlightSchedulesByCities");
+    private static final DaoMetrics.Metric GET_FLIGHTS_FROM_CITY_IN_PERIOD = DaoMetrics.metric("FlightDAO", "getFlightsFromCityInPeriod");
+    private static final DaoMetrics.Metric SEARCH_FLIGHTS_FROM_CITY_IN_PERIOD = DaoMetrics.metric("FlightDAO", "searchFlightsFromCityInPeriod");
+    private static final DaoMetrics.Metric SEARCH_FLIGHT_SCHEDULES_PAGED = DaoMetrics.metric("FlightDAO", "searchFlightSchedulesByCitiesPaged");
+    private static final DaoMetrics.Metric SEARCH_FLIGHTS_PAGED = DaoMetrics.metric("FlightDAO", "searchFlightsFromCityInPeriodPaged");
+    private static final DaoMetrics.Metric LIST_BOOKABLE_FLIGHTS = DaoMetrics.metric("FlightDAO", "listBookableFlights");
+    private static final DaoMetrics.Metric UPDATE_FLIGHT_DATES_AND_STATE = DaoMetrics.metric("FlightDAO", "updateFlightDatesAndState");
+
+    // Rows per executeBatch in addMissingFlights; rewriteBatchedStatements folds each batch into a few multi-row INSERTs
+    private static final int BATCH_SIZE = 500;
+
+    // Display searches: a schedule or flight joined with its airline, airports and cities
+    private static final String SCHEDULE_SEARCH_COLUMNS =
+            "SELECT gf.GeneralFlightID, gf.TakeoffTime, gf.ArrivalTime, gf.FDay, gf.NumberSeats, gf.seats_booked, " +
+            "al.AirlineName, dep_ap.AirportName AS DepartureAirport, dep_city.CityName AS DepartureCity, " +
+            "arr_ap.AirportName AS ArrivalAirport, arr_city.CityName AS ArrivalCity ";
+    private static final String SCHEDULE_SEARCH_JOINS =
+            "JOIN Airline al ON gf.AirlineID = al.AirlineID " +
+            "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
+            "JOIN City dep_city ON dep_ap.CityID = dep_city.CityID " +
+            "JOIN Airport arr_ap ON gf.ArrAirport = arr_ap.AirportID " +
+            "JOIN City arr_city ON arr_ap.CityID = arr_city.CityID ";
+    private static final String SCHEDULE_SEARCH_SELECT = SCHEDULE_SEARCH_COLUMNS + "FROM GeneralFlight gf " + SCHEDULE_SEARCH_JOINS;
+    private static final String FLIGHT_SEARCH_COLUMNS =
+            "SELECT fl.FlightID, fl.TakeOffDate, fl.ArrivalDate, fl.State, fl.GeneralFlightID, " +
+            "gf.TakeoffTime, gf.NumberSeats, gf.seats_booked, al.AirlineName, " +
+            "dep_ap.AirportName AS DepartureAirport, dep_city.CityName AS DepartureCity, " +
+            "arr_ap.AirportName AS ArrivalAirport, arr_city.CityName AS ArrivalCity, ac.AircraftName ";
+    private static final String FLIGHT_SEARCH_JOINS =
+            "JOIN GeneralFlight gf ON fl.GeneralFlightID = gf.GeneralFlightID " +
+            "JOIN Airline al ON gf.AirlineID = al.AirlineID " +
+            "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
+            "JOIN City dep_city ON dep_ap.CityID = dep_city.CityID " +
+            "JOIN Airport arr_ap ON gf.ArrAirport = arr_ap.AirportID " +
+            "JOIN City arr_city ON arr_ap.CityID = arr_city.CityID " +
+            "LEFT JOIN Aircraft ac ON fl.AircraftID = ac.AircraftID ";
+    private static final String FLIGHT_SEARCH_SELECT = FLIGHT_SEARCH_COLUMNS + "FROM Flight fl " + FLIGHT_SEARCH_JOINS;
+
+    // Paged searches pick the page's IDs first, then join the display columns for those rows
+    // only. Both keep the unpaged searches' order (day, then departure time); flights seek on
+    // IDX_Flight_TakeOffDate from the cursor's day and sort that day's rows by time
+    private static final String SCHEDULE_PAGE_ORDER = "ORDER BY gf.FDay, gf.TakeoffTime, gf.GeneralFlightID";
+    private static final String FLIGHT_PAGE_ORDER = "ORDER BY fl.TakeOffDate, gf.TakeoffTime, fl.FlightID";
+    private static final String FLIGHT_PAGE_SEEK = "AND fl.TakeOffDate >= ? AND (fl.TakeOffDate, gf.TakeoffTime, fl.FlightID) > (?, ?, ?) ";
+
     public boolean addFlight(Flight flight) throws SQLException {
+        long started = System.nanoTime();
         String sql = "INSERT INTO Flight (TakeOffDate, ArrivalDate, State, GeneralFlightID, AircraftID) " +
                      "VALUES (?, ?, ?, ?, ?)";
         Connection conn = null;
@@ -38,20 +99,117 @@ public class FlightDAO {
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
-                return false;
+                return ADD_FLIGHT.success(started, false);
             }
             generatedKeys = pstmt.getGeneratedKeys();
             if (generatedKeys.next()) {
                 flight.setFlightId(generatedKeys.getInt(1));
             }
-            return true;
+            return ADD_FLIGHT.success(started, true);
+        } catch (SQLException | RuntimeException e) {
+            ADD_FLIGHT.failure(started);
+            throw e;
         } finally {
             if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Inserts the flights of one schedule whose TakeOffDate is not already taken by a flight
+     * of that schedule, in batches inside a single transaction, and returns how many were
+     * inserted. The GeneralFlight row is locked first, so concurrent runs for the same
+     * schedule cannot insert the same date twice; running it again inserts nothing.
+     * All flights must belong to {@code generalFlightId}.
+     */
+    public int addMissingFlights(int generalFlightId, List<Flight> flights) throws SQLException {
+        long started = System.nanoTime();
+        if (flights.isEmpty()) {
+            return ADD_MISSING_FLIGHTS.success(started, 0);
+        }
+        Date first = flights.get(0).getTakeOffDate(), last = first;
+        for (Flight flight : flights) {
+            if (flight.getGeneralFlightId() != generalFlightId) {
+                throw new IllegalArgumentException("Flight for GeneralFlightID " + flight.getGeneralFlightId()
+                        + " passed with schedule " + generalFlightId);
+            }
+            if (flight.getTakeOffDate().before(first)) first = flight.getTakeOffDate();
+            if (flight.getTakeOffDate().after(last)) last = flight.getTakeOffDate();
+        }
+        String insertSql = "INSERT INTO Flight (TakeOffDate, ArrivalDate, State, GeneralFlightID, AircraftID) " +
+                           "VALUES (?, ?, ?, ?, ?)";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            pstmt = conn.prepareStatement("SELECT GeneralFlightID FROM GeneralFlight WHERE GeneralFlightID = ? FOR UPDATE");
+            pstmt.setInt(1, generalFlightId);
+            rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                throw new SQLException("GeneralFlightID " + generalFlightId + " does not exist.");
+            }
+            rs.close();
+            pstmt.close();
+
+            // Dates the schedule already flies on (FK_Flight_GeneralFlight covers both columns)
+            Set<Date> existing = new HashSet<>();
+            pstmt = conn.prepareStatement("SELECT TakeOffDate FROM Flight WHERE GeneralFlightID = ? AND TakeOffDate BETWEEN ? AND ?");
+            pstmt.setInt(1, generalFlightId);
+            pstmt.setDate(2, first);
+            pstmt.setDate(3, last);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                existing.add(rs.getDate(1));
+            }
+            rs.close();
+            rs = null;
+            pstmt.close();
+
+            pstmt = conn.prepareStatement(insertSql);
+            int inserted = 0, pending = 0;
+            for (Flight flight : flights) {
+                if (!existing.add(flight.getTakeOffDate())) {
+                    continue; // Already exists (or appears twice in the list)
+                }
+                pstmt.setDate(1, flight.getTakeOffDate());
+                pstmt.setDate(2, flight.getArrivalDate());
+                pstmt.setInt(3, flight.getState());
+                pstmt.setInt(4, generalFlightId);
+                if (flight.getAircraftId() != null) {
+                    pstmt.setInt(5, flight.getAircraftId());
+                } else {
+                    pstmt.setNull(5, java.sql.Types.INTEGER);
+                }
+                pstmt.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    pstmt.executeBatch();
+                    inserted += pending;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                pstmt.executeBatch();
+                inserted += pending;
+            }
+            conn.commit();
+            return ADD_MISSING_FLIGHTS.success(started, inserted);
+        } catch (SQLException | RuntimeException e) {
+            ADD_MISSING_FLIGHTS.failure(started);
+            if (conn != null) try { conn.rollback(); } catch (SQLException logOrIgnore) {}
+            throw e;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            if (conn != null) try { conn.setAutoCommit(true); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
 
     public Flight getFlightById(int flightId) throws SQLException {
+        long started = System.nanoTime();
         String sql = "SELECT * FROM Flight WHERE FlightID = ?";
         Flight flight = null;
         Connection conn = null;
@@ -63,27 +221,21 @@ public class FlightDAO {
             pstmt.setInt(1, flightId);
             rs = pstmt.executeQuery();
             if (rs.next()) {
-                Integer aircraftId = rs.getInt("AircraftID");
-                if (rs.wasNull()) {
-                    aircraftId = null;
-                }
-                flight = new Flight(
-                    rs.getInt("FlightID"),
-                    rs.getDate("TakeOffDate"),
-                    rs.getDate("ArrivalDate"),
-                    rs.getInt("State"),
-                    rs.getInt("GeneralFlightID"),
-                    aircraftId
-                );
+                flight = mapFlight(rs);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_FLIGHT_BY_ID.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return flight;
+        return GET_FLIGHT_BY_ID.success(started, flight);
     }
     
     public List<Flight> getAllFlights() throws SQLException {
+        long started = System.nanoTime();
         List<Flight> flights = new ArrayList<>();
         String sql = "SELECT * FROM Flight ORDER BY TakeOffDate"; // Add more criteria if needed
         Connection conn = null;
@@ -94,25 +246,83 @@ public class FlightDAO {
             stmt = conn.createStatement();
             rs = stmt.executeQuery(sql);
             while(rs.next()){
-                Integer aircraftId = rs.getInt("AircraftID");
-                if (rs.wasNull()) {
-                    aircraftId = null;
-                }
-                Flight flight = new Flight(
-                    rs.getInt("FlightID"),
-                    rs.getDate("TakeOffDate"),
-                    rs.getDate("ArrivalDate"),
-                    rs.getInt("State"),
-                    rs.getInt("GeneralFlightID"),
-                    aircraftId
-                );
-                flights.add(flight);
+                flights.add(mapFlight(rs));
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_ALL_FLIGHTS.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+        return GET_ALL_FLIGHTS.success(started, flights);
+    }
+
+    /**
+     * Streams every operational flight ordered by TakeOffDate without loading the table
+     * into memory (see {@link ResultStreams}). Close the stream when done; SQL errors
+     * while reading surface as {@link UncheckedSQLException}.
+     */
+    public Stream<Flight> streamAllFlights() throws SQLException {
+        return ResultStreams.stream("SELECT * FROM Flight ORDER BY TakeOffDate", FlightDAO::mapFlight);
+    }
+
+    /** Calls {@code action} for every flight, in TakeOffDate order; returns the number of rows. */
+    public int forEachFlight(Consumer<? super Flight> action) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return FOR_EACH_FLIGHT.success(started, ResultStreams.forEach(streamAllFlights(), action));
+        } catch (SQLException | RuntimeException e) {
+            FOR_EACH_FLIGHT.failure(started);
+            throw e;
         }
-        return flights;
+    }
+
+    /**
+     * Returns one page of flights ordered by TakeOffDate, then FlightID, starting after
+     * {@code cursor}; pass null for the first page and {@link Page#getNextCursor()} for
+     * the next ones. Seeks on IDX_Flight_TakeOffDate instead of using OFFSET.
+     *
+     * @throws IllegalArgumentException if the page size is out of range or the cursor is not a flight cursor
+     */
+    public Page<Flight> listFlights(int pageSize, String cursor) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            String[] key = KeysetPager.decode(cursor, "flights", 2);
+            Object[] seek = null;
+            if (key != null) {
+                try {
+                    seek = new Object[] { Date.valueOf(key[0]), Integer.valueOf(key[1]) };
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+                }
+            }
+            return LIST_FLIGHTS.success(started, KeysetPager.fetch(
+                    "SELECT * FROM Flight ORDER BY TakeOffDate, FlightID LIMIT ?",
+                    "SELECT * FROM Flight WHERE (TakeOffDate, FlightID) > (?, ?) ORDER BY TakeOffDate, FlightID LIMIT ?",
+                    seek, pageSize, FlightDAO::mapFlight, "flights",
+                    f -> new String[] { f.getTakeOffDate().toString(), String.valueOf(f.getFlightId()) }));
+        } catch (SQLException | RuntimeException e) {
+            LIST_FLIGHTS.failure(started);
+            throw e;
+        }
+    }
+
+    // Package-private so the JMH benchmarks can time the mapping on its own
+    static Flight mapFlight(ResultSet rs) throws SQLException {
+        Integer aircraftId = rs.getInt("AircraftID");
+        if (rs.wasNull()) {
+            aircraftId = null;
+        }
+        return new Flight(
+            rs.getInt("FlightID"),
+            rs.getDate("TakeOffDate"),
+            rs.getDate("ArrivalDate"),
+            rs.getInt("State"),
+            rs.getInt("GeneralFlightID"),
+            aircraftId
+        );
     }
 
     // Functionality 2: Retrieve all flights based on the departure and arrival cities
@@ -120,23 +330,28 @@ public class FlightDAO {
     // If you want operational flights, the query needs to join Flight and GeneralFlight.
     // Let's assume this searches for available flight *schedules* matching cities.
     public List<GeneralFlight> getFlightSchedulesByCities(String departureCityName, String arrivalCityName) throws SQLException {
+        long started = System.nanoTime();
         List<GeneralFlight> flights = new ArrayList<>();
+        int[] depCityIds = CityNameIndex.getInstance().resolveCityIds(departureCityName);
+        int[] arrCityIds = CityNameIndex.getInstance().resolveCityIds(arrivalCityName);
+        if (depCityIds.length == 0 || arrCityIds.length == 0) {
+            return GET_FLIGHT_SCHEDULES_BY_CITIES.success(started, flights); // No city matches the text
+        }
         String sql = "SELECT gf.* " +
                      "FROM GeneralFlight gf " +
                      "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
-                     "JOIN City dep_city ON dep_ap.CityID = dep_city.CityID " +
                      "JOIN Airport arr_ap ON gf.ArrAirport = arr_ap.AirportID " +
-                     "JOIN City arr_city ON arr_ap.CityID = arr_city.CityID " +
-                     "WHERE dep_city.CityName LIKE ? AND arr_city.CityName LIKE ? " +
-                     "ORDER BY gf.FDay, gf.TakeoffTime";
+                     "WHERE dep_ap.CityID IN (" + CityNameIndex.placeholders(depCityIds.length) + ") " +
+                     "AND arr_ap.CityID IN (" + CityNameIndex.placeholders(arrCityIds.length) + ") " +
+                     "ORDER BY gf.FDay, gf.TakeoffTime, gf.GeneralFlightID";
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
             conn = DatabaseConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, "%" + departureCityName + "%");
-            pstmt.setString(2, "%" + arrivalCityName + "%");
+            int index = CityNameIndex.bindIds(pstmt, 1, depCityIds);
+            CityNameIndex.bindIds(pstmt, index, arrCityIds);
             rs = pstmt.executeQuery();
             while (rs.next()) {
                 GeneralFlight gf = new GeneralFlight(
@@ -146,35 +361,81 @@ public class FlightDAO {
                 );
                 flights.add(gf);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_FLIGHT_SCHEDULES_BY_CITIES.failure(started);
+            throw e;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+        return GET_FLIGHT_SCHEDULES_BY_CITIES.success(started, flights);
+    }
+
+    // Functionality 2 (display version): same search as getFlightSchedulesByCities, but airline,
+    // airport and city names come back in the same query so the UI needs no per-row lookups.
+    public List<FlightSearchResult> searchFlightSchedulesByCities(String departureCityName, String arrivalCityName) throws SQLException {
+        long started = System.nanoTime();
+        List<FlightSearchResult> results = new ArrayList<>();
+        int[] depCityIds = CityNameIndex.getInstance().resolveCityIds(departureCityName);
+        int[] arrCityIds = CityNameIndex.getInstance().resolveCityIds(arrivalCityName);
+        if (depCityIds.length == 0 || arrCityIds.length == 0) {
+            return SEARCH_FLIGHT_SCHEDULES_BY_CITIES.success(started, results); // No city matches the text
+        }
+        String sql = SCHEDULE_SEARCH_SELECT +
+                     "WHERE dep_ap.CityID IN (" + CityNameIndex.placeholders(depCityIds.length) + ") " +
+                     "AND arr_ap.CityID IN (" + CityNameIndex.placeholders(arrCityIds.length) + ") " +
+                     "ORDER BY gf.FDay, gf.TakeoffTime, gf.GeneralFlightID";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            int index = CityNameIndex.bindIds(pstmt, 1, depCityIds);
+            CityNameIndex.bindIds(pstmt, index, arrCityIds);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                results.add(mapScheduleSearchResult(rs));
+            }
+        } catch (SQLException | RuntimeException e) {
+            SEARCH_FLIGHT_SCHEDULES_BY_CITIES.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return flights;
+        return SEARCH_FLIGHT_SCHEDULES_BY_CITIES.success(started, results);
     }
 
     // Functionality 3: Retrieve all the flights that take off from a specific city, in certain period.
     // This searches operational Flight instances.
     public List<Flight> getFlightsFromCityInPeriod(String departureCityName, Date startDate, Date endDate) throws SQLException {
+        long started = System.nanoTime();
         List<Flight> flights = new ArrayList<>();
+        int[] depCityIds = CityNameIndex.getInstance().resolveCityIds(departureCityName);
+        if (depCityIds.length == 0) {
+            return GET_FLIGHTS_FROM_CITY_IN_PERIOD.success(started, flights); // No city matches the text
+        }
         // This query needs joins to get city name and potentially airline/aircraft for display
         // For simplicity, returning just Flight objects. UI can fetch more details if needed.
         String sql = "SELECT fl.* " +
                      "FROM Flight fl " +
                      "JOIN GeneralFlight gf ON fl.GeneralFlightID = gf.GeneralFlightID " +
                      "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
-                     "JOIN City dep_city ON dep_ap.CityID = dep_city.CityID " +
-                     "WHERE dep_city.CityName LIKE ? AND fl.TakeOffDate BETWEEN ? AND ? " +
-                     "ORDER BY fl.TakeOffDate, gf.TakeoffTime";
+                     "WHERE dep_ap.CityID IN (" + CityNameIndex.placeholders(depCityIds.length) + ") " +
+                     "AND fl.TakeOffDate BETWEEN ? AND ? " +
+                     "ORDER BY fl.TakeOffDate, gf.TakeoffTime, fl.FlightID";
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
             conn = DatabaseConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, "%" + departureCityName + "%");
-            pstmt.setDate(2, startDate);
-            pstmt.setDate(3, endDate);
+            int index = CityNameIndex.bindIds(pstmt, 1, depCityIds);
+            pstmt.setDate(index++, startDate);
+            pstmt.setDate(index, endDate);
             rs = pstmt.executeQuery();
             while (rs.next()) {
                  Integer aircraftId = rs.getInt("AircraftID");
@@ -187,16 +448,249 @@ public class FlightDAO {
                 );
                 flights.add(flight);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_FLIGHTS_FROM_CITY_IN_PERIOD.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+        return GET_FLIGHTS_FROM_CITY_IN_PERIOD.success(started, flights);
+    }
+
+    // Functionality 3 (display version): operational flights from a city in a date range, joined with
+    // schedule, airline, cities and aircraft so the result is one query regardless of row count.
+    public List<OperationalFlightSearchResult> searchFlightsFromCityInPeriod(String departureCityName, Date startDate, Date endDate) throws SQLException {
+        long started = System.nanoTime();
+        List<OperationalFlightSearchResult> results = new ArrayList<>();
+        int[] depCityIds = CityNameIndex.getInstance().resolveCityIds(departureCityName);
+        if (depCityIds.length == 0) {
+            return SEARCH_FLIGHTS_FROM_CITY_IN_PERIOD.success(started, results); // No city matches the text
+        }
+        String sql = FLIGHT_SEARCH_SELECT +
+                     "WHERE dep_ap.CityID IN (" + CityNameIndex.placeholders(depCityIds.length) + ") " +
+                     "AND fl.TakeOffDate BETWEEN ? AND ? " +
+                     "ORDER BY fl.TakeOffDate, gf.TakeoffTime, fl.FlightID";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            int index = CityNameIndex.bindIds(pstmt, 1, depCityIds);
+            pstmt.setDate(index++, startDate);
+            pstmt.setDate(index, endDate);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                results.add(mapFlightSearchResult(rs));
+            }
+        } catch (SQLException | RuntimeException e) {
+            SEARCH_FLIGHTS_FROM_CITY_IN_PERIOD.failure(started);
+            throw e;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+        return SEARCH_FLIGHTS_FROM_CITY_IN_PERIOD.success(started, results);
+    }
+
+    /**
+     * One page of {@link #searchFlightSchedulesByCities(String, String)}, ordered by FDay,
+     * TakeoffTime, then GeneralFlightID, for tables that load rows as they are scrolled to.
+     *
+     * @throws IllegalArgumentException if the page size is out of range or the cursor is not a schedule-search cursor
+     */
+    public Page<FlightSearchResult> searchFlightSchedulesByCities(String departureCityName, String arrivalCityName,
+                                                                  int pageSize, String cursor) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            String[] key = KeysetPager.decode(cursor, "schedule-search", 3);
+            Object[] seek = null;
+            if (key != null) {
+                try {
+                    seek = new Object[] { Date.valueOf(key[0]), Time.valueOf(key[1]), Integer.valueOf(key[2]) };
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+                }
+            }
+            int[] depCityIds = CityNameIndex.getInstance().resolveCityIds(departureCityName);
+            int[] arrCityIds = CityNameIndex.getInstance().resolveCityIds(arrivalCityName);
+            if (depCityIds.length == 0 || arrCityIds.length == 0) {
+                return SEARCH_FLIGHT_SCHEDULES_PAGED.success(started, new Page<>(new ArrayList<>(), null)); // No city matches the text
+            }
+            String idsSql = "SELECT gf.GeneralFlightID FROM GeneralFlight gf " +
+                         "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
+                         "JOIN Airport arr_ap ON gf.ArrAirport = arr_ap.AirportID " +
+                         "WHERE dep_ap.CityID IN (" + CityNameIndex.placeholders(depCityIds.length) + ") " +
+                         "AND arr_ap.CityID IN (" + CityNameIndex.placeholders(arrCityIds.length) + ") ";
+            String limit = SCHEDULE_PAGE_ORDER + " LIMIT ?";
+            return SEARCH_FLIGHT_SCHEDULES_PAGED.success(started, KeysetPager.fetch(
+                    schedulePageSql(idsSql + limit),
+                    schedulePageSql(idsSql + "AND (gf.FDay, gf.TakeoffTime, gf.GeneralFlightID) > (?, ?, ?) " + limit),
+                    KeysetPager.ids(depCityIds, arrCityIds), seek, pageSize, FlightDAO::mapScheduleSearchResult, "schedule-search",
+                    r -> new String[] { r.getfDay().toString(), r.getTakeoffTime().toString(), String.valueOf(r.getGeneralFlightId()) }));
+        } catch (SQLException | RuntimeException e) {
+            SEARCH_FLIGHT_SCHEDULES_PAGED.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * One page of {@link #searchFlightsFromCityInPeriod(String, Date, Date)}, ordered by
+     * TakeOffDate, TakeoffTime, then FlightID, like the unpaged search.
+     *
+     * @throws IllegalArgumentException if the page size is out of range or the cursor is not a flight-search cursor
+     */
+    public Page<OperationalFlightSearchResult> searchFlightsFromCityInPeriod(String departureCityName, Date startDate, Date endDate,
+                                                                            int pageSize, String cursor) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            Object[] seek = flightSearchSeek(cursor, "flight-search");
+            int[] depCityIds = CityNameIndex.getInstance().resolveCityIds(departureCityName);
+            if (depCityIds.length == 0) {
+                return SEARCH_FLIGHTS_PAGED.success(started, new Page<>(new ArrayList<>(), null)); // No city matches the text
+            }
+            String idsSql = "SELECT fl.FlightID FROM Flight fl " +
+                         "JOIN GeneralFlight gf ON fl.GeneralFlightID = gf.GeneralFlightID " +
+                         "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
+                         "WHERE dep_ap.CityID IN (" + CityNameIndex.placeholders(depCityIds.length) + ") " +
+                         "AND fl.TakeOffDate BETWEEN ? AND ? ";
+            String limit = FLIGHT_PAGE_ORDER + " LIMIT ?";
+            Object[] ids = KeysetPager.ids(depCityIds);
+            Object[] filter = Arrays.copyOf(ids, ids.length + 2);
+            filter[ids.length] = startDate;
+            filter[ids.length + 1] = endDate;
+            return SEARCH_FLIGHTS_PAGED.success(started, KeysetPager.fetch(
+                    flightPageSql(idsSql + limit),
+                    flightPageSql(idsSql + FLIGHT_PAGE_SEEK + limit),
+                    filter, seek, pageSize, FlightDAO::mapFlightSearchResult, "flight-search", FlightDAO::flightSearchKey));
+        } catch (SQLException | RuntimeException e) {
+            SEARCH_FLIGHTS_PAGED.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * One page of the flights that can still be booked (Scheduled or In Progress, with seats
+     * left), with display names, ordered by TakeOffDate, TakeoffTime, then FlightID.
+     *
+     * @throws IllegalArgumentException if the page size is out of range or the cursor is not a bookable-flights cursor
+     */
+    public Page<OperationalFlightSearchResult> listBookableFlights(int pageSize, String cursor) throws SQLException {
+        return listBookableFlights(null, pageSize, cursor);
+    }
+
+    /**
+     * Type-ahead variant of {@link #listBookableFlights(int, String)}: only the flights
+     * matching {@code term}. A term of digits is a FlightID; any other term is resolved
+     * by {@link CityNameIndex} and matches the departure or arrival city (a city or airport
+     * name containing it). A blank term matches all.
+     */
+    public Page<OperationalFlightSearchResult> listBookableFlights(String term, int pageSize, String cursor) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            Object[] seek = flightSearchSeek(cursor, "bookable-flights");
+            String text = term == null ? "" : term.trim();
+            String idsSql = "SELECT fl.FlightID FROM Flight fl " +
+                            "JOIN GeneralFlight gf ON fl.GeneralFlightID = gf.GeneralFlightID ";
+            String where = "WHERE fl.State IN (0, 1) AND gf.NumberSeats > gf.seats_booked ";
+            Object[] filter = null;
+            if (text.chars().allMatch(Character::isDigit) && !text.isEmpty() && text.length() < 10) {
+                where += "AND fl.FlightID = ? ";
+                filter = new Object[] { Integer.valueOf(text) };
+            } else if (!text.isEmpty()) {
+                int[] cityIds = CityNameIndex.getInstance().resolveCityIds(text);
+                if (cityIds.length == 0) {
+                    return LIST_BOOKABLE_FLIGHTS.success(started, new Page<>(new ArrayList<>(), null)); // No city matches the text
+                }
+                idsSql += "JOIN Airport dep_ap ON gf.DepAirport = dep_ap.AirportID " +
+                          "JOIN Airport arr_ap ON gf.ArrAirport = arr_ap.AirportID ";
+                where += "AND (dep_ap.CityID IN (" + CityNameIndex.placeholders(cityIds.length) + ") " +
+                         "OR arr_ap.CityID IN (" + CityNameIndex.placeholders(cityIds.length) + ")) ";
+                filter = KeysetPager.ids(cityIds, cityIds);
+            }
+            String limit = FLIGHT_PAGE_ORDER + " LIMIT ?";
+            return LIST_BOOKABLE_FLIGHTS.success(started, KeysetPager.fetch(
+                    flightPageSql(idsSql + where + limit),
+                    flightPageSql(idsSql + where + FLIGHT_PAGE_SEEK + limit),
+                    filter, seek, pageSize, FlightDAO::mapFlightSearchResult, "bookable-flights", FlightDAO::flightSearchKey));
+        } catch (SQLException | RuntimeException e) {
+            LIST_BOOKABLE_FLIGHTS.failure(started);
+            throw e;
         }
-        return flights;
+    }
+
+    private static Object[] flightSearchSeek(String cursor, String listing) {
+        String[] key = KeysetPager.decode(cursor, listing, 3);
+        if (key == null) {
+            return null;
+        }
+        try {
+            Date day = Date.valueOf(key[0]);
+            return new Object[] { day, day, Time.valueOf(key[1]), Integer.valueOf(key[2]) }; // FLIGHT_PAGE_SEEK
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+
+    private static String[] flightSearchKey(OperationalFlightSearchResult r) {
+        return new String[] { r.getTakeOffDate().toString(), r.getTakeoffTime().toString(), String.valueOf(r.getFlightId()) };
+    }
+
+    // The display query around a page of GeneralFlightIDs picked by idsSql
+    private static String schedulePageSql(String idsSql) {
+        return SCHEDULE_SEARCH_COLUMNS + "FROM (" + idsSql + ") page " +
+               "JOIN GeneralFlight gf ON gf.GeneralFlightID = page.GeneralFlightID " + SCHEDULE_SEARCH_JOINS + SCHEDULE_PAGE_ORDER;
+    }
+
+    // The display query around a page of FlightIDs picked by idsSql
+    private static String flightPageSql(String idsSql) {
+        return FLIGHT_SEARCH_COLUMNS + "FROM (" + idsSql + ") page " +
+               "JOIN Flight fl ON fl.FlightID = page.FlightID " + FLIGHT_SEARCH_JOINS + FLIGHT_PAGE_ORDER;
+    }
+
+    // Row mappers for the display searches
+    private static FlightSearchResult mapScheduleSearchResult(ResultSet rs) throws SQLException {
+        FlightSearchResult result = new FlightSearchResult();
+        result.setGeneralFlightId(rs.getInt("GeneralFlightID"));
+        result.setTakeoffTime(rs.getTime("TakeoffTime"));
+        result.setArrivalTime(rs.getTime("ArrivalTime"));
+        result.setfDay(rs.getDate("FDay"));
+        result.setNumberSeats(rs.getInt("NumberSeats"));
+        result.setSeatsBooked(rs.getInt("seats_booked"));
+        result.setAirlineName(rs.getString("AirlineName"));
+        result.setDepartureAirport(rs.getString("DepartureAirport"));
+        result.setDepartureCity(rs.getString("DepartureCity"));
+        result.setArrivalAirport(rs.getString("ArrivalAirport"));
+        result.setArrivalCity(rs.getString("ArrivalCity"));
+        return result;
+    }
+
+    private static OperationalFlightSearchResult mapFlightSearchResult(ResultSet rs) throws SQLException {
+        OperationalFlightSearchResult result = new OperationalFlightSearchResult();
+        result.setFlightId(rs.getInt("FlightID"));
+        result.setTakeOffDate(rs.getDate("TakeOffDate"));
+        result.setArrivalDate(rs.getDate("ArrivalDate"));
+        result.setState(rs.getInt("State"));
+        result.setGeneralFlightId(rs.getInt("GeneralFlightID"));
+        result.setTakeoffTime(rs.getTime("TakeoffTime"));
+        result.setNumberSeats(rs.getInt("NumberSeats"));
+        result.setSeatsBooked(rs.getInt("seats_booked"));
+        result.setAirlineName(rs.getString("AirlineName"));
+        result.setDepartureAirport(rs.getString("DepartureAirport"));
+        result.setDepartureCity(rs.getString("DepartureCity"));
+        result.setArrivalAirport(rs.getString("ArrivalAirport"));
+        result.setArrivalCity(rs.getString("ArrivalCity"));
+        result.setAircraftName(rs.getString("AircraftName")); // This can be null
+        return result;
     }
 
     // Functionality 8: Update a specific flight by changing departure date/time and/or arrival date/time
     // Note: Time part is on GeneralFlight. This updates dates on operational Flight.
     public boolean updateFlightDatesAndState(Flight flight) throws SQLException {
+        long started = System.nanoTime();
         String sql = "UPDATE Flight SET TakeOffDate = ?, ArrivalDate = ?, State = ? WHERE FlightID = ?";
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -207,9 +701,13 @@ public class FlightDAO {
             pstmt.setDate(2, flight.getArrivalDate());
             pstmt.setInt(3, flight.getState()); // Also allow updating state
             pstmt.setInt(4, flight.getFlightId());
-            return pstmt.executeUpdate() > 0;
+            return UPDATE_FLIGHT_DATES_AND_STATE.success(started, pstmt.executeUpdate() > 0);
+        } catch (SQLException | RuntimeException e) {
+            UPDATE_FLIGHT_DATES_AND_STATE.failure(started);
+            throw e;
         } finally {
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
      // Add deleteFlight as needed (be careful with bookings linked to it)
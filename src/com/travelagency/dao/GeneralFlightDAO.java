@@ -2,6 +2,7 @@ package com.travelagency.dao;
 
 import com.travelagency.db.DatabaseConnection;
 import com.travelagency.model.GeneralFlight;
+import com.travelagency.service.RoutePlanner;
 // If you create a DTO (Data Transfer Object) for richer display in JComboBox:
 // import com.travelagency.model.dto.GeneralFlightDisplay;
 
@@ -15,10 +16,19 @@ import java.sql.Date; // For fDay
 import java.sql.Time; // For takeoffTime, arrivalTime
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class GeneralFlightDAO {
 
+    // DaoMetrics timers, one per database method
+    private static final DaoMetrics.Metric ADD_GENERAL_FLIGHT = DaoMetrics.metric("GeneralFlightDAO", "addGeneralFlight");
+    private static final DaoMetrics.Metric GET_GENERAL_FLIGHT_BY_ID = DaoMetrics.metric("GeneralFlightDAO", "getGeneralFlightById");
+    private static final DaoMetrics.Metric GET_ALL_GENERAL_FLIGHTS = DaoMetrics.metric("GeneralFlightDAO", "getAllGeneralFlights");
+    private static final DaoMetrics.Metric FOR_EACH_GENERAL_FLIGHT = DaoMetrics.metric("GeneralFlightDAO", "forEachGeneralFlight");
+
     public boolean addGeneralFlight(GeneralFlight gf) throws SQLException {
+        long started = System.nanoTime();
         String sql = "INSERT INTO GeneralFlight (TakeoffTime, ArrivalTime, FDay, DepAirport, ArrAirport, AirlineID, NumberSeats, seats_booked) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         Connection conn = null;
@@ -38,20 +48,26 @@ public class GeneralFlightDAO {
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
-                return false;
+                return ADD_GENERAL_FLIGHT.success(started, false);
             }
             generatedKeys = pstmt.getGeneratedKeys();
             if (generatedKeys.next()) {
                 gf.setGeneralFlightId(generatedKeys.getInt(1));
+                RoutePlanner.getInstance().scheduleAdded(gf);
             }
-            return true;
+            return ADD_GENERAL_FLIGHT.success(started, true);
+        } catch (SQLException | RuntimeException e) {
+            ADD_GENERAL_FLIGHT.failure(started);
+            throw e;
         } finally {
             if (generatedKeys != null) try { generatedKeys.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
     }
 
     public GeneralFlight getGeneralFlightById(int generalFlightId) throws SQLException {
+        long started = System.nanoTime();
         String sql = "SELECT * FROM GeneralFlight WHERE GeneralFlightID = ?";
         GeneralFlight gf = null;
         Connection conn = null;
@@ -63,26 +79,21 @@ public class GeneralFlightDAO {
             pstmt.setInt(1, generalFlightId);
             rs = pstmt.executeQuery();
             if (rs.next()) {
-                gf = new GeneralFlight(
-                    rs.getInt("GeneralFlightID"),
-                    rs.getTime("TakeoffTime"),
-                    rs.getTime("ArrivalTime"),
-                    rs.getDate("FDay"),
-                    rs.getInt("DepAirport"),
-                    rs.getInt("ArrAirport"),
-                    rs.getInt("AirlineID"),
-                    rs.getInt("NumberSeats"),
-                    rs.getInt("seats_booked")
-                );
+                gf = mapGeneralFlight(rs);
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_GENERAL_FLIGHT_BY_ID.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return gf;
+        return GET_GENERAL_FLIGHT_BY_ID.success(started, gf);
     }
 
     public List<GeneralFlight> getAllGeneralFlights() throws SQLException {
+        long started = System.nanoTime();
         List<GeneralFlight> generalFlights = new ArrayList<>();
         // Consider joining with Airport and Airline for richer objects if needed directly
         // Or create a separate DTO for display purposes.
@@ -95,24 +106,52 @@ public class GeneralFlightDAO {
             stmt = conn.createStatement();
             rs = stmt.executeQuery(sql);
             while (rs.next()) {
-                GeneralFlight gf = new GeneralFlight(
-                    rs.getInt("GeneralFlightID"),
-                    rs.getTime("TakeoffTime"),
-                    rs.getTime("ArrivalTime"),
-                    rs.getDate("FDay"),
-                    rs.getInt("DepAirport"),
-                    rs.getInt("ArrAirport"),
-                    rs.getInt("AirlineID"),
-                    rs.getInt("NumberSeats"),
-                    rs.getInt("seats_booked")
-                );
-                generalFlights.add(gf);
+                generalFlights.add(mapGeneralFlight(rs));
             }
+        } catch (SQLException | RuntimeException e) {
+            GET_ALL_GENERAL_FLIGHTS.failure(started);
+            throw e;
         } finally {
             if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
             if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
         }
-        return generalFlights;
+        return GET_ALL_GENERAL_FLIGHTS.success(started, generalFlights);
+    }
+
+    /**
+     * Streams every schedule ordered by FDay and TakeoffTime without loading the table
+     * into memory (see {@link ResultStreams}). Close the stream when done; SQL errors
+     * while reading surface as {@link UncheckedSQLException}.
+     */
+    public Stream<GeneralFlight> streamAllGeneralFlights() throws SQLException {
+        return ResultStreams.stream("SELECT * FROM GeneralFlight ORDER BY FDay, TakeoffTime", GeneralFlightDAO::mapGeneralFlight);
+    }
+
+    /** Calls {@code action} for every schedule, in FDay/TakeoffTime order; returns the number of rows. */
+    public int forEachGeneralFlight(Consumer<? super GeneralFlight> action) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return FOR_EACH_GENERAL_FLIGHT.success(started, ResultStreams.forEach(streamAllGeneralFlights(), action));
+        } catch (SQLException | RuntimeException e) {
+            FOR_EACH_GENERAL_FLIGHT.failure(started);
+            throw e;
+        }
+    }
+
+    // Package-private so the JMH benchmarks can time the mapping on its own
+    static GeneralFlight mapGeneralFlight(ResultSet rs) throws SQLException {
+        return new GeneralFlight(
+            rs.getInt("GeneralFlightID"),
+            rs.getTime("TakeoffTime"),
+            rs.getTime("ArrivalTime"),
+            rs.getDate("FDay"),
+            rs.getInt("DepAirport"),
+            rs.getInt("ArrAirport"),
+            rs.getInt("AirlineID"),
+            rs.getInt("NumberSeats"),
+            rs.getInt("seats_booked")
+        );
     }
 
     // Add updateGeneralFlight (e.g., number of seats, times - careful with existing bookings)
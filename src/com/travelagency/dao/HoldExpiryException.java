@@ -0,0 +1,33 @@
+package com.travelagency.dao;
+
+import com.travelagency.model.Booking;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Thrown by {@link BookingDAO#expireHolds} when a chunk fails after earlier chunks were
+ * committed: those holds are cancelled for good, the rest were not touched. The SQLState,
+ * error code and message are the failing statement's.
+ */
+public class HoldExpiryException extends SQLException {
+
+    private final transient List<Booking> expired;
+    private final transient List<Booking> remaining;
+
+    public HoldExpiryException(SQLException cause, List<Booking> expired, List<Booking> remaining) {
+        super(cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+        this.expired = expired;
+        this.remaining = remaining;
+    }
+
+    /** The holds cancelled by the chunks that committed before the failure. */
+    public List<Booking> getExpired() {
+        return expired;
+    }
+
+    /** The bookings of {@code due} from the failing chunk on, still to be expired. */
+    public List<Booking> getRemaining() {
+        return remaining;
+    }
+}
@@ -0,0 +1,162 @@
+package com.travelagency.dao;
+
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.dto.Page;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset ("seek") pagination shared by the listing DAOs.
+ * <p>
+ * A page is read with {@code WHERE (sort key, primary key) > (last row's values)
+ * ORDER BY sort key, primary key LIMIT n+1}, so with a matching composite index MySQL
+ * starts reading at the right entry and page 1000 costs the same as page 1. The extra
+ * row only tells whether another page exists. The cursor handed back to callers is the
+ * last row's key, Base64-encoded together with the listing name so a customer cursor
+ * cannot be replayed against flights.
+ */
+final class KeysetPager {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private KeysetPager() {}
+
+    /**
+     * Runs {@code firstSql} (no cursor) or {@code seekSql} (with the decoded key bound to
+     * its leading parameters); both must end with {@code LIMIT ?}.
+     */
+    static <T> Page<T> fetch(String firstSql, String seekSql, Object[] seekKey, int pageSize,
+                             RowMapper<T> mapper, String listing, Function<T, String[]> keyOf) throws SQLException {
+        return fetch(firstSql, seekSql, null, seekKey, pageSize, mapper, listing, keyOf);
+    }
+
+    /**
+     * Same, for filtered listings (searches): {@code filter} is bound first, then the seek
+     * key, then the limit.
+     */
+    static <T> Page<T> fetch(String firstSql, String seekSql, Object[] filter, Object[] seekKey, int pageSize,
+                             RowMapper<T> mapper, String listing, Function<T, String[]> keyOf) throws SQLException {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        List<T> items = new ArrayList<>(pageSize + 1);
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(seekKey == null ? firstSql : seekSql);
+            int index = 1;
+            if (filter != null) {
+                for (Object value : filter) {
+                    pstmt.setObject(index++, value);
+                }
+            }
+            if (seekKey != null) {
+                for (Object value : seekKey) {
+                    pstmt.setObject(index++, value);
+                }
+            }
+            pstmt.setInt(index, pageSize + 1);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                items.add(mapper.map(rs));
+            }
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+        String next = null;
+        if (items.size() > pageSize) {
+            items.remove(pageSize);
+            next = encode(listing, keyOf.apply(items.get(pageSize - 1)));
+        }
+        return new Page<>(items, next);
+    }
+
+    /**
+     * The IDs of one or more {@code IN (...)} lists as filter parameters, in order, each
+     * list padded as {@link CityNameIndex#placeholders} pads its placeholders.
+     */
+    static Object[] ids(int[]... lists) {
+        int n = 0;
+        for (int[] list : lists) n += CityNameIndex.paddedLength(list.length);
+        Object[] values = new Object[n];
+        int i = 0;
+        for (int[] list : lists) {
+            int padded = CityNameIndex.paddedLength(list.length);
+            for (int j = 0; j < padded; j++) values[i++] = list[Math.min(j, list.length - 1)];
+        }
+        return values;
+    }
+
+    /** A LIKE pattern matching values that start with {@code text}, wildcards in it escaped. */
+    static String likePrefix(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    static String encode(String listing, String... key) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(listing);
+            out.writeByte(key.length);
+            for (String part : key) {
+                out.writeUTF(part);
+            }
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen with an in-memory stream
+        }
+    }
+
+    /**
+     * Decodes a cursor made by {@link #encode}; null stays null (first page). Anything else,
+     * including a cursor of another listing, is refused with an IllegalArgumentException.
+     */
+    static String[] decode(String cursor, String listing, int keyLength) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            if (!listing.equals(in.readUTF()) || in.readByte() != keyLength) {
+                throw new IllegalArgumentException("Cursor does not belong to the " + listing + " listing");
+            }
+            String[] key = new String[keyLength];
+            for (int i = 0; i < keyLength; i++) {
+                key[i] = in.readUTF();
+            }
+            if (in.read() != -1) {
+                throw new IllegalArgumentException("Bytes after the key"); // A shortened part, or appended data
+            }
+            return key;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+
+    /** True if {@code cursor} is a cursor of {@code listing}, for methods that page more than one listing. */
+    static boolean belongsTo(String cursor, String listing) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            return listing.equals(in.readUTF());
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.travelagency.dao;
+
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.Aircraft;
+import com.travelagency.model.Airline;
+import com.travelagency.model.Airport;
+import com.travelagency.model.City;
+import com.travelagency.util.IntMap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory copy of the four small reference tables (City, Airport, Airline, Aircraft).
+ * <p>
+ * Each table is loaded once, on first use, into an int-keyed map plus a sorted list
+ * and published as an immutable snapshot, so lookups never lock or hit MySQL.
+ * The DAO write methods update the snapshot (copy-on-write). Edits made by other
+ * nodes are picked up by {@link #startVersionCheck(long)}, which compares
+ * {@code CHECKSUM TABLE} results periodically and reloads tables that changed.
+ * An id missing from a snapshot is looked up once, on its own row (it may have been
+ * added elsewhere since the load); the snapshot then remembers the miss until it is
+ * replaced.
+ */
+public class ReferenceDataCache {
+
+    private static final ReferenceDataCache INSTANCE = new ReferenceDataCache();
+
+    // Ids remembered as missing per snapshot; beyond this, misses go to the database each time
+    private static final int MAX_MISSES = 1_024;
+    private static final DaoMetrics.Metric CHECK_VERSIONS = DaoMetrics.metric("ReferenceDataCache", "checkVersions");
+
+    private final Table<City> cities = new Table<>("City", "SELECT * FROM City", "CityID",
+            rs -> new City(rs.getInt("CityID"), rs.getString("CityName")),
+            City::getCityId, Comparator.comparing(City::getCityName, String.CASE_INSENSITIVE_ORDER));
+    private final Table<Airport> airports = new Table<>("Airport", "SELECT * FROM Airport", "AirportID",
+            rs -> new Airport(rs.getInt("AirportID"), rs.getString("AirportName"), rs.getInt("CityID")),
+            Airport::getAirportId, Comparator.comparing(Airport::getAirportName, String.CASE_INSENSITIVE_ORDER));
+    private final Table<Airline> airlines = new Table<>("Airline", "SELECT * FROM Airline", "AirlineID",
+            rs -> new Airline(rs.getInt("AirlineID"), rs.getString("AirlineName")),
+            Airline::getAirlineId, Comparator.comparing(Airline::getAirlineName, String.CASE_INSENSITIVE_ORDER));
+    private final Table<Aircraft> aircraft = new Table<>("Aircraft", "SELECT * FROM Aircraft", "AircraftID",
+            rs -> new Aircraft(rs.getInt("AircraftID"), rs.getString("AircraftName")),
+            Aircraft::getAircraftId, Comparator.comparing(Aircraft::getAircraftName, String.CASE_INSENSITIVE_ORDER));
+
+    private final Map<String, Long> lastChecksums = new HashMap<>();
+    private ScheduledExecutorService versionChecker;
+    private ScheduledFuture<?> versionCheckTask;
+
+    private ReferenceDataCache() {}
+
+    public static ReferenceDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    // --- Lookups ---
+    public City getCity(int cityId) throws SQLException { return cities.get(cityId); }
+    public Airport getAirport(int airportId) throws SQLException { return airports.get(airportId); }
+    public Airline getAirline(int airlineId) throws SQLException { return airlines.get(airlineId); }
+    public Aircraft getAircraft(int aircraftId) throws SQLException { return aircraft.get(aircraftId); }
+
+    // Sorted by name, as the DAO getAll* queries did
+    public List<City> getAllCities() throws SQLException { return cities.all(); }
+    public List<Airport> getAllAirports() throws SQLException { return airports.all(); }
+    public List<Airline> getAllAirlines() throws SQLException { return airlines.all(); }
+    public List<Aircraft> getAllAircraft() throws SQLException { return aircraft.all(); }
+
+    // --- Write-through from the DAOs ---
+    void cityChanged(City city) { cities.put(city); }
+    void cityRemoved(int cityId) {
+        cities.remove(cityId);
+        airports.invalidate(); // Airports of the city are deleted by ON DELETE CASCADE
+    }
+    void airportChanged(Airport airport) { airports.put(airport); }
+    void airlineChanged(Airline airline) { airlines.put(airline); }
+    void aircraftChanged(Aircraft a) { aircraft.put(a); }
+
+    /** Drops every table; each one is reloaded on next use. */
+    public void invalidateAll() {
+        cities.invalidate();
+        airports.invalidate();
+        airlines.invalidate();
+        aircraft.invalidate();
+    }
+
+    /** Loads all four tables now instead of on first use. */
+    public void preload() throws SQLException {
+        cities.all();
+        airports.all();
+        airlines.all();
+        aircraft.all();
+    }
+
+    /**
+     * Loads the four tables in parallel on {@code executor}, then builds the city-name
+     * search index, so the first combo boxes and searches find everything in memory.
+     * A failed load completes the future with an {@link UncheckedSQLException}; that
+     * table is then loaded on first use, as without preloading.
+     */
+    public CompletableFuture<Void> preload(Executor executor) {
+        CompletableFuture<Void> places = CompletableFuture.allOf(load(cities, executor), load(airports, executor))
+                .thenRunAsync(() -> {
+                    try {
+                        CityNameIndex.getInstance().warm();
+                    } catch (SQLException e) {
+                        throw new UncheckedSQLException(e);
+                    }
+                }, executor);
+        return CompletableFuture.allOf(places, load(airlines, executor), load(aircraft, executor));
+    }
+
+    private static CompletableFuture<Void> load(Table<?> table, Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                table.loaded();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }, executor);
+    }
+
+    /** Version of the City and Airport snapshots; changes whenever either is modified or reloaded. */
+    public long getPlacesVersion() {
+        return cities.version + airports.version;
+    }
+
+    /**
+     * Starts a background check that reloads any table changed by another node,
+     * bounding staleness to roughly {@code periodSeconds}.
+     */
+    public synchronized void startVersionCheck(long periodSeconds) {
+        stopVersionCheck();
+        versionChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reference-data-version-check");
+            t.setDaemon(true);
+            return t;
+        });
+        versionCheckTask = versionChecker.scheduleWithFixedDelay(() -> {
+            try {
+                checkVersions();
+            } catch (SQLException e) {
+                System.err.println("Reference data version check failed: " + e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopVersionCheck() {
+        if (versionCheckTask != null) {
+            versionCheckTask.cancel(false);
+            versionChecker.shutdownNow();
+            versionCheckTask = null;
+            versionChecker = null;
+        }
+    }
+
+    // Compares table checksums with the previous run and invalidates tables that changed
+    void checkVersions() throws SQLException {
+        long started = System.nanoTime();
+        String sql = "CHECKSUM TABLE City, Airport, Airline, Aircraft";
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(sql);
+            while (rs.next()) {
+                String table = rs.getString(1);
+                table = table.substring(table.lastIndexOf('.') + 1); // "schema.City" -> "City"
+                long checksum = rs.getLong(2);
+                Long previous;
+                synchronized (lastChecksums) {
+                    previous = lastChecksums.put(table, checksum);
+                }
+                if (previous != null && previous != checksum) {
+                    tableNamed(table).invalidate();
+                }
+            }
+            CHECK_VERSIONS.success(started, 0);
+        } catch (SQLException | RuntimeException e) {
+            CHECK_VERSIONS.failure(started);
+            throw e;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    private Table<?> tableNamed(String name) {
+        switch (name.toLowerCase()) {
+            case "city": return cities;
+            case "airport": return airports;
+            case "airline": return airlines;
+            default: return aircraft;
+        }
+    }
+
+    // Immutable view of one table; replaced as a whole, never modified in place. Only the
+    // ids known to be missing from it are added to as lookups find them.
+    private static final class Snapshot<T> {
+        final IntMap<T> byId;
+        final List<T> sorted;
+        final Set<Integer> misses = ConcurrentHashMap.newKeySet();
+
+        Snapshot(IntMap<T> byId, List<T> sorted) {
+            this.byId = byId;
+            this.sorted = sorted;
+        }
+    }
+
+    private static final class Table<T> {
+        final String name;
+        final String loadSql;
+        final String findSql;
+        final RowMapper<T> mapper;
+        final ToIntFunction<T> idOf;
+        final Comparator<T> order;
+        final DaoMetrics.Metric loadMetric;
+        final DaoMetrics.Metric findMetric;
+        volatile Snapshot<T> snapshot;
+        volatile long version;
+
+        Table(String name, String loadSql, String idColumn, RowMapper<T> mapper, ToIntFunction<T> idOf, Comparator<T> order) {
+            this.name = name;
+            this.loadSql = loadSql;
+            this.findSql = loadSql + " WHERE " + idColumn + " = ?";
+            this.mapper = mapper;
+            this.idOf = idOf;
+            this.order = order;
+            this.loadMetric = DaoMetrics.metric("ReferenceDataCache", "load" + name);
+            this.findMetric = DaoMetrics.metric("ReferenceDataCache", "find" + name);
+        }
+
+        T get(int id) throws SQLException {
+            Snapshot<T> s = loaded();
+            T value = s.byId.get(id);
+            if (value != null || s.misses.contains(id)) {
+                return value;
+            }
+            // Possibly added by another node since the load: fetch that row alone
+            value = find(id);
+            if (value != null) {
+                return putIfUnchanged(s, value);
+            }
+            if (s.misses.size() < MAX_MISSES) {
+                s.misses.add(id);
+            }
+            return null;
+        }
+
+        // Installs a row read outside the lock only if no put, remove or reload happened
+        // since snapshot s: otherwise the row may be older than what the change installed
+        private synchronized T putIfUnchanged(Snapshot<T> s, T row) {
+            Snapshot<T> current = snapshot;
+            if (current != s) {
+                T installed = current == null ? null : current.byId.get(idOf.applyAsInt(row));
+                return installed != null ? installed : row;
+            }
+            put(row);
+            return row;
+        }
+
+        List<T> all() throws SQLException {
+            return new ArrayList<>(loaded().sorted);
+        }
+
+        private Snapshot<T> loaded() throws SQLException {
+            Snapshot<T> s = snapshot;
+            if (s == null) {
+                synchronized (this) {
+                    s = snapshot;
+                    if (s == null) {
+                        s = load();
+                        snapshot = s;
+                        version++;
+                    }
+                }
+            }
+            return s;
+        }
+
+        private Snapshot<T> load() throws SQLException {
+            long started = System.nanoTime();
+            List<T> rows = new ArrayList<>();
+            Connection conn = null;
+            Statement stmt = null;
+            ResultSet rs = null;
+            try {
+                conn = DatabaseConnection.getConnection();
+                stmt = conn.createStatement();
+                rs = stmt.executeQuery(loadSql);
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+                loadMetric.success(started, rows.size());
+            } catch (SQLException | RuntimeException e) {
+                loadMetric.failure(started);
+                throw e;
+            } finally {
+                if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+                if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
+                DatabaseConnection.releaseConnection(conn);
+            }
+            IntMap<T> byId = new IntMap<>(rows.size());
+            for (T row : rows) {
+                byId.put(idOf.applyAsInt(row), row);
+            }
+            rows.sort(order);
+            return new Snapshot<>(byId, Collections.unmodifiableList(rows));
+        }
+
+        private T find(int id) throws SQLException {
+            long started = System.nanoTime();
+            Connection conn = null;
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+            try {
+                conn = DatabaseConnection.getConnection();
+                pstmt = conn.prepareStatement(findSql);
+                pstmt.setInt(1, id);
+                rs = pstmt.executeQuery();
+                T row = rs.next() ? mapper.map(rs) : null;
+                findMetric.success(started, row == null ? 0 : 1);
+                return row;
+            } catch (SQLException | RuntimeException e) {
+                findMetric.failure(started);
+                throw e;
+            } finally {
+                if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+                if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+                DatabaseConnection.releaseConnection(conn);
+            }
+        }
+
+        synchronized void put(T row) {
+            Snapshot<T> s = snapshot;
+            if (s == null) {
+                return; // Not loaded yet; the next load will include the row
+            }
+            IntMap<T> byId = s.byId.copy();
+            byId.put(idOf.applyAsInt(row), row);
+            List<T> sorted = new ArrayList<>(s.sorted);
+            sorted.removeIf(existing -> idOf.applyAsInt(existing) == idOf.applyAsInt(row));
+            sorted.add(row);
+            sorted.sort(order);
+            snapshot = new Snapshot<>(byId, Collections.unmodifiableList(sorted));
+            version++;
+        }
+
+        synchronized void remove(int id) {
+            Snapshot<T> s = snapshot;
+            if (s == null) {
+                return;
+            }
+            IntMap<T> byId = s.byId.copy();
+            byId.remove(id);
+            List<T> sorted = new ArrayList<>(s.sorted);
+            sorted.removeIf(existing -> idOf.applyAsInt(existing) == id);
+            snapshot = new Snapshot<>(byId, Collections.unmodifiableList(sorted));
+            version++;
+        }
+
+        synchronized void invalidate() {
+            snapshot = null;
+            version++;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
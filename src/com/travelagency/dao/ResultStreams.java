@@ -0,0 +1,104 @@
+package com.travelagency.dao;
+
+import com.travelagency.db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams query results row by row instead of loading them into a list.
+ * <p>
+ * The statement uses a fetch size ({@code travelagency.db.streamFetchSize}, default 500)
+ * and the connection URL sets {@code useCursorFetch=true}, so MySQL keeps a server-side
+ * cursor and sends that many rows at a time; memory stays flat however big the table is.
+ * The connection is held until the stream is closed or fully consumed.
+ * Always close the stream (try-with-resources).
+ */
+final class ResultStreams {
+
+    static final int FETCH_SIZE = Integer.getInteger("travelagency.db.streamFetchSize", 500);
+
+    private ResultStreams() {}
+
+    static <T> Stream<T> stream(String sql, RowMapper<T> mapper) throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        PreparedStatement pstmt = null;
+        ResultSet rs;
+        try {
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(FETCH_SIZE);
+            rs = pstmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+            throw e;
+        }
+        Cursor<T> cursor = new Cursor<>(conn, pstmt, rs, mapper);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    /** Runs {@code action} for every element, closes the stream and returns the row count. */
+    static <T> int forEach(Stream<T> stream, Consumer<? super T> action) throws SQLException {
+        int[] count = {0};
+        try (Stream<T> s = stream) {
+            s.forEach(row -> {
+                action.accept(row);
+                count[0]++;
+            });
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement pstmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private boolean closed;
+
+        Cursor(Connection conn, PreparedStatement pstmt, ResultSet rs, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.pstmt = pstmt;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close(); // Give the connection back as soon as the rows run out
+                    return false;
+                }
+                action.accept(mapper.map(rs));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try { rs.close(); } catch (SQLException logOrIgnore) {}
+            try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.travelagency.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Carries an {@link SQLException} out of a {@code Stream} returned by a DAO, whose
+ * operations cannot throw checked exceptions.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,404 @@
+package com.travelagency.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool used by {@link DatabaseConnection}.
+ * <p>
+ * Idle connections wait in a concurrent deque (LIFO, so the most recently used
+ * connection is handed out first). A semaphore bounds the pool size: while every
+ * connection is in use, {@link #borrow()} blocks, for up to the borrow timeout.
+ * Callers get a proxy whose {@code close()} returns the connection to the pool
+ * instead of closing the physical MySQL connection. Each pooled connection also
+ * keeps a {@link StatementCache} of its prepared statements.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMillis;
+    private final long validationIdleMillis; // Validate on borrow if idle for longer than this
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long leakDetectionMillis;  // 0 = disabled
+    private final int statementCacheSize;    // Per connection, 0 = disabled
+    private final String[] initStatements;   // Run once on every new physical connection
+    private final SlowQueryLog slowQueryLog; // Null = disabled
+
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    private final ScheduledExecutorService housekeeper;
+
+    // Counters
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                   long borrowTimeoutMillis, long validationIdleMillis, long idleTimeoutMillis,
+                   long maxLifetimeMillis, long leakDetectionMillis, int statementCacheSize,
+                   SlowQueryLog slowQueryLog, String... initStatements) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIdleMillis = validationIdleMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.leakDetectionMillis = leakDetectionMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.initStatements = initStatements.clone();
+        this.slowQueryLog = slowQueryLog;
+        if (slowQueryLog != null) {
+            slowQueryLog.attach(this);
+        }
+        this.permits = new Semaphore(maxSize);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000L, Math.min(idleTimeoutMillis, 30_000L) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (shutdown.get()) {
+            throw new SQLException("Connection pool has been shut down.");
+        }
+        long start = System.nanoTime();
+        if (!acquire(borrowTimeoutMillis)) {
+            borrowTimeouts.increment();
+            throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                    + " ms waiting for a database connection (pool size " + maxSize + ", all in use).");
+        }
+        return take(start);
+    }
+
+    /**
+     * Like {@link #borrow()}, but waits at most {@code timeoutMillis} and returns null
+     * instead of failing when every connection stays in use; for background work that
+     * should rather be skipped than compete with the application.
+     */
+    Connection tryBorrow(long timeoutMillis) throws SQLException {
+        if (shutdown.get()) {
+            throw new SQLException("Connection pool has been shut down.");
+        }
+        long start = System.nanoTime();
+        return acquire(timeoutMillis) ? take(start) : null;
+    }
+
+    private boolean acquire(long timeoutMillis) throws SQLException {
+        try {
+            return permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection.", e);
+        }
+    }
+
+    // Hands out an idle connection, or a new one, for a permit already acquired
+    private Connection take(long start) throws SQLException {
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (isUsable(pc)) break;
+                destroy(pc);
+            }
+            if (pc == null) {
+                pc = open();
+            }
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowSite = leakDetectionMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            borrowed.add(pc);
+            borrowCount.increment();
+            long waited = System.nanoTime() - start;
+            borrowWaitNanos.add(waited);
+            return pc.newHandle(waited);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.currentTimeMillis();
+        if (maxLifetimeMillis > 0 && now - pc.createdAt > maxLifetimeMillis) {
+            return false;
+        }
+        try {
+            if (pc.physical.isClosed()) {
+                return false;
+            }
+            if (now - pc.lastReturnedAt > validationIdleMillis && !pc.physical.isValid(2)) {
+                validationFailures.increment();
+                return false;
+            }
+            return true;
+        } catch (SQLException e) {
+            validationFailures.increment();
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical;
+        try {
+            physical = DriverManager.getConnection(url, user, password);
+        } catch (SQLException e) {
+            System.err.println("Database Connection Failed!");
+            e.printStackTrace();
+            throw e;
+        }
+        if (initStatements.length > 0) {
+            try (Statement stmt = physical.createStatement()) {
+                for (String sql : initStatements) {
+                    stmt.execute(sql);
+                }
+            } catch (SQLException e) {
+                try { physical.close(); } catch (SQLException logOrIgnore) {}
+                throw e;
+            }
+        }
+        if (connectionsClosed.sum() > 0) {
+            reconnects.increment(); // Replaces a connection that was discarded earlier
+        }
+        connectionsOpened.increment();
+        openConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    void release(PooledConnection pc) {
+        borrowed.remove(pc);
+        pc.borrowSite = null;
+        pc.statements.connectionReturned();
+        boolean reusable = !shutdown.get();
+        try {
+            if (reusable && !pc.physical.isClosed()) {
+                if (!pc.physical.getAutoCommit()) {
+                    // Never hand out a connection with a half-finished transaction
+                    pc.physical.rollback();
+                    pc.physical.setAutoCommit(true);
+                }
+            } else {
+                reusable = false;
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        if (reusable && maxLifetimeMillis > 0 && System.currentTimeMillis() - pc.createdAt > maxLifetimeMillis) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            pc.lastReturnedAt = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        } else {
+            destroy(pc);
+        }
+        permits.release();
+    }
+
+    private void destroy(PooledConnection pc) {
+        pc.statements.clear();
+        try {
+            pc.physical.close();
+        } catch (SQLException logOrIgnore) {
+        }
+        connectionsClosed.increment();
+        openConnections.decrementAndGet();
+    }
+
+    // Evicts idle/expired connections and reports connections held past the leak threshold
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        int idleCount = idle.size();
+        Iterator<PooledConnection> it = idle.descendingIterator(); // Least recently used first
+        while (it.hasNext()) {
+            PooledConnection pc = it.next();
+            boolean expired = maxLifetimeMillis > 0 && now - pc.createdAt > maxLifetimeMillis;
+            boolean idleTooLong = idleCount > minIdle && now - pc.lastReturnedAt > idleTimeoutMillis;
+            if ((expired || idleTooLong) && idle.removeFirstOccurrence(pc)) {
+                destroy(pc);
+                idleCount--;
+            }
+        }
+
+        if (leakDetectionMillis > 0) {
+            for (PooledConnection pc : borrowed) {
+                Throwable site = pc.borrowSite;
+                if (site != null && now - pc.borrowedAt > leakDetectionMillis) {
+                    pc.borrowSite = null; // Report each leak once
+                    leaksDetected.increment();
+                    System.err.println("Possible connection leak: connection held for "
+                            + (now - pc.borrowedAt) + " ms.");
+                    site.printStackTrace();
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+        housekeeper.shutdownNow();
+        if (slowQueryLog != null) {
+            slowQueryLog.shutdown();
+        }
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+        // Borrowed connections are destroyed when they are returned
+    }
+
+    public boolean isShutdown() { return shutdown.get(); }
+
+    // --- Counters ---
+    public int getMaxSize() { return maxSize; }
+    public int getActiveCount() { return borrowed.size(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getOpenCount() { return openConnections.get(); }
+    public long getBorrowCount() { return borrowCount.sum(); }
+    public long getTotalBorrowWaitNanos() { return borrowWaitNanos.sum(); }
+    public long getBorrowTimeouts() { return borrowTimeouts.sum(); }
+    public long getConnectionsOpened() { return connectionsOpened.sum(); }
+    public long getConnectionsClosed() { return connectionsClosed.sum(); }
+    public long getValidationFailures() { return validationFailures.sum(); }
+    public long getLeaksDetected() { return leaksDetected.sum(); }
+
+    public long getReconnects() { return reconnects.sum(); }
+    public long getStatementCacheHits() { return statementCounters.hits.sum(); }
+    public long getStatementCacheMisses() { return statementCounters.misses.sum(); }
+    public long getStatementCacheEvictions() { return statementCounters.evictions.sum(); }
+    /** Number of prepared/callable statement executions, i.e. query round-trips made by the DAOs. */
+    public long getStatementsExecuted() { return statementCounters.executions.sum(); }
+    /** Statements that took longer than the slow-query threshold (0 if the log is off). */
+    public long getSlowStatements() { return slowQueryLog == null ? 0 : slowQueryLog.getSlowStatements(); }
+
+    @Override
+    public String toString() {
+        long borrows = getBorrowCount();
+        double avgWaitMicros = borrows == 0 ? 0.0 : getTotalBorrowWaitNanos() / 1000.0 / borrows;
+        return String.format("ConnectionPool[active=%d, idle=%d, open=%d/%d, borrows=%d, avgWait=%.1fus, "
+                        + "timeouts=%d, opened=%d, closed=%d, reconnects=%d, validationFailures=%d, leaks=%d, "
+                        + "stmtCacheHits=%d, stmtCacheMisses=%d, stmtCacheEvictions=%d]",
+                getActiveCount(), getIdleCount(), getOpenCount(), maxSize, borrows, avgWaitMicros,
+                getBorrowTimeouts(), getConnectionsOpened(), getConnectionsClosed(), getReconnects(),
+                getValidationFailures(), getLeaksDetected(),
+                getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheEvictions());
+    }
+
+    // A physical connection owned by the pool
+    final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        final long createdAt;
+        volatile long lastReturnedAt;
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize, statementCounters, slowQueryLog);
+            this.createdAt = System.currentTimeMillis();
+            this.lastReturnedAt = createdAt;
+        }
+
+        Connection newHandle(long acquireNanos) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new BorrowedConnection(this, acquireNanos));
+        }
+    }
+
+    // The handle given to one borrower; close() returns the connection, later calls fail
+    private final class BorrowedConnection implements InvocationHandler {
+        private final PooledConnection pc;
+        private final long acquireNanos; // Borrow wait, reported in SqlExecutionEvent
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+
+        BorrowedConnection(PooledConnection pc, long acquireNanos) {
+            this.pc = pc;
+            this.acquireNanos = acquireNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy))
+                            + (returned.get() ? " (returned)" : "");
+                default:
+                    break;
+            }
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            if (method.getName().startsWith("prepare")) {
+                Object cached = pc.statements.prepare(method, args, acquireNanos);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                // Not cached: trace it directly for JFR and the slow-query log
+                return TracedStatement.wrap(result, args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0] : null, acquireNanos, slowQueryLog);
+            }
+            return result;
+        }
+    }
+}
@@ -1,43 +1,145 @@
 package com.travelagency.db;
 
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class DatabaseConnection {
 
-    private static final String DB_URL = "jdbc:mysql://localhost:8889/airoport_syst"; // Verify your MySQL port
-    private static final String USER = "root";
-    private static final String PASS = "root"; // Empty for default MAMP/XAMPP root, or your password
+    // Each setting can be overridden with a -D system property, e.g. -Dtravelagency.db.url=...
+    private static final String DB_URL = System.getProperty("travelagency.db.url",
+            "jdbc:mysql://localhost:8889/airoport_syst?useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true"); // Verify your MySQL port
+    private static final String USER = System.getProperty("travelagency.db.user", "root");
+    private static final String PASS = System.getProperty("travelagency.db.password", "root"); // Empty for default MAMP/XAMPP root, or your password
 
-    private static Connection connection = null;
+    // Pool settings
+    private static final int POOL_MAX_SIZE = Integer.getInteger("travelagency.db.pool.maxSize", 10);
+    private static final int POOL_MIN_IDLE = Integer.getInteger("travelagency.db.pool.minIdle", 2);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("travelagency.db.pool.borrowTimeoutMs", 30_000L);
+    private static final long VALIDATION_IDLE_MS = Long.getLong("travelagency.db.pool.validationIdleMs", 5_000L);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("travelagency.db.pool.idleTimeoutMs", 600_000L);
+    private static final long MAX_LIFETIME_MS = Long.getLong("travelagency.db.pool.maxLifetimeMs", 1_800_000L); // Below MySQL wait_timeout
+    private static final long LEAK_DETECTION_MS = Long.getLong("travelagency.db.pool.leakDetectionMs", 0L);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("travelagency.db.pool.statementCacheSize", 64);
+
+    // Slow-query log: statements slower than this are logged with their EXPLAIN plan (0 = off)
+    private static final long SLOW_QUERY_MS = Long.getLong("travelagency.db.slowQueryMs", 500L);
+    private static final String SLOW_QUERY_LOG = System.getProperty("travelagency.db.slowQueryLog", "logs/slow-queries.%g.log");
+    private static final int SLOW_QUERY_LOG_BYTES = Integer.getInteger("travelagency.db.slowQueryLog.maxBytes", 10 * 1024 * 1024);
+    private static final int SLOW_QUERY_LOG_FILES = Integer.getInteger("travelagency.db.slowQueryLog.files", 5);
+
+    // Seats move in the booking's own transaction (SeatInventory); -Dtravelagency.seats.useTriggers=true leaves it to the triggers
+    private static final boolean APP_MANAGED_SEATS = !Boolean.getBoolean("travelagency.seats.useTriggers");
+
+    private static volatile ConnectionPool pool = null;
 
     private DatabaseConnection() {} // Private constructor
 
+    /**
+     * Borrows a connection from the pool. Callers must give it back with
+     * {@link #releaseConnection(Connection)} (or {@code close()}, which does the same).
+     */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
+        return getPool().borrow();
+    }
+
+    /** Returns a connection obtained from {@link #getConnection()} to the pool. */
+    public static void releaseConnection(Connection conn) {
+        if (conn != null) {
             try {
-                // Class.forName("com.mysql.cj.jdbc.Driver"); // Generally not needed for JDBC 4.0+
-                connection = DriverManager.getConnection(DB_URL, USER, PASS);
-            } catch (SQLException e) {
-                System.err.println("Database Connection Failed!");
-                e.printStackTrace();
-                throw e;
+                conn.close(); // Pooled connections go back to the pool instead of closing
+            } catch (SQLException logOrIgnore) {}
+        }
+    }
+
+    public static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null || p.isShutdown()) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null || p.isShutdown()) {
+                    p = new ConnectionPool(DB_URL, USER, PASS, POOL_MAX_SIZE, POOL_MIN_IDLE,
+                            BORROW_TIMEOUT_MS, VALIDATION_IDLE_MS, IDLE_TIMEOUT_MS,
+                            MAX_LIFETIME_MS, LEAK_DETECTION_MS, STATEMENT_CACHE_SIZE, newSlowQueryLog(),
+                            // Tells the Booking triggers to leave seats_booked to the application
+                            APP_MANAGED_SEATS ? new String[]{"SET @app_manages_seats = 1"} : new String[0]);
+                    try {
+                        checkSeatTriggers(p);
+                    } catch (IllegalStateException e) {
+                        p.shutdown();
+                        throw e;
+                    }
+                    pool = p;
+                }
             }
         }
-        return connection;
+        return p;
     }
 
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                if (!connection.isClosed()) {
-                    connection.close();
-                    connection = null; // Important to allow re-connection
+    /**
+     * Refuses a MySQL database whose Booking triggers predate the application-managed seats:
+     * they would count every seat a second time (see the trigger notes in "db schema").
+     * Other databases (H2 in the benchmarks) have no triggers and are not checked.
+     */
+    private static void checkSeatTriggers(ConnectionPool p) {
+        String sql = "SELECT TRIGGER_NAME, EVENT_MANIPULATION, ACTION_STATEMENT FROM information_schema.TRIGGERS " +
+                     "WHERE TRIGGER_SCHEMA = DATABASE() AND EVENT_OBJECT_TABLE = 'Booking'";
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = p.borrow();
+            String product = conn.getMetaData().getDatabaseProductName();
+            if (!"MySQL".equalsIgnoreCase(product) && !"MariaDB".equalsIgnoreCase(product)) {
+                return;
+            }
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(sql);
+            while (rs.next()) {
+                String body = rs.getString("ACTION_STATEMENT");
+                // The current insert trigger tests @app_manages_seats, the update trigger also skips version bumps
+                boolean current = body.contains("@app_manages_seats")
+                        && (!"UPDATE".equalsIgnoreCase(rs.getString("EVENT_MANIPULATION")) || body.contains("NEW.version"));
+                if (!current) {
+                    throw new IllegalStateException("Booking trigger " + rs.getString("TRIGGER_NAME")
+                            + " is out of date and would double-count seats; recreate the Booking triggers from \"db schema\"");
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
             }
+        } catch (SQLException e) {
+            // Not fatal here: the same failure reaches the first caller that borrows a connection
+            System.err.println("Cannot check the Booking triggers: " + e.getMessage());
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
+            if (conn != null) try { conn.close(); } catch (SQLException logOrIgnore) {}
+        }
+    }
+
+    private static SlowQueryLog newSlowQueryLog() {
+        if (SLOW_QUERY_MS <= 0) {
+            return null;
+        }
+        try {
+            return new SlowQueryLog(SLOW_QUERY_MS, SLOW_QUERY_LOG, SLOW_QUERY_LOG_BYTES, SLOW_QUERY_LOG_FILES);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Slow-query log disabled, cannot open " + SLOW_QUERY_LOG + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** True when bookings reserve seats through {@code SeatInventory} instead of the database triggers. */
+    public static boolean isAppManagedSeats() {
+        return APP_MANAGED_SEATS;
+    }
+
+    // Closes every pooled connection; called on application exit
+    public static void closeConnection() {
+        ConnectionPool p = pool;
+        if (p != null) {
+            p.shutdown();
+            pool = null; // Important to allow re-connection
         }
     }
 
@@ -50,10 +152,21 @@ public class DatabaseConnection {
             } else {
                 System.out.println("Failed to make connection!");
             }
+            DatabaseConnection.releaseConnection(connTest);
+
+            // Borrow again: the same physical connection and prepared statement should be reused
+            for (int i = 0; i < 2; i++) {
+                Connection again = DatabaseConnection.getConnection();
+                java.sql.PreparedStatement ps = again.prepareStatement("SELECT 1");
+                ps.executeQuery().close();
+                ps.close();
+                DatabaseConnection.releaseConnection(again);
+            }
+            System.out.println(getPool());
         } catch (SQLException e) {
             // Error already printed by getConnection() or could print more details here
         } finally {
             DatabaseConnection.closeConnection(); // Close after test
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,277 @@
+package com.travelagency.db;
+
+import com.travelagency.util.Threads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.regex.Pattern;
+
+/**
+ * Writes statements slower than a threshold to a rotating log file, with their bound
+ * parameters, the DAO call stack and the {@code EXPLAIN} output.
+ * <p>
+ * The statement's own thread only measures it and captures the stack; the entry is
+ * written by one background thread, which also runs {@code EXPLAIN} on a pooled
+ * connection (bypassing the statement cache). It waits at most 100 ms for that
+ * connection and never takes the pool's last free one: when the pool is busy the entry
+ * is logged without a plan ("skipped, pool busy"). The same SQL is explained at most once
+ * a minute, and entries are dropped rather than queued without bound when the database
+ * is struggling. Parameters of statements that touch the {@code Customer} table or its
+ * columns are redacted if they are strings, since those are the personal data.
+ * Stored procedure calls cannot be explained and are logged without a plan.
+ */
+final class SlowQueryLog {
+
+    private static final int QUEUE_SIZE = 100;
+    private static final int MAX_STACK_FRAMES = 12;
+    private static final int MAX_PARAM_LENGTH = 100;
+    private static final long EXPLAIN_INTERVAL_MS = 60_000L;
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 10;
+    private static final long EXPLAIN_BORROW_MS = 100L;
+    private static final Pattern CUSTOMER_COLUMNS = Pattern.compile(
+            "\\b(Customer|CustomerID|fname|lname|address|email|phoneNumber)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EXPLAINABLE = Pattern.compile(
+            "^\\s*(SELECT|INSERT|UPDATE|DELETE|REPLACE|WITH)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final long thresholdNanos;
+    private final FileHandler file;
+    private final ThreadPoolExecutor writer;
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final LongAdder slowStatements = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile ConnectionPool pool;
+
+    /**
+     * @param pattern  log file pattern for {@link FileHandler}, e.g. {@code logs/slow-queries.%g.log}
+     * @param maxBytes size at which the file is rotated
+     * @param files    number of rotated files kept
+     */
+    SlowQueryLog(long thresholdMillis, String pattern, int maxBytes, int files) throws IOException {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        Path parent = Paths.get(pattern).toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.file = new FileHandler(pattern, maxBytes, files, true);
+        this.file.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage();
+            }
+        });
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), Threads.daemonFactory("slow-query-log"));
+    }
+
+    /** Called by the pool this log belongs to; EXPLAIN connections are borrowed from it. */
+    void attach(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /** Logs the statement if it took at least the threshold; {@code error} is null if it succeeded. */
+    void check(String sql, Object[] params, int binds, long elapsedNanos, Throwable error) {
+        if (elapsedNanos < thresholdNanos || sql == null) {
+            return;
+        }
+        slowStatements.increment();
+        Entry entry = new Entry(sql, params == null ? new Object[0] : Arrays.copyOf(params, binds),
+                elapsedNanos, error, callerStack(), Thread.currentThread().getName());
+        try {
+            writer.execute(() -> write(entry));
+        } catch (RejectedExecutionException e) {
+            dropped.increment(); // Queue full or shut down
+        }
+    }
+
+    // The frames above the connection layer, i.e. the DAO method and whoever called it
+    private static List<StackTraceElement> callerStack() {
+        List<StackTraceElement> frames = new ArrayList<>(MAX_STACK_FRAMES);
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String cls = frame.getClassName();
+            if (frames.isEmpty() && (cls.startsWith("com.travelagency.db.") || cls.startsWith("jdk.")
+                    || cls.startsWith("java.") || cls.startsWith("com.sun.proxy."))) {
+                continue;
+            }
+            frames.add(frame);
+            if (frames.size() == MAX_STACK_FRAMES) break;
+        }
+        return frames;
+    }
+
+    private void write(Entry entry) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("# ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(entry.loggedAt)))
+          .append(String.format(Locale.ROOT, "  %.1f ms", entry.elapsedNanos / 1e6))
+          .append("  thread ").append(entry.thread).append('\n');
+        long droppedBefore = dropped.sumThenReset();
+        if (droppedBefore > 0) {
+            sb.append("(").append(droppedBefore).append(" slow statement(s) not logged before this one, the queue was full)\n");
+        }
+        sb.append("SQL: ").append(entry.sql).append('\n');
+        sb.append("Params: ").append(formatParams(entry.sql, entry.params)).append('\n');
+        if (entry.error != null) {
+            sb.append("Error: ").append(formatError(entry.sql, entry.error)).append('\n');
+        }
+        sb.append("Caller:\n");
+        for (StackTraceElement frame : entry.stack) {
+            sb.append("    at ").append(frame).append('\n');
+        }
+        sb.append("Explain:");
+        explain(entry, sb);
+        sb.append('\n');
+        file.publish(new LogRecord(Level.WARNING, sb.toString()));
+        file.flush();
+    }
+
+    private static String formatParams(String sql, Object[] params) {
+        boolean redact = CUSTOMER_COLUMNS.matcher(sql).find();
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) sb.append(", ");
+            Object value = params[i];
+            if (value instanceof CharSequence || value instanceof Character) {
+                if (redact) {
+                    sb.append("<redacted>");
+                } else {
+                    String s = value.toString();
+                    sb.append('\'').append(s.length() > MAX_PARAM_LENGTH ? s.substring(0, MAX_PARAM_LENGTH) + "..." : s)
+                      .append('\'');
+                }
+            } else if (value instanceof InputStream || value instanceof Reader || value instanceof byte[]) {
+                sb.append("<binary>");
+            } else {
+                sb.append(value);
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    // Driver messages quote the offending value (e.g. a duplicate CustomerID), so they are redacted too
+    private static String formatError(String sql, Throwable error) {
+        if (!CUSTOMER_COLUMNS.matcher(sql).find()) {
+            return error.toString();
+        }
+        if (error instanceof SQLException) {
+            SQLException e = (SQLException) error;
+            return e.getClass().getName() + " (SQLState " + e.getSQLState() + ", error " + e.getErrorCode() + ")";
+        }
+        return error.getClass().getName();
+    }
+
+    private void explain(Entry entry, StringBuilder sb) {
+        if (!EXPLAINABLE.matcher(entry.sql).find()) {
+            sb.append(" not available for this statement\n");
+            return;
+        }
+        for (Object param : entry.params) {
+            if (param instanceof InputStream || param instanceof Reader) {
+                sb.append(" skipped, a parameter is a stream\n");
+                return;
+            }
+        }
+        Long last = lastExplained.get(entry.sql);
+        if (last != null && entry.loggedAt - last < EXPLAIN_INTERVAL_MS) {
+            sb.append(" see the entry at ").append(new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(last))).append('\n');
+            return;
+        }
+        ConnectionPool p = pool;
+        if (p == null || p.isShutdown()) {
+            sb.append(" skipped, the pool is shut down\n");
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            // Leave the last free connection to the application, and never queue for one
+            conn = p.getActiveCount() < p.getMaxSize() - 1 ? p.tryBorrow(EXPLAIN_BORROW_MS) : null;
+            if (conn == null) {
+                sb.append(" skipped, pool busy\n");
+                return;
+            }
+            lastExplained.put(entry.sql, entry.loggedAt);
+            // On the physical connection, so EXPLAIN is neither cached nor traced itself
+            pstmt = conn.unwrap(Connection.class).prepareStatement("EXPLAIN " + entry.sql);
+            pstmt.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            for (int i = 0; i < entry.params.length; i++) {
+                pstmt.setObject(i + 1, entry.params[i]);
+            }
+            rs = pstmt.executeQuery();
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            sb.append('\n');
+            while (rs.next()) {
+                sb.append("   ");
+                for (int c = 1; c <= columns; c++) {
+                    sb.append(' ').append(meta.getColumnLabel(c)).append('=').append(rs.getString(c));
+                }
+                sb.append('\n');
+            }
+        } catch (SQLException | RuntimeException e) {
+            sb.append(" failed: ").append(e.getMessage()).append('\n');
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    long getSlowStatements() { return slowStatements.sum(); }
+
+    void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(EXPLAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        file.close();
+    }
+
+    // One slow statement, handed from the statement's thread to the writer
+    private static final class Entry {
+        final String sql;
+        final Object[] params;
+        final long elapsedNanos;
+        final Throwable error;
+        final List<StackTraceElement> stack;
+        final String thread;
+        final long loggedAt = System.currentTimeMillis();
+
+        Entry(String sql, Object[] params, long elapsedNanos, Throwable error,
+              List<StackTraceElement> stack, String thread) {
+            this.sql = sql;
+            this.params = params;
+            this.elapsedNanos = elapsedNanos;
+            this.error = error;
+            this.stack = stack;
+            this.thread = thread;
+        }
+    }
+}
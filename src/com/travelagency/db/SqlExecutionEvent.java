@@ -0,0 +1,41 @@
+package com.travelagency.db;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one statement executed on a pooled connection. For a query the event
+ * lasts until its result set is closed, so it covers fetching the rows as well.
+ * The stack trace shows which DAO method ran the statement.
+ */
+@Name("com.travelagency.SqlExecution")
+@Label("SQL Execution")
+@Category({"Travel Agency", "Database"})
+@Description("A statement executed by the DAOs, from execute until its result set is closed")
+final class SqlExecutionEvent extends Event {
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Execute Method")
+    String method;
+
+    @Label("Bind Parameters")
+    int binds;
+
+    @Label("Rows")
+    @Description("Rows read or updated; -1 if not known")
+    long rows;
+
+    @Label("Connection Acquire Time")
+    @Description("Time the borrower waited for the connection the statement ran on")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionAcquireTime;
+
+    @Label("Error")
+    String error;
+}
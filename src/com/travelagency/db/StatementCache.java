@@ -0,0 +1,198 @@
+package com.travelagency.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-connection LRU cache of prepared statements, keyed by SQL text plus the
+ * result-set/generated-keys flags it was prepared with.
+ * <p>
+ * DAOs keep calling {@code prepareStatement(...)} and {@code close()} as usual:
+ * prepare takes a statement out of the cache (or prepares a new one) and close
+ * puts it back. Only the borrower of the owning connection touches the cache,
+ * so it needs no locking.
+ */
+class StatementCache {
+
+    // Shared across all connections of the pool
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        final LongAdder executions = new LongAdder(); // Statements sent to the server
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+    private final SlowQueryLog slowQueryLog; // Null when off
+    private final LinkedHashMap<String, PreparedStatement> idle;
+    private final List<CachedStatement> checkedOut = new ArrayList<>();
+
+    StatementCache(Connection physical, int maxSize, Counters counters, SlowQueryLog slowQueryLog) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        this.slowQueryLog = slowQueryLog;
+        this.idle = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    closeQuietly(eldest.getValue());
+                    StatementCache.this.counters.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Handles the {@code prepareStatement}/{@code prepareCall} overloads the DAOs use.
+     * Returns null if the call is not cacheable and should go to the driver directly.
+     * {@code acquireNanos} is how long the borrower waited for the connection (for JFR).
+     */
+    Object prepare(Method method, Object[] args, long acquireNanos) throws SQLException {
+        if (maxSize <= 0 || args == null || !(args[0] instanceof String)) {
+            return null;
+        }
+        String sql = (String) args[0];
+        String name = method.getName();
+        String key;
+        if ("prepareStatement".equals(name) && args.length == 1) {
+            key = "P|" + sql;
+        } else if ("prepareStatement".equals(name) && args.length == 2 && args[1] instanceof Integer) {
+            key = "P|keys=" + args[1] + "|" + sql;
+        } else if ("prepareStatement".equals(name) && args.length == 3) {
+            key = "P|" + args[1] + "," + args[2] + "|" + sql;
+        } else if ("prepareCall".equals(name) && args.length == 1) {
+            key = "C|" + sql;
+        } else {
+            return null;
+        }
+
+        PreparedStatement stmt = idle.remove(key);
+        if (stmt != null && !stmt.isClosed()) {
+            counters.hits.increment();
+        } else {
+            counters.misses.increment();
+            stmt = create(name, args);
+        }
+        CachedStatement handle = new CachedStatement(key, sql, stmt, acquireNanos);
+        checkedOut.add(handle);
+        Class<?> iface = stmt instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+        return Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface}, handle);
+    }
+
+    private PreparedStatement create(String name, Object[] args) throws SQLException {
+        String sql = (String) args[0];
+        if ("prepareCall".equals(name)) {
+            return physical.prepareCall(sql);
+        }
+        switch (args.length) {
+            case 2: return physical.prepareStatement(sql, (Integer) args[1]);
+            case 3: return physical.prepareStatement(sql, (Integer) args[1], (Integer) args[2]);
+            default: return physical.prepareStatement(sql);
+        }
+    }
+
+    private void checkIn(CachedStatement handle) {
+        checkedOut.remove(handle);
+        PreparedStatement stmt = handle.stmt;
+        try {
+            if (stmt.isClosed()) {
+                return;
+            }
+            stmt.clearParameters();
+            stmt.clearBatch();
+            stmt.clearWarnings();
+        } catch (SQLException e) {
+            closeQuietly(stmt); // Something is wrong with it, don't reuse
+            return;
+        }
+        PreparedStatement previous = idle.put(handle.key, stmt);
+        if (previous != null && previous != stmt) {
+            closeQuietly(previous); // Same SQL was checked out twice at once; keep one copy
+        }
+    }
+
+    /** Called when the connection goes back to the pool: statements still checked out are closed. */
+    void connectionReturned() {
+        for (CachedStatement handle : new ArrayList<>(checkedOut)) {
+            handle.closed = true;
+            closeQuietly(handle.stmt);
+        }
+        checkedOut.clear();
+    }
+
+    /** Called before the physical connection is closed. */
+    void clear() {
+        connectionReturned();
+        Iterator<PreparedStatement> it = idle.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException logOrIgnore) {}
+    }
+
+    // Handle given to the DAO; close() puts the statement back into the cache
+    private final class CachedStatement implements InvocationHandler {
+        final String key;
+        final PreparedStatement stmt;
+        final TracedStatement trace; // JFR events and the slow-query log
+        boolean closed;
+
+        CachedStatement(String key, String sql, PreparedStatement stmt, long acquireNanos) {
+            this.key = key;
+            this.stmt = stmt;
+            this.trace = new TracedStatement(stmt, sql, acquireNanos, slowQueryLog);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkIn(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || stmt.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + key + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed.");
+            }
+            if (method.getName().startsWith("execute")) {
+                counters.executions.increment();
+            }
+            return trace.call(method, args);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.travelagency.db;
+
+import jdk.jfr.EventType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Watches the {@code execute*} calls on one statement: emits a {@link SqlExecutionEvent}
+ * while a JFR recording has it enabled, and hands statements over the threshold to the
+ * {@link SlowQueryLog}.
+ * <p>
+ * Cached prepared statements forward their calls to {@link #call} from their own handle;
+ * other statements are wrapped in this handler by the pool, but only if one of the two
+ * is on. With both off, an execute costs one flag check.
+ */
+final class TracedStatement implements InvocationHandler {
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(SqlExecutionEvent.class);
+
+    private final Statement stmt;
+    private final String sql; // Null for plain statements, whose SQL comes with execute
+    private final long acquireNanos;
+    private final SlowQueryLog slowQueryLog; // Null when off
+    private int binds;        // Highest parameter index set
+    private Object[] params;  // Bound values, kept only for the slow-query log
+
+    TracedStatement(Statement stmt, String sql, long acquireNanos, SlowQueryLog slowQueryLog) {
+        this.stmt = stmt;
+        this.sql = sql;
+        this.acquireNanos = acquireNanos;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    static boolean recording() {
+        return EVENT_TYPE.isEnabled();
+    }
+
+    /** Returns {@code stmt} behind a tracing proxy if anything is watching, else {@code stmt} itself. */
+    static Object wrap(Object stmt, String sql, long acquireNanos, SlowQueryLog slowQueryLog) {
+        if (!(stmt instanceof Statement) || (slowQueryLog == null && !recording())) {
+            return stmt;
+        }
+        Class<?> iface = stmt instanceof CallableStatement ? CallableStatement.class
+                : stmt instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface},
+                new TracedStatement((Statement) stmt, sql, acquireNanos, slowQueryLog));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "TracedStatement[" + stmt + "]";
+            default:
+                return call(method, args);
+        }
+    }
+
+    /** Runs one statement method, noting bound parameters and timing executes. */
+    Object call(Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("execute")) {
+            return execute(method, args);
+        }
+        if (name.equals("clearParameters")) {
+            binds = 0;
+            if (params != null) Arrays.fill(params, null);
+        } else if (args != null && args.length >= 2 && args[0] instanceof Integer && name.startsWith("set")) {
+            int index = (Integer) args[0];
+            binds = Math.max(binds, index);
+            if (slowQueryLog != null) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+            }
+        }
+        return invokeOn(stmt, method, args);
+    }
+
+    private void bind(int index, Object value) {
+        if (params == null || params.length < index) {
+            params = Arrays.copyOf(params == null ? new Object[0] : params, Math.max(index, 8));
+        }
+        params[index - 1] = value;
+    }
+
+    /**
+     * Runs an {@code execute*} method. When recording, the JFR event is committed here for
+     * updates, or when the returned result set is closed for queries.
+     */
+    private Object execute(Method method, Object[] args) throws Throwable {
+        boolean recording = recording();
+        if (!recording && slowQueryLog == null) {
+            return invokeOn(stmt, method, args);
+        }
+        String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+        SqlExecutionEvent event = null;
+        if (recording) {
+            event = new SqlExecutionEvent();
+            event.sql = text;
+            event.method = method.getName();
+            event.binds = binds;
+            event.connectionAcquireTime = acquireNanos;
+            event.rows = -1;
+            event.begin();
+        }
+        long started = System.nanoTime();
+        Object result;
+        try {
+            result = invokeOn(stmt, method, args);
+        } catch (Throwable e) {
+            if (slowQueryLog != null) {
+                slowQueryLog.check(text, params, binds, System.nanoTime() - started, e);
+            }
+            if (event != null) {
+                event.error = e instanceof SQLException
+                        ? ((SQLException) e).getSQLState() + ": " + e.getMessage() : e.toString();
+                event.commit();
+            }
+            throw e;
+        }
+        if (slowQueryLog != null) {
+            slowQueryLog.check(text, params, binds, System.nanoTime() - started, null);
+        }
+        if (event == null) {
+            return result;
+        }
+        if (result instanceof ResultSet) {
+            return CountingResultSet.wrap((ResultSet) result, event);
+        }
+        if (result instanceof Number) {
+            event.rows = ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            long rows = 0;
+            for (int n : (int[]) result) rows += Math.max(n, 0); // SUCCESS_NO_INFO is -2
+            event.rows = rows;
+        } else if (result instanceof long[]) {
+            long rows = 0;
+            for (long n : (long[]) result) rows += Math.max(n, 0);
+            event.rows = rows;
+        }
+        event.commit();
+        return result;
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Counts next() == true and commits the query's event when the result set is closed
+    private static final class CountingResultSet implements InvocationHandler {
+        private final ResultSet rs;
+        private final SqlExecutionEvent event;
+        private long rows;
+        private boolean committed;
+
+        private CountingResultSet(ResultSet rs, SqlExecutionEvent event) {
+            this.rs = rs;
+            this.event = event;
+        }
+
+        static ResultSet wrap(ResultSet rs, SqlExecutionEvent event) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new CountingResultSet(rs, event));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object hasRow = invokeOn(rs, method, args);
+                    if ((Boolean) hasRow) rows++;
+                    return hasRow;
+                case "close":
+                    try {
+                        return invokeOn(rs, method, args);
+                    } finally {
+                        if (!committed) {
+                            committed = true;
+                            event.rows = rows;
+                            event.commit();
+                        }
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invokeOn(rs, method, args);
+            }
+        }
+    }
+}
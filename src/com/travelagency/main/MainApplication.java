@@ -1,16 +1,64 @@
 package com.travelagency.main;
 
+import com.travelagency.api.ApiServer;
+import com.travelagency.dao.ReferenceDataCache;
+import com.travelagency.dao.UncheckedSQLException;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.service.SeatHoldService;
 import com.travelagency.ui.MainAppFrame;
+import com.travelagency.util.Threads;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 public class MainApplication {
 
+    private static final StartupTimer STARTUP = new StartupTimer();
+
     public static void main(String[] args) {
+        STARTUP.mark("main() entered");
+
+        // Reference data loads on background threads, one per table, while the rest of startup goes on
+        ExecutorService preloader = Threads.newPerTaskExecutor("startup-preload");
+        ReferenceDataCache.getInstance().preload(preloader).whenComplete((done, error) -> {
+            STARTUP.mark(error == null ? "reference data preloaded (background)"
+                    : "reference data preload failed, loading on first use: " + error.getCause().getMessage());
+            preloader.shutdown();
+        });
+
         // Set mysqli error reporting for all DAOs using DatabaseConnection
         // (though it's more for PHP context, in Java, exceptions are standard)
         // No, this line is not for Java: mysqli_report(MYSQLI_REPORT_ERROR | MYSQLI_REPORT_STRICT);
 
+        // Pending bookings placed as seat holds expire from memory; reload them (and cancel any that ran out while down)
+        // in the background too: expiry re-checks each hold in the database, so holds placed meanwhile are safe
+        ExecutorService holdLoader = Threads.newPerTaskExecutor("startup-holds");
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return SeatHoldService.getInstance().rebuild();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }, holdLoader).whenComplete((holds, error) -> {
+            STARTUP.mark(error == null ? "seat holds reloaded (background): " + holds
+                    : "seat holds not reloaded, they will not expire until the next start: " + error.getCause().getMessage());
+            holdLoader.shutdown();
+        });
+
+        // Pick up City/Airport/Airline/Aircraft edits made by other nodes within this many seconds
+        ReferenceDataCache.getInstance().startVersionCheck(Long.getLong("travelagency.cache.versionCheckSeconds", 30L));
+
+        // Headless mode: "--server [port]" serves the JSON API instead of opening the window
+        if (args.length > 0 && "--server".equals(args[0])) {
+            startServer(args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("travelagency.api.port", 8080));
+            return;
+        }
+
         // Optional: Set a nicer Look and Feel for Swing
         try {
             // Use a modern look and feel if available
@@ -29,12 +77,39 @@ public class MainApplication {
                 ex.printStackTrace(); // Fallback failed too
             }
         }
-
+        STARTUP.mark("look and feel set");
 
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
-                new MainAppFrame().setVisible(true);
+                MainAppFrame frame = new MainAppFrame();
+                STARTUP.mark("main window built");
+                frame.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowOpened(WindowEvent e) {
+                        // Queued behind the first paint: the window is on screen and takes input
+                        SwingUtilities.invokeLater(() -> STARTUP.report("main window interactive"));
+                    }
+                });
+                frame.setVisible(true);
             }
         });
     }
+
+    private static void startServer(int port) {
+        ApiServer server;
+        try {
+            server = new ApiServer(port);
+        } catch (IOException e) {
+            System.err.println("Cannot start the API on port " + port + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            SeatHoldService.getInstance().shutdown();
+            DatabaseConnection.closeConnection();
+        }, "api-shutdown"));
+        server.start();
+        STARTUP.report("API listening on port " + port);
+    }
 }
\ No newline at end of file
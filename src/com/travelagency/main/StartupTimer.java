@@ -0,0 +1,39 @@
+package com.travelagency.main;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup timing report: when each startup step finished, in milliseconds since the JVM
+ * started. The report is printed once the application is ready for input; steps still
+ * running in the background (preloading) are printed as they finish. Safe to mark from
+ * any thread.
+ */
+final class StartupTimer {
+
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final List<String> steps = new ArrayList<>();
+    private boolean reported;
+
+    synchronized void mark(String step) {
+        String line = String.format("%7d ms  %s", System.currentTimeMillis() - jvmStart, step);
+        if (reported) {
+            System.out.println("Startup:" + line);
+        } else {
+            steps.add(line);
+        }
+    }
+
+    /** Marks the last step and prints every step so far. */
+    synchronized void report(String readyStep) {
+        mark(readyStep);
+        reported = true;
+        StringBuilder sb = new StringBuilder("Startup timing (since JVM start):");
+        for (String line : steps) {
+            sb.append(System.lineSeparator()).append(line);
+        }
+        System.out.println(sb);
+        steps.clear();
+    }
+}
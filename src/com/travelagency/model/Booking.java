@@ -9,6 +9,8 @@ public class Booking {
     private int flightId;
     private int generalFlightId; // Denormalized for trigger, but important for linking
     private Timestamp bookingDate;
+    private int version; // Bumped by every state change, for optimistic locking
+    private Timestamp holdExpiresAt; // Pending booking placed as a seat hold: cancelled at this time (see SeatHoldService)
 
     public Booking() {
     }
@@ -46,6 +48,10 @@ public class Booking {
     public void setGeneralFlightId(int generalFlightId) { this.generalFlightId = generalFlightId; }
     public Timestamp getBookingDate() { return bookingDate; }
     public void setBookingDate(Timestamp bookingDate) { this.bookingDate = bookingDate; }
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    public Timestamp getHoldExpiresAt() { return holdExpiresAt; }
+    public void setHoldExpiresAt(Timestamp holdExpiresAt) { this.holdExpiresAt = holdExpiresAt; }
 
     public String getStateString() {
         switch (state) {
@@ -0,0 +1,53 @@
+package com.travelagency.model;
+
+/**
+ * Booking lifecycle, stored in {@code Booking.state} as its {@link #getCode() code}.
+ * <p>
+ * Pending and Confirmed bookings hold a seat on their schedule, Cancelled ones do not.
+ * A pending booking can be confirmed or cancelled, a confirmed one only cancelled, and a
+ * cancelled one re-activated as pending or confirmed (if a seat is free again).
+ */
+public enum BookingState {
+    PENDING(0, "Pending"),
+    CONFIRMED(1, "Confirmed"),
+    CANCELLED(2, "Cancelled");
+
+    private final int code;
+    private final String label;
+
+    BookingState(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    /** @throws IllegalArgumentException if {@code code} is not a booking state */
+    public static BookingState of(int code) {
+        for (BookingState s : values()) {
+            if (s.code == code) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Unknown booking state: " + code);
+    }
+
+    public int getCode() { return code; }
+    public String getLabel() { return label; }
+
+    public boolean holdsSeat() {
+        return this != CANCELLED;
+    }
+
+    /** True if a booking in this state may be moved to {@code next}; staying put is always allowed. */
+    public boolean canMoveTo(BookingState next) {
+        switch (this) {
+            case PENDING: return true;
+            case CONFIRMED: return next != PENDING;
+            default: return true; // Cancelled: re-activation
+        }
+    }
+
+    /** Seats taken (+1) or given back (-1) on the schedule by moving to {@code next}. */
+    public int seatChange(BookingState next) {
+        return (next.holdsSeat() ? 1 : 0) - (holdsSeat() ? 1 : 0);
+    }
+}
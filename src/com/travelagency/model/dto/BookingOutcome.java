@@ -0,0 +1,43 @@
+package com.travelagency.model.dto;
+
+import com.travelagency.model.Booking;
+
+import java.sql.SQLException;
+
+// Result of one row in BookingDAO.addBookings: the generated BookingNumber, or the error for that row
+public class BookingOutcome {
+    private final Booking booking;
+    private final SQLException error;
+
+    private BookingOutcome(Booking booking, SQLException error) {
+        this.booking = booking;
+        this.error = error;
+    }
+
+    public static BookingOutcome success(Booking booking) {
+        return new BookingOutcome(booking, null);
+    }
+
+    public static BookingOutcome failure(Booking booking, SQLException error) {
+        return new BookingOutcome(booking, error);
+    }
+
+    // Getters
+    public Booking getBooking() { return booking; }
+    public boolean isSuccess() { return error == null; }
+    public int getBookingNumber() { return booking.getBookingNumber(); } // Only meaningful on success
+    public SQLException getError() { return error; }
+
+    // True when the row was rejected because the schedule is full (same check as the UI uses)
+    public boolean isNoSeats() {
+        return error != null && error.getErrorCode() == 1644 && error.getMessage() != null
+                && error.getMessage().toLowerCase().contains("no available seats");
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess()
+                ? "Booking #" + booking.getBookingNumber() + " (Customer " + booking.getCustomerId() + ")"
+                : "Failed for Customer " + booking.getCustomerId() + ": " + error.getMessage();
+    }
+}
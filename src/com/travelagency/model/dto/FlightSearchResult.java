@@ -0,0 +1,56 @@
+package com.travelagency.model.dto;
+
+import java.sql.Date;
+import java.sql.Time;
+
+// Display-ready row for the "Search Flights (Cities)" results, built by one joined query
+public class FlightSearchResult {
+    private int generalFlightId;
+    private String airlineName;
+    private String departureAirport;
+    private String departureCity;
+    private String arrivalAirport;
+    private String arrivalCity;
+    private Time takeoffTime;
+    private Time arrivalTime;
+    private Date fDay;
+    private int numberSeats;
+    private int seatsBooked;
+
+    public FlightSearchResult() {
+    }
+
+    // Getters and Setters
+    public int getGeneralFlightId() { return generalFlightId; }
+    public void setGeneralFlightId(int generalFlightId) { this.generalFlightId = generalFlightId; }
+    public String getAirlineName() { return airlineName; }
+    public void setAirlineName(String airlineName) { this.airlineName = airlineName; }
+    public String getDepartureAirport() { return departureAirport; }
+    public void setDepartureAirport(String departureAirport) { this.departureAirport = departureAirport; }
+    public String getDepartureCity() { return departureCity; }
+    public void setDepartureCity(String departureCity) { this.departureCity = departureCity; }
+    public String getArrivalAirport() { return arrivalAirport; }
+    public void setArrivalAirport(String arrivalAirport) { this.arrivalAirport = arrivalAirport; }
+    public String getArrivalCity() { return arrivalCity; }
+    public void setArrivalCity(String arrivalCity) { this.arrivalCity = arrivalCity; }
+    public Time getTakeoffTime() { return takeoffTime; }
+    public void setTakeoffTime(Time takeoffTime) { this.takeoffTime = takeoffTime; }
+    public Time getArrivalTime() { return arrivalTime; }
+    public void setArrivalTime(Time arrivalTime) { this.arrivalTime = arrivalTime; }
+    public Date getfDay() { return fDay; }
+    public void setfDay(Date fDay) { this.fDay = fDay; }
+    public int getNumberSeats() { return numberSeats; }
+    public void setNumberSeats(int numberSeats) { this.numberSeats = numberSeats; }
+    public int getSeatsBooked() { return seatsBooked; }
+    public void setSeatsBooked(int seatsBooked) { this.seatsBooked = seatsBooked; }
+
+    public int getSeatsLeft() {
+        return numberSeats - seatsBooked;
+    }
+
+    @Override
+    public String toString() {
+        return "GFID: " + generalFlightId + " " + airlineName + " (" + departureAirport + " -> " + arrivalAirport
+                + ") Seats left: " + getSeatsLeft();
+    }
+}
@@ -0,0 +1,66 @@
+package com.travelagency.model.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+// A direct or connecting trip found by RoutePlanner. Times are minutes from midnight of the
+// travel day, so 1500 is 01:00 the next day; each leg is one GeneralFlight schedule.
+public class Itinerary {
+
+    public static class Leg {
+        private final int generalFlightId;
+        private final int depAirportId;
+        private final int arrAirportId;
+        private final int airlineId;
+        private final int departureMinute;
+        private final int arrivalMinute;
+
+        public Leg(int generalFlightId, int depAirportId, int arrAirportId, int airlineId, int departureMinute, int arrivalMinute) {
+            this.generalFlightId = generalFlightId;
+            this.depAirportId = depAirportId;
+            this.arrAirportId = arrAirportId;
+            this.airlineId = airlineId;
+            this.departureMinute = departureMinute;
+            this.arrivalMinute = arrivalMinute;
+        }
+
+        // Getters
+        public int getGeneralFlightId() { return generalFlightId; }
+        public int getDepAirportId() { return depAirportId; }
+        public int getArrAirportId() { return arrAirportId; }
+        public int getAirlineId() { return airlineId; }
+        public int getDepartureMinute() { return departureMinute; }
+        public int getArrivalMinute() { return arrivalMinute; }
+
+        @Override
+        public String toString() {
+            return "GFID " + generalFlightId + " " + clock(departureMinute) + " -> " + clock(arrivalMinute);
+        }
+    }
+
+    private final List<Leg> legs;
+
+    public Itinerary(List<Leg> legs) {
+        this.legs = Collections.unmodifiableList(legs);
+    }
+
+    // Getters
+    public List<Leg> getLegs() { return legs; }
+    public int getConnections() { return legs.size() - 1; }
+    public int getDepartureMinute() { return legs.get(0).getDepartureMinute(); }
+    public int getArrivalMinute() { return legs.get(legs.size() - 1).getArrivalMinute(); }
+    public int getDurationMinutes() { return getArrivalMinute() - getDepartureMinute(); }
+
+    // "08:00", or "01:30 (+1)" for times on a following day
+    public static String clock(int minute) {
+        String time = String.format("%02d:%02d", (minute / 60) % 24, minute % 60);
+        int days = minute / 1440;
+        return days == 0 ? time : time + " (+" + days + ")";
+    }
+
+    @Override
+    public String toString() {
+        return clock(getDepartureMinute()) + " -> " + clock(getArrivalMinute()) + ", "
+                + (legs.size() == 1 ? "direct" : getConnections() + " connection(s)") + ": " + legs;
+    }
+}
@@ -0,0 +1,77 @@
+package com.travelagency.model.dto;
+
+import java.sql.Date;
+import java.sql.Time;
+
+// Display-ready row for the "Search Flights (Period)" results: an operational Flight
+// joined with its schedule, airline, cities and (optional) aircraft in one query
+public class OperationalFlightSearchResult {
+    private int flightId;
+    private Date takeOffDate;
+    private Date arrivalDate;
+    private int state; // 0=Scheduled, 1=In Progress, 2=Completed, 3=Cancelled
+    private int generalFlightId;
+    private Time takeoffTime;
+    private String airlineName;
+    private String departureAirport;
+    private String departureCity;
+    private String arrivalAirport;
+    private String arrivalCity;
+    private String aircraftName; // Null if no aircraft is assigned
+    private int numberSeats;
+    private int seatsBooked;
+
+    public OperationalFlightSearchResult() {
+    }
+
+    // Getters and Setters
+    public int getFlightId() { return flightId; }
+    public void setFlightId(int flightId) { this.flightId = flightId; }
+    public Date getTakeOffDate() { return takeOffDate; }
+    public void setTakeOffDate(Date takeOffDate) { this.takeOffDate = takeOffDate; }
+    public Date getArrivalDate() { return arrivalDate; }
+    public void setArrivalDate(Date arrivalDate) { this.arrivalDate = arrivalDate; }
+    public int getState() { return state; }
+    public void setState(int state) { this.state = state; }
+    public int getGeneralFlightId() { return generalFlightId; }
+    public void setGeneralFlightId(int generalFlightId) { this.generalFlightId = generalFlightId; }
+    public Time getTakeoffTime() { return takeoffTime; }
+    public void setTakeoffTime(Time takeoffTime) { this.takeoffTime = takeoffTime; }
+    public String getAirlineName() { return airlineName; }
+    public void setAirlineName(String airlineName) { this.airlineName = airlineName; }
+    public String getDepartureAirport() { return departureAirport; }
+    public void setDepartureAirport(String departureAirport) { this.departureAirport = departureAirport; }
+    public String getDepartureCity() { return departureCity; }
+    public void setDepartureCity(String departureCity) { this.departureCity = departureCity; }
+    public String getArrivalAirport() { return arrivalAirport; }
+    public void setArrivalAirport(String arrivalAirport) { this.arrivalAirport = arrivalAirport; }
+    public String getArrivalCity() { return arrivalCity; }
+    public void setArrivalCity(String arrivalCity) { this.arrivalCity = arrivalCity; }
+    public String getAircraftName() { return aircraftName; }
+    public void setAircraftName(String aircraftName) { this.aircraftName = aircraftName; }
+    public int getNumberSeats() { return numberSeats; }
+    public void setNumberSeats(int numberSeats) { this.numberSeats = numberSeats; }
+    public int getSeatsBooked() { return seatsBooked; }
+    public void setSeatsBooked(int seatsBooked) { this.seatsBooked = seatsBooked; }
+
+    public int getSeatsLeft() {
+        return numberSeats - seatsBooked;
+    }
+
+    // Same mapping as Flight.getStateString()
+    public String getStateString() {
+        switch (state) {
+            case 0: return "Scheduled";
+            case 1: return "In Progress";
+            case 2: return "Completed";
+            case 3: return "Cancelled";
+            default: return "Unknown";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Flight ID: " + flightId + " (" + departureCity + " -> " + arrivalCity + ") on " + takeOffDate
+                + " [" + getStateString() + "]";
+    }
+}
@@ -0,0 +1,26 @@
+package com.travelagency.model.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a keyset-paginated listing. Pass getNextCursor() back to the DAO to get the
+// following page; it is null on the last page. Cursors are opaque strings, safe for URLs.
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+
+    @Override
+    public String toString() {
+        return "Page{" + items.size() + " items" + (hasNext() ? ", more" : ", last") + "}";
+    }
+}
@@ -0,0 +1,399 @@
+package com.travelagency.service;
+
+import com.travelagency.dao.GeneralFlightDAO;
+import com.travelagency.dao.ReferenceDataCache;
+import com.travelagency.model.Airport;
+import com.travelagency.model.GeneralFlight;
+import com.travelagency.model.dto.Itinerary;
+
+import java.sql.SQLException;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds direct and connecting trips over the daily {@code GeneralFlight} schedules
+ * without going to MySQL.
+ * <p>
+ * The schedules are loaded once into a compressed adjacency structure (CSR): for each
+ * airport, a slice of parallel int arrays holds its departures sorted by time of day.
+ * A query is a time-dependent label-setting search. Labels (airport, arrival time, legs
+ * used) are taken from a heap in arrival order, and each leg boards the next departure
+ * of a schedule after the minimum connection time, on the same or a later day. Each
+ * (airport, legs) pair is settled at most k times. The first k labels that reach the
+ * destination are therefore the k earliest-arriving loop-free itineraries within the
+ * connection limit.
+ * <p>
+ * {@link GeneralFlightDAO#addGeneralFlight} calls {@link #scheduleAdded}, which splices
+ * the new edge into the arrays instead of reloading.
+ */
+public class RoutePlanner {
+
+    private static final RoutePlanner INSTANCE = new RoutePlanner();
+
+    private static final int DAY = 24 * 60;
+    // Itineraries must arrive within this many minutes of the requested departure time
+    private static final int HORIZON_MINUTES = Integer.getInteger("travelagency.routes.horizonMinutes", 2 * DAY);
+
+    private volatile Graph graph;
+
+    private RoutePlanner() {}
+
+    public static RoutePlanner getInstance() {
+        return INSTANCE;
+    }
+
+    /** Convenience form of {@link #plan(int[], int[], int, int, int, int)} for one city pair. */
+    public List<Itinerary> plan(int fromCityId, int toCityId, int earliestMinute,
+                                int maxConnections, int minConnectionMinutes, int k) throws SQLException {
+        return plan(new int[] { fromCityId }, new int[] { toCityId }, earliestMinute, maxConnections, minConnectionMinutes, k);
+    }
+
+    /**
+     * Returns up to {@code k} itineraries from any airport of {@code fromCityIds} to any
+     * airport of {@code toCityIds}, earliest arrival first.
+     *
+     * @param earliestMinute       first allowed departure, minutes after midnight (0..1439)
+     * @param maxConnections       number of changes allowed; 0 means direct flights only
+     * @param minConnectionMinutes minimum time between landing and the next takeoff
+     * @throws SQLException only if the schedules have not been loaded yet and loading fails
+     */
+    public List<Itinerary> plan(int[] fromCityIds, int[] toCityIds, int earliestMinute,
+                                int maxConnections, int minConnectionMinutes, int k) throws SQLException {
+        if (earliestMinute < 0 || earliestMinute >= DAY) {
+            throw new IllegalArgumentException("earliestMinute must be within one day: " + earliestMinute);
+        }
+        if (maxConnections < 0 || minConnectionMinutes < 0 || k < 1) {
+            throw new IllegalArgumentException("maxConnections and minConnectionMinutes must be >= 0 and k >= 1");
+        }
+        Graph g = loaded();
+        int airports = g.airportIds.length;
+        boolean[] source = new boolean[airports];
+        boolean[] target = new boolean[airports];
+        ReferenceDataCache places = ReferenceDataCache.getInstance();
+        for (int a = 0; a < airports; a++) {
+            Airport airport = places.getAirport(g.airportIds[a]);
+            if (airport != null) {
+                source[a] = contains(fromCityIds, airport.getCityId());
+                target[a] = contains(toCityIds, airport.getCityId());
+            }
+        }
+        return new Search(g, maxConnections + 1, minConnectionMinutes, k, earliestMinute + HORIZON_MINUTES)
+                .run(source, target, earliestMinute);
+    }
+
+    /** Adds a schedule just inserted in the database; a no-op until the graph is first loaded. */
+    public synchronized void scheduleAdded(GeneralFlight gf) {
+        Graph g = graph;
+        if (g != null) {
+            graph = g.withEdge(gf.getDepAirportId(), gf.getArrAirportId(), minuteOfDay(gf.getTakeoffTime()),
+                    duration(gf.getTakeoffTime(), gf.getArrivalTime()), gf.getGeneralFlightId(), gf.getAirlineId());
+        }
+    }
+
+    /** Drops the graph; the next query reloads every schedule. */
+    public synchronized void invalidate() {
+        graph = null;
+    }
+
+    public int getScheduleCount() {
+        Graph g = graph;
+        return g == null ? 0 : g.edgeTo.length;
+    }
+
+    private Graph loaded() throws SQLException {
+        Graph g = graph;
+        if (g == null) {
+            synchronized (this) {
+                g = graph;
+                if (g == null) {
+                    Edges edges = new Edges();
+                    new GeneralFlightDAO().forEachGeneralFlight(gf -> edges.add(
+                            gf.getDepAirportId(), gf.getArrAirportId(), minuteOfDay(gf.getTakeoffTime()),
+                            duration(gf.getTakeoffTime(), gf.getArrivalTime()), gf.getGeneralFlightId(), gf.getAirlineId()));
+                    g = Graph.build(edges);
+                    graph = g;
+                }
+            }
+        }
+        return g;
+    }
+
+    private static int minuteOfDay(Time time) {
+        return time.toLocalTime().toSecondOfDay() / 60;
+    }
+
+    // Arrival earlier than (or equal to) takeoff means the flight lands the next day
+    private static int duration(Time takeoff, Time arrival) {
+        int minutes = minuteOfDay(arrival) - minuteOfDay(takeoff);
+        return minutes <= 0 ? minutes + DAY : minutes;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Growable parallel arrays of edges, in no particular order
+    private static final class Edges {
+        int size;
+        int[] from = new int[64], to = new int[64], dep = new int[64], dur = new int[64], gfid = new int[64], airline = new int[64];
+
+        void add(int fromAirport, int toAirport, int depMinute, int minutes, int generalFlightId, int airlineId) {
+            if (size == from.length) {
+                int n = size * 2;
+                from = Arrays.copyOf(from, n); to = Arrays.copyOf(to, n); dep = Arrays.copyOf(dep, n);
+                dur = Arrays.copyOf(dur, n); gfid = Arrays.copyOf(gfid, n); airline = Arrays.copyOf(airline, n);
+            }
+            from[size] = fromAirport; to[size] = toAirport; dep[size] = depMinute;
+            dur[size] = minutes; gfid[size] = generalFlightId; airline[size] = airlineId;
+            size++;
+        }
+    }
+
+    /**
+     * Immutable CSR graph. Airports are numbered by position in the sorted {@code airportIds};
+     * the departures of airport {@code a} are {@code edgeStart[a] .. edgeStart[a+1]-1},
+     * sorted by departure minute.
+     */
+    private static final class Graph {
+        final int[] airportIds;
+        final int[] edgeStart;
+        final int[] edgeTo, edgeDep, edgeDur, edgeGfid, edgeAirline;
+
+        Graph(int[] airportIds, int[] edgeStart, int[] edgeTo, int[] edgeDep, int[] edgeDur, int[] edgeGfid, int[] edgeAirline) {
+            this.airportIds = airportIds;
+            this.edgeStart = edgeStart;
+            this.edgeTo = edgeTo;
+            this.edgeDep = edgeDep;
+            this.edgeDur = edgeDur;
+            this.edgeGfid = edgeGfid;
+            this.edgeAirline = edgeAirline;
+        }
+
+        static Graph build(Edges e) {
+            int[] ids = new int[e.size * 2];
+            System.arraycopy(e.from, 0, ids, 0, e.size);
+            System.arraycopy(e.to, 0, ids, e.size, e.size);
+            Arrays.sort(ids);
+            int n = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (n == 0 || ids[i] != ids[n - 1]) {
+                    ids[n++] = ids[i];
+                }
+            }
+            int[] airportIds = Arrays.copyOf(ids, n);
+
+            // Sort edge positions by (departure airport, departure minute)
+            Integer[] order = new Integer[e.size];
+            for (int i = 0; i < e.size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (x, y) -> e.from[x] != e.from[y]
+                    ? Integer.compare(e.from[x], e.from[y]) : Integer.compare(e.dep[x], e.dep[y]));
+
+            int[] edgeStart = new int[n + 1];
+            int[] to = new int[e.size], dep = new int[e.size], dur = new int[e.size], gfid = new int[e.size], airline = new int[e.size];
+            for (int i = 0; i < e.size; i++) {
+                int src = order[i];
+                edgeStart[Arrays.binarySearch(airportIds, e.from[src]) + 1]++;
+                to[i] = Arrays.binarySearch(airportIds, e.to[src]);
+                dep[i] = e.dep[src];
+                dur[i] = e.dur[src];
+                gfid[i] = e.gfid[src];
+                airline[i] = e.airline[src];
+            }
+            for (int a = 0; a < n; a++) {
+                edgeStart[a + 1] += edgeStart[a];
+            }
+            return new Graph(airportIds, edgeStart, to, dep, dur, gfid, airline);
+        }
+
+        Graph withEdge(int fromAirport, int toAirport, int depMinute, int minutes, int generalFlightId, int airlineId) {
+            for (int gfid : edgeGfid) {
+                if (gfid == generalFlightId) {
+                    return this; // Already loaded
+                }
+            }
+            int from = Arrays.binarySearch(airportIds, fromAirport);
+            int to = Arrays.binarySearch(airportIds, toAirport);
+            if (from < 0 || to < 0) {
+                // A new airport renumbers the others; rebuild from the current edges
+                Edges edges = toEdges();
+                edges.add(fromAirport, toAirport, depMinute, minutes, generalFlightId, airlineId);
+                return build(edges);
+            }
+            int pos = edgeStart[from];
+            while (pos < edgeStart[from + 1] && edgeDep[pos] <= depMinute) {
+                pos++;
+            }
+            int[] start = edgeStart.clone();
+            for (int a = from + 1; a < start.length; a++) {
+                start[a]++;
+            }
+            return new Graph(airportIds, start,
+                    insert(edgeTo, pos, to), insert(edgeDep, pos, depMinute), insert(edgeDur, pos, minutes),
+                    insert(edgeGfid, pos, generalFlightId), insert(edgeAirline, pos, airlineId));
+        }
+
+        private Edges toEdges() {
+            Edges edges = new Edges();
+            for (int a = 0; a < airportIds.length; a++) {
+                for (int i = edgeStart[a]; i < edgeStart[a + 1]; i++) {
+                    edges.add(airportIds[a], airportIds[edgeTo[i]], edgeDep[i], edgeDur[i], edgeGfid[i], edgeAirline[i]);
+                }
+            }
+            return edges;
+        }
+
+        private static int[] insert(int[] array, int pos, int value) {
+            int[] out = new int[array.length + 1];
+            System.arraycopy(array, 0, out, 0, pos);
+            out[pos] = value;
+            System.arraycopy(array, pos, out, pos + 1, array.length - pos);
+            return out;
+        }
+    }
+
+    // One query; labels live in parallel int arrays and the heap holds label numbers
+    private static final class Search {
+        final Graph g;
+        final int maxLegs, minConnection, k, latestArrival;
+        final int[] settled; // Times each (airport, legs) has been taken from the heap
+
+        int labels;
+        int[] airport = new int[256], time = new int[256], legs = new int[256], parent = new int[256], edge = new int[256];
+        int heapSize;
+        int[] heap = new int[256];
+
+        Search(Graph g, int maxLegs, int minConnection, int k, int latestArrival) {
+            this.g = g;
+            this.maxLegs = maxLegs;
+            this.minConnection = minConnection;
+            this.k = k;
+            this.latestArrival = latestArrival;
+            this.settled = new int[g.airportIds.length * (maxLegs + 1)];
+        }
+
+        List<Itinerary> run(boolean[] source, boolean[] target, int earliestMinute) {
+            List<Itinerary> found = new ArrayList<>(k);
+            for (int a = 0; a < source.length; a++) {
+                if (source[a]) {
+                    push(newLabel(a, earliestMinute, 0, -1, -1));
+                }
+            }
+            while (heapSize > 0 && found.size() < k) {
+                int label = pop();
+                int a = airport[label];
+                int slot = a * (maxLegs + 1) + legs[label];
+                if (settled[slot] >= k) {
+                    continue;
+                }
+                settled[slot]++;
+                if (legs[label] > 0 && target[a]) {
+                    found.add(itinerary(label));
+                    continue;
+                }
+                if (legs[label] == maxLegs) {
+                    continue;
+                }
+                int ready = time[label] + (legs[label] == 0 ? 0 : minConnection);
+                for (int e = g.edgeStart[a]; e < g.edgeStart[a + 1]; e++) {
+                    int next = g.edgeTo[e];
+                    if (source[next] || onPath(label, next)) {
+                        continue; // Loop-free only
+                    }
+                    int departure = g.edgeDep[e];
+                    if (departure < ready) {
+                        departure += ((ready - departure + DAY - 1) / DAY) * DAY; // Next day that fits
+                    }
+                    int arrival = departure + g.edgeDur[e];
+                    if (arrival <= latestArrival) {
+                        push(newLabel(next, arrival, legs[label] + 1, label, e));
+                    }
+                }
+            }
+            return found.isEmpty() ? Collections.emptyList() : found;
+        }
+
+        private boolean onPath(int label, int a) {
+            for (int l = label; l >= 0; l = parent[l]) {
+                if (airport[l] == a) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Itinerary itinerary(int label) {
+            List<Itinerary.Leg> path = new ArrayList<>(legs[label]);
+            for (int l = label; parent[l] >= 0; l = parent[l]) {
+                int e = edge[l];
+                path.add(new Itinerary.Leg(g.edgeGfid[e], g.airportIds[airport[parent[l]]], g.airportIds[airport[l]],
+                        g.edgeAirline[e], time[l] - g.edgeDur[e], time[l]));
+            }
+            Collections.reverse(path);
+            return new Itinerary(path);
+        }
+
+        private int newLabel(int a, int t, int legCount, int parentLabel, int viaEdge) {
+            if (labels == airport.length) {
+                int n = labels * 2;
+                airport = Arrays.copyOf(airport, n); time = Arrays.copyOf(time, n); legs = Arrays.copyOf(legs, n);
+                parent = Arrays.copyOf(parent, n); edge = Arrays.copyOf(edge, n);
+            }
+            airport[labels] = a; time[labels] = t; legs[labels] = legCount;
+            parent[labels] = parentLabel; edge[labels] = viaEdge;
+            return labels++;
+        }
+
+        // Binary min-heap on (time, legs): among equal arrivals, fewer connections first
+        private boolean before(int x, int y) {
+            return time[x] != time[y] ? time[x] < time[y] : legs[x] < legs[y];
+        }
+
+        private void push(int label) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (!before(label, heap[up])) {
+                    break;
+                }
+                heap[i] = heap[up];
+                i = up;
+            }
+            heap[i] = label;
+        }
+
+        private int pop() {
+            int top = heap[0];
+            int last = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
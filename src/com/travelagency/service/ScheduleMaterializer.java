@@ -0,0 +1,199 @@
+package com.travelagency.service;
+
+import com.travelagency.dao.FlightDAO;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.Flight;
+import com.travelagency.model.GeneralFlight;
+import com.travelagency.util.Threads;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates the operational {@code Flight} rows of a season from {@code GeneralFlight}
+ * schedules: one flight per matching day of a {@link Recurrence}, with the aircraft
+ * chosen by an {@link AircraftPolicy}.
+ * <p>
+ * Each schedule is written by {@link FlightDAO#addMissingFlights} in one transaction
+ * with batched inserts, skipping dates the schedule already flies on, so a season can be
+ * re-run or extended safely. {@link #materializeAll} works on several schedules at once,
+ * {@code parallelism} connections at a time.
+ */
+public class ScheduleMaterializer {
+
+    /** The days a schedule flies on: a date range (inclusive) and the weekdays within it. */
+    public static final class Recurrence {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Set<DayOfWeek> days;
+
+        private Recurrence(LocalDate from, LocalDate to, Set<DayOfWeek> days) {
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("Season ends before it starts: " + from + " .. " + to);
+            }
+            if (days.isEmpty()) {
+                throw new IllegalArgumentException("At least one day of the week is required");
+            }
+            this.from = from;
+            this.to = to;
+            this.days = Collections.unmodifiableSet(EnumSet.copyOf(days));
+        }
+
+        public static Recurrence daily(LocalDate from, LocalDate to) {
+            return new Recurrence(from, to, EnumSet.allOf(DayOfWeek.class));
+        }
+
+        public static Recurrence weekly(LocalDate from, LocalDate to, DayOfWeek... days) {
+            return new Recurrence(from, to, days.length == 0 ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(Arrays.asList(days)));
+        }
+
+        public List<LocalDate> dates() {
+            List<LocalDate> dates = new ArrayList<>();
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                if (days.contains(d.getDayOfWeek())) {
+                    dates.add(d);
+                }
+            }
+            return dates;
+        }
+
+        public LocalDate getFrom() { return from; }
+        public LocalDate getTo() { return to; }
+        public Set<DayOfWeek> getDays() { return days; }
+
+        @Override
+        public String toString() {
+            return from + ".." + to + " " + (days.size() == 7 ? "daily" : days.toString());
+        }
+    }
+
+    /** Chooses the aircraft for one flight; null leaves it unassigned. */
+    @FunctionalInterface
+    public interface AircraftPolicy {
+        Integer aircraftFor(GeneralFlight schedule, LocalDate takeOffDate);
+
+        static AircraftPolicy none() {
+            return (schedule, date) -> null;
+        }
+
+        static AircraftPolicy fixed(int aircraftId) {
+            return (schedule, date) -> aircraftId;
+        }
+
+        /**
+         * Rotates through the fleet by date, offset per schedule. Deterministic, so re-runs
+         * pick the same aircraft; it does not check that an aircraft is free that day.
+         */
+        static AircraftPolicy rotate(List<Integer> aircraftIds) {
+            if (aircraftIds.isEmpty()) {
+                return none();
+            }
+            List<Integer> fleet = new ArrayList<>(aircraftIds);
+            return (schedule, date) -> fleet.get((int) Math.floorMod(date.toEpochDay() + schedule.getGeneralFlightId(), (long) fleet.size()));
+        }
+    }
+
+    /** Outcome of {@link #materializeAll}: totals plus the error of each schedule that failed. */
+    public static final class Report {
+        private final int schedules;
+        private final int created;
+        private final int skipped;
+        private final Map<Integer, SQLException> failures;
+
+        Report(int schedules, int created, int skipped, Map<Integer, SQLException> failures) {
+            this.schedules = schedules;
+            this.created = created;
+            this.skipped = skipped;
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        public int getSchedules() { return schedules; }
+        public int getCreated() { return created; }
+        public int getSkipped() { return skipped; } // Dates that already had a flight
+        public Map<Integer, SQLException> getFailures() { return failures; } // GeneralFlightID -> error
+
+        @Override
+        public String toString() {
+            return schedules + " schedule(s): " + created + " flight(s) created, " + skipped + " existing date(s) skipped, "
+                    + failures.size() + " schedule(s) failed";
+        }
+    }
+
+    private final FlightDAO flightDAO = new FlightDAO();
+    private final int parallelism;
+
+    /** Uses up to half of the connection pool, leaving the rest to the application. */
+    public ScheduleMaterializer() {
+        this(Math.max(1, DatabaseConnection.getPool().getMaxSize() / 2));
+    }
+
+    public ScheduleMaterializer(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** Creates the missing flights of one schedule; returns how many were inserted. */
+    public int materialize(GeneralFlight schedule, Recurrence recurrence, AircraftPolicy aircraft) throws SQLException {
+        List<Flight> flights = new ArrayList<>();
+        // Arrival at or before takeoff time means the flight lands the next day
+        boolean overnight = !schedule.getArrivalTime().toLocalTime().isAfter(schedule.getTakeoffTime().toLocalTime());
+        for (LocalDate date : recurrence.dates()) {
+            LocalDate arrival = overnight ? date.plusDays(1) : date;
+            flights.add(new Flight(Date.valueOf(date), Date.valueOf(arrival), 0, // 0 = Scheduled
+                    schedule.getGeneralFlightId(), aircraft.aircraftFor(schedule, date)));
+        }
+        return flightDAO.addMissingFlights(schedule.getGeneralFlightId(), flights);
+    }
+
+    /**
+     * Runs {@link #materialize} for every schedule, {@code parallelism} at a time. A failing
+     * schedule is rolled back on its own and reported; the others still complete.
+     */
+    public Report materializeAll(List<GeneralFlight> schedules, Recurrence recurrence, AircraftPolicy aircraft) {
+        int perSchedule = recurrence.dates().size();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, schedules.size())),
+                Threads.daemonFactory("schedule-materializer"));
+        try {
+            Map<GeneralFlight, Future<Integer>> results = new LinkedHashMap<>();
+            for (GeneralFlight schedule : schedules) {
+                results.put(schedule, workers.submit(() -> materialize(schedule, recurrence, aircraft)));
+            }
+            int created = 0, skipped = 0;
+            Map<Integer, SQLException> failures = new LinkedHashMap<>();
+            for (Map.Entry<GeneralFlight, Future<Integer>> entry : results.entrySet()) {
+                int generalFlightId = entry.getKey().getGeneralFlightId();
+                try {
+                    int inserted = entry.getValue().get();
+                    created += inserted;
+                    skipped += perSchedule - inserted;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    failures.put(generalFlightId, cause instanceof SQLException
+                            ? (SQLException) cause : new SQLException(String.valueOf(cause), cause));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.put(generalFlightId, new SQLException("Interrupted", e));
+                }
+            }
+            return new Report(schedules.size(), created, skipped, failures);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
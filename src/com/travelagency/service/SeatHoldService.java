@@ -0,0 +1,255 @@
+package com.travelagency.service;
+
+import com.travelagency.dao.BookingDAO;
+import com.travelagency.dao.HoldExpiryException;
+import com.travelagency.model.Booking;
+import com.travelagency.model.BookingState;
+import com.travelagency.util.IntMap;
+import com.travelagency.util.Threads;
+import com.travelagency.util.TimingWheel;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time-boxed seat holds: a pending booking that is cancelled, and its seat given back,
+ * unless it is confirmed within its TTL ({@code travelagency.holds.ttlMinutes}, default 15).
+ * <p>
+ * A hold is an ordinary pending booking with {@code hold_expires_at} set, so it takes its
+ * seat the usual way (SeatInventory or the triggers) and outlives the process:
+ * {@link #rebuild()} reloads every hold from the table on startup, and holds that ran out
+ * while the application was down are cancelled on the first tick.
+ * <p>
+ * Expiries wait on a {@link TimingWheel} ticking every {@code travelagency.holds.tickMs}
+ * milliseconds (default 100), so placing or dropping a hold is O(1) however many are
+ * waiting. A background thread advances the wheel and cancels whatever fell due in
+ * batches ({@link BookingDAO#expireHolds}); if that fails, the holds it did not get to
+ * are retried a few seconds later. Any state change ends a hold, so a hold confirmed or
+ * cancelled elsewhere is simply skipped when its time comes. Each node expires the holds
+ * it placed, extended or rebuilt.
+ */
+public class SeatHoldService {
+
+    private static final long TICK_MS = Long.getLong("travelagency.holds.tickMs", 100L);
+    private static final long DEFAULT_TTL_MINUTES = Long.getLong("travelagency.holds.ttlMinutes", 15L);
+    private static final long RETRY_MS = 5_000;
+
+    // 256 slots per level, 4 levels: 25.6 s, 1.8 h, 19 days, then 13 years at 100 ms a tick
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_LEVELS = 4;
+
+    private static final SeatHoldService INSTANCE = new SeatHoldService(); // After the settings its constructor reads
+
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private final ScheduledExecutorService ticker;
+    private TimingWheel<Booking> wheel = newWheel(); // Guarded by this, with byBooking
+    private IntMap<TimingWheel.Timeout<Booking>> byBooking = new IntMap<>();
+
+    // Stats
+    private final LongAdder placed = new LongAdder();
+    private final LongAdder extended = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder expiryFailures = new LongAdder();
+
+    private SeatHoldService() {
+        ticker = Executors.newSingleThreadScheduledExecutor(Threads.daemonFactory("seat-hold-expiry"));
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                expireDue();
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Keep the ticker alive
+            }
+        }, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static SeatHoldService getInstance() {
+        return INSTANCE;
+    }
+
+    /** The configured hold time ({@code travelagency.holds.ttlMinutes}); 0 turns holds off. */
+    public static long getDefaultTtlMillis() {
+        return TimeUnit.MINUTES.toMillis(DEFAULT_TTL_MINUTES);
+    }
+
+    /** {@link #hold(Booking, long)} for the configured hold time. */
+    public boolean hold(Booking booking) throws SQLException {
+        return hold(booking, getDefaultTtlMillis());
+    }
+
+    /**
+     * Inserts {@code booking} as a pending booking that holds its seat for {@code ttlMillis}
+     * (its BookingNumber and expiry are set on it). With a TTL of 0 or less it is a plain
+     * pending booking that never expires.
+     *
+     * @throws SQLException as {@link BookingDAO#addBooking}, SQLState 45000 if the schedule is full
+     */
+    public boolean hold(Booking booking, long ttlMillis) throws SQLException {
+        booking.setState(BookingState.PENDING.getCode());
+        if (booking.getBookingDate() == null) {
+            booking.setBookingDate(new Timestamp(System.currentTimeMillis()));
+        }
+        booking.setHoldExpiresAt(ttlMillis > 0 ? expiryAfter(ttlMillis) : null);
+        if (!bookingDAO.addBooking(booking)) {
+            return false;
+        }
+        if (booking.getHoldExpiresAt() != null) {
+            placed.increment();
+            track(booking);
+        }
+        return true;
+    }
+
+    /** Gives a held booking {@code ttlMillis} more from now; false if it is no longer held. */
+    public boolean extend(int bookingNumber, long ttlMillis) throws SQLException {
+        Timestamp expiresAt = expiryAfter(ttlMillis);
+        if (!bookingDAO.extendHold(bookingNumber, expiresAt)) {
+            return false;
+        }
+        Booking booking = bookingDAO.getBookingByNumber(bookingNumber);
+        if (booking != null && booking.getHoldExpiresAt() != null) {
+            extended.increment();
+            track(booking);
+        }
+        return true;
+    }
+
+    /**
+     * Confirms a held booking. False if it is not held any more (expired, cancelled,
+     * confirmed already) or changed while this ran.
+     *
+     * @throws SQLException as {@link BookingDAO#updateBookingState}, other than a version conflict
+     */
+    public boolean confirm(int bookingNumber) throws SQLException {
+        Booking booking = bookingDAO.getBookingByNumber(bookingNumber);
+        if (booking == null || booking.getState() != BookingState.PENDING.getCode() || booking.getHoldExpiresAt() == null
+                || booking.getHoldExpiresAt().getTime() <= System.currentTimeMillis()) {
+            return false;
+        }
+        try {
+            // The expected version makes a concurrent expiry (which bumps it) win
+            bookingDAO.updateBookingState(bookingNumber, booking.getVersion(), BookingState.CONFIRMED.getCode());
+        } catch (SQLException e) {
+            if ("40001".equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+        untrack(bookingNumber);
+        confirmed.increment();
+        return true;
+    }
+
+    /** Cancels a booking now, held or not, giving its seat back. */
+    public boolean release(int bookingNumber) throws SQLException {
+        boolean changed = bookingDAO.updateBookingState(bookingNumber, BookingDAO.ANY_VERSION, BookingState.CANCELLED.getCode());
+        untrack(bookingNumber);
+        if (changed) {
+            released.increment();
+        }
+        return changed;
+    }
+
+    /**
+     * Replaces the holds in memory with those in the Booking table; run on startup.
+     *
+     * @return the number of holds loaded
+     */
+    public int rebuild() throws SQLException {
+        synchronized (this) {
+            wheel = newWheel();
+            byBooking = new IntMap<>();
+        }
+        return bookingDAO.forEachHold(this::track);
+    }
+
+    // Runs on the ticker thread: takes what fell due off the wheel and cancels it in batches
+    private void expireDue() {
+        List<Booking> due = new ArrayList<>();
+        synchronized (this) {
+            IntMap<TimingWheel.Timeout<Booking>> tracked = byBooking;
+            wheel.advance(System.currentTimeMillis(), booking -> {
+                due.add(booking);
+                tracked.remove(booking.getBookingNumber());
+            });
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            expired.add(bookingDAO.expireHolds(due, new Timestamp(System.currentTimeMillis())).size());
+        } catch (HoldExpiryException e) {
+            expired.add(e.getExpired().size()); // The chunks before the failure are done
+            retryLater(e.getRemaining(), e);
+        } catch (SQLException e) {
+            retryLater(due, e);
+        }
+    }
+
+    private void retryLater(List<Booking> holds, SQLException e) {
+        expiryFailures.increment();
+        System.err.println("Seat hold expiry failed for " + holds.size() + " hold(s), retrying in "
+                + RETRY_MS / 1000 + " s: " + e.getMessage());
+        long retryAt = System.currentTimeMillis() + RETRY_MS;
+        synchronized (this) {
+            for (Booking booking : holds) {
+                if (!byBooking.containsKey(booking.getBookingNumber())) { // Not re-tracked meanwhile
+                    byBooking.put(booking.getBookingNumber(), wheel.schedule(booking, retryAt));
+                }
+            }
+        }
+    }
+
+    private synchronized void track(Booking booking) {
+        TimingWheel.Timeout<Booking> previous = byBooking.get(booking.getBookingNumber());
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+        byBooking.put(booking.getBookingNumber(), wheel.schedule(booking, booking.getHoldExpiresAt().getTime()));
+    }
+
+    private synchronized void untrack(int bookingNumber) {
+        TimingWheel.Timeout<Booking> timeout = byBooking.remove(bookingNumber);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    // Whole seconds: a TIMESTAMP column rounds fractions, which could move the expiry past its tick
+    private static Timestamp expiryAfter(long ttlMillis) {
+        return new Timestamp((System.currentTimeMillis() + ttlMillis) / 1000 * 1000);
+    }
+
+    private static TimingWheel<Booking> newWheel() {
+        return new TimingWheel<>(TICK_MS, WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    /** Stops the expiry thread; called on application exit. Holds stay in the table for the next start. */
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    // --- Counters ---
+    public synchronized int getActiveHolds() { return wheel.size(); }
+    public long getPlaced() { return placed.sum(); }
+    public long getExtended() { return extended.sum(); }
+    public long getConfirmed() { return confirmed.sum(); }
+    public long getReleased() { return released.sum(); }
+    public long getExpired() { return expired.sum(); }
+    public long getExpiryFailures() { return expiryFailures.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("SeatHoldService[active=%d, placed=%d, extended=%d, confirmed=%d, released=%d, "
+                        + "expired=%d, expiryFailures=%d]",
+                getActiveHolds(), getPlaced(), getExtended(), getConfirmed(), getReleased(),
+                getExpired(), getExpiryFailures());
+    }
+}
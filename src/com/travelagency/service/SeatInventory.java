@@ -0,0 +1,166 @@
+package com.travelagency.service;
+
+import com.travelagency.db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The seat check moved from the Booking triggers into the application's booking
+ * transaction, used when {@link DatabaseConnection#isAppManagedSeats()}.
+ * <p>
+ * A seat moves with a conditional UPDATE of {@code seats_booked} on the caller's
+ * connection, in the same transaction as the booking change. The UPDATE never takes the
+ * column outside {@code 0..NumberSeats}. So a booking commits only together with its seat,
+ * however many processes (desktop clients, API nodes) book the same schedule.
+ * <p>
+ * This is not an in-memory inventory: every booking on a schedule still takes that
+ * schedule's row lock until its transaction commits, as the triggers did, so bookings on
+ * one hot schedule run one at a time. Counters kept in each process were tried and
+ * dropped, because no single process sees every booking and they could not enforce the
+ * capacity. What the move buys is a shorter lock (the trigger's SELECT and UPDATE become
+ * one statement) and seat changes the application can see and retry.
+ * <p>
+ * The Booking triggers skip their own seat logic on connections where
+ * {@code @app_manages_seats = 1} (set by {@link DatabaseConnection}). State changes and
+ * hold expiry move seats here in either mode: they bump the booking's version, which the
+ * update trigger leaves alone.
+ * {@link #reconcile()} recomputes every schedule from its active bookings; it is an
+ * admin task ({@code tools.ReconcileSeats}), not part of client startup.
+ */
+public class SeatInventory {
+
+    private static final SeatInventory INSTANCE = new SeatInventory();
+
+    // Stats
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+
+    private SeatInventory() {}
+
+    public static SeatInventory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Takes {@code seats} seats on the schedule, in the transaction open on {@code conn};
+     * a rollback gives them back.
+     *
+     * @return false if fewer are free (or the schedule does not exist); nothing is taken then
+     */
+    public boolean reserve(Connection conn, int generalFlightId, int seats) throws SQLException {
+        String sql = "UPDATE GeneralFlight SET seats_booked = seats_booked + ? " +
+                     "WHERE GeneralFlightID = ? AND seats_booked + ? <= NumberSeats";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, seats);
+            pstmt.setInt(2, generalFlightId);
+            pstmt.setInt(3, seats);
+            if (pstmt.executeUpdate() == 0) {
+                rejections.increment();
+                return false;
+            }
+        }
+        reservations.add(seats);
+        return true;
+    }
+
+    /** Gives back {@code seats} seats (cancellation), in the transaction open on {@code conn}. */
+    public void release(Connection conn, int generalFlightId, int seats) throws SQLException {
+        String sql = "UPDATE GeneralFlight SET seats_booked = GREATEST(0, seats_booked - ?) WHERE GeneralFlightID = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, seats);
+            pstmt.setInt(2, generalFlightId);
+            pstmt.executeUpdate();
+        }
+        releases.add(seats);
+    }
+
+    /** {@link #release(Connection, int, int)} for several schedules in one batch: GeneralFlightID to seats. */
+    public void release(Connection conn, Map<Integer, Integer> seatsBySchedule) throws SQLException {
+        String sql = "UPDATE GeneralFlight SET seats_booked = GREATEST(0, seats_booked - ?) WHERE GeneralFlightID = ?";
+        int seats = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<Integer, Integer> e : seatsBySchedule.entrySet()) {
+                pstmt.setInt(1, e.getValue());
+                pstmt.setInt(2, e.getKey());
+                pstmt.addBatch();
+                seats += e.getValue();
+            }
+            pstmt.executeBatch();
+        }
+        releases.add(seats);
+    }
+
+    /** Seats left on the schedule, or -1 if it does not exist. */
+    public int getSeatsLeft(int generalFlightId) throws SQLException {
+        String sql = "SELECT NumberSeats - seats_booked FROM GeneralFlight WHERE GeneralFlightID = ?";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, generalFlightId);
+            rs = pstmt.executeQuery();
+            return rs.next() ? Math.max(0, rs.getInt(1)) : -1;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Recomputes every schedule's seat count from its active (not cancelled) bookings and
+     * corrects {@code seats_booked} where it differs. One UPDATE does the count and the
+     * write, so a booking committing meanwhile waits for the schedule row instead of
+     * having its seat overwritten. Run it with {@code tools.ReconcileSeats}, to repair
+     * counts changed outside the application.
+     *
+     * @return the number of schedules whose stored count was corrected
+     */
+    public int reconcile() throws SQLException {
+        // CHK_Seats caps the stored value at NumberSeats
+        String active = "LEAST(gf.NumberSeats, (SELECT COUNT(*) FROM Booking b " +
+                        "WHERE b.GeneralFlightID = gf.GeneralFlightID AND b.state <> 2))";
+        String fixSql = "UPDATE GeneralFlight gf SET seats_booked = " + active + " WHERE gf.seats_booked <> " + active;
+        String overbookedSql = "SELECT gf.GeneralFlightID, gf.NumberSeats, COUNT(*) AS active " +
+                               "FROM GeneralFlight gf JOIN Booking b ON b.GeneralFlightID = gf.GeneralFlightID AND b.state <> 2 " +
+                               "GROUP BY gf.GeneralFlightID, gf.NumberSeats HAVING COUNT(*) > gf.NumberSeats";
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.createStatement();
+            int corrected = stmt.executeUpdate(fixSql);
+            rs = stmt.executeQuery(overbookedSql);
+            while (rs.next()) {
+                System.err.println("GeneralFlightID " + rs.getInt("GeneralFlightID") + " is overbooked: "
+                        + rs.getInt("active") + " active bookings for " + rs.getInt("NumberSeats") + " seats.");
+            }
+            return corrected;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+            if (stmt != null) try { stmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    // --- Counters ---
+    public long getReservations() { return reservations.sum(); }
+    public long getRejections() { return rejections.sum(); }
+    public long getReleases() { return releases.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("SeatInventory[reservations=%d, rejections=%d, releases=%d]",
+                getReservations(), getRejections(), getReleases());
+    }
+}
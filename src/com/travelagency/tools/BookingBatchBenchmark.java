@@ -0,0 +1,132 @@
+package com.travelagency.tools;
+
+import com.travelagency.dao.BookingDAO;
+import com.travelagency.dao.FlightDAO;
+import com.travelagency.db.ConnectionPool;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.Booking;
+import com.travelagency.model.Flight;
+import com.travelagency.model.dto.BookingOutcome;
+import com.travelagency.service.SeatInventory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares booking throughput of the single-row path ({@link BookingDAO#addBooking})
+ * with the batch path ({@link BookingDAO#addBookings}) for one group booking.
+ * <p>
+ * Usage: {@code BookingBatchBenchmark [flightId] [customerId] [groupSize] [rounds]}
+ * (defaults: 1, NATID11223, 40, 10). The flight's schedule needs {@code groupSize}
+ * free seats. Bookings made by each round are deleted again and seat counts are
+ * reconciled afterwards, so the run leaves the data as it found it.
+ */
+public class BookingBatchBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) {
+        int flightId = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        String customerId = args.length > 1 ? args[1] : "NATID11223";
+        int groupSize = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        BookingDAO bookingDAO = new BookingDAO();
+        ConnectionPool pool = DatabaseConnection.getPool();
+        try {
+            Flight flight = new FlightDAO().getFlightById(flightId);
+            if (flight == null) {
+                System.err.println("No flight with FlightID " + flightId);
+                System.exit(1);
+            }
+            SeatInventory.getInstance().reconcile();
+
+            long singleNanos = 0, batchNanos = 0;
+            long singleTrips = 0, batchTrips = 0;
+            for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+                boolean measured = round >= WARMUP_ROUNDS;
+
+                // Single-row path: one INSERT round-trip per passenger
+                List<Booking> group = newGroup(groupSize, customerId, flight);
+                long before = pool.getStatementsExecuted();
+                long t0 = System.nanoTime();
+                for (Booking booking : group) {
+                    bookingDAO.addBooking(booking);
+                }
+                long elapsed = System.nanoTime() - t0;
+                if (measured) {
+                    singleNanos += elapsed;
+                    singleTrips += pool.getStatementsExecuted() - before;
+                }
+                cleanUp(group);
+
+                // Batch path: one multi-row INSERT in one transaction
+                group = newGroup(groupSize, customerId, flight);
+                before = pool.getStatementsExecuted();
+                t0 = System.nanoTime();
+                List<BookingOutcome> outcomes = bookingDAO.addBookings(group);
+                elapsed = System.nanoTime() - t0;
+                if (measured) {
+                    batchNanos += elapsed;
+                    batchTrips += pool.getStatementsExecuted() - before;
+                }
+                for (BookingOutcome outcome : outcomes) {
+                    if (!outcome.isSuccess()) {
+                        System.err.println(outcome);
+                    }
+                }
+                cleanUp(group);
+            }
+
+            long total = (long) groupSize * rounds;
+            System.out.printf("%-8s %-14s %-14s %-12s%n", "Path", "Bookings/s", "ms/group", "Round-trips");
+            print("single", total, rounds, singleNanos, singleTrips);
+            print("batch", total, rounds, batchNanos, batchTrips);
+            System.out.printf("Speed-up: %.1fx%n", (double) singleNanos / Math.max(1, batchNanos));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    private static List<Booking> newGroup(int size, String customerId, Flight flight) {
+        List<Booking> group = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            group.add(new Booking(1, customerId, flight.getFlightId(), flight.getGeneralFlightId()));
+        }
+        return group;
+    }
+
+    // Deletes the round's bookings and gives their seats back
+    private static void cleanUp(List<Booking> group) throws SQLException {
+        String sql = "DELETE FROM Booking WHERE BookingNumber = ?";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            for (Booking booking : group) {
+                if (booking.getBookingNumber() > 0) {
+                    pstmt.setInt(1, booking.getBookingNumber());
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+        } finally {
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+        SeatInventory.getInstance().reconcile();
+    }
+
+    private static void print(String path, long bookings, int rounds, long nanos, long roundTrips) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-8s %-14.0f %-14.2f %-12d%n", path,
+                bookings / Math.max(seconds, 1e-9), nanos / 1e6 / rounds, roundTrips / rounds);
+    }
+}
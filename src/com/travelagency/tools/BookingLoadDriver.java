@@ -0,0 +1,400 @@
+package com.travelagency.tools;
+
+import com.travelagency.dao.BookingDAO;
+import com.travelagency.dao.CustomerDAO;
+import com.travelagency.dao.FlightDAO;
+import com.travelagency.dao.GeneralFlightDAO;
+import com.travelagency.dao.ReferenceDataCache;
+import com.travelagency.db.ConnectionPool;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.Airport;
+import com.travelagency.model.Booking;
+import com.travelagency.model.City;
+import com.travelagency.model.Customer;
+import com.travelagency.model.Flight;
+import com.travelagency.model.GeneralFlight;
+import com.travelagency.model.dto.Page;
+import com.travelagency.service.SeatInventory;
+import com.travelagency.util.LatencyHistogram;
+import com.travelagency.util.Threads;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Contention load test: many concurrent agents booking, cancelling, re-activating and
+ * searching on one operational flight, so they all compete for the same schedule's seats.
+ * <p>
+ * Usage: {@code BookingLoadDriver [key=value ...]}. Keys: {@code flight} (FlightID, default 1),
+ * {@code agents} (concurrent workers, default 500), {@code seconds} (measured duration,
+ * default 60), {@code warmup} (seconds, default 10), {@code mix} (book,cancel,reactivate,search
+ * weights, default {@code 60,20,10,10}), {@code rate} (total operations/s; 0, the default,
+ * runs closed-loop as fast as possible), {@code customers} (distinct customers used,
+ * default 1000), {@code csv} (time-series file, default {@code booking-load.csv}) and
+ * {@code keep} ({@code true} keeps the bookings made by the run).
+ * The database is the application's ({@code -Dtravelagency.db.*}); raise
+ * {@code travelagency.db.pool.maxSize} to let more agents reach it at once.
+ * <p>
+ * Agents run on virtual threads where the JVM has them. Latencies go into one
+ * {@link LatencyHistogram} per operation; with a {@code rate} they are measured from each
+ * operation's intended start, so a stalled database shows up in the percentiles instead of
+ * silently lowering the load. "No available seats" rejections (from SeatInventory or the
+ * triggers, both SQLState 45000) are counted apart from other errors. The CSV has one line
+ * per second and operation; the report at the end gives p50/p99/p99.9 per operation.
+ */
+public class BookingLoadDriver {
+
+    enum Op { BOOK, CANCEL, REACTIVATE, SEARCH }
+
+    // Per-operation results, cumulative from the start (warm-up included)
+    static final class OpStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        LatencyHistogram lastInterval = new LatencyHistogram(); // Used by the reporter thread only
+        long lastRejected, lastErrors;
+    }
+
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private final FlightDAO flightDAO = new FlightDAO();
+
+    private final Flight flight;
+    private final String departureCity;
+    private final List<String> customerIds;
+    private final int[] mix = new int[Op.values().length];
+    private final int mixTotal;
+    private final OpStats[] stats = new OpStats[Op.values().length];
+    private final Queue<Integer> active = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> cancelled = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> created = new ConcurrentLinkedQueue<>();
+
+    BookingLoadDriver(Flight flight, String departureCity, List<String> customerIds, int[] weights) {
+        this.flight = flight;
+        this.departureCity = departureCity;
+        this.customerIds = customerIds;
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            mix[i] = total;
+        }
+        this.mixTotal = total;
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new OpStats();
+        }
+    }
+
+    public static void main(String[] args) {
+        int flightId = 1, agents = 500, seconds = 60, warmup = 10, customers = 1000;
+        double rate = 0;
+        int[] weights = {60, 20, 10, 10};
+        String csv = "booking-load.csv";
+        boolean keep = false;
+        try {
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                String key = eq < 0 ? arg : arg.substring(0, eq);
+                String value = eq < 0 ? "" : arg.substring(eq + 1);
+                switch (key) {
+                    case "flight": flightId = Integer.parseInt(value); break;
+                    case "agents": agents = Integer.parseInt(value); break;
+                    case "seconds": seconds = Integer.parseInt(value); break;
+                    case "warmup": warmup = Integer.parseInt(value); break;
+                    case "customers": customers = Integer.parseInt(value); break;
+                    case "rate": rate = Double.parseDouble(value); break;
+                    case "csv": csv = value; break;
+                    case "keep": keep = Boolean.parseBoolean(value); break;
+                    case "mix":
+                        String[] parts = value.split(",");
+                        if (parts.length != weights.length) {
+                            throw new IllegalArgumentException("mix needs " + weights.length + " weights: book,cancel,reactivate,search");
+                        }
+                        for (int i = 0; i < parts.length; i++) {
+                            weights[i] = Integer.parseInt(parts[i].trim());
+                        }
+                        break;
+                    default: throw new IllegalArgumentException("Unknown key: " + key);
+                }
+            }
+            if (agents < 1 || seconds < 1 || warmup < 0 || customers < 1 || rate < 0 || weights[0] < 1) {
+                throw new IllegalArgumentException("agents, seconds, customers and the book weight must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BookingLoadDriver [flight=1] [agents=500] [seconds=60] [warmup=10]"
+                    + " [mix=60,20,10,10] [rate=0] [customers=1000] [csv=booking-load.csv] [keep=false]");
+            System.exit(2);
+            return;
+        }
+
+        BookingLoadDriver driver = null;
+        try {
+            Flight flight = new FlightDAO().getFlightById(flightId);
+            if (flight == null) {
+                System.err.println("No flight with FlightID " + flightId);
+                System.exit(1);
+            }
+            GeneralFlight schedule = new GeneralFlightDAO().getGeneralFlightById(flight.getGeneralFlightId());
+            Airport dep = ReferenceDataCache.getInstance().getAirport(schedule.getDepAirportId());
+            City city = dep == null ? null : ReferenceDataCache.getInstance().getCity(dep.getCityId());
+            List<String> customerIds = new ArrayList<>();
+            CustomerDAO customerDAO = new CustomerDAO();
+            String cursor = null;
+            do {
+                Page<Customer> page = customerDAO.listCustomers(Math.min(customers - customerIds.size(), 500), cursor);
+                for (Customer c : page.getItems()) {
+                    customerIds.add(c.getCustomerId());
+                }
+                cursor = page.getNextCursor();
+            } while (cursor != null && customerIds.size() < customers);
+            if (customerIds.isEmpty()) {
+                System.err.println("No customers to book with");
+                System.exit(1);
+            }
+            if (DatabaseConnection.isAppManagedSeats()) {
+                SeatInventory.getInstance().reconcile();
+            }
+
+            System.out.printf("Flight %d (GeneralFlightID %d, %d seats), %d agents, %s, %d customers, pool max %d%n",
+                    flightId, schedule.getGeneralFlightId(), schedule.getNumberSeats(), agents,
+                    rate > 0 ? String.format("%.0f ops/s", rate) : "closed loop", customerIds.size(),
+                    DatabaseConnection.getPool().getMaxSize());
+            driver = new BookingLoadDriver(flight, city == null ? null : city.getCityName(), customerIds, weights);
+            driver.run(agents, rate, warmup, seconds, csv);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (driver != null && !keep) {
+                driver.cleanUp();
+            }
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    void run(int agents, double rate, int warmupSeconds, int seconds, String csvPath) throws IOException, InterruptedException {
+        ExecutorService workers = Threads.newPerTaskExecutor("load-agent");
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(warmupSeconds + seconds);
+        long intervalNanos = rate > 0 ? (long) (agents * 1e9 / rate) : 0;
+        LatencyHistogram[] atMeasureStart = new LatencyHistogram[stats.length];
+        long[] rejectedAtStart = new long[stats.length], errorsAtStart = new long[stats.length];
+
+        try (PrintWriter out = new PrintWriter(new FileWriter(csvPath))) {
+            out.println("second,phase,operation,count,rejected,errors,p50_us,p99_us,p999_us,max_us");
+            for (int a = 0; a < agents; a++) {
+                long phase = intervalNanos > 0 ? intervalNanos * a / agents : 0; // Spread the agents' first operations
+                workers.execute(() -> agent(start + phase, intervalNanos, end));
+            }
+
+            for (int second = 1; System.nanoTime() < end; second++) {
+                LockSupport.parkNanos(Math.max(0, start + TimeUnit.SECONDS.toNanos(second) - System.nanoTime()));
+                writeInterval(out, second, second <= warmupSeconds ? "warmup" : "measure");
+                if (second == warmupSeconds) {
+                    for (int i = 0; i < stats.length; i++) {
+                        atMeasureStart[i] = stats[i].latency.copy();
+                        rejectedAtStart[i] = stats[i].rejected.sum();
+                        errorsAtStart[i] = stats[i].errors.sum();
+                    }
+                }
+            }
+        } finally {
+            workers.shutdown();
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("Some agents were still running after 30 s");
+            }
+        }
+        report(atMeasureStart, rejectedAtStart, errorsAtStart, seconds);
+    }
+
+    // One agent: pick an operation, run it, record its latency; until the end of the run
+    private void agent(long firstStart, long intervalNanos, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long intended = firstStart;
+        while (true) {
+            long now = System.nanoTime();
+            if (intervalNanos > 0) {
+                if (intended > now) {
+                    LockSupport.parkNanos(intended - now);
+                }
+            } else {
+                intended = now;
+            }
+            if (intended >= end || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Op op = pick(random.nextInt(mixTotal));
+            OpStats s = stats[op.ordinal()];
+            try {
+                execute(op, random);
+            } catch (SQLException e) {
+                if ("45000".equals(e.getSQLState()) && e.getMessage() != null && e.getMessage().contains("No available seats")) {
+                    s.rejected.increment();
+                } else {
+                    s.errors.increment();
+                }
+            } catch (RuntimeException e) {
+                s.errors.increment();
+            }
+            s.latency.record(System.nanoTime() - intended);
+            intended += intervalNanos;
+        }
+    }
+
+    private Op pick(int roll) {
+        Op[] ops = Op.values();
+        for (int i = 0; i < ops.length; i++) {
+            if (roll < mix[i]) {
+                return ops[i];
+            }
+        }
+        return Op.BOOK;
+    }
+
+    private void execute(Op op, ThreadLocalRandom random) throws SQLException {
+        switch (op) {
+            case CANCEL: {
+                Integer n = active.poll();
+                if (n == null) {
+                    book(random); // Nothing to cancel yet
+                } else if (bookingDAO.updateBookingState(n, 2)) {
+                    cancelled.add(n);
+                }
+                break;
+            }
+            case REACTIVATE: {
+                Integer n = cancelled.poll();
+                if (n == null) {
+                    book(random);
+                    break;
+                }
+                try {
+                    if (bookingDAO.updateBookingState(n, 1)) {
+                        active.add(n);
+                    }
+                } catch (SQLException e) {
+                    cancelled.add(n); // Still cancelled, e.g. no seat left
+                    throw e;
+                }
+                break;
+            }
+            case SEARCH:
+                if (departureCity != null) {
+                    long day = flight.getTakeOffDate().getTime();
+                    flightDAO.searchFlightsFromCityInPeriod(departureCity,
+                            new Date(day - TimeUnit.DAYS.toMillis(3)), new Date(day + TimeUnit.DAYS.toMillis(3)));
+                }
+                break;
+            default:
+                book(random);
+        }
+    }
+
+    private void book(ThreadLocalRandom random) throws SQLException {
+        String customerId = customerIds.get(random.nextInt(customerIds.size()));
+        Booking booking = new Booking(1, customerId, flight.getFlightId(), flight.getGeneralFlightId());
+        if (bookingDAO.addBooking(booking) && booking.getBookingNumber() > 0) {
+            created.add(booking.getBookingNumber());
+            active.add(booking.getBookingNumber());
+        }
+    }
+
+    private void writeInterval(PrintWriter out, int second, String phase) {
+        for (Op op : Op.values()) {
+            OpStats s = stats[op.ordinal()];
+            LatencyHistogram now = s.latency.copy();
+            LatencyHistogram interval = now.minus(s.lastInterval);
+            long rejected = s.rejected.sum(), errors = s.errors.sum();
+            out.printf("%d,%s,%s,%d,%d,%d,%d,%d,%d,%d%n", second, phase, op.name().toLowerCase(), interval.getCount(),
+                    rejected - s.lastRejected, errors - s.lastErrors,
+                    micros(interval.getValueAtPercentile(50)), micros(interval.getValueAtPercentile(99)),
+                    micros(interval.getValueAtPercentile(99.9)), micros(interval.getMax()));
+            s.lastInterval = now;
+            s.lastRejected = rejected;
+            s.lastErrors = errors;
+        }
+        out.flush();
+    }
+
+    private void report(LatencyHistogram[] atStart, long[] rejectedAtStart, long[] errorsAtStart, int seconds) {
+        System.out.printf("%n%-11s %10s %9s %9s %8s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Ops/s", "Rejected", "Errors", "p50 ms", "p99 ms", "p99.9 ms", "Max ms");
+        for (Op op : Op.values()) {
+            OpStats s = stats[op.ordinal()];
+            LatencyHistogram h = atStart[op.ordinal()] == null ? s.latency.copy() : s.latency.copy().minus(atStart[op.ordinal()]);
+            System.out.printf("%-11s %10d %9.1f %9d %8d %10.2f %10.2f %10.2f %10.2f%n", op.name().toLowerCase(),
+                    h.getCount(), h.getCount() / (double) seconds,
+                    s.rejected.sum() - rejectedAtStart[op.ordinal()], s.errors.sum() - errorsAtStart[op.ordinal()],
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMax()));
+        }
+        ConnectionPool pool = DatabaseConnection.getPool();
+        System.out.printf("Pool: %d borrows, %.2f ms average wait, %d timeouts%n", pool.getBorrowCount(),
+                pool.getTotalBorrowWaitNanos() / 1e6 / Math.max(1, pool.getBorrowCount()), pool.getBorrowTimeouts());
+        if (DatabaseConnection.isAppManagedSeats()) {
+            System.out.println(SeatInventory.getInstance());
+        }
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    // Deletes the bookings made by the run and recomputes the seat counts
+    private void cleanUp() {
+        List<Integer> numbers = new ArrayList<>(created);
+        if (numbers.isEmpty()) {
+            return;
+        }
+        Collections.sort(numbers);
+        String sql = "DELETE FROM Booking WHERE BookingNumber = ?";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            for (int n : numbers) {
+                pstmt.setInt(1, n);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            if (DatabaseConnection.isAppManagedSeats()) {
+                SeatInventory.getInstance().reconcile();
+            } else {
+                try (PreparedStatement fix = conn.prepareStatement(
+                        "UPDATE GeneralFlight SET seats_booked = (SELECT COUNT(*) FROM Booking WHERE GeneralFlightID = ? AND state <> 2) " +
+                        "WHERE GeneralFlightID = ?")) {
+                    fix.setInt(1, flight.getGeneralFlightId());
+                    fix.setInt(2, flight.getGeneralFlightId());
+                    fix.executeUpdate();
+                }
+            }
+            System.out.println("Deleted the " + numbers.size() + " booking(s) made by the run");
+        } catch (SQLException e) {
+            System.err.println("Clean-up failed: " + e.getMessage());
+        } finally {
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.travelagency.tools;
+
+import com.travelagency.dao.BookingDAO;
+import com.travelagency.dao.CustomerDAO;
+import com.travelagency.dao.FlightDAO;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.Booking;
+import com.travelagency.model.BookingState;
+import com.travelagency.model.Customer;
+import com.travelagency.model.Flight;
+import com.travelagency.util.Threads;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency check for {@link BookingDAO#updateBookingState}: many agents change the
+ * state of the same few bookings at once, then the schedule's seat count is checked
+ * against its bookings.
+ * <p>
+ * Usage: {@code BookingStateRaceCheck [key=value ...]}. Keys: {@code flight} (FlightID,
+ * default 1), {@code agents} (concurrent workers, default 32), {@code bookings} (bookings
+ * raced on, default 10) and {@code seconds} (default 10). The database is the
+ * application's ({@code -Dtravelagency.db.*}), with either seat mode;
+ * {@code gradle :benchmarks:raceCheck} runs it against an in-memory H2 database instead.
+ * <p>
+ * After the run, for the flight's schedule: {@code seats_booked} minus its active bookings
+ * must be what it was before (no seat gained or lost), {@code seats_booked} must be within
+ * {@code 0..NumberSeats}, and the bookings' versions must have gone up by exactly the
+ * number of state changes that reported success (no lost update). Exits with status 1 if any check fails. The bookings
+ * made by the run are deleted afterwards.
+ */
+public class BookingStateRaceCheck {
+
+    private final BookingDAO bookingDAO = new BookingDAO();
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder rejected = new LongAdder();  // No seat free, or a transition not allowed
+    private final LongAdder conflicts = new LongAdder(); // Still changing after the DAO's retries
+    private final LongAdder errors = new LongAdder();
+
+    public static void main(String[] args) {
+        int flightId = 1, agents = 32, bookings = 10, seconds = 10;
+        try {
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                String key = eq < 0 ? arg : arg.substring(0, eq);
+                String value = eq < 0 ? "" : arg.substring(eq + 1);
+                switch (key) {
+                    case "flight": flightId = Integer.parseInt(value); break;
+                    case "agents": agents = Integer.parseInt(value); break;
+                    case "bookings": bookings = Integer.parseInt(value); break;
+                    case "seconds": seconds = Integer.parseInt(value); break;
+                    default: throw new IllegalArgumentException("Unknown key: " + key);
+                }
+            }
+            if (agents < 1 || bookings < 1 || seconds < 1) {
+                throw new IllegalArgumentException("agents, bookings and seconds must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BookingStateRaceCheck [flight=1] [agents=32] [bookings=10] [seconds=10]");
+            System.exit(2);
+            return;
+        }
+
+        boolean passed = false;
+        List<Integer> created = new ArrayList<>();
+        Flight flight = null;
+        try {
+            flight = new FlightDAO().getFlightById(flightId);
+            if (flight == null) {
+                System.err.println("No flight with FlightID " + flightId);
+                System.exit(1);
+            }
+            List<Customer> customers = new CustomerDAO().listCustomers(Math.min(bookings, 500), null).getItems();
+            if (customers.isEmpty()) {
+                System.err.println("No customers to book with");
+                System.exit(1);
+            }
+            BookingDAO bookingDAO = new BookingDAO();
+            for (int i = 0; i < bookings; i++) {
+                Booking booking = new Booking(BookingState.CONFIRMED.getCode(), customers.get(i % customers.size()).getCustomerId(),
+                        flight.getFlightId(), flight.getGeneralFlightId());
+                if (bookingDAO.addBooking(booking) && booking.getBookingNumber() > 0) {
+                    created.add(booking.getBookingNumber());
+                }
+            }
+            if (created.isEmpty()) {
+                System.err.println("Could not create any booking on flight " + flightId);
+                System.exit(1);
+            }
+            recountSeats(flight.getGeneralFlightId()); // Start from a consistent count
+
+            Seats before = Seats.read(flight.getGeneralFlightId(), created);
+            System.out.printf("Flight %d (GeneralFlightID %d): %d agents racing on %d bookings for %d s; %s%n",
+                    flightId, flight.getGeneralFlightId(), agents, created.size(), seconds, before);
+            BookingStateRaceCheck check = new BookingStateRaceCheck();
+            check.run(created, agents, seconds);
+            Seats after = Seats.read(flight.getGeneralFlightId(), created);
+            passed = check.verify(before, after);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (flight != null) {
+                cleanUp(flight.getGeneralFlightId(), created);
+            }
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    void run(List<Integer> bookingNumbers, int agents, int seconds) throws InterruptedException {
+        ExecutorService workers = Threads.newPerTaskExecutor("race-agent");
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        BookingState[] states = BookingState.values();
+        for (int a = 0; a < agents; a++) {
+            workers.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    int n = bookingNumbers.get(random.nextInt(bookingNumbers.size()));
+                    try {
+                        if (bookingDAO.updateBookingState(n, BookingDAO.ANY_VERSION, states[random.nextInt(states.length)].getCode())) {
+                            changed.increment();
+                        } else {
+                            unchanged.increment();
+                        }
+                    } catch (SQLException e) {
+                        if ("45000".equals(e.getSQLState())) {
+                            rejected.increment();
+                        } else if ("40001".equals(e.getSQLState())) {
+                            conflicts.increment();
+                        } else {
+                            errors.increment();
+                        }
+                    } catch (RuntimeException e) {
+                        errors.increment();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(seconds + 30L, TimeUnit.SECONDS)) {
+            System.err.println("Some agents were still running 30 s after the end");
+        }
+    }
+
+    boolean verify(Seats before, Seats after) throws SQLException {
+        System.out.printf("Changes: %d applied, %d unchanged, %d rejected, %d gave up on conflict, %d errors%n",
+                changed.sum(), unchanged.sum(), rejected.sum(), conflicts.sum(), errors.sum());
+        System.out.println("After: " + after);
+        boolean passed = true;
+        if (after.offset() != before.offset()) {
+            System.out.printf("FAIL: seat count drifted by %d (seats_booked minus active bookings was %d, now %d)%n",
+                    after.offset() - before.offset(), before.offset(), after.offset());
+            passed = false;
+        }
+        if (after.seatsBooked < 0 || after.seatsBooked > after.numberSeats) {
+            System.out.printf("FAIL: seats_booked %d is outside 0..%d%n", after.seatsBooked, after.numberSeats);
+            passed = false;
+        }
+        if (after.versions - before.versions != changed.sum()) {
+            System.out.printf("FAIL: versions went up by %d for %d successful change(s)%n",
+                    after.versions - before.versions, changed.sum());
+            passed = false;
+        }
+        if (errors.sum() > 0) {
+            System.out.println("FAIL: " + errors.sum() + " unexpected error(s)");
+            passed = false;
+        }
+        System.out.println(passed ? "PASS: no seat drift, no lost update" : "Check failed");
+        return passed;
+    }
+
+    // The schedule's seat count, its active bookings and the raced bookings' total version
+    static final class Seats {
+        final int generalFlightId;
+        int numberSeats, seatsBooked, activeBookings;
+        long versions;
+
+        private Seats(int generalFlightId) {
+            this.generalFlightId = generalFlightId;
+        }
+
+        int offset() {
+            return seatsBooked - activeBookings;
+        }
+
+        static Seats read(int generalFlightId, List<Integer> bookingNumbers) throws SQLException {
+            Seats s = new Seats(generalFlightId);
+            String seatsSql = "SELECT gf.NumberSeats, gf.seats_booked, " +
+                              "(SELECT COUNT(*) FROM Booking b WHERE b.GeneralFlightID = gf.GeneralFlightID AND b.state <> 2) AS active " +
+                              "FROM GeneralFlight gf WHERE gf.GeneralFlightID = ?";
+            String versionSql = "SELECT version FROM Booking WHERE BookingNumber = ?";
+            Connection conn = null;
+            PreparedStatement seats = null;
+            PreparedStatement version = null;
+            ResultSet rs = null;
+            try {
+                conn = DatabaseConnection.getConnection();
+                seats = conn.prepareStatement(seatsSql);
+                seats.setInt(1, generalFlightId);
+                rs = seats.executeQuery();
+                if (rs.next()) {
+                    s.numberSeats = rs.getInt("NumberSeats");
+                    s.seatsBooked = rs.getInt("seats_booked");
+                    s.activeBookings = rs.getInt("active");
+                }
+                rs.close();
+                version = conn.prepareStatement(versionSql);
+                for (int n : bookingNumbers) {
+                    version.setInt(1, n);
+                    rs = version.executeQuery();
+                    if (rs.next()) {
+                        s.versions += rs.getInt(1);
+                    }
+                    rs.close();
+                }
+            } finally {
+                if (rs != null) try { rs.close(); } catch (SQLException logOrIgnore) {}
+                if (seats != null) try { seats.close(); } catch (SQLException logOrIgnore) {}
+                if (version != null) try { version.close(); } catch (SQLException logOrIgnore) {}
+                DatabaseConnection.releaseConnection(conn);
+            }
+            return s;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d seats booked, %d active booking(s)", seatsBooked, numberSeats, activeBookings);
+        }
+    }
+
+    // Sets the schedule's seats_booked to its active bookings
+    private static void recountSeats(int generalFlightId) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(
+                    "UPDATE GeneralFlight SET seats_booked = (SELECT COUNT(*) FROM Booking WHERE GeneralFlightID = ? AND state <> 2) " +
+                    "WHERE GeneralFlightID = ?");
+            pstmt.setInt(1, generalFlightId);
+            pstmt.setInt(2, generalFlightId);
+            pstmt.executeUpdate();
+        } finally {
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+
+    // Deletes the run's bookings and recomputes the schedule's seat count, as BookingLoadDriver does
+    private static void cleanUp(int generalFlightId, List<Integer> bookingNumbers) {
+        if (bookingNumbers.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement("DELETE FROM Booking WHERE BookingNumber = ?");
+            for (int n : bookingNumbers) {
+                pstmt.setInt(1, n);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            recountSeats(generalFlightId);
+            System.out.println("Deleted the " + bookingNumbers.size() + " booking(s) made by the run");
+        } catch (SQLException e) {
+            System.err.println("Clean-up failed: " + e.getMessage());
+        } finally {
+            if (pstmt != null) try { pstmt.close(); } catch (SQLException logOrIgnore) {}
+            DatabaseConnection.releaseConnection(conn);
+        }
+    }
+}
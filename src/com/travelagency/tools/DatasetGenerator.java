@@ -0,0 +1,772 @@
+package com.travelagency.tools;
+
+import com.travelagency.db.DatabaseConnection;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a large synthetic dataset for load testing and profiling.
+ * <p>
+ * Usage: {@code DatasetGenerator [key=value ...]}, for example
+ * {@code cities=2000 airports=10000 schedules=200000 flights=20000000 bookings=50000000}.
+ * Keys: {@code seed, cities, airports, airlines, aircraft, customers, schedules, flights,
+ * bookings, from, to} (season dates as yyyy-MM-dd), {@code zipf} (popularity exponent),
+ * {@code hubs} (share of airports that are hubs), {@code sink} ({@code jdbc} or
+ * {@code csv}), {@code dir} (CSV output directory), {@code load} ({@code true} to run
+ * {@code LOAD DATA LOCAL INFILE} on the CSV files; the JDBC URL then needs
+ * {@code allowLoadLocalInfile=true}) and {@code batch} (rows per JDBC batch).
+ * <p>
+ * The data is skewed the way real traffic is: a few large cities own most airports,
+ * hub airports take most schedules, route and customer popularity follow a Zipf law,
+ * and flights and bookings cluster in the summer and year-end peaks. Everything comes
+ * from one seed, so the same arguments always produce the same rows; each table has its
+ * own random stream, so changing one volume leaves the other tables unchanged.
+ * <p>
+ * Rows are appended after the current maximum ids (ids start at 1 when writing CSV
+ * without a database), customer ids are {@code GEN000000001}... and seat counts are
+ * recomputed at the end, raising {@code NumberSeats} where a schedule is overbooked.
+ * Flights per schedule and bookings per flight are approximate; the totals are printed.
+ */
+public class DatasetGenerator {
+
+    private static final String[] SYLLABLES = {
+            "al", "ba", "ca", "dor", "el", "fa", "gar", "ha", "in", "ja", "ka", "lo", "ma", "ne", "or",
+            "pa", "qui", "ra", "sa", "ta", "ul", "va", "wen", "xi", "ya", "za", "ber", "tin", "mon", "ris"};
+    private static final String[] AIRPORT_SUFFIXES = {
+            "International", "Central", "North", "South", "East", "West", "Regional", "City", "Field"};
+    private static final String[] AIRLINE_SUFFIXES = {"Air", "Airways", "Airlines", "Jet", "Wings", "Aviation"};
+    private static final String[] AIRCRAFT_MODELS = {
+            "Airbus A220", "Airbus A320", "Airbus A321neo", "Airbus A330", "Airbus A350",
+            "Boeing 737-800", "Boeing 737 MAX 8", "Boeing 777", "Boeing 787-9", "ATR 72", "Embraer E190"};
+    private static final int[] SEAT_OPTIONS = {70, 100, 150, 180, 220, 300, 400};
+    private static final double CUSTOMER_ZIPF = 0.6; // Milder than routes: frequent flyers, not a handful of accounts
+    private static final String[] FIRST_NAMES = {
+            "Amine", "Sara", "Yacine", "Lina", "Karim", "Nour", "Omar", "Ines", "Walid", "Meriem", "John", "Jane",
+            "Lucas", "Emma", "Noah", "Mia", "Adam", "Lea", "Ali", "Aya", "Hugo", "Chloe", "Rayan", "Salma"};
+    private static final String[] LAST_NAMES = {
+            "Benali", "Haddad", "Mansouri", "Boudiaf", "Khelifi", "Saidi", "Smith", "Doe", "Martin", "Bernard",
+            "Dubois", "Garcia", "Rossi", "Muller", "Nguyen", "Kaya", "Silva", "Costa", "Hamdi", "Zerrouki"};
+
+    /** Column lists in generation order; the first column is the id. */
+    enum Table {
+        CITY("City", "CityID", "CityName"),
+        AIRPORT("Airport", "AirportID", "AirportName", "CityID"),
+        AIRLINE("Airline", "AirlineID", "AirlineName"),
+        AIRCRAFT("Aircraft", "AircraftID", "AircraftName"),
+        CUSTOMER("Customer", "CustomerID", "fname", "lname", "address", "email", "phoneNumber"),
+        GENERAL_FLIGHT("GeneralFlight", "GeneralFlightID", "TakeoffTime", "ArrivalTime", "FDay",
+                "DepAirport", "ArrAirport", "AirlineID", "NumberSeats", "seats_booked"),
+        FLIGHT("Flight", "FlightID", "TakeOffDate", "ArrivalDate", "State", "GeneralFlightID", "AircraftID"),
+        BOOKING("Booking", "BookingNumber", "state", "CustomerID", "FlightID", "GeneralFlightID", "BookingDate");
+
+        final String name;
+        final String[] columns;
+
+        Table(String name, String... columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+    }
+
+    /** Volumes and shape of the dataset. */
+    static final class Config {
+        long seed = 42;
+        int cities = 200;
+        int airports = 1_000;
+        int airlines = 60;
+        int aircraft = 400;
+        int customers = 200_000;
+        int schedules = 20_000;
+        long flights = 2_000_000;
+        long bookings = 5_000_000;
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        double zipf = 1.0;
+        double hubs = 0.02;
+        String sink = "jdbc";
+        File dir = new File("dataset");
+        boolean load = false;
+        int batch = 5_000;
+
+        static Config parse(String[] args) {
+            Config c = new Config();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                String key = arg.substring(0, eq).trim();
+                String value = arg.substring(eq + 1).trim();
+                switch (key) {
+                    case "seed": c.seed = Long.parseLong(value); break;
+                    case "cities": c.cities = Integer.parseInt(value); break;
+                    case "airports": c.airports = Integer.parseInt(value); break;
+                    case "airlines": c.airlines = Integer.parseInt(value); break;
+                    case "aircraft": c.aircraft = Integer.parseInt(value); break;
+                    case "customers": c.customers = Integer.parseInt(value); break;
+                    case "schedules": c.schedules = Integer.parseInt(value); break;
+                    case "flights": c.flights = Long.parseLong(value); break;
+                    case "bookings": c.bookings = Long.parseLong(value); break;
+                    case "from": c.from = LocalDate.parse(value); break;
+                    case "to": c.to = LocalDate.parse(value); break;
+                    case "zipf": c.zipf = Double.parseDouble(value); break;
+                    case "hubs": c.hubs = Double.parseDouble(value); break;
+                    case "sink": c.sink = value.toLowerCase(); break;
+                    case "dir": c.dir = new File(value); break;
+                    case "load": c.load = Boolean.parseBoolean(value); break;
+                    case "batch": c.batch = Integer.parseInt(value); break;
+                    default: throw new IllegalArgumentException("Unknown key: " + key);
+                }
+            }
+            if (c.cities < 1 || c.airports < Math.max(2, c.cities) || c.airlines < 1 || c.aircraft < 1
+                    || c.customers < 1 || c.schedules < 1 || c.flights < 0 || c.bookings < 0 || c.batch < 1) {
+                throw new IllegalArgumentException("Volumes must be positive, with at least one airport per city");
+            }
+            if (c.flights > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("At most " + (Integer.MAX_VALUE - 8) + " flights per run");
+            }
+            if (c.to.isBefore(c.from) || ChronoUnit.DAYS.between(c.from, c.to) >= Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid season: " + c.from + " .. " + c.to);
+            }
+            if (!c.sink.equals("jdbc") && !c.sink.equals("csv")) {
+                throw new IllegalArgumentException("sink must be jdbc or csv: " + c.sink);
+            }
+            return c;
+        }
+    }
+
+    public static void main(String[] args) {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: DatasetGenerator [seed=42] [cities=200] [airports=1000] [airlines=60] [aircraft=400]"
+                    + " [customers=200000] [schedules=20000] [flights=2000000] [bookings=5000000]"
+                    + " [from=2025-01-01] [to=2025-12-31] [zipf=1.0] [hubs=0.02]"
+                    + " [sink=jdbc|csv] [dir=dataset] [load=false] [batch=5000]");
+            System.exit(2);
+            return;
+        }
+
+        boolean useDatabase = config.sink.equals("jdbc") || config.load;
+        Connection conn = null;
+        try {
+            long t0 = System.nanoTime();
+            Map<Table, Integer> base = new LinkedHashMap<>();
+            if (useDatabase) {
+                conn = DatabaseConnection.getConnection();
+                for (Table table : Table.values()) {
+                    base.put(table, table == Table.CUSTOMER ? 0 : maxId(conn, table));
+                }
+                checkNoGeneratedCustomers(conn);
+            } else {
+                for (Table table : Table.values()) {
+                    base.put(table, 0);
+                }
+            }
+
+            Sink sink = config.sink.equals("jdbc") ? new JdbcSink(conn, config.batch) : new CsvSink(config.dir);
+            DatasetGenerator generator = new DatasetGenerator(config, base);
+            try {
+                generator.generate(sink);
+            } finally {
+                sink.close();
+            }
+            if (config.sink.equals("csv")) {
+                ((CsvSink) sink).writeFinishScript(generator.seatsSql());
+                if (config.load) {
+                    ((CsvSink) sink).load(conn);
+                }
+            }
+            if (useDatabase) {
+                System.out.println("Recomputing seat counts...");
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate(generator.seatsSql());
+                    stmt.execute("ANALYZE TABLE City, Airport, Airline, Aircraft, Customer, GeneralFlight, Flight, Booking");
+                }
+            } else {
+                System.out.println("CSV files written to " + config.dir.getAbsolutePath()
+                        + "; run load.sql, then finish.sql, against the database");
+            }
+            System.out.printf("Done in %.1f s%n", (System.nanoTime() - t0) / 1e9);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseConnection.releaseConnection(conn);
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    private static int maxId(Connection conn, Table table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + table.columns[0] + "), 0) FROM " + table.name)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void checkNoGeneratedCustomers(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Customer WHERE CustomerID LIKE 'GEN%'")) {
+            rs.next();
+            if (rs.getLong(1) > 0) {
+                throw new SQLException("The database already holds generated customers; delete the previous dataset first");
+            }
+        }
+    }
+
+    private final Config config;
+    private final Map<Table, Integer> base;
+    private final int seasonDays;
+
+    // Per schedule, filled while schedules are generated and used for flights and bookings
+    private double[] scheduleWeight;
+    private int[] scheduleAirport;
+    private boolean[] overnight;
+    private String[] cityNames;
+    private int[] firstFlight;     // Index of the schedule's first flight, 0-based
+    private int[] flightCount;
+    private short[] flightDay;     // Days after config.from, per flight
+    private double[] bookingCdf;   // Cumulative schedule popularity, for drawing bookings
+
+    DatasetGenerator(Config config, Map<Table, Integer> base) {
+        this.config = config;
+        this.base = base;
+        this.seasonDays = (int) ChronoUnit.DAYS.between(config.from, config.to) + 1;
+    }
+
+    // One independent stream per table: the same seed gives the same rows whatever the other volumes
+    private SplittableRandom random(Table table) {
+        return new SplittableRandom(config.seed * 31 + table.ordinal() * 0x9E3779B97F4A7C15L);
+    }
+
+    void generate(Sink sink) throws SQLException, IOException {
+        cities(sink);
+        airports(sink);
+        airlines(sink);
+        aircraft(sink);
+        customers(sink);
+        schedules(sink);
+        flights(sink);
+        bookings(sink);
+    }
+
+    private void cities(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.CITY);
+        Set<String> used = new HashSet<>();
+        cityNames = new String[config.cities];
+        sink.begin(Table.CITY);
+        for (int i = 0; i < config.cities; i++) {
+            cityNames[i] = uniqueName(rnd, used, "");
+            sink.row(base.get(Table.CITY) + i + 1, cityNames[i]);
+        }
+        sink.end();
+    }
+
+    // Every city gets one airport (the largest cities' become the hubs), the rest go to big cities first
+    private void airports(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.AIRPORT);
+        sink.begin(Table.AIRPORT);
+        for (int i = 0; i < config.airports; i++) {
+            int city = i < config.cities ? i : zipf(rnd, config.cities, config.zipf);
+            String name = cityNames[city] + " " + AIRPORT_SUFFIXES[rnd.nextInt(AIRPORT_SUFFIXES.length)] + " " + (i + 1);
+            sink.row(base.get(Table.AIRPORT) + i + 1, name, base.get(Table.CITY) + city + 1);
+        }
+        sink.end();
+    }
+
+    private void airlines(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.AIRLINE);
+        Set<String> used = new HashSet<>();
+        sink.begin(Table.AIRLINE);
+        for (int i = 1; i <= config.airlines; i++) {
+            String suffix = " " + AIRLINE_SUFFIXES[rnd.nextInt(AIRLINE_SUFFIXES.length)];
+            sink.row(base.get(Table.AIRLINE) + i, uniqueName(rnd, used, suffix));
+        }
+        sink.end();
+    }
+
+    private void aircraft(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.AIRCRAFT);
+        sink.begin(Table.AIRCRAFT);
+        for (int i = 1; i <= config.aircraft; i++) {
+            sink.row(base.get(Table.AIRCRAFT) + i, AIRCRAFT_MODELS[rnd.nextInt(AIRCRAFT_MODELS.length)] + " #" + i);
+        }
+        sink.end();
+    }
+
+    private void customers(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.CUSTOMER);
+        sink.begin(Table.CUSTOMER);
+        for (int i = 1; i <= config.customers; i++) {
+            String fname = FIRST_NAMES[rnd.nextInt(FIRST_NAMES.length)];
+            String lname = LAST_NAMES[rnd.nextInt(LAST_NAMES.length)];
+            sink.row(customerId(i), fname, lname,
+                    (1 + rnd.nextInt(300)) + " Rue " + LAST_NAMES[rnd.nextInt(LAST_NAMES.length)],
+                    fname.toLowerCase() + "." + lname.toLowerCase() + "." + i + "@example.com",
+                    String.format("0%d%08d", 5 + rnd.nextInt(3), rnd.nextInt(100_000_000)));
+        }
+        sink.end();
+    }
+
+    private static String customerId(int i) {
+        return String.format("GEN%09d", i);
+    }
+
+    /*
+     * Most schedules touch a hub: hub to anywhere, or a spoke feeding a hub. Popularity of a
+     * route is the product of its airports' Zipf weights, with some noise, and decides both
+     * how often the schedule flies and how many bookings it gets.
+     */
+    private void schedules(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.GENERAL_FLIGHT);
+        int n = config.schedules;
+        int hubCount = Math.max(1, (int) Math.round(config.airports * config.hubs));
+        scheduleWeight = new double[n];
+        scheduleAirport = new int[n];
+        overnight = new boolean[n];
+        Date fday = Date.valueOf(config.from);
+
+        sink.begin(Table.GENERAL_FLIGHT);
+        for (int s = 0; s < n; s++) {
+            int dep = rnd.nextDouble() < 0.6 ? zipf(rnd, hubCount, config.zipf) : zipf(rnd, config.airports, config.zipf);
+            int arr;
+            do {
+                arr = dep >= hubCount && rnd.nextDouble() < 0.8
+                        ? zipf(rnd, hubCount, config.zipf) : zipf(rnd, config.airports, config.zipf);
+            } while (arr == dep);
+            scheduleWeight[s] = Math.pow((dep + 1.0) * (arr + 1.0), -config.zipf / 2) * Math.exp(0.5 * gaussian(rnd));
+            scheduleAirport[s] = dep;
+
+            int takeoff = takeoffMinute(rnd);
+            int arrival = (takeoff + 45 + 5 * rnd.nextInt(80)) % (24 * 60);
+            overnight[s] = arrival <= takeoff;
+            sink.row(base.get(Table.GENERAL_FLIGHT) + s + 1,
+                    Time.valueOf(LocalTime.of(takeoff / 60, takeoff % 60)),
+                    Time.valueOf(LocalTime.of(arrival / 60, arrival % 60)),
+                    fday,
+                    base.get(Table.AIRPORT) + dep + 1,
+                    base.get(Table.AIRPORT) + arr + 1,
+                    base.get(Table.AIRLINE) + zipf(rnd, config.airlines, config.zipf) + 1,
+                    SEAT_OPTIONS[rnd.nextInt(SEAT_OPTIONS.length)],
+                    0); // Recomputed at the end
+        }
+        sink.end();
+    }
+
+    // Morning and evening banks, in 5-minute steps
+    private static int takeoffMinute(SplittableRandom rnd) {
+        double centre = rnd.nextDouble() < 0.55 ? 8 * 60 : 18 * 60;
+        int minute = (int) (centre + gaussian(rnd) * 150);
+        minute = Math.max(5 * 60, Math.min(23 * 60 + 30, minute));
+        return minute - minute % 5;
+    }
+
+    /*
+     * Busy routes fly more often (by the square root of their popularity), and every schedule's
+     * flights follow the seasonal demand curve: its j-th flight falls where the curve's CDF
+     * reaches (j + phase) / count, moved just enough to keep one flight per day.
+     */
+    private void flights(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.FLIGHT);
+        int n = config.schedules;
+        double[] seasonCdf = seasonCdf();
+
+        double totalRoot = 0;
+        for (double w : scheduleWeight) {
+            totalRoot += Math.sqrt(w);
+        }
+        flightCount = new int[n];
+        firstFlight = new int[n];
+        long planned = 0;
+        for (int s = 0; s < n; s++) {
+            int count = (int) Math.round(config.flights * Math.sqrt(scheduleWeight[s]) / totalRoot);
+            flightCount[s] = Math.max(config.flights > 0 ? 1 : 0, Math.min(seasonDays, count));
+            firstFlight[s] = (int) planned;
+            planned += flightCount[s];
+        }
+        if (planned > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many flights: " + planned);
+        }
+        flightDay = new short[(int) planned];
+
+        sink.begin(Table.FLIGHT);
+        int aircraftId = 0;
+        for (int s = 0; s < n; s++) {
+            int count = flightCount[s];
+            double phase = rnd.nextDouble();
+            int previous = -1;
+            for (int j = 0; j < count; j++) {
+                int day = lowerBound(seasonCdf, (j + phase) / count);
+                day = Math.max(previous + 1, Math.min(day, seasonDays - count + j));
+                previous = day;
+                flightDay[firstFlight[s] + j] = (short) day;
+
+                LocalDate takeOff = config.from.plusDays(day);
+                aircraftId = rnd.nextInt(10) == 0 ? -1 : (aircraftId + 1 + rnd.nextInt(7)) % config.aircraft;
+                sink.row(base.get(Table.FLIGHT) + firstFlight[s] + j + 1,
+                        Date.valueOf(takeOff),
+                        Date.valueOf(overnight[s] ? takeOff.plusDays(1) : takeOff),
+                        rnd.nextInt(1000) < 15 ? 3 : 0, // 1.5% cancelled
+                        base.get(Table.GENERAL_FLIGHT) + s + 1,
+                        aircraftId < 0 ? null : base.get(Table.AIRCRAFT) + aircraftId + 1);
+            }
+        }
+        sink.end();
+    }
+
+    // Normalised cumulative demand over the season: summer and year-end peaks, busier Fridays and Sundays
+    private double[] seasonCdf() {
+        double[] cdf = new double[seasonDays];
+        double total = 0;
+        for (int d = 0; d < seasonDays; d++) {
+            LocalDate date = config.from.plusDays(d);
+            double weight = 1 + 0.4 * Math.cos(2 * Math.PI * (date.getDayOfYear() - 205) / 365.0);
+            if ((date.getMonthValue() == 12 && date.getDayOfMonth() >= 18) || (date.getMonthValue() == 1 && date.getDayOfMonth() <= 4)) {
+                weight += 0.5;
+            }
+            DayOfWeek dow = date.getDayOfWeek();
+            if (dow == DayOfWeek.FRIDAY || dow == DayOfWeek.SUNDAY) {
+                weight *= 1.2;
+            } else if (dow == DayOfWeek.TUESDAY || dow == DayOfWeek.WEDNESDAY) {
+                weight *= 0.85;
+            }
+            total += weight;
+            cdf[d] = total;
+        }
+        for (int d = 0; d < seasonDays; d++) {
+            cdf[d] /= total;
+        }
+        return cdf;
+    }
+
+    /*
+     * Each booking picks a schedule by route popularity, then one of its flights (already
+     * denser in the peaks), then a customer by Zipf, so a minority of frequent flyers hold
+     * many bookings. Bookings are made 0..330 days ahead, mostly in the last weeks.
+     */
+    private void bookings(Sink sink) throws SQLException, IOException {
+        SplittableRandom rnd = random(Table.BOOKING);
+        int n = config.schedules;
+        bookingCdf = new double[n];
+        double total = 0;
+        for (int s = 0; s < n; s++) {
+            total += flightCount[s] > 0 ? scheduleWeight[s] : 0;
+            bookingCdf[s] = total;
+        }
+        if (total == 0) {
+            return; // No flights to book
+        }
+        for (int s = 0; s < n; s++) {
+            bookingCdf[s] /= total;
+        }
+
+        sink.begin(Table.BOOKING);
+        for (long b = 1; b <= config.bookings; b++) {
+            int s = lowerBound(bookingCdf, rnd.nextDouble());
+            int flight = firstFlight[s] + rnd.nextInt(flightCount[s]);
+            int lead = (int) Math.min(330, -Math.log(1 - rnd.nextDouble()) * 35);
+            LocalDateTime bookedAt = config.from.plusDays(flightDay[flight] - lead)
+                    .atTime(6 + rnd.nextInt(18), rnd.nextInt(60), rnd.nextInt(60));
+            int roll = rnd.nextInt(100);
+            sink.row(base.get(Table.BOOKING) + b,
+                    roll < 75 ? 1 : roll < 90 ? 0 : 2, // Confirmed, Pending, Cancelled
+                    customerId(zipf(rnd, config.customers, CUSTOMER_ZIPF) + 1),
+                    base.get(Table.FLIGHT) + flight + 1,
+                    base.get(Table.GENERAL_FLIGHT) + s + 1,
+                    Timestamp.valueOf(bookedAt));
+        }
+        sink.end();
+    }
+
+    // seats_booked from the active bookings; NumberSeats is raised where the draw overbooked a schedule
+    String seatsSql() {
+        return "UPDATE GeneralFlight gf JOIN (SELECT GeneralFlightID, COUNT(*) AS active FROM Booking " +
+               "WHERE state <> 2 AND GeneralFlightID > " + base.get(Table.GENERAL_FLIGHT) + " GROUP BY GeneralFlightID) b " +
+               "ON b.GeneralFlightID = gf.GeneralFlightID " +
+               "SET gf.NumberSeats = GREATEST(gf.NumberSeats, b.active), gf.seats_booked = b.active";
+    }
+
+    // Zipf-like rank in [0, n): continuous power-law inversion, exact enough for skew and O(1)
+    static int zipf(SplittableRandom rnd, int n, double exponent) {
+        double u = rnd.nextDouble();
+        double x;
+        if (Math.abs(exponent - 1) < 1e-9) {
+            x = Math.pow(n + 1, u);
+        } else {
+            double a = 1 - exponent;
+            x = Math.pow(1 + u * (Math.pow(n + 1, a) - 1), 1 / a);
+        }
+        return Math.min(n - 1, Math.max(0, (int) x - 1));
+    }
+
+    private static double gaussian(SplittableRandom rnd) {
+        // Box-Muller, so the stream only depends on SplittableRandom
+        return Math.sqrt(-2 * Math.log(1 - rnd.nextDouble())) * Math.cos(2 * Math.PI * rnd.nextDouble());
+    }
+
+    // First index whose cumulative value is >= target
+    private static int lowerBound(double[] cdf, double target) {
+        int lo = 0, hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static String uniqueName(SplittableRandom rnd, Set<String> used, String suffix) {
+        while (true) {
+            int syllables = 2 + rnd.nextInt(2);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < syllables; i++) {
+                sb.append(SYLLABLES[rnd.nextInt(SYLLABLES.length)]);
+            }
+            sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+            String name = sb + suffix;
+            if (used.size() > 20_000) {
+                name = name + " " + (used.size() + 1); // Short names exhausted
+            }
+            if (used.add(name)) {
+                return name;
+            }
+        }
+    }
+
+    /** Destination of the generated rows, one table at a time. */
+    interface Sink {
+        void begin(Table table) throws SQLException, IOException;
+        void row(Object... values) throws SQLException, IOException;
+        void end() throws SQLException, IOException;
+        void close() throws SQLException, IOException;
+    }
+
+    /*
+     * Batched INSERTs (rewriteBatchedStatements turns each batch into multi-row statements)
+     * with a commit every ten batches. Foreign key and unique checks are off for the session
+     * while loading: the generator only produces consistent rows.
+     */
+    static final class JdbcSink implements Sink {
+        private final Connection conn;
+        private final int batchSize;
+        private PreparedStatement pstmt;
+        private Table table;
+        private long rows;
+        private long started;
+
+        JdbcSink(Connection conn, int batchSize) throws SQLException {
+            this.conn = conn;
+            this.batchSize = batchSize;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET foreign_key_checks = 0, unique_checks = 0, @app_manages_seats = 1");
+            }
+            conn.setAutoCommit(false);
+        }
+
+        @Override
+        public void begin(Table table) throws SQLException {
+            this.table = table;
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table.name).append(" (")
+                    .append(String.join(", ", table.columns)).append(") VALUES (");
+            for (int i = 0; i < table.columns.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            pstmt = conn.prepareStatement(sql.append(')').toString());
+            rows = 0;
+            started = System.nanoTime();
+        }
+
+        @Override
+        public void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                pstmt.setObject(i + 1, values[i]);
+            }
+            pstmt.addBatch();
+            if (++rows % batchSize == 0) {
+                pstmt.executeBatch();
+                if (rows % (batchSize * 10L) == 0) {
+                    conn.commit();
+                }
+                if (rows % 1_000_000 == 0) {
+                    progress(table, rows, started, false);
+                }
+            }
+        }
+
+        @Override
+        public void end() throws SQLException {
+            pstmt.executeBatch();
+            conn.commit();
+            pstmt.close();
+            pstmt = null;
+            progress(table, rows, started, true);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+                conn.rollback(); // Anything not yet committed after a failure
+            } finally {
+                conn.setAutoCommit(true);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET foreign_key_checks = 1, unique_checks = 1, @app_manages_seats = "
+                            + (DatabaseConnection.isAppManagedSeats() ? "1" : "NULL"));
+                }
+            }
+        }
+    }
+
+    /*
+     * One CSV file per table in MySQL's LOAD DATA format (\N for NULL), plus load.sql and
+     * finish.sql to load them from the mysql client on another machine.
+     */
+    static final class CsvSink implements Sink {
+        private final File dir;
+        private final Map<Table, File> files = new LinkedHashMap<>();
+        private Writer out;
+        private Table table;
+        private long rows;
+        private long started;
+
+        CsvSink(File dir) throws IOException {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            this.dir = dir;
+        }
+
+        @Override
+        public void begin(Table table) throws IOException {
+            this.table = table;
+            File file = new File(dir, table.name + ".csv");
+            files.put(table, file);
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+            rows = 0;
+            started = System.nanoTime();
+        }
+
+        @Override
+        public void row(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object v = values[i];
+                if (v == null) {
+                    out.write("\\N");
+                } else if (v instanceof String) {
+                    String s = (String) v;
+                    if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\\') >= 0) {
+                        out.write('"');
+                        out.write(s.replace("\\", "\\\\").replace("\"", "\"\""));
+                        out.write('"');
+                    } else {
+                        out.write(s);
+                    }
+                } else if (v instanceof Timestamp) {
+                    String ts = v.toString(); // yyyy-mm-dd hh:mm:ss.f
+                    out.write(ts, 0, ts.indexOf('.') > 0 ? ts.indexOf('.') : ts.length());
+                } else {
+                    out.write(v.toString());
+                }
+            }
+            out.write('\n');
+            if (++rows % 1_000_000 == 0) {
+                progress(table, rows, started, false);
+            }
+        }
+
+        @Override
+        public void end() throws IOException {
+            out.close();
+            out = null;
+            progress(table, rows, started, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+            if (!files.isEmpty()) {
+                try (Writer script = new OutputStreamWriter(new FileOutputStream(new File(dir, "load.sql")), StandardCharsets.UTF_8)) {
+                    script.write("SET foreign_key_checks = 0, unique_checks = 0, @app_manages_seats = 1;\n");
+                    for (Table t : files.keySet()) {
+                        script.write(loadStatement(t) + ";\n");
+                    }
+                    script.write("SET foreign_key_checks = 1, unique_checks = 1;\n");
+                }
+            }
+        }
+
+        void writeFinishScript(String seatsSql) throws IOException {
+            try (Writer script = new OutputStreamWriter(new FileOutputStream(new File(dir, "finish.sql")), StandardCharsets.UTF_8)) {
+                script.write(seatsSql + ";\n");
+                script.write("ANALYZE TABLE City, Airport, Airline, Aircraft, Customer, GeneralFlight, Flight, Booking;\n");
+            }
+        }
+
+        private String loadStatement(Table t) {
+            String path = files.get(t).getAbsolutePath().replace("\\", "\\\\").replace("'", "\\'");
+            return "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + t.name + " CHARACTER SET utf8mb4 " +
+                   "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' LINES TERMINATED BY '\\n' (" +
+                   String.join(", ", t.columns) + ")";
+        }
+
+        // Runs load.sql's statements on the application's connection
+        void load(Connection conn) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET foreign_key_checks = 0, unique_checks = 0, @app_manages_seats = 1");
+                try {
+                    for (Table t : files.keySet()) {
+                        long t0 = System.nanoTime();
+                        long loaded = stmt.executeLargeUpdate(loadStatement(t));
+                        System.out.printf("  loaded %-14s %,12d rows in %.1f s%n", t.name, loaded, (System.nanoTime() - t0) / 1e9);
+                    }
+                } finally {
+                    stmt.execute("SET foreign_key_checks = 1, unique_checks = 1, @app_manages_seats = "
+                            + (DatabaseConnection.isAppManagedSeats() ? "1" : "NULL"));
+                }
+            }
+        }
+    }
+
+    private static void progress(Table table, long rows, long startedNanos, boolean done) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        System.out.printf("  %s %-14s %,12d rows  %,10.0f rows/s%n", done ? "wrote" : "  ...", table.name, rows,
+                rows / Math.max(seconds, 1e-3));
+    }
+}
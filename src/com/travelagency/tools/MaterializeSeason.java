@@ -0,0 +1,84 @@
+package com.travelagency.tools;
+
+import com.travelagency.dao.GeneralFlightDAO;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.GeneralFlight;
+import com.travelagency.service.ScheduleMaterializer;
+import com.travelagency.service.ScheduleMaterializer.AircraftPolicy;
+import com.travelagency.service.ScheduleMaterializer.Recurrence;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the operational flights of a season for every GeneralFlight schedule.
+ * <p>
+ * Usage: {@code MaterializeSeason <from> <to> [days] [aircraftIds]}, dates as yyyy-MM-dd.
+ * {@code days} is {@code daily} (default) or a comma list such as {@code MON,WED,FRI};
+ * {@code aircraftIds} is a comma list rotated across the flights (default: none assigned).
+ * Dates that already have a flight are skipped, so the command can be run again.
+ */
+public class MaterializeSeason {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: MaterializeSeason <from> <to> [daily|MON,TUE,...] [aircraftId,...]");
+            System.exit(2);
+        }
+        LocalDate from = LocalDate.parse(args[0]);
+        LocalDate to = LocalDate.parse(args[1]);
+        Recurrence recurrence = args.length > 2 && !args[2].equalsIgnoreCase("daily")
+                ? Recurrence.weekly(from, to, parseDays(args[2]))
+                : Recurrence.daily(from, to);
+        AircraftPolicy aircraft = AircraftPolicy.none();
+        if (args.length > 3) {
+            List<Integer> fleet = new ArrayList<>();
+            for (String id : args[3].split(",")) {
+                fleet.add(Integer.parseInt(id.trim()));
+            }
+            aircraft = AircraftPolicy.rotate(fleet);
+        }
+
+        try {
+            List<GeneralFlight> schedules = new GeneralFlightDAO().getAllGeneralFlights();
+            System.out.println("Materializing " + recurrence + " for " + schedules.size() + " schedule(s)...");
+            long t0 = System.nanoTime();
+            ScheduleMaterializer.Report report = new ScheduleMaterializer().materializeAll(schedules, recurrence, aircraft);
+            System.out.printf("%s in %.1f s%n", report, (System.nanoTime() - t0) / 1e9);
+            for (Map.Entry<Integer, SQLException> failure : report.getFailures().entrySet()) {
+                System.err.println("  GeneralFlightID " + failure.getKey() + ": " + failure.getValue().getMessage());
+            }
+            if (!report.getFailures().isEmpty()) {
+                System.exit(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    private static DayOfWeek[] parseDays(String list) {
+        String[] parts = list.split(",");
+        DayOfWeek[] days = new DayOfWeek[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String p = parts[i].trim().toUpperCase();
+            DayOfWeek match = null;
+            for (DayOfWeek d : DayOfWeek.values()) {
+                if (d.name().startsWith(p) && p.length() >= 2) {
+                    match = d;
+                }
+            }
+            if (match == null) {
+                throw new IllegalArgumentException("Unknown day: " + parts[i]);
+            }
+            days[i] = match;
+        }
+        return days;
+    }
+}
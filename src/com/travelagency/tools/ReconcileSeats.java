@@ -0,0 +1,30 @@
+package com.travelagency.tools;
+
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.service.SeatInventory;
+
+import java.sql.SQLException;
+
+/**
+ * Recomputes {@code GeneralFlight.seats_booked} from the active bookings of each schedule
+ * ({@link SeatInventory#reconcile()}), after counts were changed outside the application,
+ * e.g. by a manual edit or an import. Safe to run while clients are booking.
+ * <p>
+ * Usage: {@code ReconcileSeats} (no arguments).
+ */
+public class ReconcileSeats {
+
+    public static void main(String[] args) {
+        try {
+            long t0 = System.nanoTime();
+            int corrected = SeatInventory.getInstance().reconcile();
+            System.out.printf("Seat counts corrected on %d flight schedule(s) in %.1f s%n",
+                    corrected, (System.nanoTime() - t0) / 1e9);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+}
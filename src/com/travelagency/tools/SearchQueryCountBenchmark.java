@@ -0,0 +1,58 @@
+package com.travelagency.tools;
+
+import com.travelagency.dao.FlightDAO;
+import com.travelagency.db.ConnectionPool;
+import com.travelagency.db.DatabaseConnection;
+import com.travelagency.model.dto.OperationalFlightSearchResult;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Runs the city-and-period operational flight search over growing date windows and
+ * prints how many statements each run sent to the database. The joined search must
+ * stay at one round-trip no matter how many rows come back.
+ * <p>
+ * Usage: {@code SearchQueryCountBenchmark [city] [startDate] [maxDays]}
+ * (defaults: Algiers, 2024-08-01, 365). Exits with status 1 if any run needs more
+ * than one round-trip.
+ */
+public class SearchQueryCountBenchmark {
+
+    public static void main(String[] args) {
+        String city = args.length > 0 ? args[0] : "Algiers";
+        LocalDate start = args.length > 1 ? LocalDate.parse(args[1]) : LocalDate.of(2024, 8, 1);
+        int maxDays = args.length > 2 ? Integer.parseInt(args[2]) : 365;
+
+        FlightDAO flightDAO = new FlightDAO();
+        ConnectionPool pool = DatabaseConnection.getPool();
+        boolean constant = true;
+        System.out.printf("%-8s %-8s %-12s %-10s%n", "Days", "Rows", "Round-trips", "Millis");
+        try {
+            for (int days = 1; days <= maxDays; days *= 2) {
+                Date from = Date.valueOf(start);
+                Date to = Date.valueOf(start.plusDays(days - 1));
+                long before = pool.getStatementsExecuted();
+                long t0 = System.nanoTime();
+                List<OperationalFlightSearchResult> rows = flightDAO.searchFlightsFromCityInPeriod(city, from, to);
+                long millis = (System.nanoTime() - t0) / 1_000_000;
+                long roundTrips = pool.getStatementsExecuted() - before;
+                System.out.printf("%-8d %-8d %-12d %-10d%n", days, rows.size(), roundTrips, millis);
+                if (roundTrips != 1) {
+                    constant = false;
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            constant = false;
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.out.println(constant ? "Query count is constant (1 per search)." : "Query count is NOT constant!");
+        if (!constant) {
+            System.exit(1);
+        }
+    }
+}
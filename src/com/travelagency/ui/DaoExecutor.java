@@ -0,0 +1,203 @@
+package com.travelagency.ui;
+
+import com.travelagency.util.Threads;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import java.awt.FlowLayout;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs DAO calls for {@link MainAppFrame} off the Event Dispatch Thread and hands
+ * the results back on the EDT.
+ * <p>
+ * Work is submitted under a key (usually the action name). {@link #submit} lets the
+ * latest click win: a task still running for the same key is cancelled and its
+ * result discarded. {@link #submitOnce} ignores repeat clicks while a task for the
+ * key is running, which is what writes (add/update) need.
+ * The status panel shows how many tasks are running and can cancel them all.
+ */
+class DaoExecutor {
+
+    @FunctionalInterface
+    interface DaoTask<T> {
+        T call() throws SQLException;
+    }
+
+    private final ExecutorService executor = Threads.newPerTaskExecutor("dao-worker");
+    private final Map<String, Running<?>> running = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Consumer<String> messages; // Output area, called on the EDT
+
+    private final JProgressBar progressBar = new JProgressBar();
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JButton cancelButton = new JButton("Cancel");
+    private final JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+
+    DaoExecutor(Consumer<String> messages) {
+        this.messages = messages;
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+        cancelButton.addActionListener(e -> cancelAll());
+        statusPanel.add(progressBar);
+        statusPanel.add(statusLabel);
+        statusPanel.add(cancelButton);
+    }
+
+    JPanel getStatusPanel() {
+        return statusPanel;
+    }
+
+    /** Runs {@code task} in the background; a running task with the same key is cancelled. */
+    <T> void submit(String key, DaoTask<T> task, Consumer<T> onSuccess, Consumer<SQLException> onError) {
+        Running<?> previous = running.get(key);
+        if (previous != null) {
+            previous.cancel();
+        }
+        start(key, task, onSuccess, onError);
+    }
+
+    /** Runs {@code task} in the background unless a task with the same key is still running. */
+    <T> boolean submitOnce(String key, DaoTask<T> task, Consumer<T> onSuccess, Consumer<SQLException> onError) {
+        if (running.containsKey(key)) {
+            messages.accept("'" + key + "' is already running, please wait.");
+            return false;
+        }
+        start(key, task, onSuccess, onError);
+        return true;
+    }
+
+    void cancelAll() {
+        for (Running<?> r : running.values()) {
+            r.cancel();
+        }
+        messages.accept("Cancelled running database tasks.");
+    }
+
+    private <T> void start(String key, DaoTask<T> task, Consumer<T> onSuccess, Consumer<SQLException> onError) {
+        Running<T> handle = new Running<>(key, task, onSuccess, onError);
+        running.put(key, handle);
+        taskStarted();
+        try {
+            executor.execute(handle);
+        } catch (RejectedExecutionException e) {
+            handle.cancel(false); // Shutting down: done() still cleans up
+        }
+    }
+
+    private void taskStarted() {
+        int n = inFlight.incrementAndGet();
+        SwingUtilities.invokeLater(() -> updateStatus(n));
+    }
+
+    private void taskFinished() {
+        updateStatus(inFlight.decrementAndGet());
+    }
+
+    private void updateStatus(int n) {
+        n = inFlight.get(); // Latest value, updates may arrive out of order
+        progressBar.setVisible(n > 0);
+        cancelButton.setVisible(n > 0);
+        statusLabel.setText(n > 0 ? n + " database task(s) running..." : " ");
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // One submitted task. done() runs once however it ends (result, error, or cancelled
+    // before or while running), so the key and the in-flight count are always released.
+    private final class Running<T> extends FutureTask<T> {
+        final String key;
+        final Consumer<T> onSuccess;
+        final Consumer<SQLException> onError;
+        // JFR: click -> DAO call -> result shown; only filled in while a recording wants it
+        final UiActionEvent event = new UiActionEvent();
+        final long submitted = System.nanoTime();
+        volatile long workStarted, workEnded;
+        volatile boolean cancelled;
+
+        Running(String key, DaoTask<T> task, Consumer<T> onSuccess, Consumer<SQLException> onError) {
+            super(task::call);
+            this.key = key;
+            this.onSuccess = onSuccess;
+            this.onError = onError;
+            event.begin();
+        }
+
+        @Override
+        public void run() {
+            workStarted = System.nanoTime();
+            try {
+                super.run();
+            } finally {
+                workEnded = System.nanoTime();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            cancel(true); // JDBC calls may not react to the interrupt; the result is dropped anyway
+        }
+
+        @Override
+        protected void done() {
+            SwingUtilities.invokeLater(this::finish);
+        }
+
+        private void finish() {
+            long displayStarted = System.nanoTime();
+            running.remove(key, this);
+            taskFinished();
+            String outcome;
+            if (cancelled || isCancelled()) {
+                outcome = "cancelled"; // Superseded or cancelled: drop the result
+            } else {
+                T result = null;
+                Throwable error = null;
+                try {
+                    result = get();
+                } catch (ExecutionException e) {
+                    error = e.getCause();
+                } catch (InterruptedException | CancellationException e) {
+                    error = e; // Not expected: done() has run
+                }
+                if (error instanceof SQLException) {
+                    outcome = "error";
+                    onError.accept((SQLException) error);
+                } else if (error != null) {
+                    outcome = "error";
+                    messages.accept("Unexpected error during '" + key + "': " + error);
+                    error.printStackTrace();
+                } else {
+                    outcome = "ok";
+                    onSuccess.accept(result);
+                }
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                int at = key.indexOf('@'); // Combo box loads are keyed "load x@<box id>"
+                long started = workStarted == 0 ? displayStarted : workStarted; // 0: cancelled before it started
+                event.action = at < 0 ? key : key.substring(0, at);
+                event.outcome = outcome;
+                event.queueTime = started - submitted;
+                event.workTime = workStarted == 0 ? 0 : Math.max(0, workEnded - workStarted);
+                event.displayTime = System.nanoTime() - displayStarted;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.travelagency.ui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for one AWT event whose dispatch held the Event Dispatch Thread longer than
+ * a frame (16 ms), recorded by {@link EdtStallMonitor}. A JFR recording with method
+ * sampling shows what the EDT was doing during the event's time span.
+ */
+@Name("com.travelagency.EdtStall")
+@Label("EDT Stall")
+@Category({"Travel Agency", "UI"})
+@Description("An AWT event that kept the Event Dispatch Thread busy for more than a frame")
+@StackTrace(false) // Committed after the dispatch, the stack would only show the monitor
+@Threshold("16 ms")
+final class EdtStallEvent extends Event {
+
+    @Label("Event")
+    @Description("Class of the AWT event, e.g. ActionEvent")
+    String eventType;
+
+    @Label("Source")
+    @Description("Class of the component or object the event was sent to")
+    String source;
+}
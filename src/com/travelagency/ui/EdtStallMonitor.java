@@ -0,0 +1,75 @@
+package com.travelagency.ui;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every event the Event Dispatch Thread dispatches and reports those that take
+ * longer than {@code travelagency.ui.stallMs} (default 16 ms, one frame at 60 Hz): as an
+ * {@link EdtStallEvent} in JFR, and on stderr at most once a second. An event that
+ * opens a modal dialog pumps further events until the dialog closes; it is not
+ * counted, the events it pumped are.
+ */
+final class EdtStallMonitor extends EventQueue {
+
+    private static final long STALL_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("travelagency.ui.stallMs", 16L));
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static EdtStallMonitor installed; // Guarded by EdtStallMonitor.class
+
+    // Touched on the EDT only
+    private long dispatched;
+    private long lastLogNanos;
+    private int unlogged;            // Stalls since the last line logged
+    private long worstUnloggedNanos;
+
+    private EdtStallMonitor() {
+        lastLogNanos = System.nanoTime() - LOG_INTERVAL_NANOS;
+    }
+
+    /** Puts the monitor in front of the system event queue, once per JVM. */
+    static synchronized void install() {
+        if (installed == null) {
+            installed = new EdtStallMonitor();
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(installed);
+        }
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long ordinal = ++dispatched;
+        EdtStallEvent jfr = new EdtStallEvent();
+        jfr.begin();
+        long start = System.nanoTime();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            jfr.end();
+            if (elapsed > STALL_NANOS && dispatched == ordinal) { // Nothing dispatched inside: not a modal loop
+                stalled(event, jfr, elapsed);
+            }
+        }
+    }
+
+    private void stalled(AWTEvent event, EdtStallEvent jfr, long elapsed) {
+        if (jfr.shouldCommit()) {
+            jfr.eventType = event.getClass().getSimpleName();
+            jfr.source = event.getSource() == null ? null : event.getSource().getClass().getName();
+            jfr.commit();
+        }
+        unlogged++;
+        worstUnloggedNanos = Math.max(worstUnloggedNanos, elapsed);
+        long now = System.nanoTime();
+        if (now - lastLogNanos >= LOG_INTERVAL_NANOS) {
+            System.err.printf("EDT stall: %s on %s took %d ms (%d stall(s) since the last report, worst %d ms)%n",
+                    event.getClass().getSimpleName(), event.getSource() == null ? "-" : event.getSource().getClass().getSimpleName(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), unlogged, TimeUnit.NANOSECONDS.toMillis(worstUnloggedNanos));
+            lastLogNanos = now;
+            unlogged = 0;
+            worstUnloggedNanos = 0;
+        }
+    }
+}
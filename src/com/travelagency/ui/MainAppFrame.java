@@ -20,6 +20,12 @@ import com.travelagency.model.City;
 import com.travelagency.model.Customer;
 import com.travelagency.model.Flight; // Renamed from FlightInstance to Flight
 import com.travelagency.model.GeneralFlight;
+import com.travelagency.model.dto.FlightSearchResult;
+import com.travelagency.model.dto.Itinerary;
+import com.travelagency.model.dto.OperationalFlightSearchResult;
+import com.travelagency.model.dto.Page;
+import com.travelagency.service.RoutePlanner;
+import com.travelagency.service.SeatHoldService;
 
 // Swing and AWT
 import javax.swing.*;
@@ -37,7 +43,10 @@ import java.sql.Date;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Vector;
+import java.util.function.Supplier;
 
 
 public class MainAppFrame extends JFrame {
@@ -55,13 +64,25 @@ public class MainAppFrame extends JFrame {
     // Common UI component for feedback
     private JTextArea outputArea;
 
-    // Formatters
+    // Runs every DAO call off the EDT; results are applied back on the EDT
+    private final DaoExecutor daoExecutor;
+
+    // Search tables and the flight combo boxes fetch rows a page at a time, keeping a few pages
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 8;
+    // Customer and flight pickers search as the agent types, showing the first matches
+    private static final int TYPE_AHEAD_DELAY_MS = 250;
+    private static final int TYPE_AHEAD_MATCHES = 50;
+
+    // Formatters (EDT only, SimpleDateFormat is not thread-safe)
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
     private final SimpleDateFormat timeFormatShort = new SimpleDateFormat("HH:mm");
     private final SimpleDateFormat timeFormatFull = new SimpleDateFormat("HH:mm:ss");
 
 
     public MainAppFrame() {
+        EdtStallMonitor.install(); // Reports events that hold the EDT longer than a frame
+
         // Initialize DAOs
         cityDAO = new CityDAO();
         airportDAO = new AirportDAO();
@@ -71,6 +92,7 @@ public class MainAppFrame extends JFrame {
         generalFlightDAO = new GeneralFlightDAO();
         flightDAO = new FlightDAO();
         bookingDAO = new BookingDAO();
+        daoExecutor = new DaoExecutor(this::oa);
 
         // Set lenient to false for strict date/time parsing
         dateFormat.setLenient(false);
@@ -85,24 +107,24 @@ public class MainAppFrame extends JFrame {
 
         JTabbedPane tabbedPane = new JTabbedPane();
 
-        // --- Create and Add Panels for each functionality ---
-        tabbedPane.addTab("1a. Add City", createAddCityPanel());
-        tabbedPane.addTab("1b. Add Airport", createAddAirportPanel());
-        tabbedPane.addTab("1c. Add Airline", createAddAirlinePanel());
-        tabbedPane.addTab("1d. Add Aircraft", createAddAircraftPanel());
-        tabbedPane.addTab("1e. Add Customer", createAddCustomerPanel());
-        tabbedPane.addTab("1f. Add Gen. Flight", createAddGeneralFlightPanel());
-        tabbedPane.addTab("1g. Add Op. Flight", createAddFlightInstancePanel());
-        tabbedPane.addTab("1h. Add Booking", createAddBookingPanel());
-
-        tabbedPane.addTab("2. Search Flights (Cities)", createSearchFlightsByCitiesPanel());
-        tabbedPane.addTab("3. Search Flights (Period)", createSearchFlightsByCityAndPeriodPanel());
-        tabbedPane.addTab("4. Retrieve Booking (SP)", createRetrieveBookingDetailsPanel());
-        tabbedPane.addTab("5. Flight Customers", createFlightCustomersPanel());
-        tabbedPane.addTab("6. Airlines in City", createAirlinesInCityPanel());
-
-        tabbedPane.addTab("7. Update Booking", createUpdateBookingPanel());
-        tabbedPane.addTab("8. Update Op. Flight", createUpdateFlightInstancePanel());
+        // --- Add a tab for each functionality; its panel is built when the tab is first shown ---
+        addLazyTab(tabbedPane, "1a. Add City", this::createAddCityPanel);
+        addLazyTab(tabbedPane, "1b. Add Airport", this::createAddAirportPanel);
+        addLazyTab(tabbedPane, "1c. Add Airline", this::createAddAirlinePanel);
+        addLazyTab(tabbedPane, "1d. Add Aircraft", this::createAddAircraftPanel);
+        addLazyTab(tabbedPane, "1e. Add Customer", this::createAddCustomerPanel);
+        addLazyTab(tabbedPane, "1f. Add Gen. Flight", this::createAddGeneralFlightPanel);
+        addLazyTab(tabbedPane, "1g. Add Op. Flight", this::createAddFlightInstancePanel);
+        addLazyTab(tabbedPane, "1h. Add Booking", this::createAddBookingPanel);
+
+        addLazyTab(tabbedPane, "2. Search Flights (Cities)", this::createSearchFlightsByCitiesPanel);
+        addLazyTab(tabbedPane, "3. Search Flights (Period)", this::createSearchFlightsByCityAndPeriodPanel);
+        addLazyTab(tabbedPane, "4. Retrieve Booking (SP)", this::createRetrieveBookingDetailsPanel);
+        addLazyTab(tabbedPane, "5. Flight Customers", this::createFlightCustomersPanel);
+        addLazyTab(tabbedPane, "6. Airlines in City", this::createAirlinesInCityPanel);
+
+        addLazyTab(tabbedPane, "7. Update Booking", this::createUpdateBookingPanel);
+        addLazyTab(tabbedPane, "8. Update Op. Flight", this::createUpdateFlightInstancePanel);
 
         add(tabbedPane, BorderLayout.CENTER);
 
@@ -113,7 +135,14 @@ public class MainAppFrame extends JFrame {
         outputArea.setWrapStyleWord(true);
         outputArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane scrollPaneOutput = new JScrollPane(outputArea);
-        add(scrollPaneOutput, BorderLayout.SOUTH);
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(scrollPaneOutput, BorderLayout.CENTER);
+        southPanel.add(daoExecutor.getStatusPanel(), BorderLayout.SOUTH);
+        add(southPanel, BorderLayout.SOUTH);
+
+        // Panels may write to the output area, so they are built once it exists
+        tabbedPane.addChangeListener(e -> buildSelectedTab(tabbedPane));
+        buildSelectedTab(tabbedPane);
 
         // Ensure DB connection is closed when window closes
         addWindowListener(new WindowAdapter() {
@@ -124,6 +153,8 @@ public class MainAppFrame extends JFrame {
                         JOptionPane.YES_NO_OPTION);
 
                 if (confirmed == JOptionPane.YES_OPTION) {
+                    daoExecutor.shutdown();
+                    SeatHoldService.getInstance().shutdown();
                     com.travelagency.db.DatabaseConnection.closeConnection();
                     System.out.println("Application closing.");
                     dispose(); // Close the frame
@@ -133,6 +164,29 @@ public class MainAppFrame extends JFrame {
         });
     }
 
+    // --- Lazily built tabs ---
+    // Each tab holds an empty container until first selected; its panel (and the DAO calls it starts) waits until then
+    private static final String PANEL_FACTORY = "travelagency.panelFactory";
+
+    private static void addLazyTab(JTabbedPane tabbedPane, String title, Supplier<JPanel> factory) {
+        JPanel holder = new JPanel(new BorderLayout());
+        holder.putClientProperty(PANEL_FACTORY, factory);
+        tabbedPane.addTab(title, holder);
+    }
+
+    private static void buildSelectedTab(JTabbedPane tabbedPane) {
+        if (!(tabbedPane.getSelectedComponent() instanceof JPanel)) {
+            return;
+        }
+        JPanel holder = (JPanel) tabbedPane.getSelectedComponent();
+        Object factory = holder.getClientProperty(PANEL_FACTORY);
+        if (factory instanceof Supplier) {
+            holder.putClientProperty(PANEL_FACTORY, null);
+            holder.add((JPanel) ((Supplier<?>) factory).get(), BorderLayout.CENTER);
+            holder.revalidate();
+        }
+    }
+
     // --- Helper method for GridBagConstraints ---
     private GridBagConstraints createGBC(int x, int y, int width, double weighty, int anchor, Insets insets, int fill) {
         GridBagConstraints gbc = new GridBagConstraints();
@@ -174,12 +228,12 @@ public class MainAppFrame extends JFrame {
                 return;
             }
             City newCity = new City(name);
-            try {
-                if (cityDAO.addCity(newCity)) {
+            daoExecutor.submitOnce("add city", () -> cityDAO.addCity(newCity), added -> {
+                if (added) {
                     oa("City '" + newCity.getCityName() + "' added with ID: " + newCity.getCityId());
                     cf(cityNameField);
                 } else { oa("Failed to add city."); }
-            } catch (SQLException ex) { hs("add city", ex); }
+            }, ex -> hs("add city", ex));
         });
         return panel;
     }
@@ -212,12 +266,12 @@ public class MainAppFrame extends JFrame {
             if (selectedCity == null || selectedCity.getCityId() == -1) { JO("Please select a valid city.","Input Error",JOptionPane.ERROR_MESSAGE); return; }
 
             Airport newAirport = new Airport(name, selectedCity.getCityId());
-            try {
-                if (airportDAO.addAirport(newAirport)) {
+            daoExecutor.submitOnce("add airport", () -> airportDAO.addAirport(newAirport), added -> {
+                if (added) {
                     oa("Airport '" + newAirport.getAirportName() + "' ID:" + newAirport.getAirportId() + " in " + selectedCity.getCityName());
                     cf(airportNameField); cityComboBox.setSelectedIndex(0); // Assuming first item is valid or a placeholder
                 } else { oa("Failed to add airport."); }
-            } catch (SQLException ex) { hs("add airport", ex); }
+            }, ex -> hs("add airport", ex));
         });
         return panel;
     }
@@ -236,12 +290,12 @@ public class MainAppFrame extends JFrame {
             String name = airlineNameField.getText().trim();
             if (name.isEmpty()){ JO("Airline name empty.","Input Error",JOptionPane.ERROR_MESSAGE); return; }
             Airline newAirline = new Airline(name);
-            try {
-                if (airlineDAO.addAirline(newAirline)) {
+            daoExecutor.submitOnce("add airline", () -> airlineDAO.addAirline(newAirline), added -> {
+                if (added) {
                     oa("Airline '" + newAirline.getAirlineName() + "' ID:" + newAirline.getAirlineId());
                     cf(airlineNameField);
                 } else { oa("Failed add airline."); }
-            } catch (SQLException ex) { hs("add airline", ex); }
+            }, ex -> hs("add airline", ex));
         });
         return panel;
     }
@@ -260,12 +314,12 @@ public class MainAppFrame extends JFrame {
             String name = aircraftNameField.getText().trim();
             if (name.isEmpty()){ JO("Aircraft name empty.","Input Error",JOptionPane.ERROR_MESSAGE); return; }
             Aircraft newAircraft = new Aircraft(name);
-            try {
-                if (aircraftDAO.addAircraft(newAircraft)) {
+            daoExecutor.submitOnce("add aircraft", () -> aircraftDAO.addAircraft(newAircraft), added -> {
+                if (added) {
                     oa("Aircraft '" + newAircraft.getAircraftName() + "' ID:" + newAircraft.getAircraftId());
                     cf(aircraftNameField);
                 } else { oa("Failed add aircraft."); }
-            } catch (SQLException ex) { hs("add aircraft", ex); }
+            }, ex -> hs("add aircraft", ex));
         });
         return panel;
     }
@@ -304,16 +358,16 @@ public class MainAppFrame extends JFrame {
                 JO("Cust ID, FName, LName, Email are required.","Input Error",JOptionPane.ERROR_MESSAGE); return;
             }
             Customer newCust = new Customer(custId, fName, lName, address, email, phone);
-            try {
-                if (customerDAO.addCustomer(newCust)) {
+            daoExecutor.submitOnce("add customer", () -> customerDAO.addCustomer(newCust), added -> {
+                if (added) {
                     oa("Customer '" + fName + " " + lName + "' ID:" + custId + " added.");
                     cf(customerIdField, firstNameField, lastNameField, addressField, emailField, phoneField);
                 } else { oa("Failed to add customer (no rows affected, check constraints).");}
-            } catch (SQLException ex) {
+            }, ex -> {
                 if (ex.getErrorCode() == 1062) { // MySQL duplicate entry
                     hs("add customer - Duplicate ID or Email", ex);
                 } else { hs("add customer", ex); }
-            }
+            });
         });
         return panel;
     }
@@ -386,13 +440,13 @@ public class MainAppFrame extends JFrame {
             }
 
             GeneralFlight newGf = new GeneralFlight(takeoffTime, arrivalTime, fDay, depAirport.getAirportId(), arrAirport.getAirportId(), airline.getAirlineId(), numSeats);
-            try {
-                if (generalFlightDAO.addGeneralFlight(newGf)) {
+            daoExecutor.submitOnce("add General Flight", () -> generalFlightDAO.addGeneralFlight(newGf), added -> {
+                if (added) {
                     oa("General Flight Schedule ID: " + newGf.getGeneralFlightId() + " added.");
                     cf(fDayField, takeoffTimeField, arrivalTimeField, seatsField);
                     depAirportComboBox.setSelectedIndex(0); arrAirportComboBox.setSelectedIndex(0); airlineComboBox.setSelectedIndex(0);
                 } else { oa("Failed to add General Flight Schedule."); }
-            } catch (SQLException ex) { hs("add General Flight", ex); }
+            }, ex -> hs("add General Flight", ex));
         });
         return p;
     }
@@ -467,8 +521,8 @@ public class MainAppFrame extends JFrame {
             int state = Integer.parseInt(selectedStateStr.substring(0, selectedStateStr.indexOf(" ")));
 
             Flight newFlight = new Flight(takeOffDate, arrivalDate, state, generalFlightId, aircraftId);
-            try {
-                if (flightDAO.addFlight(newFlight)) {
+            daoExecutor.submitOnce("add Operational Flight", () -> flightDAO.addFlight(newFlight), added -> {
+                if (added) {
                     oa("Operational Flight ID: " + newFlight.getFlightId() + " for GFID: " + generalFlightId + " added.");
                     cf(takeOffDateField, arrivalDateField);
                     generalFlightComboBox.setSelectedIndex(0); // Assuming first is a valid or placeholder
@@ -477,9 +531,7 @@ public class MainAppFrame extends JFrame {
                 } else {
                     oa("Failed to add Operational Flight.");
                 }
-            } catch (SQLException ex) {
-                hs("add Operational Flight", ex);
-            }
+            }, ex -> hs("add Operational Flight", ex));
         });
         return panel;
     }
@@ -489,7 +541,9 @@ public class MainAppFrame extends JFrame {
         Insets defaultInsets = new Insets(3, 5, 3, 5);
 
         JComboBox<Customer> customerComboBox = new JComboBox<>();
+        JTextField customerSearchField = new JTextField(12);
         JComboBox<FlightDisplayWrapper> operationalFlightComboBox = new JComboBox<>(); // For bookable flights
+        JTextField flightSearchField = new JTextField(12);
         String[] bookingStates = {"0 - Pending", "1 - Confirmed"}; // Usually new bookings are pending or confirmed
         JComboBox<String> stateComboBox = new JComboBox<>(bookingStates);
         JButton addButton = new JButton("Add Booking");
@@ -497,10 +551,12 @@ public class MainAppFrame extends JFrame {
 
         int y = 0;
         panel.add(new JLabel("Select Customer:"), createLabelGBC(0, y));
-        panel.add(customerComboBox, createGBC(1, y++, 2, 0.0, GridBagConstraints.WEST, null, GridBagConstraints.HORIZONTAL));
+        panel.add(searchPicker(customerSearchField, customerComboBox, "Last name or customer ID"),
+                createGBC(1, y++, 2, 0.0, GridBagConstraints.WEST, null, GridBagConstraints.HORIZONTAL));
 
         panel.add(new JLabel("Select Operational Flight:"), createLabelGBC(0, y));
-        panel.add(operationalFlightComboBox, createGBC(1, y++, 2, 0.0, GridBagConstraints.WEST, null, GridBagConstraints.HORIZONTAL));
+        panel.add(searchPicker(flightSearchField, operationalFlightComboBox, "City, airport or flight ID"),
+                createGBC(1, y++, 2, 0.0, GridBagConstraints.WEST, null, GridBagConstraints.HORIZONTAL));
 
         panel.add(new JLabel("Booking State:"), createLabelGBC(0, y));
         panel.add(stateComboBox, createGBC(1, y++, 2, 0.0, GridBagConstraints.WEST, null, GridBagConstraints.HORIZONTAL));
@@ -510,13 +566,17 @@ public class MainAppFrame extends JFrame {
         buttonPanel.add(addButton);
         panel.add(buttonPanel, createGBC(0, y, 3, 0.0, GridBagConstraints.CENTER, null, GridBagConstraints.NONE));
 
-        // Populate ComboBoxes
-        populateCustomerComboBox(customerComboBox);
-        populateOperationalFlightComboBox(operationalFlightComboBox); // This helper needs to filter for bookable flights
+        // Populate ComboBoxes: the first matches only, narrowed as the agent types
+        TypeAhead customerSearch = new TypeAhead(customerSearchField, TYPE_AHEAD_DELAY_MS,
+                text -> populateCustomerComboBox(customerComboBox, text));
+        TypeAhead flightSearch = new TypeAhead(flightSearchField, TYPE_AHEAD_DELAY_MS,
+                text -> populateOperationalFlightComboBox(operationalFlightComboBox, text)); // Bookable flights only
+        customerSearch.refresh();
+        flightSearch.refresh();
 
         refreshListsButton.addActionListener(e -> {
-            populateCustomerComboBox(customerComboBox);
-            populateOperationalFlightComboBox(operationalFlightComboBox);
+            customerSearch.refresh();
+            flightSearch.refresh();
             oa("Customer and Operational Flight lists refreshed.");
         });
 
@@ -542,22 +602,26 @@ public class MainAppFrame extends JFrame {
             Booking newBooking = new Booking(state, customerId, flightId, generalFlightId);
             newBooking.setBookingDate(bookingDate); // Set explicitly if your constructor doesn't
 
-            try {
-                if (bookingDAO.addBooking(newBooking)) {
+            // A pending booking holds its seat for a limited time (see SeatHoldService)
+            daoExecutor.submitOnce("add booking", () -> state == 0 ? SeatHoldService.getInstance().hold(newBooking)
+                                                                   : bookingDAO.addBooking(newBooking), added -> {
+                if (added) {
                     oa("Booking successful! Booking Number: " + newBooking.getBookingNumber() +
                        " for Customer: " + customerId + " on Flight ID: " + flightId);
+                    if (newBooking.getHoldExpiresAt() != null) {
+                        oa("Seat held until " + newBooking.getHoldExpiresAt() + "; the booking is cancelled if not confirmed by then.");
+                    }
                     // Clear selections or reset to default
-                    customerComboBox.setSelectedIndex(0);
-                    operationalFlightComboBox.setSelectedIndex(0); // This might not be ideal if list is long
+                    if (customerComboBox.getItemCount() > 0) customerComboBox.setSelectedIndex(0);
                     stateComboBox.setSelectedIndex(0);
                     // IMPORTANT: Refresh the operational flight combo box as seat availability might have changed
-                    populateOperationalFlightComboBox(operationalFlightComboBox);
+                    flightSearch.refresh();
                 } else {
                     // This 'else' might not be hit if addBooking throws exception for constraint violation
                     // or if the trigger signals an error that is caught as SQLException
                     oa("Failed to add booking (no rows affected).");
                 }
-            } catch (SQLException ex) {
+            }, ex -> {
                 // Check if the error is from our "No available seats" trigger
                 if (ex.getErrorCode() == 1644 && ex.getMessage() != null &&
                     ex.getMessage().toLowerCase().contains("no available seats")) {
@@ -567,8 +631,8 @@ public class MainAppFrame extends JFrame {
                     hs("add booking", ex); // General SQL error
                 }
                 // Refresh flight list even on error, as an attempt was made
-                populateOperationalFlightComboBox(operationalFlightComboBox);
-            }
+                flightSearch.refresh();
+            });
         });
         return panel;
     }
@@ -581,22 +645,30 @@ public class MainAppFrame extends JFrame {
         JTextField departureCityField = new JTextField(15);
         JTextField arrivalCityField = new JTextField(15);
         JButton searchButton = new JButton("Search Flight Schedules");
+        JButton connectionsButton = new JButton("Find Connections");
 
         inputPanel.add(new JLabel("Departure City:"));
         inputPanel.add(departureCityField);
         inputPanel.add(new JLabel("Arrival City:"));
         inputPanel.add(arrivalCityField);
         inputPanel.add(searchButton);
+        inputPanel.add(connectionsButton);
         panel.add(inputPanel, BorderLayout.NORTH);
 
         // --- Results Table (Center) ---
         String[] columnNames = {"GFID", "Airline", "Dep. Airport", "Arr. Airport", "Dep. Time", "Arr. Time", "Ref. Date", "Seats Avail."};
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table cells non-editable
+        PagedTableModel<FlightSearchResult> tableModel = new PagedTableModel<>(columnNames, (result, column) -> {
+            switch (column) {
+                case 0: return result.getGeneralFlightId();
+                case 1: return result.getAirlineName();
+                case 2: return result.getDepartureAirport();
+                case 3: return result.getArrivalAirport();
+                case 4: return shortTime(result.getTakeoffTime());
+                case 5: return shortTime(result.getArrivalTime());
+                case 6: return String.valueOf(result.getfDay()); // java.sql.Date prints as yyyy-MM-dd
+                default: return result.getSeatsLeft();
             }
-        };
+        }, daoExecutor, PAGE_SIZE, MAX_CACHED_PAGES, ex -> hs("searching flight schedules by cities", ex));
         JTable resultsTable = new JTable(tableModel);
         resultsTable.setFillsViewportHeight(true); // Table uses entire height of scroll pane
         resultsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // Allow only single row selection
@@ -612,56 +684,51 @@ public class MainAppFrame extends JFrame {
                 return;
             }
 
-            tableModel.setRowCount(0); // Clear previous results
             oa("Searching for flight schedules from " + depCity + " to " + arrCity + "...");
 
-            try {
-                // This method was in FlightDAO, but logically searches GeneralFlight schedules
-                // Let's assume it's `flightDAO.getFlightSchedulesByCities`
-                List<GeneralFlight> schedules = flightDAO.getFlightSchedulesByCities(depCity, arrCity);
+            // One joined query per page returns the display names; later pages load as the table scrolls
+            tableModel.load("search flight schedules",
+                    (pageSize, cursor) -> flightDAO.searchFlightSchedulesByCities(depCity, arrCity, pageSize, cursor),
+                    loaded -> oa(foundMessage(loaded, "schedule(s)", "No flight schedules found matching your criteria.")));
+        });
 
-                if (schedules.isEmpty()) {
-                    oa("No flight schedules found matching your criteria.");
-                } else {
-                    oa(schedules.size() + " schedule(s) found.");
-                    for (GeneralFlight gf : schedules) {
-                        // For display, we ideally want names, not just IDs.
-                        // This requires fetching related data or having a more complex DTO from the DAO.
-                        // For now, we'll try to fetch some names. This can be slow if done per row.
-                        // A better DAO method would return richer objects or use a JOIN.
-                        String airlineName = "AirlineID:" + gf.getAirlineId();
-                        String depAirportName = "AirportID:" + gf.getDepAirportId();
-                        String arrAirportName = "AirportID:" + gf.getArrAirportId();
-
-                        try {
-                            Airline airline = airlineDAO.getAirlineById(gf.getAirlineId());
-                            if (airline != null) airlineName = airline.getAirlineName();
-                        } catch (SQLException ex) { /* ignore, use ID */ }
-                        try {
-                            Airport depAp = airportDAO.getAirportById(gf.getDepAirportId());
-                            if (depAp != null) depAirportName = depAp.getAirportName();
-                        } catch (SQLException ex) { /* ignore, use ID */ }
-                        try {
-                            Airport arrAp = airportDAO.getAirportById(gf.getArrAirportId());
-                            if (arrAp != null) arrAirportName = arrAp.getAirportName();
-                        } catch (SQLException ex) { /* ignore, use ID */ }
+        // Connecting trips (up to 2 changes, 45 min minimum connection) from the in-memory schedule graph
+        connectionsButton.addActionListener(e -> {
+            String depCity = departureCityField.getText().trim();
+            String arrCity = arrivalCityField.getText().trim();
 
+            if (depCity.isEmpty() || arrCity.isEmpty()) {
+                JO("Both Departure and Arrival city names are required.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
 
-                        tableModel.addRow(new Object[]{
-                                gf.getGeneralFlightId(),
-                                airlineName,
-                                depAirportName,
-                                arrAirportName,
-                                timeFormatShort.format(gf.getTakeoffTime()), // Format time
-                                timeFormatShort.format(gf.getArrivalTime()), // Format time
-                                dateFormat.format(gf.getfDay()),     // Format date
-                                (gf.getNumberSeats() - gf.getSeatsBooked())
-                        });
+            daoExecutor.submit("find connections", () -> {
+                List<String> lines = new ArrayList<>();
+                int[] from = cityDAO.findCityIds(depCity);
+                int[] to = cityDAO.findCityIds(arrCity);
+                if (from.length == 0 || to.length == 0) {
+                    lines.add("No city matches '" + (from.length == 0 ? depCity : arrCity) + "'.");
+                    return lines;
+                }
+                List<Itinerary> itineraries = RoutePlanner.getInstance().plan(from, to, 0, 2, 45, 5);
+                lines.add(itineraries.isEmpty()
+                        ? "No connections found from " + depCity + " to " + arrCity + "."
+                        : itineraries.size() + " itinerary(ies) from " + depCity + " to " + arrCity + ":");
+                for (Itinerary itinerary : itineraries) {
+                    StringBuilder sb = new StringBuilder("  ").append(itinerary.getConnections() == 0 ? "Direct" : itinerary.getConnections() + " stop(s)");
+                    for (Itinerary.Leg leg : itinerary.getLegs()) {
+                        Airport dep = airportDAO.getAirportById(leg.getDepAirportId());
+                        Airport arr = airportDAO.getAirportById(leg.getArrAirportId());
+                        sb.append(" | GFID ").append(leg.getGeneralFlightId()).append(' ')
+                          .append(dep != null ? dep.getAirportName() : "AP" + leg.getDepAirportId()).append(' ')
+                          .append(Itinerary.clock(leg.getDepartureMinute())).append(" -> ")
+                          .append(arr != null ? arr.getAirportName() : "AP" + leg.getArrAirportId()).append(' ')
+                          .append(Itinerary.clock(leg.getArrivalMinute()));
                     }
+                    lines.add(sb.toString());
                 }
-            } catch (SQLException ex) {
-                hs("searching flight schedules by cities", ex);
-            }
+                return lines;
+            }, lines -> lines.forEach(this::oa), ex -> hs("finding connecting flights", ex));
         });
 
         return panel;
@@ -689,9 +756,19 @@ public class MainAppFrame extends JFrame {
 
         // --- Results Table (Center) ---
         String[] columnNames = {"Flight ID", "Airline", "Dep. City", "Arr. City", "Takeoff Date", "Arrival Date", "State", "Aircraft", "Seats Avail."};
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
+        PagedTableModel<OperationalFlightSearchResult> tableModel = new PagedTableModel<>(columnNames, (f, column) -> {
+            switch (column) {
+                case 0: return f.getFlightId();
+                case 1: return f.getAirlineName();
+                case 2: return f.getDepartureCity();
+                case 3: return f.getArrivalCity();
+                case 4: return String.valueOf(f.getTakeOffDate());
+                case 5: return String.valueOf(f.getArrivalDate());
+                case 6: return f.getStateString();
+                case 7: return f.getAircraftName() != null ? f.getAircraftName() : "N/A";
+                default: return f.getSeatsLeft();
+            }
+        }, daoExecutor, PAGE_SIZE, MAX_CACHED_PAGES, ex -> hs("searching operational flights by city/period", ex));
         JTable resultsTable = new JTable(tableModel);
         resultsTable.setFillsViewportHeight(true);
         resultsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -712,71 +789,12 @@ public class MainAppFrame extends JFrame {
                 return;
             }
 
-            tableModel.setRowCount(0);
             oa("Searching operational flights from " + depCity + " between " + dateFormat.format(startDate) + " and " + dateFormat.format(endDate) + "...");
 
-            try {
-                List<Flight> flights = flightDAO.getFlightsFromCityInPeriod(depCity, startDate, endDate);
-
-                if (flights.isEmpty()) {
-                    oa("No operational flights found matching your criteria.");
-                } else {
-                    oa(flights.size() + " operational flight(s) found.");
-                    for (Flight f : flights) {
-                        // Fetch related details for display (can be slow, better in DAO with JOINs)
-                        String airlineName = "GFID:" + f.getGeneralFlightId();
-                        String depCityName = "N/A";
-                        String arrCityName = "N/A";
-                        String aircraftNameStr = "N/A";
-                        int seatsAvailable = 0;
-
-                        try {
-                            GeneralFlight gf = generalFlightDAO.getGeneralFlightById(f.getGeneralFlightId());
-                            if (gf != null) {
-                                seatsAvailable = gf.getNumberSeats() - gf.getSeatsBooked();
-                                try {
-                                    Airline airline = airlineDAO.getAirlineById(gf.getAirlineId());
-                                    if (airline != null) airlineName = airline.getAirlineName();
-                                } catch (SQLException ignored) {}
-                                try {
-                                    Airport depAp = airportDAO.getAirportById(gf.getDepAirportId());
-                                    if (depAp != null) {
-                                        City city = cityDAO.getCityById(depAp.getCityId());
-                                        if (city != null) depCityName = city.getCityName();
-                                    }
-                                } catch (SQLException ignored) {}
-                                try {
-                                    Airport arrAp = airportDAO.getAirportById(gf.getArrAirportId());
-                                    if (arrAp != null) {
-                                        City city = cityDAO.getCityById(arrAp.getCityId());
-                                        if (city != null) arrCityName = city.getCityName();
-                                    }
-                                } catch (SQLException ignored) {}
-                            }
-                            if (f.getAircraftId() != null) {
-                                Aircraft aircraft = aircraftDAO.getAircraftById(f.getAircraftId());
-                                if (aircraft != null) aircraftNameStr = aircraft.getAircraftName();
-                            }
-                        } catch (SQLException ex) {
-                            oa("Error fetching details for flight ID " + f.getFlightId() + ": " + ex.getMessage());
-                        }
-
-                        tableModel.addRow(new Object[]{
-                                f.getFlightId(),
-                                airlineName,
-                                depCityName,
-                                arrCityName,
-                                dateFormat.format(f.getTakeOffDate()),
-                                dateFormat.format(f.getArrivalDate()),
-                                f.getStateString(), // Uses helper in Flight model
-                                aircraftNameStr,
-                                seatsAvailable
-                        });
-                    }
-                }
-            } catch (SQLException ex) {
-                hs("searching operational flights by city/period", ex);
-            }
+            // Joined query: one round-trip per page no matter how many flights match
+            tableModel.load("search operational flights",
+                    (pageSize, cursor) -> flightDAO.searchFlightsFromCityInPeriod(depCity, startDate, endDate, pageSize, cursor),
+                    loaded -> oa(foundMessage(loaded, "operational flight(s)", "No operational flights found matching your criteria.")));
         });
         return panel;
     }
@@ -819,9 +837,7 @@ public class MainAppFrame extends JFrame {
             detailsArea.setText(""); // Clear previous details
             oa("Retrieving details for Booking Number: " + bookingNumber + "...");
 
-            try {
-                BookingDetail detail = bookingDAO.retrieveBookingDetailsSP(bookingNumber);
-
+            daoExecutor.submit("retrieve booking details", () -> bookingDAO.retrieveBookingDetailsSP(bookingNumber), detail -> {
                 if (detail != null) {
                     oa("Booking details retrieved successfully.");
                     StringBuilder sb = new StringBuilder();
@@ -856,10 +872,10 @@ public class MainAppFrame extends JFrame {
                     oa("No booking found with Booking Number: " + bookingNumber);
                     JO("No booking found with Booking Number: " + bookingNumber, "Not Found", JOptionPane.INFORMATION_MESSAGE);
                 }
-            } catch (SQLException ex) {
+            }, ex -> {
                 hs("retrieving booking details via SP", ex);
                 detailsArea.setText("Error retrieving details: " + ex.getMessage());
-            }
+            });
         });
         return panel;
     }
@@ -870,17 +886,20 @@ public class MainAppFrame extends JFrame {
         // --- Input Panel (North) ---
         JPanel inputPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JComboBox<FlightDisplayWrapper> flightComboBox = new JComboBox<>(); // To select an operational flight
+        JTextField flightSearchField = new JTextField(12);
         JButton listCustomersButton = new JButton("List Customers");
         JButton refreshFlightsButton = new JButton("Refresh Flights List");
 
         inputPanel.add(new JLabel("Select Operational Flight:"));
-        inputPanel.add(flightComboBox);
+        inputPanel.add(searchPicker(flightSearchField, flightComboBox, "City, airport or flight ID"));
         inputPanel.add(refreshFlightsButton);
         inputPanel.add(listCustomersButton);
         panel.add(inputPanel, BorderLayout.NORTH);
 
         // Populate the flight combo box
-        populateOperationalFlightComboBox(flightComboBox);
+        TypeAhead flightSearch = new TypeAhead(flightSearchField, TYPE_AHEAD_DELAY_MS,
+                text -> populateOperationalFlightComboBox(flightComboBox, text));
+        flightSearch.refresh();
 
         // --- Results Table (Center) ---
         String[] columnNames = {"Customer ID", "First Name", "Last Name", "Email", "Phone Number"};
@@ -894,7 +913,7 @@ public class MainAppFrame extends JFrame {
 
         // --- Action Listeners ---
         refreshFlightsButton.addActionListener(e -> {
-            populateOperationalFlightComboBox(flightComboBox);
+            flightSearch.refresh();
             oa("Operational flights list refreshed.");
         });
 
@@ -910,26 +929,28 @@ public class MainAppFrame extends JFrame {
             tableModel.setRowCount(0); 
             oa("Listing customers for Flight ID: " + flightId + "...");
 
-            try {
+            daoExecutor.submit("list flight customers", () -> {
                 List<Customer> customers = customerDAO.getCustomersByFlight(flightId);
-
-                if (customers.isEmpty()) {
+                Object[][] rows = new Object[customers.size()][];
+                int i = 0;
+                for (Customer cust : customers) {
+                    rows[i++] = new Object[]{
+                            cust.getCustomerId(),
+                            cust.getFirstName(),
+                            cust.getLastName(),
+                            cust.getEmail(),
+                            cust.getPhoneNumber()
+                    };
+                }
+                return rows;
+            }, rows -> {
+                if (rows.length == 0) {
                     oa("No customers found for the selected flight.");
                 } else {
-                    oa(customers.size() + " customer(s) found.");
-                    for (Customer cust : customers) {
-                        tableModel.addRow(new Object[]{
-                                cust.getCustomerId(),
-                                cust.getFirstName(),
-                                cust.getLastName(),
-                                cust.getEmail(),
-                                cust.getPhoneNumber()
-                        });
-                    }
+                    oa(rows.length + " customer(s) found.");
+                    tableModel.setDataVector(rows, columnNames);
                 }
-            } catch (SQLException ex) {
-                hs("listing customers for flight", ex);
-            }
+            }, ex -> hs("listing customers for flight", ex));
         });
         return panel;
     }
@@ -968,9 +989,7 @@ public class MainAppFrame extends JFrame {
             tableModel.setRowCount(0);
             oa("Listing airlines operating in/from city: " + cityName + "...");
 
-            try {
-                List<Airline> airlines = airlineDAO.getAirlinesInCity(cityName);
-
+            daoExecutor.submit("list airlines in city", () -> airlineDAO.getAirlinesInCity(cityName), airlines -> {
                 if (airlines.isEmpty()) {
                     oa("No airlines found operating in/from city: " + cityName);
                 } else {
@@ -982,9 +1001,7 @@ public class MainAppFrame extends JFrame {
                         });
                     }
                 }
-            } catch (SQLException ex) {
-                hs("listing airlines in city", ex);
-            }
+            }, ex -> hs("listing airlines in city", ex));
         });
         return panel;
     }
@@ -1033,8 +1050,17 @@ public class MainAppFrame extends JFrame {
                 return;
             }
 
-            try {
-                Booking booking = bookingDAO.getBookingByNumber(bookingNumber);
+            // Booking and its schedule are loaded together in one background task
+            daoExecutor.submit("search booking for update", () -> {
+                Booking found = bookingDAO.getBookingByNumber(bookingNumber);
+                GeneralFlight schedule = null;
+                if (found != null) {
+                    // Optionally display current seat info for the GeneralFlight
+                    try { schedule = generalFlightDAO.getGeneralFlightById(found.getGeneralFlightId()); } catch (SQLException ignored) {}
+                }
+                return new BookingWithSchedule(found, schedule);
+            }, loaded -> {
+                Booking booking = loaded.booking;
                 currentBookingHolder[0] = booking; // Store for update action
 
                 if (booking != null) {
@@ -1059,15 +1085,12 @@ public class MainAppFrame extends JFrame {
                     currentGeneralFlightIdLabel.setText(String.valueOf(booking.getGeneralFlightId()));
                     updateFormPanel.add(currentGeneralFlightIdLabel, createGBC(1,y++));
 
-                    // Optionally display current seat info for the GeneralFlight
-                    try {
-                        GeneralFlight gf = generalFlightDAO.getGeneralFlightById(booking.getGeneralFlightId());
-                        if (gf != null) {
-                            currentSeatsBookedLabel.setText(gf.getSeatsBooked() + " / " + gf.getNumberSeats() + " seats");
-                            updateFormPanel.add(new JLabel("Current Sched. Seats:"), createLabelGBC(0,y));
-                            updateFormPanel.add(currentSeatsBookedLabel, createGBC(1,y++));
-                        }
-                    } catch (SQLException ignored) {}
+                    GeneralFlight gf = loaded.schedule;
+                    if (gf != null) {
+                        currentSeatsBookedLabel.setText(gf.getSeatsBooked() + " / " + gf.getNumberSeats() + " seats");
+                        updateFormPanel.add(new JLabel("Current Sched. Seats:"), createLabelGBC(0,y));
+                        updateFormPanel.add(currentSeatsBookedLabel, createGBC(1,y++));
+                    }
 
 
                     updateFormPanel.add(new JLabel("New State:"), createLabelGBC(0, y));
@@ -1085,10 +1108,10 @@ public class MainAppFrame extends JFrame {
                     oa("No booking found with Booking Number: " + bookingNumber);
                     JO("No booking found with Booking Number: " + bookingNumber, "Not Found", JOptionPane.INFORMATION_MESSAGE);
                 }
-            } catch (SQLException ex) {
+            }, ex -> {
                 hs("searching booking for update", ex);
                 updateFormPanel.setVisible(false);
-            }
+            });
         });
 
         updateStateButton.addActionListener(e -> {
@@ -1100,27 +1123,32 @@ public class MainAppFrame extends JFrame {
             String selectedStateStr = (String) newStateComboBox.getSelectedItem();
             int newState = Integer.parseInt(selectedStateStr.substring(0, selectedStateStr.indexOf(" ")));
 
-            try {
-                // The database trigger 'trg_booking_update_seats' handles seat adjustments.
-                if (bookingDAO.updateBookingState(bookingToUpdate.getBookingNumber(), newState)) {
+            // BookingDAO moves the seat with the state; the version refuses the change if another agent got there first
+            daoExecutor.submitOnce("update booking state", () -> bookingDAO.updateBookingState(
+                    bookingToUpdate.getBookingNumber(), bookingToUpdate.getVersion(), newState), updated -> {
+                if (updated) {
                     oa("Booking #" + bookingToUpdate.getBookingNumber() + " state updated successfully.");
                     updateFormPanel.setVisible(false); // Hide form after update
                     bookingNumberSearchField.setText(""); // Clear search field
                     // Optionally re-fetch and display the GeneralFlight seat info if needed
                 } else {
-                    // This might happen if state was already the same, or trigger prevented update
-                    oa("Booking #" + bookingToUpdate.getBookingNumber() + " state not changed (or update failed).");
+                    // Already in that state, or deleted meanwhile: nothing to change
+                    oa("Booking #" + bookingToUpdate.getBookingNumber() + " is already in that state (or no longer exists); nothing changed.");
                 }
-            } catch (SQLException ex) {
+            }, ex -> {
                  // Check for the specific trigger error (no seats on re-activation)
                 if (ex.getErrorCode() == 1644 && ex.getMessage() != null &&
                     ex.getMessage().toLowerCase().contains("no available seats")) {
                     JO("Update Failed: " + ex.getMessage(), "Seat Availability Error", JOptionPane.ERROR_MESSAGE);
                     oa("Update Failed: " + ex.getMessage());
+                } else if (ex.getErrorCode() == 1644 || "40001".equals(ex.getSQLState())) {
+                    // State change not allowed, or the booking was changed by another agent meanwhile
+                    JO("Update Failed: " + ex.getMessage(), "Booking Not Updated", JOptionPane.WARNING_MESSAGE);
+                    oa("Update Failed: " + ex.getMessage());
                 } else {
                     hs("updating booking state", ex);
                 }
-            }
+            });
         });
         return mainPanel;
     }
@@ -1131,15 +1159,18 @@ public class MainAppFrame extends JFrame {
         // --- Search Panel (North) ---
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JComboBox<FlightDisplayWrapper> flightSearchComboBox = new JComboBox<>(); // Use wrapper for better display
+        JTextField flightSearchField = new JTextField(12);
         JButton searchFlightButton = new JButton("Load Flight for Update");
         JButton refreshFlightsButton = new JButton("Refresh Flights List");
         searchPanel.add(new JLabel("Select Operational Flight:"));
-        searchPanel.add(flightSearchComboBox);
+        searchPanel.add(searchPicker(flightSearchField, flightSearchComboBox, "City, airport or flight ID"));
         searchPanel.add(refreshFlightsButton);
         searchPanel.add(searchFlightButton);
         mainPanel.add(searchPanel, BorderLayout.NORTH);
 
-        populateOperationalFlightComboBox(flightSearchComboBox); // Populate on init
+        TypeAhead flightSearch = new TypeAhead(flightSearchField, TYPE_AHEAD_DELAY_MS,
+                text -> populateOperationalFlightComboBox(flightSearchComboBox, text));
+        flightSearch.refresh(); // Populate on init
 
         // --- Update Form Panel (Center) - Initially hidden ---
         JPanel updateFormPanel = new JPanel(new GridBagLayout());
@@ -1155,7 +1186,7 @@ public class MainAppFrame extends JFrame {
         final JButton updateFlightButton = new JButton("Update Flight Details");
         final Flight[] currentFlightHolder = new Flight[1]; // To hold the fetched flight
 
-        refreshFlightsButton.addActionListener(e -> populateOperationalFlightComboBox(flightSearchComboBox));
+        refreshFlightsButton.addActionListener(e -> flightSearch.refresh());
 
         searchFlightButton.addActionListener(e -> {
             FlightDisplayWrapper selectedFlightWrapper = (FlightDisplayWrapper) flightSearchComboBox.getSelectedItem();
@@ -1228,64 +1259,91 @@ public class MainAppFrame extends JFrame {
             flightToUpdate.setArrivalDate(newArrival);
             flightToUpdate.setState(newState);
 
-            try {
-                if (flightDAO.updateFlightDatesAndState(flightToUpdate)) {
+            daoExecutor.submitOnce("update operational flight", () -> flightDAO.updateFlightDatesAndState(flightToUpdate), updated -> {
+                if (updated) {
                     oa("Flight Instance #" + flightToUpdate.getFlightId() + " updated successfully.");
                     updateFormPanel.setVisible(false); // Hide form
-                    // Refresh the ComboBox as flight details (like state) might have changed
-                    populateOperationalFlightComboBox(flightSearchComboBox); 
-                    flightSearchComboBox.setSelectedIndex(0); // Reset selection
+                    // Refresh the ComboBox as flight details (like state) might have changed; the first match is selected again
+                    flightSearch.refresh();
                 } else {
                     oa("Flight Instance #" + flightToUpdate.getFlightId() + " not updated (no changes or update failed).");
                 }
-            } catch (SQLException ex) {
-                hs("updating operational flight", ex);
-            }
+            }, ex -> hs("updating operational flight", ex));
         });
         return mainPanel;
     }
 
 
     // --- Helper methods to populate JComboBoxes ---
+    // Items are loaded (and display strings built) in the background; the EDT only swaps in the new model.
+    private <T> void fillComboBox(JComboBox<T> comboBox, String what, DaoExecutor.DaoTask<List<T>> loader) {
+        daoExecutor.submit("load " + what + "@" + System.identityHashCode(comboBox), loader,
+                items -> comboBox.setModel(new DefaultComboBoxModel<>(new Vector<>(items))),
+                ex -> hs("load " + what + " for ComboBox", ex));
+    }
     private void populateCityComboBox(JComboBox<City> comboBox) {
-        try {
+        fillComboBox(comboBox, "Cities", () -> {
             List<City> items = cityDAO.getAllCities();
-            comboBox.removeAllItems();
-            if (items.isEmpty()) { comboBox.addItem(new City(-1, "-- No Cities --")); }
-            else { for (City item : items) { comboBox.addItem(item); } }
-        } catch (SQLException e) { hs("load Cities for ComboBox", e); }
+            if (items.isEmpty()) { items.add(new City(-1, "-- No Cities --")); }
+            return items;
+        });
     }
     private void populateAirportComboBox(JComboBox<Airport> comboBox, String typePlaceholder) {
-        try {
+        fillComboBox(comboBox, "Airports", () -> {
             List<Airport> items = airportDAO.getAllAirports();
-            comboBox.removeAllItems();
-            if (items.isEmpty()) { comboBox.addItem(new Airport(-1, "-- No " + typePlaceholder + " Airports --", -1)); }
-            else { for (Airport item : items) { comboBox.addItem(item); } }
-        } catch (SQLException e) { hs("load Airports for ComboBox", e); }
+            if (items.isEmpty()) { items.add(new Airport(-1, "-- No " + typePlaceholder + " Airports --", -1)); }
+            return items;
+        });
     }
     private void populateAirlineComboBox(JComboBox<Airline> comboBox) {
-        try {
+        fillComboBox(comboBox, "Airlines", () -> {
             List<Airline> items = airlineDAO.getAllAirlines();
-            comboBox.removeAllItems();
-            if (items.isEmpty()) { comboBox.addItem(new Airline(-1, "-- No Airlines --")); }
-            else { for (Airline item : items) { comboBox.addItem(item); } }
-        } catch (SQLException e) { hs("load Airlines for ComboBox", e); }
+            if (items.isEmpty()) { items.add(new Airline(-1, "-- No Airlines --")); }
+            return items;
+        });
     }
     private void populateAircraftComboBox(JComboBox<Aircraft> comboBox) {
-        try {
+        fillComboBox(comboBox, "Aircraft", () -> {
             List<Aircraft> items = aircraftDAO.getAllAircraft();
-            comboBox.removeAllItems();
-            comboBox.addItem(new Aircraft(-1, "-- Select Aircraft (Optional) --")); // Default option
-            if (!items.isEmpty()) { for (Aircraft item : items) { comboBox.addItem(item); } }
-        } catch (SQLException e) { hs("load Aircraft for ComboBox", e); }
+            items.add(0, new Aircraft(-1, "-- Select Aircraft (Optional) --")); // Default option
+            return items;
+        });
     }
-    private void populateCustomerComboBox(JComboBox<Customer> comboBox) {
-        try {
-            List<Customer> items = customerDAO.getAllCustomers();
-            comboBox.removeAllItems();
-            if (items.isEmpty()) { comboBox.addItem(new Customer("-1", "-- No", "Customers --", "", "", "")); }
-            else { for (Customer item : items) { comboBox.addItem(item); } }
-        } catch (SQLException e) { hs("load Customers for ComboBox", e); }
+    // Search field to the left of the combo box it narrows, see TypeAhead
+    private static JPanel searchPicker(JTextField searchField, JComboBox<?> comboBox, String hint) {
+        searchField.setToolTipText("Type to search: " + hint);
+        JPanel picker = new JPanel(new BorderLayout(5, 0));
+        picker.add(searchField, BorderLayout.WEST);
+        picker.add(comboBox, BorderLayout.CENTER);
+        return picker;
+    }
+
+    // The combo box's paged model, installed on first use; the prototype sizes it without reading the items
+    private <T> PagedComboBoxModel<T> pagedComboBoxModel(JComboBox<T> comboBox, T prototype, String what) {
+        if (comboBox.getModel() instanceof PagedComboBoxModel) {
+            @SuppressWarnings("unchecked")
+            PagedComboBoxModel<T> existing = (PagedComboBoxModel<T>) comboBox.getModel();
+            return existing;
+        }
+        PagedComboBoxModel<T> model = new PagedComboBoxModel<>(daoExecutor, TYPE_AHEAD_MATCHES, MAX_CACHED_PAGES,
+                ex -> hs("load " + what + " for ComboBox", ex));
+        comboBox.setPrototypeDisplayValue(prototype);
+        comboBox.setModel(model);
+        return model;
+    }
+
+    // Customers matching the search text, by name or ID; more load as the popup scrolls
+    private void populateCustomerComboBox(JComboBox<Customer> comboBox, String search) {
+        pagedComboBoxModel(comboBox, new Customer("0000000000000", "Abdelkader", "Benmoussa-Larbi", "", "", ""), "Customers")
+                .load("load Customers@" + System.identityHashCode(comboBox), (pageSize, cursor) -> {
+                    Page<Customer> page = customerDAO.searchCustomers(search, pageSize, cursor);
+                    if (cursor != null || !page.getItems().isEmpty()) {
+                        return page;
+                    }
+                    List<Customer> none = new ArrayList<>();
+                    none.add(new Customer("-1", "-- No", search.isEmpty() ? "Customers --" : "Matching Customers --", "", "", ""));
+                    return new Page<>(none, null);
+                }, null);
     }
 
     // Wrapper class for GeneralFlight JComboBox display
@@ -1296,27 +1354,32 @@ public class MainAppFrame extends JFrame {
         @Override public String toString() { return displayString; }
     }
     private void populateGeneralFlightComboBox(JComboBox<GeneralFlightDisplayWrapper> comboBox) {
-        try {
+        fillComboBox(comboBox, "GeneralFlights", () -> {
             List<GeneralFlight> flights = generalFlightDAO.getAllGeneralFlights();
-            comboBox.removeAllItems();
+            List<GeneralFlightDisplayWrapper> items = new ArrayList<>();
             if (flights.isEmpty()) {
-                comboBox.addItem(new GeneralFlightDisplayWrapper(new GeneralFlight() {{ setGeneralFlightId(-1); }}, "-- No Schedules --"));
+                items.add(new GeneralFlightDisplayWrapper(new GeneralFlight() {{ setGeneralFlightId(-1); }}, "-- No Schedules --"));
             } else {
                 for (GeneralFlight gf : flights) {
-                    // Attempt to get names for display, fallback to IDs
-                    String depApName = "ID:"+gf.getDepAirportId(), arrApName = "ID:"+gf.getArrAirportId(), airlineName = "ID:"+gf.getAirlineId();
-                    try { Airport dep = airportDAO.getAirportById(gf.getDepAirportId()); if(dep!=null) depApName = dep.getAirportName(); } catch (SQLException ignored) {}
-                    try { Airport arr = airportDAO.getAirportById(gf.getArrAirportId()); if(arr!=null) arrApName = arr.getAirportName(); } catch (SQLException ignored) {}
-                    try { Airline al  = airlineDAO.getAirlineById(gf.getAirlineId());  if(al!=null)  airlineName = al.getAirlineName(); } catch (SQLException ignored) {}
-
-                    String display = String.format("GFID:%d (%s -> %s) by %s on %s @%s [%d/%d seats]",
-                            gf.getGeneralFlightId(), depApName, arrApName, airlineName,
-                            dateFormat.format(gf.getfDay()), timeFormatShort.format(gf.getTakeoffTime()),
-                            (gf.getNumberSeats() - gf.getSeatsBooked()), gf.getNumberSeats());
-                    comboBox.addItem(new GeneralFlightDisplayWrapper(gf, display));
+                    items.add(new GeneralFlightDisplayWrapper(gf, generalFlightDisplay(gf, airportDAO, airlineDAO)));
                 }
             }
-        } catch (SQLException e) { hs("load GeneralFlights for ComboBox", e); }
+            return items;
+        });
+    }
+
+    // Combo box text for a schedule; package-private and static so the JMH benchmarks can time it
+    static String generalFlightDisplay(GeneralFlight gf, AirportDAO airportDAO, AirlineDAO airlineDAO) {
+        // Attempt to get names for display, fallback to IDs
+        String depApName = "ID:"+gf.getDepAirportId(), arrApName = "ID:"+gf.getArrAirportId(), airlineName = "ID:"+gf.getAirlineId();
+        try { Airport dep = airportDAO.getAirportById(gf.getDepAirportId()); if(dep!=null) depApName = dep.getAirportName(); } catch (SQLException ignored) {}
+        try { Airport arr = airportDAO.getAirportById(gf.getArrAirportId()); if(arr!=null) arrApName = arr.getAirportName(); } catch (SQLException ignored) {}
+        try { Airline al  = airlineDAO.getAirlineById(gf.getAirlineId());  if(al!=null)  airlineName = al.getAirlineName(); } catch (SQLException ignored) {}
+
+        return String.format("GFID:%d (%s -> %s) by %s on %s @%s [%d/%d seats]",
+                gf.getGeneralFlightId(), depApName, arrApName, airlineName,
+                gf.getfDay(), shortTime(gf.getTakeoffTime()),
+                (gf.getNumberSeats() - gf.getSeatsBooked()), gf.getNumberSeats());
     }
 
     // Wrapper class for Operational Flight JComboBox display
@@ -1326,40 +1389,40 @@ public class MainAppFrame extends JFrame {
         public Flight getFlight() { return flight; }
         @Override public String toString() { return displayString; }
     }
-    private void populateOperationalFlightComboBox(JComboBox<FlightDisplayWrapper> comboBox) {
-        try {
-            List<Flight> flights = flightDAO.getAllFlights(); // Get all flights
-            comboBox.removeAllItems();
-            boolean addedBookable = false;
-            if (flights.isEmpty()) {
-                 comboBox.addItem(new FlightDisplayWrapper(new Flight() {{ setFlightId(-1); }}, "-- No Operational Flights --"));
-            } else {
-                for (Flight f : flights) {
-                    // Only show flights that are Scheduled or InProgress AND have available seats
-                    if (f.getState() == 0 || f.getState() == 1) {
-                        GeneralFlight gf = null;
-                        try { gf = generalFlightDAO.getGeneralFlightById(f.getGeneralFlightId()); } catch (SQLException ignored) {}
-
-                        if (gf != null && (gf.getNumberSeats() - gf.getSeatsBooked() > 0)) {
-                            String depApName = "GFID:"+f.getGeneralFlightId(), arrApName = "";
-                             try { Airport dep = airportDAO.getAirportById(gf.getDepAirportId()); if(dep!=null) depApName = dep.getAirportName(); } catch (SQLException ignored) {}
-                             try { Airport arr = airportDAO.getAirportById(gf.getArrAirportId()); if(arr!=null) arrApName = arr.getAirportName(); } catch (SQLException ignored) {}
-
-                            String display = String.format("FID:%d (%s -> %s) on %s [%s] Seats Left:%d",
-                                    f.getFlightId(), depApName, arrApName, dateFormat.format(f.getTakeOffDate()),
-                                    f.getStateString(), (gf.getNumberSeats() - gf.getSeatsBooked()));
-                            comboBox.addItem(new FlightDisplayWrapper(f, display));
-                            addedBookable = true;
-                        }
+
+    // Bookable flights (Scheduled or In Progress, seats left) matching the search text; more load as the popup scrolls
+    private void populateOperationalFlightComboBox(JComboBox<FlightDisplayWrapper> comboBox, String search) {
+        FlightDisplayWrapper prototype = new FlightDisplayWrapper(null,
+                "FID:00000 (Houari Boumediene Airport -> Charles de Gaulle Airport) on 2024-01-01 [In Progress] Seats Left:000");
+        pagedComboBoxModel(comboBox, prototype, "OperationalFlights")
+                .load("load OperationalFlights@" + System.identityHashCode(comboBox), (pageSize, cursor) -> {
+                    Page<OperationalFlightSearchResult> page = flightDAO.listBookableFlights(search, pageSize, cursor);
+                    List<FlightDisplayWrapper> items = new ArrayList<>(page.getItems().size());
+                    for (OperationalFlightSearchResult f : page.getItems()) {
+                        Flight flight = new Flight(f.getFlightId(), f.getTakeOffDate(), f.getArrivalDate(), f.getState(), f.getGeneralFlightId(), null);
+                        String display = String.format("FID:%d (%s -> %s) on %s [%s] Seats Left:%d",
+                                f.getFlightId(), f.getDepartureAirport(), f.getArrivalAirport(), f.getTakeOffDate(),
+                                f.getStateString(), f.getSeatsLeft());
+                        items.add(new FlightDisplayWrapper(flight, display));
                     }
-                }
-                 if (!addedBookable && !flights.isEmpty()) { // if flights exist but none are bookable
-                    comboBox.addItem(new FlightDisplayWrapper(new Flight() {{ setFlightId(-1); }}, "-- No Bookable Flights Available --"));
-                } else if (flights.isEmpty()){ // Should be caught by first if, but for safety
-                    comboBox.addItem(new FlightDisplayWrapper(new Flight() {{ setFlightId(-1); }}, "-- No Operational Flights --"));
-                }
-            }
-        } catch (SQLException e) { hs("load OperationalFlights for ComboBox", e); }
+                    if (cursor == null && items.isEmpty()) {
+                        items.add(new FlightDisplayWrapper(new Flight() {{ setFlightId(-1); }},
+                                search.isEmpty() ? "-- No Bookable Flights Available --" : "-- No Matching Bookable Flights --"));
+                    }
+                    return new Page<>(items, page.getNextCursor());
+                }, null);
+    }
+
+    private static String foundMessage(PageCache<?> loaded, String what, String none) {
+        if (loaded.size() == 0) return none;
+        return loaded.isComplete() ? loaded.size() + " " + what + " found."
+                : "More than " + loaded.size() + " " + what + " found; the rest load as you scroll.";
+    }
+
+    // Holder for the update-booking search, which loads both in one background task
+    private static class BookingWithSchedule {
+        final Booking booking; final GeneralFlight schedule;
+        BookingWithSchedule(Booking booking, GeneralFlight schedule) { this.booking = booking; this.schedule = schedule; }
     }
 
 
@@ -1386,6 +1449,9 @@ public class MainAppFrame extends JFrame {
             }
         }
     }
+    private static String shortTime(Time time) { // HH:MM without SimpleDateFormat, safe off the EDT
+        return time == null ? "" : time.toString().substring(0, 5);
+    }
     private void cf(JTextComponent... components) { // Clear Fields
         for (JTextComponent component : components) { if (component != null) component.setText(""); }
     }
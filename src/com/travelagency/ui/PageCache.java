@@ -0,0 +1,159 @@
+package com.travelagency.ui;
+
+import com.travelagency.model.dto.Page;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Rows of a keyset-paginated listing, fetched a page at a time as a table or combo box
+ * asks for them. Backs {@link PagedTableModel} and {@link PagedComboBoxModel}.
+ * <p>
+ * Only the last {@code maxPages} pages used are kept (LRU); the others are fetched
+ * again from their cursor when scrolled back to, so memory does not grow with the
+ * result. Keyset pages cannot be jumped to, so the size grows as the user scrolls:
+ * once a row in the second half of the last known page is shown, the next page is
+ * fetched in the background. Pages load through {@link DaoExecutor}; everything else
+ * runs on the EDT, so there is no locking.
+ */
+final class PageCache<T> {
+
+    /** Fetches one page; the DAO {@code list*}/search methods taking (pageSize, cursor) fit. */
+    @FunctionalInterface
+    interface PageSource<T> {
+        Page<T> fetch(int pageSize, String cursor) throws SQLException;
+    }
+
+    /** Told about row changes on the EDT, to fire the model's own events. */
+    interface Listener {
+        void rowsAdded(int first, int last);
+        void rowsLoaded(int first, int last);
+        void cleared(int oldSize);
+    }
+
+    private final DaoExecutor daoExecutor;
+    private final int pageSize;
+    private final Listener listener;
+    private final Consumer<SQLException> onError;
+    private final Map<Integer, List<T>> pages;
+    private final List<String> cursors = new ArrayList<>(); // cursors.get(p) loads page p; null for page 0
+    private final Set<Integer> loading = new HashSet<>();
+
+    private String action = "load page";
+    private PageSource<T> source;
+    private Consumer<PageCache<T>> onFirstPage;
+    private int generation;  // Results of an older source are dropped
+    private int size;        // Rows of the pages found so far
+    private boolean complete;
+
+    PageCache(DaoExecutor daoExecutor, int pageSize, int maxPages, Listener listener, Consumer<SQLException> onError) {
+        this.daoExecutor = daoExecutor;
+        this.pageSize = pageSize;
+        this.listener = listener;
+        this.onError = onError;
+        this.pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Drops all rows and starts over with {@code source}. {@code action} names the page
+     * loads in the status bar and JFR; {@code onFirstPage} runs once the first page is in.
+     */
+    void reset(String action, PageSource<T> source, Consumer<PageCache<T>> onFirstPage) {
+        int oldSize = size;
+        generation++;
+        pages.clear();
+        cursors.clear();
+        loading.clear();
+        size = 0;
+        complete = false;
+        this.action = action;
+        this.source = source;
+        this.onFirstPage = onFirstPage;
+        listener.cleared(oldSize);
+        cursors.add(null);
+        load(0);
+    }
+
+    /** The row, or null while its page is being fetched. */
+    T get(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        int page = index / pageSize;
+        List<T> rows = pages.get(page);
+        if (index % pageSize >= pageSize / 2) {
+            load(page + 1); // Prefetch the next page, usually needed soon
+        }
+        if (rows == null) {
+            load(page);
+            return null;
+        }
+        int offset = index % pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** True once the last page has been fetched, i.e. {@link #size()} is the total. */
+    boolean isComplete() {
+        return complete;
+    }
+
+    private void load(int page) {
+        if (source == null || page >= cursors.size() || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+        int gen = generation;
+        PageSource<T> from = source;
+        String cursor = cursors.get(page);
+        daoExecutor.submit(action + "@" + System.identityHashCode(this) + "#" + page,
+                () -> from.fetch(pageSize, cursor),
+                result -> loaded(gen, page, result),
+                e -> {
+                    if (gen == generation) {
+                        loading.remove(page);
+                        onError.accept(e);
+                    }
+                });
+    }
+
+    private void loaded(int gen, int page, Page<T> result) {
+        if (gen != generation) {
+            return;
+        }
+        loading.remove(page);
+        List<T> rows = result.getItems();
+        pages.put(page, rows);
+        int first = page * pageSize;
+        if (page == cursors.size() - 1 && !complete) {
+            // A new page: its rows become visible and the following page can be found
+            size = first + rows.size();
+            if (result.hasNext() && !rows.isEmpty()) {
+                cursors.add(result.getNextCursor());
+            } else {
+                complete = true;
+            }
+            if (!rows.isEmpty()) {
+                listener.rowsAdded(first, size - 1);
+            }
+            if (page == 0 && onFirstPage != null) {
+                onFirstPage.accept(this);
+            }
+        } else if (!rows.isEmpty()) {
+            listener.rowsLoaded(first, Math.min(first + rows.size(), size) - 1); // Fetched again after eviction
+        }
+    }
+}
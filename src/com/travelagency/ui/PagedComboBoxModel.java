@@ -0,0 +1,64 @@
+package com.travelagency.ui;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Combo box model over a keyset-paginated listing; the popup list fetches pages as it is
+ * scrolled (see {@link PageCache}). The combo box must have a prototype display value,
+ * otherwise Swing sizes it by reading every element. The first row is selected once the
+ * first page is in.
+ */
+class PagedComboBoxModel<T> extends AbstractListModel<T> implements ComboBoxModel<T> {
+
+    private final PageCache<T> cache;
+    private Object selected;
+
+    PagedComboBoxModel(DaoExecutor daoExecutor, int pageSize, int maxPages, Consumer<SQLException> onError) {
+        this.cache = new PageCache<>(daoExecutor, pageSize, maxPages, new PageCache.Listener() {
+            @Override public void rowsAdded(int first, int last) { fireIntervalAdded(PagedComboBoxModel.this, first, last); }
+            @Override public void rowsLoaded(int first, int last) { fireContentsChanged(PagedComboBoxModel.this, first, last); }
+            @Override public void cleared(int oldSize) {
+                if (oldSize > 0) fireIntervalRemoved(PagedComboBoxModel.this, 0, oldSize - 1);
+            }
+        }, onError);
+    }
+
+    /** Replaces the items with the result of {@code source}, loading its first page now. */
+    void load(String action, PageCache.PageSource<T> source, Consumer<PageCache<T>> onFirstPage) {
+        setSelectedItem(null);
+        cache.reset(action, source, loaded -> {
+            if (selected == null && loaded.size() > 0) {
+                setSelectedItem(loaded.get(0));
+            }
+            if (onFirstPage != null) {
+                onFirstPage.accept(loaded);
+            }
+        });
+    }
+
+    @Override
+    public int getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        return cache.get(index);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if (selected == null ? item != null : !selected.equals(item)) {
+            selected = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+}
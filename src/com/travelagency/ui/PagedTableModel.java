@@ -0,0 +1,69 @@
+package com.travelagency.ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Read-only table model over a keyset-paginated search: rows are fetched page by page
+ * as the table paints them (see {@link PageCache}), instead of building a
+ * {@code DefaultTableModel} with every row up front. A row whose page is still loading
+ * shows "Loading..." in its first column.
+ */
+class PagedTableModel<T> extends AbstractTableModel {
+
+    /** Value of one cell; called on the EDT for visible rows only. */
+    @FunctionalInterface
+    interface CellValue<T> {
+        Object get(T row, int column);
+    }
+
+    private final String[] columnNames;
+    private final CellValue<T> cellValue;
+    private final PageCache<T> cache;
+
+    PagedTableModel(String[] columnNames, CellValue<T> cellValue, DaoExecutor daoExecutor,
+                    int pageSize, int maxPages, Consumer<SQLException> onError) {
+        this.columnNames = columnNames.clone();
+        this.cellValue = cellValue;
+        this.cache = new PageCache<>(daoExecutor, pageSize, maxPages, new PageCache.Listener() {
+            @Override public void rowsAdded(int first, int last) { fireTableRowsInserted(first, last); }
+            @Override public void rowsLoaded(int first, int last) { fireTableRowsUpdated(first, last); }
+            @Override public void cleared(int oldSize) { fireTableDataChanged(); }
+        }, onError);
+    }
+
+    /** Replaces the rows with the result of {@code source}, loading its first page now. */
+    void load(String action, PageCache.PageSource<T> source, Consumer<PageCache<T>> onFirstPage) {
+        cache.reset(action, source, onFirstPage);
+    }
+
+    /** The row object, or null while its page is loading. */
+    T getRow(int rowIndex) {
+        return cache.get(rowIndex);
+    }
+
+    @Override
+    public int getRowCount() {
+        return cache.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = cache.get(rowIndex);
+        if (row == null) {
+            return columnIndex == 0 ? "Loading..." : null;
+        }
+        return cellValue.get(row, columnIndex);
+    }
+}
@@ -0,0 +1,51 @@
+package com.travelagency.ui;
+
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.function.Consumer;
+
+/**
+ * Debounced type-ahead for a search field next to a picker: the search runs once typing
+ * pauses for {@code delayMillis}, or at once on Enter, instead of on every keystroke.
+ * <p>
+ * The search itself is expected to go through {@link DaoExecutor#submit} under one key
+ * per picker (e.g. {@link PagedComboBoxModel#load}), so a search still running when the
+ * next one starts is cancelled and its late result dropped. Runs on the EDT only.
+ */
+final class TypeAhead {
+
+    private final JTextField field;
+    private final Consumer<String> search;
+    private final Timer timer;
+    private String lastSearched;
+
+    /** {@code search} receives the trimmed text of {@code field}. */
+    TypeAhead(JTextField field, int delayMillis, Consumer<String> search) {
+        this.field = field;
+        this.search = search;
+        this.timer = new Timer(delayMillis, e -> searchIfChanged());
+        this.timer.setRepeats(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { timer.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { timer.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        });
+        field.addActionListener(e -> refresh());
+    }
+
+    /** Runs the search for the current text now, even if it was already searched (refresh buttons). */
+    void refresh() {
+        timer.stop();
+        lastSearched = field.getText().trim();
+        search.accept(lastSearched);
+    }
+
+    // Typing then deleting back to the same text, or adding spaces, does not query again
+    private void searchIfChanged() {
+        if (!field.getText().trim().equals(lastSearched)) {
+            refresh();
+        }
+    }
+}
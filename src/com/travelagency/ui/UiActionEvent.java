@@ -0,0 +1,44 @@
+package com.travelagency.ui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one {@link MainAppFrame} action, from the click (the task being
+ * submitted to {@link DaoExecutor}) until its result has been shown on the EDT.
+ * The SQL events of the action are on the worker thread inside the same time span.
+ */
+@Name("com.travelagency.UiAction")
+@Label("UI Action")
+@Category({"Travel Agency", "UI"})
+@Description("A button action, from click until the result is shown")
+@StackTrace(false) // Always committed from DaoExecutor on the EDT
+final class UiActionEvent extends Event {
+
+    @Label("Action")
+    String action;
+
+    @Label("Outcome")
+    @Description("ok, error or cancelled")
+    String outcome;
+
+    @Label("Queue Time")
+    @Description("From the click until a worker thread started the DAO call")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueTime;
+
+    @Label("Database Time")
+    @Description("The DAO call on the worker thread")
+    @Timespan(Timespan.NANOSECONDS)
+    long workTime;
+
+    @Label("Display Time")
+    @Description("Showing the result on the EDT, e.g. filling a table")
+    @Timespan(Timespan.NANOSECONDS)
+    long displayTime;
+}
@@ -0,0 +1,147 @@
+package com.travelagency.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram with HdrHistogram-style log-linear buckets.
+ * <p>
+ * Values below 128 are counted exactly; above that every power of two is split into 64
+ * buckets, so a recorded value is known to within about 1.6% whatever its magnitude,
+ * and the whole {@code long} range fits in under 4,000 counters. Recording is one atomic
+ * increment, so many threads can share one histogram. Percentiles report the top of the
+ * bucket (never below the real value). Units are whatever the caller records;
+ * the load tools use nanoseconds.
+ * <p>
+ * For interval reporting, take a {@link #copy()} periodically and subtract the previous
+ * one with {@link #minus(LatencyHistogram)}.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;      // 128
+    private static final int HALF = SUB_BUCKETS >> 1;                  // 64
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * HALF + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // Retry until max is at least value
+        }
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    // Largest value that falls in the bucket
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long sub = index % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /** Value at the given percentile (0..100); 0 when nothing was recorded. */
+    public long getValueAtPercentile(double percentile) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /** Point-in-time copy (each counter is read atomically, the set of counters is not). */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            copy.counts.set(i, counts.get(i));
+        }
+        copy.total.set(total.get());
+        copy.sum.set(sum.get());
+        copy.max.set(max.get());
+        return copy;
+    }
+
+    /**
+     * Values recorded since {@code earlier}, a copy of this histogram. The maximum of the
+     * difference is the top of its highest non-empty bucket.
+     */
+    public LatencyHistogram minus(LatencyHistogram earlier) {
+        LatencyHistogram diff = new LatencyHistogram();
+        long n = 0;
+        int highest = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i) - earlier.counts.get(i);
+            if (c > 0) {
+                diff.counts.set(i, c);
+                n += c;
+                highest = i;
+            }
+        }
+        diff.total.set(n);
+        diff.sum.set(sum.get() - earlier.sum.get());
+        diff.max.set(highest < 0 ? 0 : Math.min(highestValue(highest), max.get()));
+        return diff;
+    }
+
+    /** Adds every value recorded in {@code other} to this histogram. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        total.addAndGet(other.total.get());
+        sum.addAndGet(other.sum.get());
+        long otherMax = other.max.get();
+        long m;
+        while (otherMax > (m = max.get()) && !max.compareAndSet(m, otherMax)) {
+            // Retry until max is at least otherMax
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.travelagency.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread helpers shared by the background services.
+ * <p>
+ * {@link #newPerTaskExecutor(String)} uses a virtual thread per task when the JVM
+ * supports them (JDK 21+) and falls back to a cached pool of daemon threads on
+ * older JDKs, so the code compiles and runs on both.
+ */
+public final class Threads {
+
+    private Threads() {}
+
+    public static ExecutorService newPerTaskExecutor(String namePrefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory(), looked up through the public Thread.Builder type
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(daemonFactory(namePrefix));
+        }
+    }
+
+    public static ThreadFactory daemonFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, namePrefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
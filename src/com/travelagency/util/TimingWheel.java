@@ -0,0 +1,171 @@
+package com.travelagency.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck) for large numbers of deadlines: scheduling
+ * and cancelling are O(1), and {@link #advance} costs one step per elapsed tick plus the
+ * entries that fall due, however many are waiting.
+ * <p>
+ * Level 0 has {@code 2^bits} slots of one tick each; each further level has as many
+ * slots, each as wide as the whole level below. An entry goes into the lowest level that
+ * reaches its deadline, and moves down a level (cascades) when the clock reaches its
+ * slot, so it fires within one tick after its deadline. Deadlines beyond the top level
+ * wait in its farthest slot and are placed again when it cascades.
+ * <p>
+ * Not thread-safe; the owner locks around every call (see {@code SeatHoldService}).
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final Bucket<T>[][] levels;
+    private long currentTick; // Last tick processed
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int bits, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || bits < 1 || levelCount < 1 || (long) bits * levelCount > 62) {
+            throw new IllegalArgumentException("Bad timing wheel shape: tick " + tickMillis + " ms, "
+                    + bits + " bits x " + levelCount + " levels");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = (Bucket<T>[][]) new Bucket<?>[levelCount][1 << bits];
+        for (Bucket<T>[] level : levels) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Bucket<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /** Schedules {@code value} to fire at {@code deadlineMillis}; a past deadline fires on the next tick. */
+    public Timeout<T> schedule(T value, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(value, deadlineMillis, Math.max(ceilTick(deadlineMillis), currentTick + 1));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /** @return false if it had already fired or been cancelled */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /** Processes every tick up to {@code nowMillis}, handing each entry that falls due to {@code expired}. */
+    public void advance(long nowMillis, Consumer<? super T> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            long tick = ++currentTick;
+            // Pull down the higher-level slots that start at this tick, the highest first
+            int level = 1;
+            while (level < levels.length && (tick & ((1L << (bits * level)) - 1)) == 0) {
+                level++;
+            }
+            for (int l = level - 1; l >= 1; l--) {
+                cascade(levels[l][(int) (tick >>> (bits * l)) & mask]);
+            }
+            Bucket<T> due = levels[0][(int) tick & mask];
+            Timeout<T> t;
+            while ((t = due.poll()) != null) {
+                size--;
+                expired.accept(t.value);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void cascade(Bucket<T> bucket) {
+        Timeout<T> t;
+        while ((t = bucket.poll()) != null) {
+            place(t);
+        }
+    }
+
+    private void place(Timeout<T> t) {
+        long delta = t.deadlineTick - currentTick; // 0 only while cascading: due this tick
+        int level = 0;
+        while (level < levels.length - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        long slotTick = t.deadlineTick;
+        long top = 1L << (bits * levels.length);
+        if (delta >= top) {
+            slotTick = currentTick + top - 1; // Past the top level: park in its farthest slot
+        }
+        levels[level][(int) (slotTick >>> (bits * level)) & mask].add(t);
+    }
+
+    private long ceilTick(long millis) {
+        return (millis + tickMillis - 1) / tickMillis;
+    }
+
+    /** A scheduled entry; pass it to {@link #cancel} to remove it. */
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private Bucket<T> bucket;
+        private Timeout<T> prev, next;
+
+        private Timeout(T value, long deadlineMillis, long deadlineTick) {
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getValue() { return value; }
+        public long getDeadlineMillis() { return deadlineMillis; }
+    }
+
+    // Doubly linked list of entries, so an entry is removed in O(1)
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+
+        void add(Timeout<T> t) {
+            t.bucket = this;
+            t.prev = null;
+            t.next = head;
+            if (head != null) {
+                head.prev = t;
+            }
+            head = t;
+        }
+
+        void remove(Timeout<T> t) {
+            if (t.prev != null) {
+                t.prev.next = t.next;
+            } else {
+                head = t.next;
+            }
+            if (t.next != null) {
+                t.next.prev = t.prev;
+            }
+            t.bucket = null;
+            t.prev = t.next = null;
+        }
+
+        Timeout<T> poll() {
+            Timeout<T> t = head;
+            if (t != null) {
+                remove(t);
+            }
+            return t;
+        }
+    }
+}